@@ -0,0 +1,86 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Animal;
+import com.sandbox.service.CostReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service methods that go through every item or action, or every one of an {@code ItemClass}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AggregationBenchmark {
+    @Benchmark
+    public Set<Item> getAllItems(final PopulatedService service) {
+        return service.itemActionService.getAllItems();
+    }
+
+    @Benchmark
+    public Set<Action> getAllActions(final PopulatedService service) {
+        return service.itemActionService.getAllActions();
+    }
+
+    @Benchmark
+    public Set<String> getItemIdsOfType(final PopulatedService service) {
+        return service.itemActionService.getItemIdsOfType(ItemClass.BOX);
+    }
+
+    @Benchmark
+    public Set<Item> getItemsOfParentClass(final PopulatedService service) {
+        return service.itemActionService.getItemsOfParentClass(Animal.class);
+    }
+
+    @Benchmark
+    public List<Action> getActionsOnItemTypeSortedByPerformedDate(final PopulatedService service) {
+        return service.itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.BALL);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getItemIdsWithTotalActionCost(final PopulatedService service) {
+        return service.itemActionService.getItemIdsWithTotalActionCost();
+    }
+
+    @Benchmark
+    public Map<String, Integer> getItemIdsWithTotalActionCostByItemType(final PopulatedService service) {
+        return service.itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.BOX);
+    }
+
+    @Benchmark
+    public Map<Item, Integer> getItemsWithHighestTotalActionCostByItemType(final PopulatedService service) {
+        return service.itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.BOX);
+    }
+
+    @Benchmark
+    public Map<Class<? extends Item>, Set<Item>> getItemsPartitionedByClass(final PopulatedService service) {
+        return service.itemActionService.getItemsPartitionedByClass(ItemClass.BALL, ItemClass.DOG);
+    }
+
+    @Benchmark
+    public CostReport aggregateActionCosts(final PopulatedService service) {
+        return service.itemActionService.aggregateActionCosts(action -> action.getCost() != null);
+    }
+
+    @Benchmark
+    public CostReport aggregateActionCostsInParallel(final PopulatedService service) {
+        return service.itemActionService.aggregateActionCosts(action -> action.getCost() != null,
+                ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,96 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.store.ActionStore;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Reproducible data for the benchmarks. The same seed always gives the same items, in the same order, and the same
+ * actions on them, so that runs on different machines or commits measure the same work.
+ * <p>
+ * Items are {@code Ball}s, {@code Box}es and {@code Dog}s in turn. Actions are spread uniformly over the items and
+ * performed one second apart from {@link #START}.
+ */
+public final class BenchmarkData {
+    public static final long SEED = 42;
+    public static final Instant START = Instant.parse("2021-01-01T00:00:00Z");
+
+    private static final String[] COLORS = {"Red", "Green", "Blue", "Brown"};
+    private static final String[] DESCRIPTIONS = {"Throw", "Kick", "Open", "Close", "Walk", "Feed"};
+
+    private final Random random;
+
+    public BenchmarkData() {
+        this(SEED);
+    }
+
+    public BenchmarkData(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static ActionStore newStore(final String store) {
+        switch (store) {
+            case "object":
+                return new ObjectActionStore();
+            case "columnar":
+                return new ColumnarActionStore();
+            default:
+                throw new IllegalArgumentException("Unknown action store " + store + ".");
+        }
+    }
+
+    public Item item(final String prefix, final int index) {
+        final String color = COLORS[random.nextInt(COLORS.length)];
+        switch (index % 3) {
+            case 0:
+                return new Ball(prefix + "Ball" + index, color, 0.5 + random.nextDouble() * 10);
+            case 1:
+                return new Box(prefix + "Box" + index, color,
+                        1.0 + random.nextInt(10), 1.0 + random.nextInt(10), 1.0 + random.nextInt(10));
+            default:
+                return new Dog(prefix + "Dog" + index);
+        }
+    }
+
+    public List<Item> items(final int count) {
+        final List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item("", i));
+        }
+        return items;
+    }
+
+    public String description() {
+        return DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+    }
+
+    public int cost() {
+        return random.nextInt(100);
+    }
+
+    /**
+     * Registers {@code items} and {@code actions} generated actions on them.
+     *
+     * @return IDs of the registered actions, in registration order
+     */
+    public UUID[] populate(final ItemActionService itemActionService, final List<Item> items, final int actions) {
+        items.forEach(itemActionService::registerItem);
+        final UUID[] actionIds = new UUID[actions];
+        for (int i = 0; i < actions; i++) {
+            final Item item = items.get(random.nextInt(items.size()));
+            actionIds[i] = itemActionService.registerActionOnItem(item.getId(), description(), cost(), START.plusSeconds(i));
+        }
+        return actionIds;
+    }
+}
@@ -0,0 +1,48 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.RollupGranularity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacting the older half of the actions of a service populated like {@link PopulatedService} into daily
+ * summaries. Compaction removes the actions, so every iteration compacts a newly populated service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CompactionBenchmark {
+    private ItemActionService itemActionService;
+
+    @Setup(Level.Iteration)
+    public void populate(final PopulatedService service) {
+        final BenchmarkData data = new BenchmarkData();
+        final List<Item> items = data.items(service.items);
+        itemActionService = new ItemActionService(BenchmarkData.newStore(service.store));
+        data.populate(itemActionService, items, service.actions);
+    }
+
+    @Benchmark
+    public int compactActionsBefore(final PopulatedService service) throws IOException {
+        return itemActionService.compactActionsBefore(BenchmarkData.START.plusSeconds(service.actions / 2),
+                RollupGranularity.DAY, null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.service.ItemActionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code registerActionOnItem(...)} on a few items from one thread up to one per core, every thread
+ * contending for the same items and indexes. Comparing the thread counts shows how registration scales with cores.
+ * What is registered stays registered for the rest of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ContentionBenchmark {
+    private static final int ITEMS = 64;
+
+    @Param({"object", "columnar"})
+    public String store;
+
+    private ItemActionService itemActionService;
+    private String[] itemIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemActionService = new ItemActionService(BenchmarkData.newStore(store));
+        itemIds = new String[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            final Dog dog = new Dog("Dog" + i);
+            itemActionService.registerItem(dog);
+            itemIds[i] = dog.getId();
+        }
+    }
+
+    /**
+     * Item and performed date of each thread's next registration, starting at a different item on every thread.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+        private int itemCursor = ThreadLocalRandom.current().nextInt(ITEMS);
+        private long performedSeconds;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID oneThread(final Writer writer) {
+        return this.register(writer);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public UUID twoThreads(final Writer writer) {
+        return this.register(writer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID fourThreads(final Writer writer) {
+        return this.register(writer);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public UUID threadPerCore(final Writer writer) {
+        return this.register(writer);
+    }
+
+    private UUID register(final Writer writer) {
+        writer.itemCursor = (writer.itemCursor + 1) % ITEMS;
+        return itemActionService.registerActionOnItem(itemIds[writer.itemCursor], "Walk", 1,
+                BenchmarkData.START.plusSeconds(writer.performedSeconds++));
+    }
+}
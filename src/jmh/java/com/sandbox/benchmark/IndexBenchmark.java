@@ -0,0 +1,88 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.ActionSummary;
+import com.sandbox.service.DescriptionQuery;
+import com.sandbox.service.RollupGranularity;
+import com.sandbox.service.SolidAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service methods answered from the optional indexes and rollups, and from the summaries of compacted actions.
+ * <p>
+ * Keys and windows are taken in a fixed stride, per thread, like those of {@link LookupBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IndexBenchmark {
+    private static final DescriptionQuery DESCRIPTION = DescriptionQuery.allOf("Walk");
+
+    private int itemCursor;
+    private int windowCursor;
+
+    @Benchmark
+    public List<Action> getActionsByDescription(final IndexedService service) {
+        // One hour of the uncompacted actions.
+        final Instant from = this.nextWindow(service);
+        return service.itemActionService.getActionsByDescription(ItemClass.DOG, DESCRIPTION, from,
+                from.plusSeconds(3_600));
+    }
+
+    @Benchmark
+    public List<Solid> getSolidsBetween(final IndexedService service) {
+        return service.itemActionService.getSolidsBetween(ItemClass.BALL, "Red", SolidAttribute.RADIUS, 2, 3);
+    }
+
+    @Benchmark
+    public List<Solid> getSolidsOfColor(final IndexedService service) {
+        return service.itemActionService.getSolidsOfColor(ItemClass.BOX, "Blue");
+    }
+
+    @Benchmark
+    public SortedMap<Instant, Long> getActionCostOfItemTypeBetween(final IndexedService service) {
+        // One day of hourly buckets.
+        final Instant from = this.nextWindow(service);
+        return service.itemActionService.getActionCostOfItemTypeBetween(ItemClass.BALL, RollupGranularity.HOUR, from,
+                from.plusSeconds(86_400));
+    }
+
+    @Benchmark
+    public SortedMap<Instant, Long> getActionCostOfItemBetween(final IndexedService service) {
+        return service.itemActionService.getActionCostOfItemBetween(this.nextItemId(service), RollupGranularity.DAY,
+                BenchmarkData.START, BenchmarkData.START.plusSeconds(service.actions));
+    }
+
+    @Benchmark
+    public List<ActionSummary> getActionSummariesOfItem(final IndexedService service) {
+        return service.itemActionService.getActionSummariesOfItem(this.nextItemId(service));
+    }
+
+    private String nextItemId(final IndexedService service) {
+        itemCursor = (itemCursor + 7_919) % service.itemIds.length;
+        return service.itemIds[itemCursor];
+    }
+
+    private Instant nextWindow(final IndexedService service) {
+        windowCursor = (windowCursor + 104_729) % service.actions;
+        return BenchmarkData.START.plusSeconds(service.actions / 4 + windowCursor * 3L / 4);
+    }
+}
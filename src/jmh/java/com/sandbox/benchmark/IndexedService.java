@@ -0,0 +1,40 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.service.RollupGranularity;
+import com.sandbox.service.ServiceOptions;
+import com.sandbox.service.SolidAttribute;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+
+/**
+ * {@link PopulatedService} with the description index, solid indexes and cost rollups on, and with the oldest quarter
+ * of its actions compacted into daily summaries.
+ */
+@State(Scope.Benchmark)
+public class IndexedService extends PopulatedService {
+    @Override
+    public void populate() {
+        super.populate();
+        try {
+            itemActionService.compactActionsBefore(BenchmarkData.START.plusSeconds(actions / 4), RollupGranularity.DAY,
+                    null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected ServiceOptions options() {
+        return ServiceOptions.defaults()
+                .withDescriptionIndex(true)
+                .withSolidIndex(ItemClass.BALL, SolidAttribute.RADIUS, SolidAttribute.VOLUME)
+                .withSolidIndex(ItemClass.BOX, SolidAttribute.VOLUME)
+                .withRollups(EnumSet.of(RollupGranularity.HOUR, RollupGranularity.DAY),
+                        EnumSet.of(RollupGranularity.DAY));
+    }
+}
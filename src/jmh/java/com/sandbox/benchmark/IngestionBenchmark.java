@@ -0,0 +1,63 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.service.ActionIngester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Submitting actions to an {@link ActionIngester} on the populated service from one thread per core. Submitting
+ * blocks while the queue is full, so once the queue has filled the score is the rate the ingester registers at.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Threads(Threads.MAX)
+public class IngestionBenchmark {
+    // Shared by every thread so that performed dates keep increasing.
+    private final AtomicLong performedSeconds = new AtomicLong();
+
+    private ActionIngester ingester;
+
+    @Setup(Level.Trial)
+    public void setUp(final PopulatedService service) {
+        ingester = new ActionIngester(service.itemActionService, 8_192, 256);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ingester.close();
+    }
+
+    @Benchmark
+    public CompletableFuture<UUID> submit(final PopulatedService service, final Submitter submitter)
+            throws InterruptedException {
+        submitter.itemCursor = (submitter.itemCursor + 7_919) % service.itemIds.length;
+        return ingester.submit(service.itemIds[submitter.itemCursor], submitter.data.description(),
+                submitter.data.cost(), BenchmarkData.START.plusSeconds(performedSeconds.getAndIncrement()));
+    }
+
+    @State(Scope.Thread)
+    public static class Submitter {
+        private final BenchmarkData data = new BenchmarkData();
+        private int itemCursor;
+    }
+}
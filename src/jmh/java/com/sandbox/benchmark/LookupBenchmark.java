@@ -0,0 +1,93 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.service.ActionPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service methods that look up a single item or action, or a bounded number of them.
+ * <p>
+ * Keys are taken from the registered IDs in a fixed stride, per thread, so that every run looks up the same keys in
+ * the same order without the lookups following registration order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LookupBenchmark {
+    private int itemCursor;
+    private int actionCursor;
+    private int pageCursor;
+
+    @Benchmark
+    public Item getItemById(final PopulatedService service) {
+        return service.itemActionService.getItemById(nextItemId(service));
+    }
+
+    @Benchmark
+    public Action getActionById(final PopulatedService service) {
+        return service.itemActionService.getActionById(nextActionId(service));
+    }
+
+    @Benchmark
+    public Map<Action, Item> getActionOnItemByActionId(final PopulatedService service) {
+        return service.itemActionService.getActionOnItemByActionId(nextActionId(service));
+    }
+
+    @Benchmark
+    public List<Action> getActionsOnItem(final PopulatedService service) {
+        return service.itemActionService.getActionsOnItem(nextItemId(service));
+    }
+
+    @Benchmark
+    public long getTotalActionCostOfItem(final PopulatedService service) {
+        return service.itemActionService.getTotalActionCostOfItem(nextItemId(service));
+    }
+
+    @Benchmark
+    public int getActionCount(final PopulatedService service) {
+        return service.itemActionService.getActionCount();
+    }
+
+    @Benchmark
+    public List<Map.Entry<Item, Long>> getTopItemsByTotalActionCost(final PopulatedService service) {
+        return service.itemActionService.getTopItemsByTotalActionCost(ItemClass.BALL, 10);
+    }
+
+    @Benchmark
+    public ActionPage getActionsOnItemTypeBetween(final PopulatedService service) {
+        // A page of 100 from a window starting somewhere in the registered actions.
+        pageCursor = (pageCursor + 104_729) % service.actionIds.length;
+        final Instant from = BenchmarkData.START.plusSeconds(pageCursor);
+        return service.itemActionService.getActionsOnItemTypeBetween(
+                ItemClass.DOG, from, from.plusSeconds(service.actionIds.length), 100);
+    }
+
+    private String nextItemId(final PopulatedService service) {
+        itemCursor = (itemCursor + 7_919) % service.itemIds.length;
+        return service.itemIds[itemCursor];
+    }
+
+    private UUID nextActionId(final PopulatedService service) {
+        actionCursor = (actionCursor + 104_729) % service.actionIds.length;
+        return service.actionIds[actionCursor];
+    }
+}
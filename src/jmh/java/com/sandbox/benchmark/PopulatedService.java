@@ -0,0 +1,51 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.ServiceOptions;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service filled once per trial with {@link #items} generated items and {@link #actions} generated actions on them,
+ * in the given action store.
+ */
+@State(Scope.Benchmark)
+public class PopulatedService {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int actions;
+
+    @Param({"10000"})
+    public int items;
+
+    @Param({"object", "columnar"})
+    public String store;
+
+    public ItemActionService itemActionService;
+    public String[] itemIds;
+    public UUID[] actionIds;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        final BenchmarkData data = new BenchmarkData();
+        final List<Item> generated = data.items(items);
+        itemActionService = new ItemActionService(BenchmarkData.newStore(store), new TimeOrderedIdGenerator(),
+                this.options());
+        actionIds = data.populate(itemActionService, generated, actions);
+        itemIds = generated.stream().map(Item::getId).toArray(String[]::new);
+    }
+
+    /**
+     * @return optional parts of the service, the defaults unless overridden
+     */
+    protected ServiceOptions options() {
+        return ServiceOptions.defaults();
+    }
+}
@@ -0,0 +1,74 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.service.ActionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registrations on a service already holding {@link PopulatedService#actions} actions. What is registered stays
+ * registered for the rest of the trial, so the service grows somewhat past its starting size while measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RegistrationBenchmark {
+    private static final int BATCH_SIZE = 64;
+
+    // Shared by every thread so that registered item IDs stay unique.
+    private static final AtomicInteger registeredItems = new AtomicInteger();
+
+    private BenchmarkData data;
+    private int itemCursor;
+    private long performedSeconds;
+
+    @Setup
+    public void setUp() {
+        data = new BenchmarkData();
+    }
+
+    @Benchmark
+    public Item registerItem(final PopulatedService service) {
+        final Item item = data.item("Registered", registeredItems.getAndIncrement());
+        service.itemActionService.registerItem(item);
+        return item;
+    }
+
+    @Benchmark
+    public UUID registerActionOnItem(final PopulatedService service) {
+        itemCursor = (itemCursor + 7_919) % service.itemIds.length;
+        return service.itemActionService.registerActionOnItem(service.itemIds[itemCursor], data.description(),
+                data.cost(), BenchmarkData.START.plusSeconds(performedSeconds++));
+    }
+
+    /**
+     * Registers a batch of {@link #BATCH_SIZE} actions, so the time per action is the score divided by the batch size.
+     */
+    @Benchmark
+    public List<UUID> registerActions(final PopulatedService service) {
+        final List<ActionRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            itemCursor = (itemCursor + 7_919) % service.itemIds.length;
+            batch.add(new ActionRequest(service.itemIds[itemCursor], data.description(), data.cost(),
+                    BenchmarkData.START.plusSeconds(performedSeconds++)));
+        }
+        return service.itemActionService.registerActions(batch);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.service.ItemActionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a snapshot of the populated service, and starting a new service from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotBenchmark {
+    private Path directory;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp(final PopulatedService service) throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        snapshot = directory.resolve("service.snap");
+        service.itemActionService.writeSnapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(directory.resolve("written.snap"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Path writeSnapshot(final PopulatedService service) throws IOException {
+        final Path written = directory.resolve("written.snap");
+        service.itemActionService.writeSnapshot(written);
+        return written;
+    }
+
+    @Benchmark
+    public ItemActionService fromSnapshot(final PopulatedService service) throws IOException {
+        return ItemActionService.fromSnapshot(snapshot, BenchmarkData.newStore(service.store));
+    }
+}
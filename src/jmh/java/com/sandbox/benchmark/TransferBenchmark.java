@@ -0,0 +1,64 @@
+package com.sandbox.benchmark;
+
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.transfer.TransferFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting the populated service to a file in each {@link TransferFormat}, and importing the file into a new
+ * service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TransferBenchmark {
+    @Param({"BINARY", "CSV", "NDJSON"})
+    public TransferFormat format;
+
+    private Path directory;
+    private Path exported;
+
+    @Setup(Level.Trial)
+    public void setUp(final PopulatedService service) throws IOException {
+        directory = Files.createTempDirectory("transfer-benchmark");
+        exported = directory.resolve("service.export");
+        service.itemActionService.exportTo(exported, format);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(exported);
+        Files.deleteIfExists(directory.resolve("written.export"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long exportTo(final PopulatedService service) throws IOException {
+        return service.itemActionService.exportTo(directory.resolve("written.export"), format);
+    }
+
+    @Benchmark
+    public long importFrom(final PopulatedService service) throws IOException {
+        return new ItemActionService(BenchmarkData.newStore(service.store)).importFrom(exported, format);
+    }
+}
@@ -1,7 +1,69 @@
 package com.sandbox;
 
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.persistence.ActionLog;
+import com.sandbox.service.persistence.Durability;
+import com.sandbox.service.store.ColumnarActionStore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opens the service persisted in the directory given as the first argument and reports how long it took to start.
+ * <p>
+ * Given a number of actions as the second argument, an empty service is first filled with that many generated actions
+ * on 1 000 items and snapshotted, so that the next start loads the snapshot.
+ */
 public class Application {
-    public static void main(String[] args) {
-        // Empty by design
+    private static final int GENERATED_ITEMS = 1_000;
+    private static final String[] DESCRIPTIONS = {"Throw", "Kick", "Open", "Close", "Walk", "Feed"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: Application <directory> [actions to generate]");
+            return;
+        }
+
+        final long started = System.nanoTime();
+        try (ItemActionService itemActionService = ItemActionService.open(
+                ActionLog.open(Path.of(args[0]), Durability.ASYNC), new ColumnarActionStore())) {
+            final long elapsed = System.nanoTime() - started;
+            System.out.printf("Started with %,d items and %,d actions in %,d ms%n",
+                    itemActionService.getAllItems().size(), itemActionService.getActionCount(), elapsed / 1_000_000);
+
+            if (args.length > 1 && itemActionService.getAllItems().isEmpty()) {
+                generate(itemActionService, Integer.parseInt(args[1]));
+                final Path snapshot = itemActionService.snapshot().join();
+                System.out.printf("Generated %,d actions into %s%n", itemActionService.getActionCount(), snapshot);
+            }
+        }
+    }
+
+    private static void generate(final ItemActionService itemActionService, final int actions) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String[] itemIds = new String[GENERATED_ITEMS];
+        for (int i = 0; i < GENERATED_ITEMS; i++) {
+            final Item item;
+            if (i % 3 == 0) {
+                item = new Ball("Ball" + i, "Red", 1.0 + random.nextDouble());
+            } else if (i % 3 == 1) {
+                item = new Box("Box" + i, "Brown", 1.0, 2.0, 3.0);
+            } else {
+                item = new Dog("Dog" + i);
+            }
+            itemActionService.registerItem(item);
+            itemIds[i] = item.getId();
+        }
+
+        final Instant start = Instant.now().minusSeconds(actions);
+        for (int i = 0; i < actions; i++) {
+            itemActionService.registerActionOnItem(itemIds[random.nextInt(GENERATED_ITEMS)],
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], random.nextInt(100), start.plusSeconds(i));
+        }
     }
 }
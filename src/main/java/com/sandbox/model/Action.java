@@ -12,7 +12,11 @@ public class Action implements Entity {
     private final String itemId;
 
     public Action(String itemId, String description, Integer cost, Instant performedDateTime) {
-        this.id = UUID.randomUUID();
+        this(UUID.randomUUID(), itemId, description, cost, performedDateTime);
+    }
+
+    public Action(UUID id, String itemId, String description, Integer cost, Instant performedDateTime) {
+        this.id = id;
         this.itemId = itemId;
         this.description = description;
         this.cost = cost;
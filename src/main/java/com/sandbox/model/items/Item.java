@@ -9,14 +9,31 @@ public abstract class Item implements Entity {
     private final String id;
 
     protected Item(String id) {
+        this.id = canonicalId(id);
+    }
+
+    /**
+     * Validates an item ID and returns it in upper case. Only allocates if the ID contains lower case letters.
+     *
+     * @throws InvalidIdException if {@code id} is empty, longer than 32 characters or not alphanumeric
+     */
+    public static String canonicalId(String id) {
         if (id == null || id.isBlank()) {
             throw new InvalidIdException("Item ID can't be empty.");
         } else if (id.length() > 32) {
             throw new InvalidIdException("Item ID can't be longer than 32 characters.");
-        } else if (!id.matches("[A-Za-z0-9]{1,32}")) {
-            throw new InvalidIdException("Item ID may only contain alphanumeric characters.");
         }
-        this.id = id.toUpperCase(Locale.ROOT);
+
+        boolean hasLowerCase = false;
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hasLowerCase = true;
+            } else if ((c < 'A' || c > 'Z') && (c < '0' || c > '9')) {
+                throw new InvalidIdException("Item ID may only contain alphanumeric characters.");
+            }
+        }
+        return hasLowerCase ? id.toUpperCase(Locale.ROOT) : id;
     }
 
     @Override
@@ -26,7 +43,7 @@ public abstract class Item implements Entity {
 
         Item item = (Item) o;
 
-        return id.equalsIgnoreCase(item.id);
+        return id.equals(item.id);
     }
 
     @Override
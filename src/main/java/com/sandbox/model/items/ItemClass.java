@@ -34,6 +34,12 @@ public enum ItemClass {
                 .collect(Collectors.toUnmodifiableSet());
     }
 
+    public static Set<Class<? extends Item>> getAllParentClasses() {
+        return Arrays.stream(ItemClass.values())
+                .map(ItemClass::getParentClass)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
     @Override
     public String toString() {
         return this.type.getSimpleName();
@@ -43,7 +49,7 @@ public enum ItemClass {
         return this.type;
     }
 
-    public ItemClass fromClass(Class<? extends Item> itemType) {
+    public static ItemClass fromClass(Class<? extends Item> itemType) {
         return ENUM_MAP.get(itemType);
     }
 
@@ -6,12 +6,22 @@ public class Ball extends Solid {
     private final double radius;
 
     public Ball(final String id, final String color, final double radius) {
-        super(id, color, 0, BigDecimal.valueOf(2)
-                .multiply(BigDecimal.valueOf(Math.PI)
-                        .multiply(BigDecimal.valueOf(radius).pow(2))));
+        super(id, color, 0);
         this.radius = radius;
     }
 
+    @Override
+    public double getVolume() {
+        return 2 * Math.PI * radius * radius;
+    }
+
+    @Override
+    public BigDecimal getExactVolume() {
+        return BigDecimal.valueOf(2)
+                .multiply(BigDecimal.valueOf(Math.PI)
+                        .multiply(BigDecimal.valueOf(radius).pow(2)));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
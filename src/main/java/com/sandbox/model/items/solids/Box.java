@@ -8,15 +8,24 @@ public class Box extends Solid {
     private final double width;
 
     public Box(String id, String color, double height, double depth, double width) {
-        super(id, color, 6,
-                BigDecimal.valueOf(height)
-                        .multiply(BigDecimal.valueOf(depth)
-                                .multiply(BigDecimal.valueOf(width))));
+        super(id, color, 6);
         this.height = height;
         this.depth = depth;
         this.width = width;
     }
 
+    @Override
+    public double getVolume() {
+        return height * depth * width;
+    }
+
+    @Override
+    public BigDecimal getExactVolume() {
+        return BigDecimal.valueOf(height)
+                .multiply(BigDecimal.valueOf(depth)
+                        .multiply(BigDecimal.valueOf(width)));
+    }
+
     public double getHeight() {
         return height;
     }
@@ -5,19 +5,35 @@ import com.sandbox.model.items.Item;
 import java.math.BigDecimal;
 import java.util.Objects;
 
+/**
+ * An item with a color and a geometry. Subclasses keep their dimensions as primitives and compute the volume from them
+ * on demand.
+ */
 public abstract class Solid extends Item {
 
     private final String color;
     private final int sides;
-    private final BigDecimal volume;
 
-    protected Solid(String id, String color, int sides, BigDecimal volume) {
+    protected Solid(String id, String color, int sides) {
         super(id);
         this.color = color;
         this.sides = sides;
-        this.volume = volume;
     }
 
+    public String getColor() {
+        return color;
+    }
+
+    /**
+     * @return volume computed in {@code double} precision
+     */
+    public abstract double getVolume();
+
+    /**
+     * @return volume computed with {@code BigDecimal}s from the dimensions
+     */
+    public abstract BigDecimal getExactVolume();
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -27,8 +43,7 @@ public abstract class Solid extends Item {
         Solid solid = (Solid) o;
 
         if (sides != solid.sides) return false;
-        if (!Objects.equals(color, solid.color)) return false;
-        return volume.equals(solid.volume);
+        return Objects.equals(color, solid.color);
     }
 
     @Override
@@ -36,7 +51,6 @@ public abstract class Solid extends Item {
         int result = super.hashCode();
         result = 31 * result + (color != null ? color.hashCode() : 0);
         result = 31 * result + sides;
-        result = 31 * result + volume.hashCode();
         return result;
     }
 }
\ No newline at end of file
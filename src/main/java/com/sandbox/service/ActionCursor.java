@@ -0,0 +1,85 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Position of an {@code Action} in performed date order. Actions performed at the same instant are ordered by ID.
+ * <p>
+ * The cursor is also the key of the time-ordered action indexes, so it only holds primitives.
+ */
+public final class ActionCursor implements Comparable<ActionCursor> {
+    private final long epochSecond;
+    private final int nano;
+    private final long idMostSignificantBits;
+    private final long idLeastSignificantBits;
+
+    private ActionCursor(long epochSecond, int nano, long idMostSignificantBits, long idLeastSignificantBits) {
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.idMostSignificantBits = idMostSignificantBits;
+        this.idLeastSignificantBits = idLeastSignificantBits;
+    }
+
+    public static ActionCursor of(final Instant performedDateTime, final UUID actionId) {
+        return new ActionCursor(performedDateTime.getEpochSecond(), performedDateTime.getNano(),
+                actionId.getMostSignificantBits(), actionId.getLeastSignificantBits());
+    }
+
+    public static ActionCursor of(final Action action) {
+        return of(action.getPerformedDateTime(), action.getId());
+    }
+
+    /**
+     * @return cursor ordered before every action performed at or after {@code instant}
+     */
+    static ActionCursor first(final Instant instant) {
+        return new ActionCursor(instant.getEpochSecond(), instant.getNano(), Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    public Instant getPerformedDateTime() {
+        return Instant.ofEpochSecond(epochSecond, nano);
+    }
+
+    public UUID getActionId() {
+        return new UUID(idMostSignificantBits, idLeastSignificantBits);
+    }
+
+    @Override
+    public int compareTo(ActionCursor o) {
+        int result = Long.compare(epochSecond, o.epochSecond);
+        if (result == 0) result = Integer.compare(nano, o.nano);
+        if (result == 0) result = Long.compare(idMostSignificantBits, o.idMostSignificantBits);
+        if (result == 0) result = Long.compare(idLeastSignificantBits, o.idLeastSignificantBits);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ActionCursor that = (ActionCursor) o;
+
+        if (epochSecond != that.epochSecond) return false;
+        if (nano != that.nano) return false;
+        if (idMostSignificantBits != that.idMostSignificantBits) return false;
+        return idLeastSignificantBits == that.idLeastSignificantBits;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(epochSecond);
+        result = 31 * result + nano;
+        result = 31 * result + Long.hashCode(idMostSignificantBits);
+        result = 31 * result + Long.hashCode(idLeastSignificantBits);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getPerformedDateTime() + "/" + getActionId();
+    }
+}
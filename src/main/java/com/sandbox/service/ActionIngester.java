@@ -0,0 +1,190 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ItemNotFoundException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers actions on an {@link ItemActionService} asynchronously, in batches.
+ * <p>
+ * Submitted actions go into a bounded queue, which a single drainer thread empties in batches of up to
+ * {@code maxBatchSize} into {@link ItemActionService#registerActions(java.util.Collection)}'s batch path. When the
+ * queue is full, submitting blocks until the drainer has made room, so producers can't outrun it.
+ * Each action is validated on its own: an action on an unknown item fails its future without failing the batch.
+ */
+public class ActionIngester implements AutoCloseable {
+    private static final Pending CLOSED = new Pending(null, null);
+
+    private final ItemActionService itemActionService;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    /**
+     * @param itemActionService service to register the actions on
+     * @param capacity          number of submitted actions that can wait to be registered before submitting blocks
+     * @param maxBatchSize      largest number of actions registered in one batch
+     */
+    public ActionIngester(final ItemActionService itemActionService, final int capacity, final int maxBatchSize) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        this.itemActionService = itemActionService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.drainer = new Thread(this::drain, "action-ingester");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Queues an action for registration, waiting for room in the queue if it is full.
+     *
+     * @return future completed with the ID of the registered action, or exceptionally with what
+     * {@link ItemActionService#registerActionOnItem(String, String, Integer, Instant)} would have thrown
+     * @throws IllegalStateException if the ingester is closed
+     * @throws InterruptedException  if interrupted while waiting for room in the queue
+     */
+    public CompletableFuture<UUID> submit(final String itemId, final String actionDescription, final Integer actionCost,
+                                          final Instant actionDate) throws InterruptedException {
+        return this.enqueue(new Pending(new ActionRequest(itemId, actionDescription, actionCost, actionDate),
+                new CompletableFuture<>()), -1);
+    }
+
+    /**
+     * Queues an action for registration like {@link #submit(String, String, Integer, Instant)}, waiting at most
+     * {@code timeout} for room in the queue.
+     *
+     * @return future completed with the ID of the registered action, or {@code null} if the queue stayed full
+     */
+    public CompletableFuture<UUID> submit(final String itemId, final String actionDescription, final Integer actionCost,
+                                          final Instant actionDate, final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        return this.enqueue(new Pending(new ActionRequest(itemId, actionDescription, actionCost, actionDate),
+                new CompletableFuture<>()), unit.toNanos(timeout));
+    }
+
+    /**
+     * @return number of submitted actions waiting to be registered
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops taking actions and waits for the queued ones to be registered.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(CLOSED);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (drainer.isAlive()) {
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<UUID> enqueue(final Pending pending, final long timeoutNanos) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Action ingester is closed.");
+        }
+        if (timeoutNanos < 0) {
+            queue.put(pending);
+        } else if (!queue.offer(pending, timeoutNanos, TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        // Closing is flagged before the drainer is told to stop, so an action queued behind that is seen here.
+        if (closed && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("Action ingester is closed."));
+        }
+        return pending.future;
+    }
+
+    private void drain() {
+        final List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping || !queue.isEmpty()) {
+            batch.clear();
+            try {
+                if (!stopping) {
+                    batch.add(queue.take());
+                }
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            if (batch.removeIf(pending -> pending == CLOSED)) {
+                stopping = true;
+            }
+            this.register(batch);
+        }
+    }
+
+    private void register(final List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final ActionRequest[] requests = new ActionRequest[batch.size()];
+        final ItemEntry[] entries = new ItemEntry[batch.size()];
+        final RuntimeException[] failures = new RuntimeException[batch.size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = batch.get(i).request;
+            if (requests[i].getPerformedDateTime() == null) {
+                failures[i] = new NullPointerException("Action date can't be null.");
+            } else if ((entries[i] = itemActionService.findRegisteredEntry(requests[i].getItemId())) == null) {
+                failures[i] = new ItemNotFoundException();
+            }
+        }
+
+        final UUID[] ids = new UUID[requests.length];
+        RuntimeException batchFailure = null;
+        try {
+            itemActionService.registerBatch(requests, entries, ids, failures);
+        } catch (RuntimeException e) {
+            // Actions registered before the batch failed keep their IDs, so that they are not retried.
+            batchFailure = e;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != null) {
+                batch.get(i).future.complete(ids[i]);
+            } else {
+                batch.get(i).future.completeExceptionally(failures[i] != null ? failures[i] : batchFailure);
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final ActionRequest request;
+        private final CompletableFuture<UUID> future;
+
+        private Pending(final ActionRequest request, final CompletableFuture<UUID> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+
+import java.util.List;
+
+/**
+ * One page of {@code Action}s in performed date order.
+ */
+public final class ActionPage {
+    private final List<Action> actions;
+    private final ActionCursor nextCursor;
+
+    ActionPage(final List<Action> actions, final ActionCursor nextCursor) {
+        this.actions = actions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    /**
+     * @return cursor to pass on to fetch the next page, or {@code null} if this is the last page
+     */
+    public ActionCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
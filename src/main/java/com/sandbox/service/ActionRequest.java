@@ -0,0 +1,38 @@
+package com.sandbox.service;
+
+import java.time.Instant;
+
+/**
+ * An action to register on an item, before it is assigned an ID.
+ *
+ * @see ItemActionService#registerActions(java.util.Collection)
+ */
+public final class ActionRequest {
+    private final String itemId;
+    private final String description;
+    private final Integer cost;
+    private final Instant performedDateTime;
+
+    public ActionRequest(final String itemId, final String description, final Integer cost, final Instant performedDateTime) {
+        this.itemId = itemId;
+        this.description = description;
+        this.cost = cost;
+        this.performedDateTime = performedDateTime;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Integer getCost() {
+        return cost;
+    }
+
+    public Instant getPerformedDateTime() {
+        return performedDateTime;
+    }
+}
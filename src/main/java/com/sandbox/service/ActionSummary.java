@@ -0,0 +1,127 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Count, total cost and performed date range of the compacted actions on one item in one period.
+ *
+ * @see ItemActionService#compactActionsBefore(Instant, RollupGranularity, java.nio.file.Path)
+ */
+public final class ActionSummary {
+    private final String itemId;
+    private final Instant periodStart;
+    private final Instant periodEnd;
+    private final long actionCount;
+    private final long totalCost;
+    private final Instant firstPerformedDateTime;
+    private final Instant lastPerformedDateTime;
+
+    ActionSummary(final String itemId, final Instant periodStart, final Instant periodEnd, final long actionCount,
+                  final long totalCost, final Instant firstPerformedDateTime, final Instant lastPerformedDateTime) {
+        this.itemId = itemId;
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.actionCount = actionCount;
+        this.totalCost = totalCost;
+        this.firstPerformedDateTime = firstPerformedDateTime;
+        this.lastPerformedDateTime = lastPerformedDateTime;
+    }
+
+    /**
+     * @return summary of {@code action} alone, in the period of {@code granularity} it was performed in
+     */
+    static ActionSummary of(final Action action, final RollupGranularity granularity) {
+        final Instant periodStart = granularity.truncate(action.getPerformedDateTime());
+        return new ActionSummary(action.getItemId(), periodStart, periodStart.plusSeconds(granularity.getSeconds()), 1,
+                action.getCost() == null ? 0 : action.getCost(),
+                action.getPerformedDateTime(), action.getPerformedDateTime());
+    }
+
+    /**
+     * @return summary of the actions of both summaries, over the union of their periods
+     */
+    ActionSummary merge(final ActionSummary other) {
+        return new ActionSummary(itemId,
+                min(periodStart, other.periodStart), max(periodEnd, other.periodEnd),
+                actionCount + other.actionCount, totalCost + other.totalCost,
+                min(firstPerformedDateTime, other.firstPerformedDateTime),
+                max(lastPerformedDateTime, other.lastPerformedDateTime));
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    /**
+     * @return inclusive start of the period
+     */
+    public Instant getPeriodStart() {
+        return periodStart;
+    }
+
+    /**
+     * @return exclusive end of the period
+     */
+    public Instant getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public long getActionCount() {
+        return actionCount;
+    }
+
+    /**
+     * @return sum of the costs of the actions, counting an action without a cost as zero
+     */
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    public Instant getFirstPerformedDateTime() {
+        return firstPerformedDateTime;
+    }
+
+    public Instant getLastPerformedDateTime() {
+        return lastPerformedDateTime;
+    }
+
+    private static Instant min(final Instant a, final Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Instant max(final Instant a, final Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ActionSummary that = (ActionSummary) o;
+        return actionCount == that.actionCount && totalCost == that.totalCost && itemId.equals(that.itemId)
+                && periodStart.equals(that.periodStart) && periodEnd.equals(that.periodEnd)
+                && firstPerformedDateTime.equals(that.firstPerformedDateTime)
+                && lastPerformedDateTime.equals(that.lastPerformedDateTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(itemId, periodStart, periodEnd, actionCount, totalCost);
+    }
+
+    @Override
+    public String toString() {
+        return "ActionSummary{" +
+                "itemId='" + itemId + '\'' +
+                ", periodStart=" + periodStart +
+                ", periodEnd=" + periodEnd +
+                ", actionCount=" + actionCount +
+                ", totalCost=" + totalCost +
+                ", firstPerformedDateTime=" + firstPerformedDateTime +
+                ", lastPerformedDateTime=" + lastPerformedDateTime +
+                '}';
+    }
+}
@@ -0,0 +1,151 @@
+package com.sandbox.service;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Append-only list of {@code int}s with serialized writers and lock-free readers.
+ * Elements below the published size are never modified, so {@link #snapshot(IntFunction)} can hand out
+ * a fixed-size view without copying.
+ * <p>
+ * The exception is {@link #removeIf(IntPredicate)}, which copies the remaining elements into a new array instead of
+ * modifying the current one, and which readers detect by a change count, as its smaller size and array can't be
+ * published together.
+ */
+final class AppendOnlyIntList {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int[] EMPTY = new int[0];
+
+    // Shared until the first append, as many lists stay empty.
+    private volatile int[] elements = EMPTY;
+    private volatile int size;
+    // Odd while a removal is publishing the new array and size.
+    private volatile int removals;
+
+    synchronized void append(final int element) {
+        int[] current = elements;
+        final int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, Math.max(INITIAL_CAPACITY, n + (n >> 1) + 1));
+            current[n] = element;
+            elements = current;
+        } else {
+            current[n] = element;
+        }
+        // Publishing the size last makes the element visible to readers that observe the new size.
+        size = n + 1;
+    }
+
+    /**
+     * Appends the first {@code count} of {@code elements}, growing the list and publishing the new size once.
+     */
+    synchronized void appendAll(final int[] elements, final int count) {
+        int[] current = this.elements;
+        final int n = size;
+        if (n + count > current.length) {
+            current = Arrays.copyOf(current, Math.max(INITIAL_CAPACITY, Math.max(n + count, n + (n >> 1) + 1)));
+            System.arraycopy(elements, 0, current, n, count);
+            this.elements = current;
+        } else {
+            System.arraycopy(elements, 0, current, n, count);
+        }
+        size = n + count;
+    }
+
+    /**
+     * Removes the elements matching {@code filter}. Views taken before keep the removed elements.
+     *
+     * @return number of elements removed
+     */
+    synchronized int removeIf(final IntPredicate filter) {
+        final int[] current = elements;
+        final int n = size;
+        final int[] remaining = new int[current.length];
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (!filter.test(current[i])) {
+                remaining[kept++] = current[i];
+            }
+        }
+        if (kept == n) {
+            return 0;
+        }
+        removals++;
+        elements = kept == 0 ? EMPTY : Arrays.copyOf(remaining, Math.max(INITIAL_CAPACITY, kept + (kept >> 1)));
+        size = kept;
+        removals++;
+        return n - kept;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes the elements appended so far to {@code action}, in order.
+     */
+    void forEach(final IntConsumer action) {
+        int removal;
+        int n;
+        int[] current;
+        do {
+            removal = removals;
+            n = size;
+            current = elements;
+        } while ((removal & 1) != 0 || removal != removals);
+        for (int i = 0; i < n; i++) {
+            action.accept(current[i]);
+        }
+    }
+
+    /**
+     * @param mapper maps each element when it is read from the view
+     * @return unmodifiable view of the elements appended so far, unaffected by later appends
+     */
+    <E> List<E> snapshot(final IntFunction<E> mapper) {
+        int removal;
+        int n;
+        int[] snapshot;
+        do {
+            removal = removals;
+            n = size;
+            snapshot = elements;
+        } while ((removal & 1) != 0 || removal != removals);
+        return Collections.unmodifiableList(new View<>(snapshot, n, mapper));
+    }
+
+    private static final class View<E> extends AbstractList<E> implements RandomAccess {
+        private final int[] elements;
+        private final int size;
+        private final IntFunction<E> mapper;
+
+        private View(final int[] elements, final int size, final IntFunction<E> mapper) {
+            this.elements = elements;
+            this.size = size;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public E get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return mapper.apply(elements[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
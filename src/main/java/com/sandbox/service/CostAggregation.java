@@ -0,0 +1,122 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+import com.sandbox.service.store.ActionStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * Sums the costs of the actions in an {@link ActionStore} per item, scanning the store by row.
+ * <p>
+ * In parallel, the rows are split into ranges of whole store chunks, about four per worker, and every worker thread
+ * sums the ranges it runs into its own primitive arrays indexed by item ordinal. The per-thread sums are added up
+ * once all ranges are done. Sums of {@code long}s don't depend on the order they are added in, so the result is the
+ * same as scanning sequentially.
+ */
+final class CostAggregation {
+    // A multiple of the chunk sizes of the action stores, so that ranges don't share chunks.
+    private static final int MIN_RANGE = 1 << 14;
+    private static final int RANGES_PER_WORKER = 4;
+
+    private final ItemRegistry items;
+    private final ActionStore actions;
+    private final Predicate<? super Action> filter;
+    private final int rows;
+    private final int ordinals;
+
+    CostAggregation(final ItemRegistry items, final ActionStore actions, final Predicate<? super Action> filter) {
+        this.items = items;
+        this.actions = actions;
+        this.filter = filter;
+        // Items are registered before actions on them, so every item of the rows below has one of the ordinals below.
+        this.rows = actions.rowCount();
+        this.ordinals = items.ordinalCount();
+    }
+
+    CostReport sequential() {
+        final Sums sums = new Sums(ordinals);
+        this.sum(0, rows, sums);
+        return new CostReport(items, sums.totals, sums.counts);
+    }
+
+    CostReport parallel(final ForkJoinPool pool) {
+        final Map<Thread, Sums> sumsByThread = new ConcurrentHashMap<>();
+        final int rangeSize = Math.max(MIN_RANGE,
+                roundUp(rows / (pool.getParallelism() * RANGES_PER_WORKER), MIN_RANGE));
+        pool.invoke(new RangeTask(0, rows, rangeSize, sumsByThread));
+
+        final Sums merged = new Sums(ordinals);
+        sumsByThread.values().forEach(merged::add);
+        return new CostReport(items, merged.totals, merged.counts);
+    }
+
+    private void sum(final int from, final int to, final Sums sums) {
+        for (int row = from; row < to; row++) {
+            final Action action = actions.get(row);
+            if (action == null || (filter != null && !filter.test(action))) {
+                continue;
+            }
+            final ItemEntry entry = items.find(action.getItemId());
+            if (entry == null) {
+                continue;
+            }
+            sums.counts[entry.getOrdinal()]++;
+            if (action.getCost() != null) {
+                sums.totals[entry.getOrdinal()] += action.getCost();
+            }
+        }
+    }
+
+    private static int roundUp(final int value, final int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+
+    private static final class Sums {
+        private final long[] totals;
+        private final int[] counts;
+
+        private Sums(final int ordinals) {
+            this.totals = new long[ordinals];
+            this.counts = new int[ordinals];
+        }
+
+        private void add(final Sums other) {
+            for (int ordinal = 0; ordinal < totals.length; ordinal++) {
+                totals[ordinal] += other.totals[ordinal];
+                counts[ordinal] += other.counts[ordinal];
+            }
+        }
+    }
+
+    private final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+        private final Map<Thread, Sums> sumsByThread;
+
+        private RangeTask(final int from, final int to, final int rangeSize, final Map<Thread, Sums> sumsByThread) {
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+            this.sumsByThread = sumsByThread;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rangeSize) {
+                // Only the current thread touches its sums, and joining the tasks publishes them to the merge.
+                sum(from, to, sumsByThread.computeIfAbsent(Thread.currentThread(), thread -> new Sums(ordinals)));
+                return;
+            }
+            final int middle = from + roundUp((to - from) / 2, rangeSize);
+            invokeAll(new RangeTask(from, middle, rangeSize, sumsByThread),
+                    new RangeTask(middle, to, rangeSize, sumsByThread));
+        }
+    }
+}
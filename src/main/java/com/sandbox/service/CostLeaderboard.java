@@ -0,0 +1,137 @@
+package com.sandbox.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Item IDs ordered by descending total action cost, ties ordered by item ID.
+ * Entries are identified by the item's ordinal, so the IDs are only compared to break ties.
+ * <p>
+ * An item is moved whenever its total changes, by replacing its entry under a write lock. Readers read optimistically
+ * and only take the read lock to read again if a move overlapped them, so they always see every item exactly once
+ * and are only blocked by moves while retrying.
+ */
+final class CostLeaderboard {
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+    private final StampedLock moveLock = new StampedLock();
+
+    /**
+     * Must be called while holding the lock of the item whose total changed.
+     */
+    void update(final int ordinal, final String itemId, final long oldTotal, final long newTotal, final boolean isNew) {
+        if (isNew) {
+            // Adding an item hides no other one, so readers need not know.
+            entries.add(new Entry(ordinal, itemId, newTotal));
+            return;
+        } else if (oldTotal == newTotal) {
+            return;
+        }
+        final long stamp = moveLock.writeLock();
+        try {
+            entries.remove(new Entry(ordinal, itemId, oldTotal));
+            entries.add(new Entry(ordinal, itemId, newTotal));
+        } finally {
+            moveLock.unlockWrite(stamp);
+        }
+    }
+
+    List<Entry> top(final int k) {
+        return this.read(() -> {
+            final List<Entry> top = new ArrayList<>(Math.min(k, 64));
+            final Iterator<Entry> iterator = entries.iterator();
+            while (top.size() < k && iterator.hasNext()) {
+                top.add(iterator.next());
+            }
+            return top;
+        });
+    }
+
+    /**
+     * @return every entry sharing the highest total, empty if no item has any actions
+     */
+    List<Entry> highest() {
+        return this.read(() -> {
+            final List<Entry> highest = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (!highest.isEmpty() && entry.totalCost != highest.get(0).totalCost) {
+                    break;
+                }
+                highest.add(entry);
+            }
+            return highest;
+        });
+    }
+
+    /**
+     * Reads the entries without a lock, and again under the read lock if an item was moved meanwhile, as the read
+     * may then have missed the item.
+     */
+    private List<Entry> read(final Supplier<List<Entry>> reader) {
+        final long optimistic = moveLock.tryOptimisticRead();
+        final List<Entry> read = reader.get();
+        if (moveLock.validate(optimistic)) {
+            return read;
+        }
+        final long stamp = moveLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            moveLock.unlockRead(stamp);
+        }
+    }
+
+    static final class Entry implements Comparable<Entry> {
+        private final int ordinal;
+        private final String itemId;
+        private final long totalCost;
+
+        Entry(final int ordinal, final String itemId, final long totalCost) {
+            this.ordinal = ordinal;
+            this.itemId = itemId;
+            this.totalCost = totalCost;
+        }
+
+        int getOrdinal() {
+            return ordinal;
+        }
+
+        String getItemId() {
+            return itemId;
+        }
+
+        long getTotalCost() {
+            return totalCost;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            final int result = Long.compare(o.totalCost, totalCost);
+            if (result != 0 || ordinal == o.ordinal) {
+                return result;
+            }
+            return itemId.compareTo(o.itemId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Entry entry = (Entry) o;
+
+            if (totalCost != entry.totalCost) return false;
+            return ordinal == entry.ordinal;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = ordinal;
+            result = 31 * result + Long.hashCode(totalCost);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Total action costs per item computed by scanning the actions, as returned by
+ * {@link ItemActionService#aggregateActionCosts(java.util.function.Predicate)}. Only items with at least one of the
+ * aggregated actions are included, and an action without a cost counts as zero.
+ * <p>
+ * Compacted actions are only known from their summaries, which a filter can't be applied to, so a report of filtered
+ * actions leaves them out and counts them in {@link #getOmittedCompactedActions()}.
+ */
+public final class CostReport {
+    private static final Comparator<Map.Entry<Item, Long>> TOTAL_COST_ORDER =
+            Comparator.comparing((Map.Entry<Item, Long> entry) -> entry.getValue()).reversed()
+                    .thenComparing(entry -> entry.getKey().getId());
+
+    // Entry of the item at each index of the totals and counts.
+    private final IntFunction<ItemEntry> items;
+    private final long[] totals;
+    private final int[] counts;
+    private long omittedCompactedActions;
+
+    CostReport(final ItemRegistry items, final long[] totals, final int[] counts) {
+        this(items::get, totals, counts);
+    }
+
+    private CostReport(final IntFunction<ItemEntry> items, final long[] totals, final int[] counts) {
+        this.items = items;
+        this.totals = totals;
+        this.counts = counts;
+    }
+
+    /**
+     * Merges reports on disjoint sets of items, such as those of the shards of a {@link ShardedItemActionService}.
+     */
+    static CostReport merge(final List<CostReport> reports) {
+        int size = 0;
+        for (CostReport report : reports) {
+            size += report.counts.length;
+        }
+        final ItemEntry[] entries = new ItemEntry[size];
+        final long[] totals = new long[size];
+        final int[] counts = new int[size];
+        int offset = 0;
+        long omittedCompactedActions = 0;
+        for (CostReport report : reports) {
+            omittedCompactedActions += report.omittedCompactedActions;
+            final int length = report.counts.length;
+            System.arraycopy(report.totals, 0, totals, offset, length);
+            System.arraycopy(report.counts, 0, counts, offset, length);
+            for (int ordinal = 0; ordinal < length; ordinal++) {
+                if (report.counts[ordinal] > 0) {
+                    entries[offset + ordinal] = report.items.apply(ordinal);
+                }
+            }
+            offset += length;
+        }
+        final CostReport merged = new CostReport(i -> entries[i], totals, counts);
+        merged.omittedCompactedActions = omittedCompactedActions;
+        return merged;
+    }
+
+    /**
+     * Adds the count and total cost of actions on the item with {@code ordinal} that were not scanned.
+     */
+    void add(final int ordinal, final long count, final long cost) {
+        counts[ordinal] = Math.toIntExact(counts[ordinal] + count);
+        totals[ordinal] += cost;
+    }
+
+    /**
+     * Counts compacted actions that the filter of the report could not be applied to.
+     */
+    void omitCompacted(final long count) {
+        omittedCompactedActions += count;
+    }
+
+    /**
+     * @return number of aggregated actions
+     */
+    public long getActionCount() {
+        long actionCount = 0;
+        for (int count : counts) {
+            actionCount += count;
+        }
+        return actionCount;
+    }
+
+    /**
+     * @return number of compacted actions left out because the report is filtered, zero if the report covers every
+     * action
+     */
+    public long getOmittedCompactedActions() {
+        return omittedCompactedActions;
+    }
+
+    public Map<String, Long> getTotalCostByItemId() {
+        final Map<String, Long> totalCostByItemId = new HashMap<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                totalCostByItemId.put(items.apply(ordinal).getItemId(), totals[ordinal]);
+            }
+        }
+        return totalCostByItemId;
+    }
+
+    public Map<ItemClass, Long> getTotalCostByItemClass() {
+        final Map<ItemClass, Long> totalCostByItemClass = new EnumMap<>(ItemClass.class);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0 && items.apply(ordinal).getItemClass() != null) {
+                totalCostByItemClass.merge(items.apply(ordinal).getItemClass(), totals[ordinal], Long::sum);
+            }
+        }
+        return totalCostByItemClass;
+    }
+
+    /**
+     * @param itemClass {@code ItemClass} of the items
+     * @param k         maximum number of items to return
+     * @return items with their total action cost, highest cost first and equal costs ordered by ID
+     */
+    public List<Map.Entry<Item, Long>> getTopItems(final ItemClass itemClass, final int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of items can't be negative.");
+        }
+        final List<Map.Entry<Item, Long>> entries = new ArrayList<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0 && items.apply(ordinal).getItemClass() == itemClass) {
+                entries.add(Map.entry(items.apply(ordinal).getItem(), totals[ordinal]));
+            }
+        }
+
+        return entries.stream()
+                .sorted(TOTAL_COST_ORDER)
+                .limit(k)
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
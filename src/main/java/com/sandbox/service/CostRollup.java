@@ -0,0 +1,105 @@
+package com.sandbox.service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total action cost per time bucket, at one or more {@link RollupGranularity granularities}.
+ * <p>
+ * Buckets are created when the first action performed in them is added and are kept sorted by time, so a range of
+ * buckets is found in logarithmic time and read in time proportional to its length. Adding never takes a lock, and
+ * reads see a weakly consistent view of concurrent adds. As actions mostly arrive in time order, the bucket added to
+ * last is kept at hand to skip looking it up.
+ */
+final class CostRollup {
+    // Heap per bucket, measured as described in docs/PERFORMANCE.md.
+    static final int BYTES_PER_BUCKET = 100;
+
+    private final Series[] series;
+
+    /**
+     * @param bucketCount counter of the buckets created, which may be shared by several rollups
+     */
+    CostRollup(final Set<RollupGranularity> granularities, final LongAdder bucketCount) {
+        this.series = granularities.stream()
+                .map(granularity -> new Series(granularity, bucketCount))
+                .toArray(Series[]::new);
+    }
+
+    void add(final Instant performed, final Integer cost) {
+        final long amount = cost == null ? 0 : cost;
+        for (Series granularitySeries : series) {
+            granularitySeries.add(performed, amount);
+        }
+    }
+
+    /**
+     * @return total cost of each bucket with actions that overlaps {@code [from, to)}, keyed by the start of the bucket
+     */
+    SortedMap<Instant, Long> between(final RollupGranularity granularity, final Instant from, final Instant to) {
+        if (!from.isBefore(to)) {
+            return Collections.emptySortedMap();
+        }
+        final long first = granularity.bucketOf(from);
+        final long end = granularity.bucketAtOrAfter(to);
+        final SortedMap<Instant, Long> costs = new TreeMap<>();
+        this.seriesOf(granularity).buckets.subMap(first, end).forEach((bucket, total) ->
+                costs.put(Instant.ofEpochSecond(bucket * granularity.getSeconds()), total.sum()));
+        return costs;
+    }
+
+    private Series seriesOf(final RollupGranularity granularity) {
+        for (Series granularitySeries : series) {
+            if (granularitySeries.granularity == granularity) {
+                return granularitySeries;
+            }
+        }
+        throw new IllegalArgumentException("Costs are not rolled up by " + granularity + ".");
+    }
+
+    private static final class Series {
+        private final RollupGranularity granularity;
+        private final ConcurrentSkipListMap<Long, LongAdder> buckets = new ConcurrentSkipListMap<>();
+        private final LongAdder bucketCount;
+        private volatile Bucket latest;
+
+        private Series(final RollupGranularity granularity, final LongAdder bucketCount) {
+            this.granularity = granularity;
+            this.bucketCount = bucketCount;
+        }
+
+        private void add(final Instant performed, final long amount) {
+            final long index = granularity.bucketOf(performed);
+            Bucket bucket = latest;
+            if (bucket == null || bucket.index != index) {
+                LongAdder total = buckets.get(index);
+                if (total == null) {
+                    final LongAdder created = new LongAdder();
+                    total = buckets.putIfAbsent(index, created);
+                    if (total == null) {
+                        total = created;
+                        bucketCount.increment();
+                    }
+                }
+                bucket = new Bucket(index, total);
+                latest = bucket;
+            }
+            bucket.total.add(amount);
+        }
+    }
+
+    private static final class Bucket {
+        private final long index;
+        private final LongAdder total;
+
+        private Bucket(final long index, final LongAdder total) {
+            this.index = index;
+            this.total = total;
+        }
+    }
+}
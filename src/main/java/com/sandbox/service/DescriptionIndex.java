@@ -0,0 +1,217 @@
+package com.sandbox.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inverted index from the terms of action descriptions to the rows of the actions, kept per {@code ItemClass}.
+ * <p>
+ * Terms are kept sorted, so the terms starting with a prefix are a range of the index. A query is answered by
+ * intersecting the {@link PostingList}s of its terms, starting from the shortest, and then the union of the posting
+ * lists of each prefix, so that only the rows matching everything are ever read from the action store.
+ * <p>
+ * Compacted actions are removed from the posting lists of their terms, and terms left without actions are dropped.
+ */
+final class DescriptionIndex {
+    // Heap per term and per row of a posting list, measured as described in docs/PERFORMANCE.md.
+    private static final int BYTES_PER_TERM = 180;
+    private static final int BYTES_PER_ROW = 2;
+
+    private final ConcurrentNavigableMap<String, PostingList> postings = new ConcurrentSkipListMap<>();
+    private final LongAdder terms = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    void add(final String description, final int row) {
+        for (String term : terms(description)) {
+            PostingList list = postings.get(term);
+            while (list == null || !list.append(row)) {
+                if (list != null) {
+                    // Emptied by a compaction, which drops it.
+                    this.drop(term, list);
+                }
+                final PostingList created = new PostingList();
+                list = postings.putIfAbsent(term, created);
+                if (list == null) {
+                    list = created;
+                    terms.increment();
+                }
+            }
+            rows.increment();
+        }
+    }
+
+    /**
+     * Removes the rows in {@code removal} from the index, rebuilding each posting list they are in once.
+     */
+    void remove(final Removal removal) {
+        removal.rowsByTerm.forEach((term, rows) -> {
+            final PostingList list = postings.get(term);
+            if (list == null) {
+                return;
+            }
+            Arrays.sort(rows.rows, 0, rows.count);
+            // Every row of a term is in its posting list once.
+            this.rows.add(-rows.count);
+            if (list.removeAll(rows.rows, rows.count) == 0) {
+                this.drop(term, list);
+            }
+        });
+    }
+
+    /**
+     * @return estimated heap taken by the index
+     */
+    long estimatedMemoryBytes() {
+        return terms.sum() * BYTES_PER_TERM + rows.sum() * BYTES_PER_ROW;
+    }
+
+    private void drop(final String term, final PostingList list) {
+        if (postings.remove(term, list)) {
+            terms.decrement();
+        }
+    }
+
+    /**
+     * @return rows of the actions whose description matches {@code query}, in ascending order
+     */
+    int[] find(final DescriptionQuery query) {
+        final List<PostingList> lists = new ArrayList<>();
+        for (String term : query.getTerms()) {
+            final PostingList list = postings.get(term);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        int[] rows = null;
+        int count = 0;
+        for (PostingList list : lists) {
+            if (rows == null) {
+                rows = list.toArray();
+                count = rows.length;
+            } else {
+                count = list.retain(rows, count);
+            }
+        }
+        for (String prefix : query.getPrefixes()) {
+            final int[] prefixRows = this.findPrefix(prefix);
+            if (rows == null) {
+                rows = prefixRows;
+                count = prefixRows.length;
+            } else {
+                count = intersect(rows, count, prefixRows);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Splits {@code text} into its distinct lower case terms, separated by characters that are not letters or digits.
+     */
+    static List<String> terms(final String text) {
+        final List<String> terms = new ArrayList<>(4);
+        if (text == null) {
+            return terms;
+        }
+        final StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                final String completed = term.toString();
+                if (!terms.contains(completed)) {
+                    terms.add(completed);
+                }
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @return rows of the actions with a term starting with {@code prefix}, in ascending order
+     */
+    private int[] findPrefix(final String prefix) {
+        final List<int[]> lists = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, PostingList> posting : postings.tailMap(prefix).entrySet()) {
+            if (!posting.getKey().startsWith(prefix)) {
+                break;
+            }
+            final int[] rows = posting.getValue().toArray();
+            lists.add(rows);
+            total += rows.length;
+        }
+
+        final int[] union = new int[total];
+        int n = 0;
+        for (int[] rows : lists) {
+            System.arraycopy(rows, 0, union, n, rows.length);
+            n += rows.length;
+        }
+        Arrays.sort(union);
+        // An action has a row in every posting list of its terms, and several of them may start with the prefix.
+        int distinct = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    /**
+     * Rows of actions to remove from an index, grouped by the terms of their descriptions.
+     */
+    static final class Removal {
+        private final Map<String, Rows> rowsByTerm = new HashMap<>();
+
+        void add(final String description, final int row) {
+            for (String term : terms(description)) {
+                rowsByTerm.computeIfAbsent(term, t -> new Rows()).add(row);
+            }
+        }
+    }
+
+    private static final class Rows {
+        private int[] rows = new int[4];
+        private int count;
+
+        private void add(final int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+
+    /**
+     * Keeps the rows that are also in {@code other}, both in ascending order.
+     *
+     * @return number of rows kept
+     */
+    private static int intersect(final int[] rows, final int count, final int[] other) {
+        int kept = 0;
+        for (int i = 0, j = 0; i < count && j < other.length; ) {
+            if (rows[i] < other[j]) {
+                i++;
+            } else if (rows[i] > other[j]) {
+                j++;
+            } else {
+                rows[kept++] = rows[i++];
+                j++;
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sandbox.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Terms and term prefixes that the description of an action must all contain, as matched by
+ * {@link ItemActionService#getActionsByDescription(com.sandbox.model.items.ItemClass, DescriptionQuery)}.
+ * <p>
+ * Descriptions are split into terms at every character that is not a letter or digit, and terms are compared in
+ * lower case, so {@code allOf("upgrade")} matches "Engine upgrade" and "UPGRADE, urgent".
+ */
+public final class DescriptionQuery {
+    private final List<String> terms;
+    private final List<String> prefixes;
+
+    private DescriptionQuery(final List<String> terms, final List<String> prefixes) {
+        this.terms = terms;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * @param text one or more terms that must all be in the description
+     */
+    public static DescriptionQuery allOf(final String text) {
+        final List<String> terms = DescriptionIndex.terms(text);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query must have at least one term.");
+        }
+        return new DescriptionQuery(terms, List.of());
+    }
+
+    /**
+     * @param prefix start of a term that must be in the description
+     */
+    public static DescriptionQuery prefix(final String prefix) {
+        final List<String> terms = DescriptionIndex.terms(prefix);
+        if (terms.size() != 1) {
+            throw new IllegalArgumentException("Prefix must be a single term.");
+        }
+        return new DescriptionQuery(List.of(), terms);
+    }
+
+    /**
+     * @return query matching the descriptions that match both this query and {@code other}
+     */
+    public DescriptionQuery and(final DescriptionQuery other) {
+        final List<String> combinedTerms = new ArrayList<>(terms);
+        combinedTerms.addAll(other.terms);
+        final List<String> combinedPrefixes = new ArrayList<>(prefixes);
+        combinedPrefixes.addAll(other.prefixes);
+        return new DescriptionQuery(List.copyOf(combinedTerms), List.copyOf(combinedPrefixes));
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    @Override
+    public String toString() {
+        return "DescriptionQuery{" +
+                "terms=" + terms +
+                ", prefixes=" + prefixes +
+                '}';
+    }
+}
@@ -1,146 +1,1410 @@
-package com.sandbox.service;
-
-import com.sandbox.exceptions.ActionNotFoundException;
-import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
-import com.sandbox.exceptions.ItemNotFoundException;
-import com.sandbox.model.Action;
-import com.sandbox.model.items.Item;
-import com.sandbox.model.items.ItemClass;
-
-import java.time.Instant;
-import java.util.*;
-import java.util.stream.Collectors;
-
-public class ItemActionService {
-    private final Map<String, Item> items = new HashMap<>();
-    private final Set<Action> actions = new HashSet<>();
-
-    public ItemActionService() {
-        // empty
-    }
-
-    public Item getItemById(final String itemId) {
-        final Item item = items.get(itemId);
-        if (item == null) {
-            throw new ItemNotFoundException();
-        }
-        return item;
-    }
-
-    public Action getActionById(final UUID actionId) {
-        final Action action = actions.stream()
-                .filter(a -> a.getId().equals(actionId))
-                .findFirst().orElse(null);
-        if (action == null) {
-            throw new ActionNotFoundException();
-        }
-        return action;
-    }
-
-    public void registerItem(final Item item) {
-        if (items.containsKey(item.getId())) {
-            throw new ItemIdAlreadyRegisteredException();
-        }
-        items.put(item.getId(), item);
-    }
-
-    public UUID registerActionOnItem(final String itemId, final String actionDescription, final Integer actionCost, final Instant actionDate) {
-        if (!items.containsKey(itemId)) {
-            throw new ItemNotFoundException();
-        }
-
-        Action action;
-        // On the off chance that the created UUID already exists, create a new Action with a different UUID.
-        do action = new Action(itemId, actionDescription, actionCost, actionDate);
-        while (!actions.add(action));
-
-        return action.getId();
-    }
-
-    public Set<Item> getAllItems() {
-        return items.values().stream().collect(Collectors.toUnmodifiableSet());
-    }
-
-    public Set<Action> getAllActions() {
-        return actions.stream().collect(Collectors.toUnmodifiableSet());
-    }
-
-    public Map<Action, Item> getActionOnItemByActionId(final UUID uuid) {
-        final Action action = this.getActionById(uuid);
-        final Item item = items.get(action.getItemId());
-
-        return Collections.singletonMap(action, item);
-    }
-
-    public Set<String> getItemIdsOfType(ItemClass itemClass) {
-        return items.values().stream()
-                .filter(item -> item.getClass().equals(itemClass.getItemClass()))
-                .map(Item::getId)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    public List<Action> getActionsOnItemTypeSortedByPerformedDate(ItemClass itemClass) {
-        final Set<String> itemIds = this.getItemIdsOfType(itemClass);
-
-        return actions.stream()
-                .filter(action -> itemIds.contains(action.getItemId()))
-                .sorted(Comparator.comparing(Action::getPerformedDateTime))
-                .collect(Collectors.toUnmodifiableList());
-    }
-
-    public Map<String, Integer> getItemIdsWithTotalActionCost() {
-        final Map<String, Integer> itemActionCost = new HashMap<>();
-
-        actions.forEach(action -> {
-            itemActionCost.putIfAbsent(action.getItemId(), 0);
-            itemActionCost.computeIfPresent(action.getItemId(), (k, val) -> val + action.getCost());
-        });
-
-        return itemActionCost;
-    }
-
-    public Map<String, Integer> getItemIdsWithTotalActionCostByItemType(ItemClass itemClass) {
-        final Set<String> itemIdsOfType = this.getItemIdsOfType(itemClass);
-
-        return this.getItemIdsWithTotalActionCost().entrySet()
-                .stream().filter(e -> itemIdsOfType.contains(e.getKey()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    }
-
-    /**
-     * Finds the {@code Item} of type {@code itemType} with the highest total action cost.
-     * If more than one {@code Item} have the same highest total cost all are returned.
-     *
-     * @param itemClass {@code ItemType}
-     * @return {@code Item}(s) of type {@code itemType} with the highest total cost together with the highest cost
-     */
-    public Map<Item, Integer> getItemsWithHighestTotalActionCostByItemType(ItemClass itemClass) {
-        final Map<String, Integer> itemIdsTotalActionCostMap = this.getItemIdsWithTotalActionCostByItemType(itemClass);
-
-        final Optional<Map.Entry<String, Integer>> maxEntry = itemIdsTotalActionCostMap.entrySet().stream()
-                .max(Comparator.comparingInt(Map.Entry::getValue));
-
-        return maxEntry
-                .map(entry -> itemIdsTotalActionCostMap.entrySet().stream()
-                        .filter(e -> e.getValue().equals(entry.getValue()))
-                        .collect(Collectors.toMap(
-                                e -> items.get(e.getKey()),
-                                Map.Entry::getValue)))
-                .orElse(null);
-    }
-
-    public Map<Class<? extends Item>, Set<Item>> getItemsPartitionedByClass(ItemClass... itemClasses) {
-        final Map<Class<? extends Item>, Set<Item>> partitionedItems = new HashMap<>();
-        if (itemClasses.length < 1) {
-            ItemClass.getAllClasses().forEach(c -> partitionedItems.put(c, new HashSet<>()));
-            items.values().forEach(i -> partitionedItems.get(i.getClass()).add(i));
-        } else {
-            Arrays.stream(itemClasses).forEach(c -> partitionedItems.put(c.getItemClass(), new HashSet<>()));
-            items.values()
-                    .stream().filter(i -> partitionedItems.containsKey(i.getClass()))
-                    .forEach(i -> partitionedItems.get(i.getClass()).add(i));
-        }
-
-        return partitionedItems;
-    }
-}
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ActionNotFoundException;
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.feed.ChangeFeed;
+import com.sandbox.service.id.ActionIdGenerator;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.metrics.Operation;
+import com.sandbox.service.metrics.ServiceMetrics;
+import com.sandbox.service.persistence.ActionArchive;
+import com.sandbox.service.persistence.ActionLog;
+import com.sandbox.service.persistence.Durability;
+import com.sandbox.service.persistence.Snapshot;
+import com.sandbox.service.store.ActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import com.sandbox.service.transfer.BulkReader;
+import com.sandbox.service.transfer.BulkWriter;
+import com.sandbox.service.transfer.TransferFormat;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Registry of {@code Item}s and the {@code Action}s performed on them.
+ * <p>
+ * The service is thread-safe. Writes only contend when they touch the same hash bin or item,
+ * and reads never take a lock, so they see a weakly consistent view of concurrent registrations.
+ * <p>
+ * Actions are kept in an {@link ActionStore}, and the service's indexes refer to them by row. Their IDs come from an
+ * {@link ActionIdGenerator}, by default a {@link TimeOrderedIdGenerator}.
+ * A service {@link #open(Path, Durability) opened} on a directory also appends every registration to an
+ * {@link ActionLog} and restores its state from it, starting from the latest {@link Snapshot} in the directory.
+ * <p>
+ * The total cost of the actions on each {@code ItemClass}, and on each item, can be rolled up per minute, hour or day
+ * as they are registered, at the granularities chosen in the {@link ServiceOptions}, so that costs over time are read
+ * from the rollups rather than the actions.
+ * <p>
+ * Queries returning many items or actions have {@code stream} counterparts that read the indexes lazily instead of
+ * copying them, so that callers can consume results incrementally and stop early.
+ * <p>
+ * Registered solids of the classes chosen in the {@link ServiceOptions} are indexed by color and by chosen
+ * {@link SolidAttribute}s, so that {@link #getSolidsBetween(ItemClass, String, SolidAttribute, double, double)} reads
+ * only the solids it returns.
+ * <p>
+ * Actions can also be indexed by the terms of their descriptions per {@code ItemClass}, if chosen in the
+ * {@link ServiceOptions}, so that {@link #getActionsByDescription(ItemClass, DescriptionQuery)} finds them without
+ * scanning.
+ * <p>
+ * Totals of action cost per item of an {@code ItemClass}, or of all items, are cached until an action is registered
+ * on the items they cover.
+ * <p>
+ * Every public method returning a result other than a stream is counted in the service's {@link ServiceMetrics},
+ * which can be published over JMX, and has its latency recorded, for lookups by ID only in a sample of the calls.
+ * Metrics can be turned off in the {@link ServiceOptions}.
+ * <p>
+ * Registrations are published to the service's {@link ChangeFeed}, so that consumers can follow new items and actions
+ * without polling.
+ * <p>
+ * Actions performed before a horizon can be {@link #compactActionsBefore(Instant, RollupGranularity, Path) compacted}
+ * out of memory into {@link ActionSummary summaries}, once or on a {@link RetentionPolicy}. Total costs, leaderboards
+ * and rollups still include compacted actions, while queries returning actions no longer find them.
+ * <p>
+ * Items and actions are {@link #importFrom(Path, TransferFormat) imported} from and
+ * {@link #exportTo(Path, TransferFormat) exported} to files in a {@link TransferFormat}, streamed in bounded memory.
+ */
+public class ItemActionService implements AutoCloseable {
+    // Heap per item, and per action besides the action store, measured as described in docs/PERFORMANCE.md.
+    private static final int BYTES_PER_ITEM = 160;
+    private static final int BYTES_PER_INDEXED_ACTION = 90;
+    static final int IMPORT_BATCH_SIZE = 4_096;
+
+    private final ItemRegistry items = new ItemRegistry();
+    private final ActionStore actions;
+    private final ActionIdGenerator idGenerator;
+    private final Map<ItemClass, ItemBucket> itemsByClass = new EnumMap<>(ItemClass.class);
+    private final Map<Class<? extends Item>, ItemBucket> itemsByParentClass = new HashMap<>();
+    private final Map<ItemClass, ConcurrentNavigableMap<ActionCursor, Integer>> actionsByPerformedDate = new EnumMap<>(ItemClass.class);
+    private final Map<ItemClass, CostLeaderboard> leaderboards = new EnumMap<>(ItemClass.class);
+    private final Map<ItemClass, CostRollup> costRollups = new EnumMap<>(ItemClass.class);
+    private final Set<RollupGranularity> itemClassRollups;
+    private final Set<RollupGranularity> itemRollups;
+    private final LongAdder rollupBuckets = new LongAdder();
+    private final Map<ItemClass, DescriptionIndex> descriptionIndexes = new EnumMap<>(ItemClass.class);
+    private final Map<ItemClass, SolidIndex> solidIndexes = new EnumMap<>(ItemClass.class);
+    private final ActionLog log;
+    // Held shared while an item is logged and registered, and exclusively while a snapshot reads the log position.
+    private final StampedLock snapshotLock = new StampedLock();
+    private final ServiceMetrics metrics;
+    private final ChangeFeed changeFeed;
+    private final QueryCache queryCache;
+    // Held while actions are compacted, and while costs are aggregated so that no action is counted twice or missed.
+    private final Object compactionLock = new Object();
+    private CompletableFuture<Path> runningSnapshot;
+    private final RetentionSchedule retention = new RetentionSchedule();
+
+    public ItemActionService() {
+        this(new ObjectActionStore());
+    }
+
+    /**
+     * @param actionStore empty store to keep the registered actions in
+     */
+    public ItemActionService(final ActionStore actionStore) {
+        this(actionStore, new TimeOrderedIdGenerator());
+    }
+
+    /**
+     * @param actionStore empty store to keep the registered actions in
+     * @param idGenerator generator of the IDs of registered actions
+     */
+    public ItemActionService(final ActionStore actionStore, final ActionIdGenerator idGenerator) {
+        this(actionStore, idGenerator, ServiceOptions.defaults());
+    }
+
+    /**
+     * @param actionStore empty store to keep the registered actions in
+     * @param idGenerator generator of the IDs of registered actions
+     * @param options     optional parts of the service
+     */
+    public ItemActionService(final ActionStore actionStore, final ActionIdGenerator idGenerator,
+                             final ServiceOptions options) {
+        this(actionStore, idGenerator, options, null, new ChangeFeed());
+    }
+
+    /**
+     * Creates a service publishing its registrations to {@code changeFeed}, which other services may publish to too.
+     */
+    ItemActionService(final ActionStore actionStore, final ActionIdGenerator idGenerator,
+                      final ServiceOptions options, final ChangeFeed changeFeed) {
+        this(actionStore, idGenerator, options, null, changeFeed);
+    }
+
+    private ItemActionService(final ActionStore actionStore, final ActionIdGenerator idGenerator,
+                              final ServiceOptions options, final ActionLog log, final ChangeFeed changeFeed) {
+        if (actionStore.rowCount() > 0) {
+            throw new IllegalArgumentException("Action store must be empty.");
+        }
+        this.actions = actionStore;
+        this.idGenerator = idGenerator;
+        this.log = log;
+        this.changeFeed = changeFeed;
+        this.itemClassRollups = options.getItemClassRollups();
+        this.itemRollups = options.getItemRollups();
+        this.metrics = new ServiceMetrics(items::registeredCount, actions::size, this::estimatedMemoryBytes,
+                options.hasMetrics());
+        this.queryCache = new QueryCache(QueryCache.DEFAULT_CAPACITY, metrics);
+        for (ItemClass itemClass : ItemClass.values()) {
+            itemsByClass.put(itemClass, new ItemBucket(items, item -> item.getClass() == itemClass.getItemClass()));
+            itemsByParentClass.putIfAbsent(itemClass.getParentClass(),
+                    new ItemBucket(items, item -> itemClass.getParentClass().isInstance(item)
+                            && ItemClass.fromClass(item.getClass()) != null));
+            actionsByPerformedDate.put(itemClass, new ConcurrentSkipListMap<>());
+            leaderboards.put(itemClass, new CostLeaderboard());
+            if (!options.getItemClassRollups().isEmpty()) {
+                costRollups.put(itemClass, new CostRollup(options.getItemClassRollups(), rollupBuckets));
+            }
+            if (options.hasDescriptionIndex()) {
+                descriptionIndexes.put(itemClass, new DescriptionIndex());
+            }
+            if (options.getSolidIndex(itemClass) != null) {
+                solidIndexes.put(itemClass, new SolidIndex(options.getSolidIndex(itemClass)));
+            }
+        }
+    }
+
+    /**
+     * Opens a service persisted in {@code directory}, restoring the items and actions registered on it before.
+     *
+     * @param directory  directory of the service's {@link ActionLog}
+     * @param durability when registrations are forced to disk
+     * @return service logging every registration to {@code directory}
+     */
+    public static ItemActionService open(final Path directory, final Durability durability) throws IOException {
+        return open(ActionLog.open(directory, durability), new ObjectActionStore());
+    }
+
+    /**
+     * Restores a service from the latest snapshot in the directory of {@code log} and from {@code log}, and appends
+     * every later registration to it. Sections of the snapshot are decoded on all available processors.
+     *
+     * @param log         log that has not been replayed yet, closed together with the service
+     * @param actionStore empty store to keep the registered actions in
+     * @return service logging every registration to {@code log}
+     */
+    public static ItemActionService open(final ActionLog log, final ActionStore actionStore) throws IOException {
+        return open(log, actionStore, new TimeOrderedIdGenerator());
+    }
+
+    /**
+     * Restores a service like {@link #open(ActionLog, ActionStore)}, generating the IDs of later actions with
+     * {@code idGenerator}.
+     */
+    public static ItemActionService open(final ActionLog log, final ActionStore actionStore,
+                                         final ActionIdGenerator idGenerator) throws IOException {
+        return open(log, actionStore, idGenerator, ServiceOptions.defaults());
+    }
+
+    /**
+     * Restores a service like {@link #open(ActionLog, ActionStore)}, generating the IDs of later actions with
+     * {@code idGenerator} and with the optional parts in {@code options}.
+     */
+    public static ItemActionService open(final ActionLog log, final ActionStore actionStore,
+                                         final ActionIdGenerator idGenerator, final ServiceOptions options)
+            throws IOException {
+        try {
+            final ItemActionService itemActionService = new ItemActionService(actionStore, idGenerator, options, log,
+                    new ChangeFeed());
+            final Path snapshot = Snapshot.latest(log.getDirectory());
+            if (snapshot != null) {
+                Snapshot.read(snapshot, Runtime.getRuntime().availableProcessors(),
+                        itemActionService::restoreItem, itemActionService::restoreAction);
+            }
+            // The log overlaps the snapshot, and restoring skips the items and actions that are already registered.
+            log.replay(itemActionService::restoreItem, itemActionService::restoreAction);
+            itemActionService.rankRestoredItems();
+            return itemActionService;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Restores a service from a snapshot written by {@link #writeSnapshot(Path)}, decoding its sections on all
+     * available processors.
+     *
+     * @param actionStore empty store to keep the restored actions in
+     */
+    public static ItemActionService fromSnapshot(final Path file, final ActionStore actionStore) throws IOException {
+        return fromSnapshot(file, actionStore, ServiceOptions.defaults());
+    }
+
+    /**
+     * Restores a service like {@link #fromSnapshot(Path, ActionStore)}, with the optional parts in {@code options}.
+     */
+    public static ItemActionService fromSnapshot(final Path file, final ActionStore actionStore,
+                                                 final ServiceOptions options) throws IOException {
+        final ItemActionService itemActionService = new ItemActionService(actionStore, new TimeOrderedIdGenerator(),
+                options);
+        Snapshot.read(file, Runtime.getRuntime().availableProcessors(),
+                itemActionService::restoreItem, itemActionService::restoreAction);
+        itemActionService.rankRestoredItems();
+        return itemActionService;
+    }
+
+    public Item getItemById(final String itemId) {
+        return this.timed(Operation.GET_ITEM_BY_ID, () -> {
+            final Item item = items.item(itemId);
+            if (item == null) {
+                metrics.notFound();
+                throw new ItemNotFoundException();
+            }
+            return item;
+        });
+    }
+
+    public Action getActionById(final UUID actionId) {
+        return this.timed(Operation.GET_ACTION_BY_ID, () -> this.findAction(actionId));
+    }
+
+    private Action findAction(final UUID actionId) {
+        final int row = actions.find(actionId);
+        final Action action = row < 0 ? null : actions.get(row);
+        if (action == null) {
+            metrics.notFound();
+            throw new ActionNotFoundException();
+        }
+        return action;
+    }
+
+    public void registerItem(final Item item) {
+        this.timed(Operation.REGISTER_ITEM, () -> {
+            final ItemEntry entry = items.reserve(item.getId());
+            final long logPosition;
+            final long stamp = log == null ? 0 : snapshotLock.readLock();
+            try {
+                logPosition = this.register(entry, item, log == null ? i -> 0 : log::append);
+            } finally {
+                if (log != null) {
+                    snapshotLock.unlockRead(stamp);
+                }
+            }
+            if (logPosition < 0) {
+                metrics.idCollision();
+                throw new ItemIdAlreadyRegisteredException();
+            }
+            this.addToIndexes(entry);
+            metrics.itemRegistered();
+            if (log != null) {
+                log.awaitDurable(logPosition);
+            }
+            changeFeed.publish(item);
+        });
+    }
+
+    public UUID registerActionOnItem(final String itemId, final String actionDescription, final Integer actionCost, final Instant actionDate) {
+        return this.timed(Operation.REGISTER_ACTION_ON_ITEM, () -> {
+            final ItemEntry entry = items.find(itemId);
+            if (entry == null || entry.getItem() == null) {
+                metrics.notFound();
+                throw new ItemNotFoundException();
+            }
+            Objects.requireNonNull(actionDate, "Action date can't be null.");
+
+            final Action action = new Action(idGenerator.next(), itemId, actionDescription, actionCost, actionDate);
+            final int row = actions.add(action);
+            if (row < 0) {
+                metrics.idCollision();
+                throw new IllegalStateException("Generated action ID " + action.getId() + " is already in use.");
+            }
+            final long logPosition = this.appendToLog(action, row);
+            this.addToIndexes(entry, action, row, false);
+            metrics.actionRegistered();
+            if (log != null) {
+                log.awaitDurable(logPosition);
+            }
+            changeFeed.publish(entry.getItem(), action);
+
+            return action.getId();
+        });
+    }
+
+    /**
+     * Registers a batch of actions, validating all of them before registering any. Each item is locked and moved on
+     * its leaderboard once per batch rather than once per action, and a persisted service waits for its log once.
+     *
+     * @param requests actions to register
+     * @return IDs of the registered actions, in the order of {@code requests}
+     * @throws ItemNotFoundException if an item is not registered, in which case no action is registered
+     * @throws IllegalStateException if a generated action ID is already in use or an action can't be logged, in which
+     *                               case the other actions are registered
+     */
+    public List<UUID> registerActions(final Collection<ActionRequest> requests) {
+        return this.timed(Operation.REGISTER_ACTIONS, () -> {
+            final ActionRequest[] batch = requests.toArray(new ActionRequest[0]);
+            final ItemEntry[] entries = new ItemEntry[batch.length];
+            for (int i = 0; i < batch.length; i++) {
+                entries[i] = this.getRegisteredEntry(batch[i].getItemId());
+                Objects.requireNonNull(batch[i].getPerformedDateTime(), "Action date can't be null.");
+            }
+
+            final UUID[] ids = new UUID[batch.length];
+            final RuntimeException[] failures = new RuntimeException[batch.length];
+            this.registerBatch(batch, entries, ids, failures);
+            for (RuntimeException failure : failures) {
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            return List.of(ids);
+        });
+    }
+
+    /**
+     * Registers the actions in {@code batch} that have an entry, which must hold a registered item. An action that
+     * can't be logged is removed from the store again, and every action stored before an unexpected exception is
+     * still added to the indexes, so that each action ends up either registered with its ID set or not at all.
+     *
+     * @param entries  entry of the item of each action, or {@code null} to skip the action
+     * @param ids      receives the ID of each registered action
+     * @param failures receives the exception of each action that could not be registered
+     */
+    void registerBatch(final ActionRequest[] batch, final ItemEntry[] entries, final UUID[] ids,
+                       final RuntimeException[] failures) {
+        final Map<ItemEntry, EntryBatch> batchesByEntry = new IdentityHashMap<>();
+        final boolean publishing = changeFeed.hasSubscribers();
+        final Item[] publishedItems = publishing ? new Item[batch.length] : null;
+        final Action[] publishedActions = publishing ? new Action[batch.length] : null;
+        final Action[] stored = new Action[batch.length];
+        final int[] rows = new int[batch.length];
+        long logPosition = 0;
+        int registered = 0;
+        try {
+            for (int i = 0; i < batch.length; i++) {
+                if (entries[i] == null) {
+                    continue;
+                }
+                final ActionRequest request = batch[i];
+                final Action action = new Action(idGenerator.next(), request.getItemId(), request.getDescription(),
+                        request.getCost(), request.getPerformedDateTime());
+                final int row = actions.add(action);
+                if (row < 0) {
+                    metrics.idCollision();
+                    failures[i] = new IllegalStateException("Generated action ID " + action.getId() + " is already in use.");
+                    continue;
+                }
+                try {
+                    logPosition = Math.max(logPosition, this.appendToLog(action, row));
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                    continue;
+                }
+                ids[i] = action.getId();
+                stored[i] = action;
+                rows[i] = row;
+                if (publishing) {
+                    publishedItems[registered] = entries[i].getItem();
+                    publishedActions[registered] = action;
+                }
+                registered++;
+                batchesByEntry.computeIfAbsent(entries[i], entry -> new EntryBatch()).add(row, action.getCost());
+                this.rollUp(entries[i], entries[i].getItemClass(), action);
+            }
+        } finally {
+            batchesByEntry.forEach((entry, entryBatch) -> entry.addAll(entryBatch.rows, entryBatch.count, entryBatch.costTotal));
+            // Indexed by date once the entries hold the rows, as compaction finds the actions to remove by date.
+            for (int i = 0; i < batch.length; i++) {
+                final ItemClass itemClass = stored[i] == null ? null : entries[i].getItemClass();
+                if (itemClass != null) {
+                    actionsByPerformedDate.get(itemClass).put(ActionCursor.of(stored[i]), rows[i]);
+                    this.indexDescription(itemClass, stored[i], rows[i]);
+                }
+            }
+            final Set<ItemClass> modified = new HashSet<>();
+            batchesByEntry.keySet().forEach(entry -> modified.add(entry.getItemClass()));
+            modified.forEach(queryCache::modified);
+            metrics.actionsRegistered(registered);
+        }
+        if (log != null) {
+            log.awaitDurable(logPosition);
+        }
+        if (publishing) {
+            changeFeed.publishAll(publishedItems, publishedActions, registered);
+        }
+    }
+
+    /**
+     * Appends a stored action to the log of a persisted service, removing it from the store again if it can't be
+     * logged, as it would otherwise be in memory without being restored on replay.
+     *
+     * @return log position to wait for, or {@code 0} if the service is not persisted
+     */
+    private long appendToLog(final Action action, final int row) {
+        if (log == null) {
+            return 0;
+        }
+        try {
+            return log.append(action);
+        } catch (RuntimeException e) {
+            actions.remove(row);
+            throw e;
+        }
+    }
+
+    /**
+     * @return entry of the registered item {@code itemId}, or {@code null} if none is registered
+     */
+    ItemEntry findRegisteredEntry(final String itemId) {
+        final ItemEntry entry = items.find(itemId);
+        if (entry == null || entry.getItem() == null) {
+            metrics.notFound();
+            return null;
+        }
+        return entry;
+    }
+
+    private long register(final ItemEntry entry, final Item item, final ToLongFunction<Item> log) {
+        final ItemClass itemClass = ItemClass.fromClass(item.getClass());
+        return entry.register(item, itemClass, itemClass == null ? null : leaderboards.get(itemClass), log);
+    }
+
+    private void restoreItem(final Item item) {
+        final ItemEntry entry = items.reserve(item.getId());
+        if (this.register(entry, item, i -> 0) >= 0) {
+            this.addToIndexes(entry);
+        }
+    }
+
+    private void restoreAction(final Action action) {
+        final ItemEntry entry = items.find(action.getItemId());
+        if (entry == null || entry.getItem() == null) {
+            return;
+        }
+        final int row = actions.add(action);
+        if (row >= 0) {
+            this.addToIndexes(entry, action, row, true);
+        }
+    }
+
+    private void rankRestoredItems() {
+        items.forEachRegistered(ItemEntry::rank);
+    }
+
+    private void addToIndexes(final ItemEntry entry) {
+        items.countRegistered();
+        final ItemClass itemClass = entry.getItemClass();
+        if (itemClass != null) {
+            itemsByClass.get(itemClass).add(entry.getOrdinal());
+            itemsByParentClass.get(itemClass.getParentClass()).add(entry.getOrdinal());
+            final SolidIndex solidIndex = solidIndexes.get(itemClass);
+            if (solidIndex != null) {
+                solidIndex.add(entry.getOrdinal(), (Solid) entry.getItem());
+            }
+        }
+    }
+
+    private void addToIndexes(final ItemEntry entry, final Action action, final int row, final boolean restoring) {
+        if (restoring) {
+            // Restored items are ranked once all actions are restored instead of on every action.
+            entry.restore(row, action.getCost());
+        } else {
+            entry.add(row, action.getCost());
+        }
+        final ItemClass itemClass = entry.getItemClass();
+        if (itemClass != null) {
+            actionsByPerformedDate.get(itemClass).put(ActionCursor.of(action), row);
+            this.indexDescription(itemClass, action, row);
+        }
+        this.rollUp(entry, itemClass, action);
+        queryCache.modified(itemClass);
+    }
+
+    private void indexDescription(final ItemClass itemClass, final Action action, final int row) {
+        final DescriptionIndex descriptionIndex = descriptionIndexes.get(itemClass);
+        if (descriptionIndex != null) {
+            descriptionIndex.add(action.getDescription(), row);
+        }
+    }
+
+    private void rollUp(final ItemEntry entry, final ItemClass itemClass, final Action action) {
+        if (!itemRollups.isEmpty()) {
+            entry.rollUp(action, () -> new CostRollup(itemRollups, rollupBuckets));
+        }
+        final CostRollup costRollup = itemClass == null ? null : costRollups.get(itemClass);
+        if (costRollup != null) {
+            costRollup.add(action.getPerformedDateTime(), action.getCost());
+        }
+    }
+
+    public List<Action> getActionsOnItem(final String itemId) {
+        return this.timed(Operation.GET_ACTIONS_ON_ITEM, () -> this.getRegisteredEntry(itemId).snapshot(actions));
+    }
+
+    public long getTotalActionCostOfItem(final String itemId) {
+        return this.timed(Operation.GET_TOTAL_ACTION_COST_OF_ITEM,
+                () -> this.getRegisteredEntry(itemId).getTotalCost());
+    }
+
+    /**
+     * @return lazy stream of the actions registered on the item so far, in registration order
+     */
+    public Stream<Action> streamActionsOnItem(final String itemId) {
+        return this.getRegisteredEntry(itemId).stream(actions);
+    }
+
+    private ItemEntry getRegisteredEntry(final String itemId) {
+        final ItemEntry entry = this.findRegisteredEntry(itemId);
+        if (entry == null) {
+            throw new ItemNotFoundException();
+        }
+        return entry;
+    }
+
+    public Set<Item> getAllItems() {
+        return this.timed(Operation.GET_ALL_ITEMS, () -> this.streamAllItems().collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public Set<Action> getAllActions() {
+        return this.timed(Operation.GET_ALL_ACTIONS,
+                () -> this.streamAllActions().collect(Collectors.toUnmodifiableSet()));
+    }
+
+    /**
+     * Streams the registered items without copying them. The stream covers the items registered when it is created,
+     * and can be consumed while more are registered.
+     *
+     * @return lazy stream of the registered items, in the order their IDs were first seen
+     */
+    public Stream<Item> streamAllItems() {
+        return items.items();
+    }
+
+    /**
+     * Streams the registered actions straight from the action store without copying them. The stream covers the
+     * actions registered when it is created, and can be consumed while more are registered.
+     *
+     * @return lazy stream of the registered actions, in the order they were stored
+     */
+    public Stream<Action> streamAllActions() {
+        return IntStream.range(0, actions.rowCount())
+                .mapToObj(actions::get)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * @return number of actions held in memory, not counting compacted ones
+     */
+    public int getActionCount() {
+        return actions.size();
+    }
+
+    /**
+     * @return number of rows of the action store, including the empty rows of compacted actions
+     */
+    int getActionRowCount() {
+        return actions.rowCount();
+    }
+
+    /**
+     * @return action in {@code row} of the action store, or {@code null} if the row is empty
+     */
+    Action getActionInRow(final int row) {
+        return actions.get(row);
+    }
+
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return feed of the items and actions registered from now on
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    private long estimatedMemoryBytes() {
+        long bytes = actions.estimatedMemoryBytes()
+                + (long) items.registeredCount() * BYTES_PER_ITEM
+                + (long) actions.size() * BYTES_PER_INDEXED_ACTION
+                + rollupBuckets.sum() * CostRollup.BYTES_PER_BUCKET;
+        for (DescriptionIndex descriptionIndex : descriptionIndexes.values()) {
+            bytes += descriptionIndex.estimatedMemoryBytes();
+        }
+        for (SolidIndex solidIndex : solidIndexes.values()) {
+            bytes += solidIndex.estimatedMemoryBytes();
+        }
+        return bytes;
+    }
+
+    public Map<Action, Item> getActionOnItemByActionId(final UUID uuid) {
+        return this.timed(Operation.GET_ACTION_ON_ITEM_BY_ACTION_ID, () -> {
+            final Action action = this.findAction(uuid);
+            final Item item = items.item(action.getItemId());
+
+            return Collections.singletonMap(action, item);
+        });
+    }
+
+    /**
+     * @param itemClass {@code ItemClass} of the items
+     * @return read-only live view of the IDs of the registered items of type {@code itemClass}
+     */
+    public Set<String> getItemIdsOfType(ItemClass itemClass) {
+        return this.timed(Operation.GET_ITEM_IDS_OF_TYPE, () -> itemsByClass.get(itemClass).ids());
+    }
+
+    /**
+     * @param parentClass parent class of one or more {@code ItemClass} members, e.g. {@code Solid.class}
+     * @return read-only live view of the registered items extending {@code parentClass}
+     */
+    public Set<Item> getItemsOfParentClass(Class<? extends Item> parentClass) {
+        return this.timed(Operation.GET_ITEMS_OF_PARENT_CLASS, () -> {
+            final ItemBucket bucket = itemsByParentClass.get(parentClass);
+            return bucket == null ? Collections.emptySet() : bucket.items();
+        });
+    }
+
+    public List<Solid> getSolidsBetween(ItemClass itemClass, SolidAttribute attribute, double from, double to) {
+        return this.getSolidsBetween(itemClass, null, attribute, from, to);
+    }
+
+    /**
+     * Finds the registered solids of a color whose {@code attribute} is in {@code [from, to]}, reading a single range
+     * of a sorted index of the attribute per {@code ItemClass}.
+     *
+     * @param itemClass {@code ItemClass} of the solids, or {@code null} for every class with {@code attribute}
+     * @param color     color of the solids, or {@code null} for any color
+     * @return solids in ascending order of {@code attribute}
+     * @throws IllegalArgumentException if the items of {@code itemClass} don't have {@code attribute}
+     * @throws IllegalStateException    if the solids of {@code itemClass}, or of a class with {@code attribute} if
+     *                                  it is {@code null}, are not indexed by {@code attribute}
+     */
+    public List<Solid> getSolidsBetween(ItemClass itemClass, String color, SolidAttribute attribute, double from, double to) {
+        return this.timed(Operation.GET_SOLIDS_BETWEEN, () -> {
+            if (from > to) {
+                throw new IllegalArgumentException("Range start can't be after range end.");
+            } else if (itemClass != null && !attribute.appliesTo(itemClass)) {
+                throw new IllegalArgumentException(itemClass + " has no " + attribute + ".");
+            }
+            for (ItemClass c : ItemClass.values()) {
+                if (itemClass == null ? attribute.appliesTo(c) : c == itemClass) {
+                    final SolidIndex index = solidIndexes.get(c);
+                    if (index == null || !index.indexes(attribute)) {
+                        throw new IllegalStateException(c + " solids are not indexed by " + attribute + ".");
+                    }
+                }
+            }
+            final List<Solid> solids = new ArrayList<>();
+            solidIndexes.forEach((c, index) -> {
+                if (itemClass == null ? attribute.appliesTo(c) : c == itemClass) {
+                    index.forEachBetween(color, attribute, from, to, ordinal -> solids.add((Solid) items.item(ordinal)));
+                }
+            });
+            if (itemClass == null) {
+                solids.sort(Comparator.comparingDouble(attribute::valueOf));
+            }
+            return Collections.unmodifiableList(solids);
+        });
+    }
+
+    /**
+     * @param itemClass {@code ItemClass} of the solids, or {@code null} for every class of solids
+     * @return registered solids of {@code color}, in the order they were registered per {@code ItemClass}
+     * @throws IllegalArgumentException if the items of {@code itemClass} are not solids
+     * @throws IllegalStateException    if the solids of {@code itemClass}, or of any class if it is {@code null}, are
+     *                                  not indexed
+     */
+    public List<Solid> getSolidsOfColor(ItemClass itemClass, String color) {
+        return this.timed(Operation.GET_SOLIDS_OF_COLOR, () -> {
+            if (itemClass != null && !Solid.class.isAssignableFrom(itemClass.getItemClass())) {
+                throw new IllegalArgumentException(itemClass + " items are not solids.");
+            }
+            for (ItemClass c : ItemClass.values()) {
+                if ((itemClass == null ? Solid.class.isAssignableFrom(c.getItemClass()) : c == itemClass)
+                        && !solidIndexes.containsKey(c)) {
+                    throw new IllegalStateException(c + " solids are not indexed.");
+                }
+            }
+            final List<Solid> solids = new ArrayList<>();
+            solidIndexes.forEach((c, index) -> {
+                if (itemClass == null || c == itemClass) {
+                    index.forEachOfColor(color, ordinal -> solids.add((Solid) items.item(ordinal)));
+                }
+            });
+            return Collections.unmodifiableList(solids);
+        });
+    }
+
+    public List<Action> getActionsOnItemTypeSortedByPerformedDate(ItemClass itemClass) {
+        return this.timed(Operation.GET_ACTIONS_ON_ITEM_TYPE_SORTED_BY_PERFORMED_DATE,
+                () -> this.streamActionsOnItemTypeSortedByPerformedDate(itemClass)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * Streams the performed date index of {@code itemClass}. The stream is weakly consistent: it may or may not
+     * include actions registered while it is consumed.
+     *
+     * @return lazy stream of the actions on items of type {@code itemClass}, oldest first
+     */
+    public Stream<Action> streamActionsOnItemTypeSortedByPerformedDate(ItemClass itemClass) {
+        return actionsByPerformedDate.get(itemClass).values().stream()
+                .map(actions::get)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Streams the actions on items of type {@code itemClass} performed in {@code [from, to)}, oldest first, reading
+     * the performed date index as it is consumed. Unlike paging, the stream is weakly consistent: it may or may not
+     * include actions registered while it is consumed.
+     *
+     * @param itemClass {@code ItemClass} of the items the actions are performed on
+     * @param from      inclusive lower bound on the performed date
+     * @param to        exclusive upper bound on the performed date
+     */
+    public Stream<Action> streamActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start can't be after range end.");
+        }
+        return actionsByPerformedDate.get(itemClass)
+                .subMap(ActionCursor.first(from), true, ActionCursor.first(to), false)
+                .values().stream()
+                .map(actions::get)
+                .filter(Objects::nonNull);
+    }
+
+    public ActionPage getActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to, int limit) {
+        return this.getActionsOnItemTypeBetween(itemClass, from, to, null, limit);
+    }
+
+    /**
+     * Pages through the actions on items of type {@code itemClass} performed in {@code [from, to)}, oldest first.
+     *
+     * @param itemClass {@code ItemClass} of the items the actions are performed on
+     * @param from      inclusive lower bound on the performed date
+     * @param to        exclusive upper bound on the performed date
+     * @param after     cursor from the previous page, or {@code null} for the first page
+     * @param limit     maximum number of actions in the page
+     * @return the page of actions together with the cursor of the next page
+     */
+    public ActionPage getActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to, ActionCursor after, int limit) {
+        return this.timed(Operation.GET_ACTIONS_ON_ITEM_TYPE_BETWEEN, () -> {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Page limit must be positive.");
+            } else if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Range start can't be after range end.");
+            }
+
+            final ActionCursor start = ActionCursor.first(from);
+            final ActionCursor end = ActionCursor.first(to);
+            if (after != null && after.compareTo(end) >= 0) {
+                return new ActionPage(Collections.emptyList(), null);
+            }
+
+            final ConcurrentNavigableMap<ActionCursor, Integer> index = actionsByPerformedDate.get(itemClass);
+            final Iterator<Integer> range = (after == null || after.compareTo(start) < 0
+                    ? index.subMap(start, true, end, false)
+                    : index.subMap(after, false, end, false)).values().iterator();
+
+            final List<Action> page = new ArrayList<>(Math.min(limit, 64));
+            while (page.size() < limit && range.hasNext()) {
+                final Action action = actions.get(range.next());
+                // Compacted after the range was read.
+                if (action != null) {
+                    page.add(action);
+                }
+            }
+            final ActionCursor nextCursor = range.hasNext() ? ActionCursor.of(page.get(page.size() - 1)) : null;
+
+            return new ActionPage(Collections.unmodifiableList(page), nextCursor);
+        });
+    }
+
+    public List<Action> getActionsByDescription(ItemClass itemClass, DescriptionQuery query) {
+        return this.getActionsByDescription(itemClass, query, Instant.MIN, Instant.MAX);
+    }
+
+    /**
+     * Finds the actions whose description matches {@code query} by intersecting the posting lists of the description
+     * index, then keeps those performed in {@code [from, to)}.
+     *
+     * @param itemClass {@code ItemClass} of the items the actions are performed on, or {@code null} for all of them
+     * @param query     terms and prefixes the descriptions must contain
+     * @param from      inclusive lower bound on the performed date
+     * @param to        exclusive upper bound on the performed date
+     * @return matching actions, oldest first
+     * @throws IllegalStateException if descriptions are not indexed
+     */
+    public List<Action> getActionsByDescription(ItemClass itemClass, DescriptionQuery query, Instant from, Instant to) {
+        return this.timed(Operation.GET_ACTIONS_BY_DESCRIPTION, () -> {
+            if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Range start can't be after range end.");
+            } else if (descriptionIndexes.isEmpty()) {
+                throw new IllegalStateException("Action descriptions are not indexed.");
+            }
+            final List<Action> matches = new ArrayList<>();
+            for (ItemClass c : itemClass == null ? ItemClass.values() : new ItemClass[]{itemClass}) {
+                for (int row : descriptionIndexes.get(c).find(query)) {
+                    final Action action = actions.get(row);
+                    // Compacted while the query ran.
+                    if (action != null && !action.getPerformedDateTime().isBefore(from)
+                            && action.getPerformedDateTime().isBefore(to)) {
+                        matches.add(action);
+                    }
+                }
+            }
+            matches.sort(Comparator.comparing(ActionCursor::of));
+            return Collections.unmodifiableList(matches);
+        });
+    }
+
+    public Map<String, Integer> getItemIdsWithTotalActionCost() {
+        return this.timed(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST, () -> {
+            return queryCache.getForAll(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST, () -> {
+                final Map<String, Integer> itemActionCost = new HashMap<>();
+
+                items.forEachRegistered(entry -> {
+                    if (entry.hasActions()) {
+                        itemActionCost.put(entry.getItemId(), Math.toIntExact(entry.getTotalCost()));
+                    }
+                });
+
+                return Collections.unmodifiableMap(itemActionCost);
+            }, Map::size);
+        });
+    }
+
+    public Map<String, Integer> getItemIdsWithTotalActionCostByItemType(ItemClass itemClass) {
+        return this.timed(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, () -> {
+            return queryCache.get(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, itemClass, () -> {
+                final Map<String, Integer> itemActionCost = new HashMap<>();
+
+                itemsByClass.get(itemClass).forEach(ordinal -> {
+                    final ItemEntry entry = items.get(ordinal);
+                    if (entry.hasActions()) {
+                        itemActionCost.put(entry.getItemId(), Math.toIntExact(entry.getTotalCost()));
+                    }
+                });
+
+                return Collections.unmodifiableMap(itemActionCost);
+            }, Map::size);
+        });
+    }
+
+    /**
+     * Finds the {@code Item} of type {@code itemType} with the highest total action cost.
+     * If more than one {@code Item} have the same highest total cost all are returned.
+     *
+     * @param itemClass {@code ItemType}
+     * @return {@code Item}(s) of type {@code itemType} with the highest total cost together with the highest cost
+     */
+    public Map<Item, Integer> getItemsWithHighestTotalActionCostByItemType(ItemClass itemClass) {
+        return this.timed(Operation.GET_ITEMS_WITH_HIGHEST_TOTAL_ACTION_COST_BY_ITEM_TYPE, () -> {
+            final List<CostLeaderboard.Entry> highest = leaderboards.get(itemClass).highest();
+            if (highest.isEmpty()) {
+                return null;
+            }
+
+            final Map<Item, Integer> itemsWithHighestCost = new HashMap<>();
+            highest.forEach(entry -> itemsWithHighestCost.put(items.item(entry.getOrdinal()), Math.toIntExact(entry.getTotalCost())));
+
+            return itemsWithHighestCost;
+        });
+    }
+
+    /**
+     * Finds the {@code k} items of type {@code itemClass} with the highest total action cost.
+     * Items with equal total cost are ordered by ID.
+     *
+     * @param itemClass {@code ItemClass} of the items
+     * @param k         maximum number of items to return
+     * @return items with their total action cost, highest cost first
+     */
+    public List<Map.Entry<Item, Long>> getTopItemsByTotalActionCost(ItemClass itemClass, int k) {
+        return this.timed(Operation.GET_TOP_ITEMS_BY_TOTAL_ACTION_COST, () -> {
+            if (k < 0) {
+                throw new IllegalArgumentException("Number of items can't be negative.");
+            }
+
+            return leaderboards.get(itemClass).top(k).stream()
+                    .map(entry -> Map.entry(items.item(entry.getOrdinal()), entry.getTotalCost()))
+                    .collect(Collectors.toUnmodifiableList());
+        });
+    }
+
+    /**
+     * Reads the total action cost of the item {@code itemId} per time bucket from its rollup.
+     *
+     * @param granularity granularity the items are rolled up by
+     * @param from        inclusive lower bound on the performed date
+     * @param to          exclusive upper bound on the performed date
+     * @return total cost of each bucket overlapping {@code [from, to)} that has actions, keyed by the start of the
+     * bucket in ascending order
+     * @throws IllegalStateException if items are not rolled up by {@code granularity}
+     */
+    public SortedMap<Instant, Long> getActionCostOfItemBetween(final String itemId, final RollupGranularity granularity,
+                                                               final Instant from, final Instant to) {
+        return this.timed(Operation.GET_ACTION_COST_OF_ITEM_BETWEEN, () -> {
+            if (!itemRollups.contains(granularity)) {
+                throw new IllegalStateException("Item costs are not rolled up by " + granularity + ".");
+            } else if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Range start can't be after range end.");
+            }
+            final CostRollup rollup = this.getRegisteredEntry(itemId).getCostRollup();
+            return rollup == null ? Collections.emptySortedMap() : rollup.between(granularity, from, to);
+        });
+    }
+
+    /**
+     * Reads the total cost of the actions on items of type {@code itemClass} per time bucket from its rollup, in time
+     * proportional to the number of buckets rather than of actions.
+     *
+     * @param granularity granularity the item classes are rolled up by
+     * @param from        inclusive lower bound on the performed date
+     * @param to          exclusive upper bound on the performed date
+     * @return total cost of each bucket overlapping {@code [from, to)} that has actions, keyed by the start of the
+     * bucket in ascending order
+     * @throws IllegalStateException if item classes are not rolled up by {@code granularity}
+     */
+    public SortedMap<Instant, Long> getActionCostOfItemTypeBetween(final ItemClass itemClass,
+                                                                   final RollupGranularity granularity,
+                                                                   final Instant from, final Instant to) {
+        return this.timed(Operation.GET_ACTION_COST_OF_ITEM_TYPE_BETWEEN, () -> {
+            if (!itemClassRollups.contains(granularity)) {
+                throw new IllegalStateException("Item class costs are not rolled up by " + granularity + ".");
+            } else if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Range start can't be after range end.");
+            }
+            return costRollups.get(itemClass).between(granularity, from, to);
+        });
+    }
+
+    /**
+     * Sums the costs of the registered actions per item by scanning the action store on the calling thread.
+     * The scan covers the actions registered when it starts. Compacted actions are only included, from their
+     * summaries, when aggregating all actions; with a filter, the report counts them in
+     * {@link CostReport#getOmittedCompactedActions()} instead.
+     *
+     * @param filter actions to aggregate, or {@code null} for all of them
+     */
+    public CostReport aggregateActionCosts(final Predicate<? super Action> filter) {
+        return this.timed(Operation.AGGREGATE_ACTION_COSTS, () -> {
+            synchronized (compactionLock) {
+                return this.withSummaries(new CostAggregation(items, actions, filter).sequential(), filter);
+            }
+        });
+    }
+
+    /**
+     * Sums the costs of the registered actions per item like {@link #aggregateActionCosts(Predicate)}, scanning
+     * ranges of the action store in parallel on {@code pool}. The report is the same as the sequential one.
+     *
+     * @param filter actions to aggregate, or {@code null} for all of them; called concurrently
+     * @param pool   pool to scan on, its parallelism deciding the number of ranges
+     */
+    public CostReport aggregateActionCosts(final Predicate<? super Action> filter, final ForkJoinPool pool) {
+        return this.timed(Operation.AGGREGATE_ACTION_COSTS, () -> {
+            synchronized (compactionLock) {
+                return this.withSummaries(new CostAggregation(items, actions, filter).parallel(pool), filter);
+            }
+        });
+    }
+
+    private CostReport withSummaries(final CostReport report, final Predicate<? super Action> filter) {
+        items.forEachRegistered(entry -> entry.getSummaries().forEach(summary -> {
+            if (filter == null) {
+                report.add(entry.getOrdinal(), summary.getActionCount(), summary.getTotalCost());
+            } else {
+                report.omitCompacted(summary.getActionCount());
+            }
+        }));
+        return report;
+    }
+
+    /**
+     * @return summaries of the compacted actions on the item, in order of their periods
+     */
+    public List<ActionSummary> getActionSummariesOfItem(final String itemId) {
+        return this.timed(Operation.GET_ACTION_SUMMARIES_OF_ITEM, () -> this.getRegisteredEntry(itemId).getSummaries());
+    }
+
+    /**
+     * Compacts the actions performed before {@code horizon} out of memory. They are appended to
+     * {@code archiveFile}, if given, then removed from the action store and the indexes and summarized per item and
+     * period. Total costs, leaderboards and rollups are unchanged, as they already include the actions. Only actions on
+     * items of an {@code ItemClass} are compacted, as they are the ones indexed by performed date.
+     * <p>
+     * Queries running meanwhile may or may not see the compacted actions. Lists of the actions on an item returned
+     * before the compaction keep them, while streams of them not yet consumed leave them out.
+     *
+     * @param horizon       exclusive upper bound on the performed date of the compacted actions
+     * @param summaryPeriod period to summarize compacted actions over
+     * @param archiveFile   {@link ActionArchive} file to append the compacted actions to, or {@code null} to drop them
+     * @return number of actions compacted
+     * @throws IllegalStateException if the service is persisted, as its log would restore the compacted actions
+     */
+    public int compactActionsBefore(final Instant horizon, final RollupGranularity summaryPeriod,
+                                    final Path archiveFile) throws IOException {
+        return this.timed(Operation.COMPACT_ACTIONS_BEFORE, () -> {
+            if (log != null) {
+                throw new IllegalStateException("Actions of a persisted service can't be compacted.");
+            }
+            synchronized (compactionLock) {
+                final Map<ItemEntry, EntryCompaction> compactions = new IdentityHashMap<>();
+                final Map<ItemClass, DescriptionIndex.Removal> removals = new EnumMap<>(ItemClass.class);
+                final List<Action> compacted = new ArrayList<>();
+                for (Map.Entry<ItemClass, ConcurrentNavigableMap<ActionCursor, Integer>> index
+                        : actionsByPerformedDate.entrySet()) {
+                    final DescriptionIndex.Removal removal = new DescriptionIndex.Removal();
+                    for (Map.Entry<ActionCursor, Integer> indexed
+                            : index.getValue().headMap(ActionCursor.first(horizon)).entrySet()) {
+                        final Action action = actions.get(indexed.getValue());
+                        compactions.computeIfAbsent(items.find(action.getItemId()), entry -> new EntryCompaction())
+                                .add(indexed.getKey(), indexed.getValue(), action, summaryPeriod);
+                        if (descriptionIndexes.containsKey(index.getKey())) {
+                            removal.add(action.getDescription(), indexed.getValue());
+                        }
+                        compacted.add(action);
+                    }
+                    removals.put(index.getKey(), removal);
+                }
+                if (compacted.isEmpty()) {
+                    return 0;
+                }
+                // Archived first, so that a failure leaves the actions in memory.
+                if (archiveFile != null) {
+                    ActionArchive.append(archiveFile, compacted);
+                }
+
+                for (Map.Entry<ItemEntry, EntryCompaction> compaction : compactions.entrySet()) {
+                    final ItemEntry entry = compaction.getKey();
+                    final EntryCompaction rows = compaction.getValue();
+                    final ConcurrentNavigableMap<ActionCursor, Integer> index = actionsByPerformedDate.get(entry.getItemClass());
+                    rows.cursors.forEach(index::remove);
+                    Arrays.sort(rows.rows, 0, rows.count);
+                    entry.compact(row -> Arrays.binarySearch(rows.rows, 0, rows.count, row) >= 0, rows.summaries.values());
+                    for (int i = 0; i < rows.count; i++) {
+                        actions.remove(rows.rows[i]);
+                    }
+                }
+                descriptionIndexes.forEach((itemClass, descriptionIndex) ->
+                        descriptionIndex.remove(removals.get(itemClass)));
+                metrics.actionsCompacted(compacted.size());
+                return compacted.size();
+            }
+        });
+    }
+
+    /**
+     * Compacts the actions older than the policy's horizon on a background thread, right away and then at the
+     * policy's interval, replacing the policy started before, if any. A compaction that fails, for instance because
+     * the archive file can't be written, leaves the actions in memory and is counted in
+     * {@link ServiceMetrics#getFailedCompactions()}, and the next one compacts them.
+     *
+     * @return future of the scheduled compactions, cancelled to stop them
+     * @throws IllegalStateException if the service is persisted
+     */
+    public ScheduledFuture<?> startRetention(final RetentionPolicy policy) {
+        if (log != null) {
+            throw new IllegalStateException("Actions of a persisted service can't be compacted.");
+        }
+        return retention.start(policy, () -> this.retain(policy));
+    }
+
+    /**
+     * Compacts the actions older than the policy's horizon once, counting a failure in the service's metrics instead
+     * of throwing it.
+     */
+    void retain(final RetentionPolicy policy) {
+        try {
+            this.compactActionsBefore(Instant.now().minus(policy.getHorizon()), policy.getSummaryPeriod(),
+                    policy.getArchiveFile());
+        } catch (IOException | RuntimeException e) {
+            metrics.compactionFailed();
+        }
+    }
+
+    /**
+     * Stops the compactions started by {@link #startRetention(RetentionPolicy)}, waiting for a running one.
+     */
+    public void stopRetention() {
+        retention.stop();
+    }
+
+    /**
+     * Partitions the registered items by class. The partitions are read-only live views.
+     *
+     * @param itemClasses {@code ItemClass}es to partition for, or none to partition for all of them
+     * @return registered items partitioned by class
+     */
+    public Map<Class<? extends Item>, Set<Item>> getItemsPartitionedByClass(ItemClass... itemClasses) {
+        return this.timed(Operation.GET_ITEMS_PARTITIONED_BY_CLASS, () -> {
+            final Map<Class<? extends Item>, Set<Item>> partitionedItems = new HashMap<>();
+            if (itemClasses.length < 1) {
+                itemsByClass.forEach((c, bucket) -> partitionedItems.put(c.getItemClass(), bucket.items()));
+            } else {
+                Arrays.stream(itemClasses).forEach(c -> partitionedItems.put(c.getItemClass(), itemsByClass.get(c).items()));
+            }
+
+            return partitionedItems;
+        });
+    }
+
+    /**
+     * Writes a snapshot of the registered items and actions to {@code file}. Registrations carry on while it is
+     * written, so the snapshot holds every registration completed before the call and possibly some made during it.
+     * Compacted actions and their summaries are left out.
+     */
+    public void writeSnapshot(final Path file) throws IOException {
+        Snapshot.write(file, -1, items.items()::iterator, actions.rowCount(), actions::get);
+    }
+
+    /**
+     * Registers the items and actions in {@code file}, decoding it on all available processors while the decoded
+     * records are registered in order, the actions in batches as by {@link #registerActions(Collection)}.
+     * The actions are given IDs by the service, and the IDs in the file are ignored.
+     * <p>
+     * Importing stops at the first record that can't be registered, and the records before it stay registered.
+     *
+     * @return number of items and actions registered
+     * @throws IOException                      if the file is not in {@code format} or a record is malformed
+     * @throws ItemIdAlreadyRegisteredException if an item is already registered
+     * @throws ItemNotFoundException            if the item of an action is neither registered nor earlier in the file
+     */
+    public long importFrom(final Path file, final TransferFormat format) throws IOException {
+        return this.timed(Operation.IMPORT_FROM, () -> {
+            final ImportBatch batch = new ImportBatch();
+            try {
+                BulkReader.read(file, format, Runtime.getRuntime().availableProcessors(), batch::addItem,
+                        batch::addAction);
+                batch.flush();
+                return batch.imported;
+            } catch (IOException | RuntimeException e) {
+                // The actions read before the failure are registered before it is thrown.
+                try {
+                    batch.flush();
+                } catch (RuntimeException flushFailure) {
+                    e.addSuppressed(flushFailure);
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Writes the registered items and actions to {@code file} in {@code format}. Like {@link #writeSnapshot(Path)},
+     * registrations carry on while it is written, and compacted actions are left out.
+     *
+     * @return number of items and actions written
+     */
+    public long exportTo(final Path file, final TransferFormat format) throws IOException {
+        return this.timed(Operation.EXPORT_TO,
+                () -> BulkWriter.write(file, format, items.items()::iterator, actions.rowCount(), actions::get));
+    }
+
+    /**
+     * Writes a snapshot of a persisted service to its directory on a background thread, then deletes older snapshots
+     * and the log segments the snapshot covers. Registrations carry on while it is written.
+     * Only one snapshot is written at a time; calling this while one is written returns that snapshot.
+     *
+     * @return future completed with the snapshot file once it is on disk
+     * @throws IllegalStateException if the service was not {@link #open(Path, Durability) opened} on a directory
+     */
+    public synchronized CompletableFuture<Path> snapshot() {
+        if (log == null) {
+            throw new IllegalStateException("Only a persisted service can be snapshotted to its directory.");
+        } else if (runningSnapshot != null && !runningSnapshot.isDone()) {
+            return runningSnapshot;
+        }
+
+        // Every item logged before the position is registered once no item registration holds the lock,
+        // and actions are stored before they are logged, so the snapshot covers the log up to the position.
+        final long stamp = snapshotLock.writeLock();
+        final long logPosition;
+        try {
+            logPosition = log.getWrittenPosition();
+        } finally {
+            snapshotLock.unlockWrite(stamp);
+        }
+        final int rows = actions.rowCount();
+
+        runningSnapshot = CompletableFuture.supplyAsync(() -> {
+            final Path file = Snapshot.file(log.getDirectory(), logPosition);
+            try {
+                Snapshot.write(file, logPosition, items.items()::iterator, rows, actions::get);
+                Snapshot.deleteOlder(log.getDirectory(), file);
+                log.deleteSegmentsBefore(logPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        }, runnable -> {
+            final Thread writer = new Thread(runnable, "snapshot-writer");
+            writer.setDaemon(true);
+            writer.start();
+        });
+        return runningSnapshot;
+    }
+
+    /**
+     * Closes the service's {@link ActionLog}, if it has one, and removes its metrics from JMX if they were published.
+     * Registrations on a closed persisted service fail. Subscriptions to the change feed and retention are stopped.
+     */
+    @Override
+    public void close() {
+        changeFeed.close();
+        this.stopRetention();
+        try {
+            metrics.unregisterMBean();
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the service metrics.", e);
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Runs a call of a public method as a call of {@code operation} in the service's metrics.
+     */
+    private <T, E extends Exception> T timed(final Operation operation, final Call<T, E> call) throws E {
+        final long started = metrics.start(operation);
+        try {
+            return call.call();
+        } finally {
+            metrics.stop(operation, started);
+        }
+    }
+
+    private <E extends Exception> void timed(final Operation operation, final VoidCall<E> call) throws E {
+        final long started = metrics.start(operation);
+        try {
+            call.call();
+        } finally {
+            metrics.stop(operation, started);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    private interface VoidCall<E extends Exception> {
+        void call() throws E;
+    }
+
+    /**
+     * Actions of an import waiting to be registered in one batch.
+     */
+    private final class ImportBatch {
+        private final ActionRequest[] requests = new ActionRequest[IMPORT_BATCH_SIZE];
+        private final ItemEntry[] entries = new ItemEntry[IMPORT_BATCH_SIZE];
+        private int count;
+        private long imported;
+
+        private void addItem(final Item item) {
+            // Actions earlier in the file are registered first, so that they stay registered if the item is not.
+            this.flush();
+            registerItem(item);
+            imported++;
+        }
+
+        private void addAction(final Action action) {
+            final ItemEntry entry = findRegisteredEntry(action.getItemId());
+            if (entry == null) {
+                this.flush();
+                throw new ItemNotFoundException();
+            }
+            requests[count] = new ActionRequest(action.getItemId(), action.getDescription(), action.getCost(),
+                    action.getPerformedDateTime());
+            entries[count++] = entry;
+            if (count == IMPORT_BATCH_SIZE) {
+                this.flush();
+            }
+        }
+
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            timed(Operation.REGISTER_ACTIONS, () -> {
+                final ActionRequest[] batch = Arrays.copyOf(requests, count);
+                final ItemEntry[] batchEntries = Arrays.copyOf(entries, count);
+                final UUID[] ids = new UUID[batch.length];
+                final RuntimeException[] failures = new RuntimeException[batch.length];
+                count = 0;
+                registerBatch(batch, batchEntries, ids, failures);
+                RuntimeException failure = null;
+                for (int i = 0; i < ids.length; i++) {
+                    if (ids[i] != null) {
+                        imported++;
+                    } else if (failure == null) {
+                        failure = failures[i];
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            });
+        }
+    }
+
+    /**
+     * Index keys, rows and summaries of the actions on one item being compacted.
+     */
+    private static final class EntryCompaction {
+        private final List<ActionCursor> cursors = new ArrayList<>();
+        private final Map<Instant, ActionSummary> summaries = new HashMap<>();
+        private int[] rows = new int[4];
+        private int count;
+
+        private void add(final ActionCursor cursor, final int row, final Action action,
+                         final RollupGranularity summaryPeriod) {
+            cursors.add(cursor);
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+            final ActionSummary summary = ActionSummary.of(action, summaryPeriod);
+            summaries.merge(summary.getPeriodStart(), summary, ActionSummary::merge);
+        }
+    }
+
+    /**
+     * Rows and total cost of the actions of a batch on one item.
+     */
+    private static final class EntryBatch {
+        private int[] rows = new int[4];
+        private int count;
+        private long costTotal;
+
+        private void add(final int row, final Integer cost) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+            if (cost != null) {
+                costTotal += cost;
+            }
+        }
+    }
+}
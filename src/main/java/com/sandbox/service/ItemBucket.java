@@ -0,0 +1,82 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.Item;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Ordinals of the registered {@code Item}s of one class, exposed through read-only live views of their IDs and of
+ * the items.
+ */
+final class ItemBucket {
+    private final ItemRegistry registry;
+    private final Predicate<Item> membership;
+    private final AppendOnlyIntList ordinals = new AppendOnlyIntList();
+    private final Set<String> idsView;
+    private final Set<Item> itemsView;
+
+    /**
+     * @param membership whether a registered item belongs in the bucket
+     */
+    ItemBucket(final ItemRegistry registry, final Predicate<Item> membership) {
+        this.registry = registry;
+        this.membership = membership;
+        this.idsView = new View<>(ordinal -> registry.get(ordinal).getItemId(),
+                o -> o instanceof String && contains(registry.item((String) o)));
+        this.itemsView = new View<>(registry::item,
+                o -> o instanceof Item && o.equals(registry.item(((Item) o).getId())) && contains((Item) o));
+    }
+
+    /**
+     * Must be called once for each item that belongs in the bucket.
+     */
+    void add(final int ordinal) {
+        ordinals.append(ordinal);
+    }
+
+    void forEach(final IntConsumer action) {
+        ordinals.forEach(action);
+    }
+
+    Set<String> ids() {
+        return idsView;
+    }
+
+    Set<Item> items() {
+        return itemsView;
+    }
+
+    private boolean contains(final Item item) {
+        return item != null && membership.test(item);
+    }
+
+    private final class View<E> extends AbstractSet<E> {
+        private final IntFunction<E> mapper;
+        private final Predicate<Object> containment;
+
+        private View(final IntFunction<E> mapper, final Predicate<Object> containment) {
+            this.mapper = mapper;
+            this.containment = containment;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return ordinals.snapshot(mapper).iterator();
+        }
+
+        @Override
+        public int size() {
+            return ordinals.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containment.test(o);
+        }
+    }
+}
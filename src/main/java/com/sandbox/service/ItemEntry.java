@@ -0,0 +1,217 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.service.store.ActionStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * An item ID's ordinal together with the {@code Item} registered under it, if any, and the rows of the actions
+ * registered on it with their running total cost and its {@link CostRollup}.
+ * Actions compacted out of memory leave their rows and live on as {@link ActionSummary summaries}, while the total
+ * cost and the rollup still include them.
+ * Registration and appends are serialized per item while everything can be read at any time without locking.
+ */
+final class ItemEntry {
+    private final int ordinal;
+    private final String itemId;
+    private final AppendOnlyIntList rows = new AppendOnlyIntList();
+    private volatile Item item;
+    // Written before the item is published, so they are visible to anyone who has read a non-null item.
+    private ItemClass itemClass;
+    private CostLeaderboard leaderboard;
+    private volatile long totalCost;
+    private volatile CostRollup costRollup;
+    // Created by the first compaction of the item's actions.
+    private volatile ConcurrentNavigableMap<Instant, ActionSummary> summaries;
+
+    ItemEntry(final int ordinal, final String itemId) {
+        this.ordinal = ordinal;
+        this.itemId = itemId;
+    }
+
+    /**
+     * Registers {@code item} unless an item is already registered under the ID. The item is passed to {@code log}
+     * before it becomes visible, which keeps it ahead of any action on it in the log.
+     *
+     * @param itemClass   {@code ItemClass} of the item, or {@code null} if it has none
+     * @param leaderboard leaderboard of the item's {@code ItemClass}, or {@code null} if it has none
+     * @return position returned by {@code log}, or {@code -1} if an item is already registered
+     */
+    synchronized long register(final Item item, final ItemClass itemClass, final CostLeaderboard leaderboard,
+                               final ToLongFunction<Item> log) {
+        if (this.item != null) {
+            return -1;
+        }
+        final long position = log.applyAsLong(item);
+        this.itemClass = itemClass;
+        this.leaderboard = leaderboard;
+        this.item = item;
+        return position;
+    }
+
+    synchronized void add(final int row, final Integer cost) {
+        final boolean isFirst = !this.hasActions();
+        final long oldTotal = totalCost;
+        final long newTotal = cost == null ? oldTotal : oldTotal + cost;
+
+        rows.append(row);
+        totalCost = newTotal;
+        if (leaderboard != null) {
+            leaderboard.update(ordinal, itemId, oldTotal, newTotal, isFirst);
+        }
+    }
+
+    /**
+     * Adds a batch of actions at once, moving the item on the leaderboard once for all of them.
+     *
+     * @param rows      rows of the actions, of which the first {@code count} are added
+     * @param costTotal sum of the costs of the added actions
+     */
+    synchronized void addAll(final int[] rows, final int count, final long costTotal) {
+        final boolean isFirst = !this.hasActions();
+        final long oldTotal = totalCost;
+        final long newTotal = oldTotal + costTotal;
+
+        this.rows.appendAll(rows, count);
+        totalCost = newTotal;
+        if (leaderboard != null) {
+            leaderboard.update(ordinal, itemId, oldTotal, newTotal, isFirst);
+        }
+    }
+
+    /**
+     * Adds a restored action without moving the item on the leaderboard, which is left to {@link #rank()}.
+     */
+    synchronized void restore(final int row, final Integer cost) {
+        rows.append(row);
+        if (cost != null) {
+            totalCost += cost;
+        }
+    }
+
+    /**
+     * Puts the item on the leaderboard once all its actions are restored.
+     */
+    synchronized void rank() {
+        if (leaderboard != null && this.hasActions()) {
+            leaderboard.update(ordinal, itemId, 0, totalCost, true);
+        }
+    }
+
+    int getOrdinal() {
+        return ordinal;
+    }
+
+    String getItemId() {
+        return itemId;
+    }
+
+    /**
+     * @return registered item, or {@code null} if none is registered under the ID yet
+     */
+    Item getItem() {
+        return item;
+    }
+
+    /**
+     * Must only be called after {@link #getItem()} has returned the registered item.
+     */
+    ItemClass getItemClass() {
+        return itemClass;
+    }
+
+    /**
+     * @return whether any action has been registered on the item, including compacted ones
+     */
+    boolean hasActions() {
+        return !rows.isEmpty() || summaries != null;
+    }
+
+    /**
+     * Removes the rows of compacted actions and adds the summaries of the actions.
+     *
+     * @return number of rows removed
+     */
+    synchronized int compact(final IntPredicate compacted, final Collection<ActionSummary> compactedSummaries) {
+        if (summaries == null) {
+            summaries = new ConcurrentSkipListMap<>();
+        }
+        for (ActionSummary summary : compactedSummaries) {
+            summaries.merge(summary.getPeriodStart(), summary, ActionSummary::merge);
+        }
+        return rows.removeIf(compacted);
+    }
+
+    /**
+     * @return summaries of the compacted actions in order of their periods
+     */
+    List<ActionSummary> getSummaries() {
+        final ConcurrentNavigableMap<Instant, ActionSummary> current = summaries;
+        return current == null ? List.of() : List.copyOf(current.values());
+    }
+
+    long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * @return costs of the item's actions over time, or {@code null} if no action has been rolled up yet
+     */
+    CostRollup getCostRollup() {
+        return costRollup;
+    }
+
+    /**
+     * Adds the cost of an action to the item's rollup, which is created on the first action.
+     *
+     * @param newRollup creates the item's rollup
+     */
+    void rollUp(final Action action, final Supplier<CostRollup> newRollup) {
+        CostRollup rollup = costRollup;
+        if (rollup == null) {
+            synchronized (this) {
+                rollup = costRollup;
+                if (rollup == null) {
+                    costRollup = rollup = newRollup.get();
+                }
+            }
+        }
+        rollup.add(action.getPerformedDateTime(), action.getCost());
+    }
+
+    /**
+     * @return actions on the item so far, read when called, so that compacting them later leaves the list intact
+     */
+    List<Action> snapshot(final ActionStore store) {
+        final List<Action> snapshot = new ArrayList<>(rows.size());
+        rows.forEach(row -> {
+            final Action action = store.get(row);
+            // The row of an action compacted since it was read from the list is empty.
+            if (action != null) {
+                snapshot.add(action);
+            }
+        });
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * @return lazy stream of the actions on the item so far, leaving out those compacted before they are read
+     */
+    Stream<Action> stream(final ActionStore store) {
+        return rows.snapshot(store::get).stream().filter(Objects::nonNull);
+    }
+}
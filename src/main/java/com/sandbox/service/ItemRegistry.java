@@ -0,0 +1,95 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.service.store.ChunkedReferenceArray;
+import com.sandbox.service.store.StringDictionary;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link ItemEntry}s by the dense ordinal their item ID is assigned in a {@link StringDictionary}.
+ * <p>
+ * Looking up an item ID is a single hash lookup, after which the service and its indexes refer to the item by
+ * ordinal: reaching its entry is an array read and comparing item IDs is an {@code int} comparison.
+ */
+final class ItemRegistry {
+    private final StringDictionary ids = new StringDictionary();
+    private final ChunkedReferenceArray<ItemEntry> entries = new ChunkedReferenceArray<>();
+    private final AtomicInteger registeredCount = new AtomicInteger();
+
+    /**
+     * @return entry of {@code itemId}, created if there is none
+     */
+    ItemEntry reserve(final String itemId) {
+        return entries.computeIfAbsent(ids.intern(itemId), ordinal -> new ItemEntry(ordinal, itemId));
+    }
+
+    /**
+     * @return entry of {@code itemId}, or {@code null} if there is none
+     */
+    ItemEntry find(final String itemId) {
+        final int ordinal = ids.find(itemId);
+        return ordinal < 0 ? null : entries.get(ordinal);
+    }
+
+    /**
+     * Counts an entry whose item has been registered, for {@link #registeredCount()}.
+     */
+    void countRegistered() {
+        registeredCount.incrementAndGet();
+    }
+
+    int registeredCount() {
+        return registeredCount.get();
+    }
+
+    /**
+     * @return number of ordinals assigned, including those of item IDs that are not registered
+     */
+    int ordinalCount() {
+        return ids.size();
+    }
+
+    ItemEntry get(final int ordinal) {
+        return entries.get(ordinal);
+    }
+
+    /**
+     * @return item registered under {@code itemId}, or {@code null} if there is none
+     */
+    Item item(final String itemId) {
+        final ItemEntry entry = find(itemId);
+        return entry == null ? null : entry.getItem();
+    }
+
+    Item item(final int ordinal) {
+        final ItemEntry entry = entries.get(ordinal);
+        return entry == null ? null : entry.getItem();
+    }
+
+    /**
+     * @return entries of the registered items, in ordinal order
+     */
+    Stream<ItemEntry> registered() {
+        return IntStream.range(0, ids.size())
+                .mapToObj(entries::get)
+                .filter(entry -> entry != null && entry.getItem() != null);
+    }
+
+    Stream<Item> items() {
+        return registered().map(ItemEntry::getItem);
+    }
+
+    void forEachRegistered(final Consumer<ItemEntry> action) {
+        final int size = ids.size();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            final ItemEntry entry = entries.get(ordinal);
+            if (entry != null && entry.getItem() != null) {
+                action.accept(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.sandbox.service;
+
+import java.util.Arrays;
+
+/**
+ * Rows of the actions whose description has one term, compressed in blocks.
+ * <p>
+ * Rows are appended to an uncompressed tail, which is sorted and encoded into a {@link Block} of variable-length deltas
+ * once it holds {@link #BLOCK_SIZE} rows, taking a byte or two per row instead of four. Blocks keep their lowest and
+ * highest row, so that intersecting with a few rows only decodes the blocks that could hold them. Actions registered
+ * concurrently may be appended slightly out of order, so rows are only sorted within each block.
+ * <p>
+ * Appends are serialized while reads never lock. Sealing the tail into a block is detected by readers through a change
+ * count, like {@link AppendOnlyIntList#removeIf(java.util.function.IntPredicate)}, as the new block and the empty tail
+ * can't be published together. Removing the rows of compacted actions rebuilds the blocks holding them, and is
+ * published the same way.
+ */
+final class PostingList {
+    static final int BLOCK_SIZE = 128;
+    private static final int INITIAL_TAIL_CAPACITY = 4;
+
+    private volatile Block[] blocks = new Block[1];
+    private volatile int blockCount;
+    private volatile int[] tail = new int[INITIAL_TAIL_CAPACITY];
+    private volatile int tailSize;
+    // Odd while the tail is being sealed into a block or rows are being removed.
+    private volatile int seals;
+    private volatile int size;
+    // Set once every row is removed, after which the list is dropped from its index and takes no more rows.
+    private boolean retired;
+
+    /**
+     * @return whether the row was appended, which it is not if the list is retired
+     */
+    synchronized boolean append(final int row) {
+        if (retired) {
+            return false;
+        }
+        int[] current = tail;
+        final int n = tailSize;
+        if (n == BLOCK_SIZE) {
+            this.seal(current);
+            current = tail;
+            current[0] = row;
+            tailSize = 1;
+        } else if (n == current.length) {
+            current = Arrays.copyOf(current, Math.min(BLOCK_SIZE, n * 2));
+            current[n] = row;
+            tail = current;
+            tailSize = n + 1;
+        } else {
+            current[n] = row;
+            tailSize = n + 1;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes {@code rows} from the list, re-encoding only the blocks that hold any of them. A list left without rows
+     * is retired.
+     *
+     * @param rows  rows in ascending order
+     * @param count number of rows
+     * @return number of rows left in the list
+     */
+    synchronized int removeAll(final int[] rows, final int count) {
+        final Block[] current = blocks;
+        final int n = blockCount;
+        final Block[] remaining = new Block[Math.max(1, current.length)];
+        final int[] decoded = new int[BLOCK_SIZE];
+        int kept = 0;
+        int removed = 0;
+        for (int i = 0; i < n; i++) {
+            final Block block = current[i];
+            final int candidate = lowerBound(rows, count, block.first);
+            if (candidate == count || rows[candidate] > block.last) {
+                remaining[kept++] = block;
+                continue;
+            }
+            final int left = retainMissing(decoded, block.decode(decoded, 0), rows, count);
+            removed += block.count - left;
+            if (left > 0) {
+                remaining[kept++] = Block.encode(Arrays.copyOf(decoded, left));
+            }
+        }
+        final int[] currentTail = tail;
+        final int[] remainingTail = Arrays.copyOf(currentTail, currentTail.length);
+        final int tailLeft = retainMissing(remainingTail, tailSize, rows, count);
+        removed += tailSize - tailLeft;
+        if (removed == 0) {
+            return size;
+        }
+
+        seals++;
+        blocks = remaining;
+        blockCount = kept;
+        tail = remainingTail;
+        tailSize = tailLeft;
+        size -= removed;
+        seals++;
+        retired = size == 0;
+        return size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return every row in ascending order
+     */
+    int[] toArray() {
+        final Snapshot snapshot = this.snapshot();
+        int length = snapshot.tailSize;
+        for (int i = 0; i < snapshot.blockCount; i++) {
+            length += snapshot.blocks[i].count;
+        }
+        final int[] rows = new int[length];
+        int n = 0;
+        for (int i = 0; i < snapshot.blockCount; i++) {
+            n = snapshot.blocks[i].decode(rows, n);
+        }
+        System.arraycopy(snapshot.tail, 0, rows, n, snapshot.tailSize);
+        for (int i = 1; i < rows.length; i++) {
+            if (rows[i - 1] > rows[i]) {
+                Arrays.sort(rows);
+                break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Keeps the candidate rows that are in the list.
+     *
+     * @param candidates rows in ascending order, overwritten with the rows kept
+     * @param count      number of candidates
+     * @return number of rows kept
+     */
+    int retain(final int[] candidates, final int count) {
+        final Snapshot snapshot = this.snapshot();
+        final boolean[] found = new boolean[count];
+        final int[] decoded = new int[BLOCK_SIZE];
+        for (int i = 0; i < snapshot.blockCount; i++) {
+            final Block block = snapshot.blocks[i];
+            int candidate = lowerBound(candidates, count, block.first);
+            if (candidate == count || candidates[candidate] > block.last) {
+                continue;
+            }
+            final int decodedCount = block.decode(decoded, 0);
+            for (int d = 0; d < decodedCount && candidate < count; ) {
+                if (decoded[d] < candidates[candidate]) {
+                    d++;
+                } else if (decoded[d] > candidates[candidate]) {
+                    candidate++;
+                } else {
+                    found[candidate++] = true;
+                    d++;
+                }
+            }
+        }
+        for (int i = 0; i < snapshot.tailSize; i++) {
+            final int candidate = Arrays.binarySearch(candidates, 0, count, snapshot.tail[i]);
+            if (candidate >= 0) {
+                found[candidate] = true;
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (found[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    private void seal(final int[] full) {
+        final int[] sorted = full.clone();
+        Arrays.sort(sorted);
+        final Block block = Block.encode(sorted);
+
+        seals++;
+        Block[] current = blocks;
+        if (blockCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[blockCount] = block;
+        blocks = current;
+        blockCount++;
+        tail = new int[INITIAL_TAIL_CAPACITY];
+        tailSize = 0;
+        seals++;
+    }
+
+    private Snapshot snapshot() {
+        int seal;
+        Snapshot snapshot;
+        do {
+            seal = seals;
+            // Counts before arrays, as a grown array is published before its count.
+            final int n = blockCount;
+            final int t = tailSize;
+            snapshot = new Snapshot(blocks, n, tail, t);
+        } while ((seal & 1) != 0 || seal != seals);
+        return snapshot;
+    }
+
+    /**
+     * Keeps the first {@code size} of {@code rows} that are not in {@code removed}, in their order.
+     *
+     * @return number of rows kept
+     */
+    private static int retainMissing(final int[] rows, final int size, final int[] removed, final int count) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (Arrays.binarySearch(removed, 0, count, rows[i]) < 0) {
+                rows[kept++] = rows[i];
+            }
+        }
+        return kept;
+    }
+
+    private static int lowerBound(final int[] rows, final int count, final int row) {
+        final int index = Arrays.binarySearch(rows, 0, count, row);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static final class Snapshot {
+        private final Block[] blocks;
+        private final int blockCount;
+        private final int[] tail;
+        private final int tailSize;
+
+        private Snapshot(final Block[] blocks, final int blockCount, final int[] tail, final int tailSize) {
+            this.blocks = blocks;
+            this.blockCount = blockCount;
+            this.tail = tail;
+            this.tailSize = tailSize;
+        }
+    }
+
+    /**
+     * Sorted rows encoded as the first row followed by the difference to each next row in 7-bit groups.
+     */
+    private static final class Block {
+        private final int first;
+        private final int last;
+        private final int count;
+        private final byte[] deltas;
+
+        private Block(final int first, final int last, final int count, final byte[] deltas) {
+            this.first = first;
+            this.last = last;
+            this.count = count;
+            this.deltas = deltas;
+        }
+
+        private static Block encode(final int[] sorted) {
+            final byte[] buffer = new byte[sorted.length * 5];
+            int length = 0;
+            for (int i = 1; i < sorted.length; i++) {
+                int delta = sorted[i] - sorted[i - 1];
+                while ((delta & ~0x7F) != 0) {
+                    buffer[length++] = (byte) (delta & 0x7F | 0x80);
+                    delta >>>= 7;
+                }
+                buffer[length++] = (byte) delta;
+            }
+            return new Block(sorted[0], sorted[sorted.length - 1], sorted.length, Arrays.copyOf(buffer, length));
+        }
+
+        /**
+         * @return index after the last decoded row
+         */
+        private int decode(final int[] rows, final int offset) {
+            int row = first;
+            rows[offset] = row;
+            int position = 0;
+            for (int i = 1; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = deltas[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                row += delta;
+                rows[offset + i] = row;
+            }
+            return offset + count;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.service.metrics.Operation;
+import com.sandbox.service.metrics.ServiceMetrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Results of queries over the items of an {@code ItemClass}, or over all items, kept until an action is registered
+ * on the items they were computed from.
+ * <p>
+ * Every {@code ItemClass} has a modification epoch, bumped once an action registered on its items is visible, and
+ * one more epoch is bumped by every action registration. A result is stored with the epoch read before it was
+ * computed and only served while that epoch is current, so it is invalidated exactly when its input changes and
+ * never outlives a registration it may have missed.
+ * <p>
+ * Lookups don't lock. Each result weighs one plus its number of elements, and once the cached weight exceeds the
+ * capacity, the least recently used results are evicted down to three quarters of it.
+ */
+final class QueryCache {
+    static final long DEFAULT_CAPACITY = 1 << 20;
+    // Epochs after those of the ItemClasses: items without one, and all items.
+    private static final int UNCLASSIFIED = ItemClass.values().length;
+    private static final int ALL = UNCLASSIFIED + 1;
+
+    private final AtomicLongArray epochs = new AtomicLongArray(ALL + 1);
+    private final Map<Key, Result> results = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+    private final long capacity;
+    private final ServiceMetrics metrics;
+
+    QueryCache(final long capacity, final ServiceMetrics metrics) {
+        this.capacity = capacity;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Invalidates the results computed from the items of {@code itemClass}, or from items without one if it is
+     * {@code null}, and from all items.
+     */
+    void modified(final ItemClass itemClass) {
+        epochs.incrementAndGet(itemClass == null ? UNCLASSIFIED : itemClass.ordinal());
+        epochs.incrementAndGet(ALL);
+    }
+
+    /**
+     * @param query computes the unmodifiable result of {@code operation} over the items of {@code itemClass}
+     * @param size  number of elements in a result
+     */
+    <T> T get(final Operation operation, final ItemClass itemClass, final Supplier<T> query,
+              final ToIntFunction<T> size) {
+        return this.get(new Key(operation, itemClass), itemClass.ordinal(), query, size);
+    }
+
+    /**
+     * @param query computes the unmodifiable result of {@code operation} over all items
+     * @param size  number of elements in a result
+     */
+    <T> T getForAll(final Operation operation, final Supplier<T> query, final ToIntFunction<T> size) {
+        return this.get(new Key(operation, null), ALL, query, size);
+    }
+
+    long getWeight() {
+        return weight.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(final Key key, final int epochIndex, final Supplier<T> query, final ToIntFunction<T> size) {
+        final long epoch = epochs.get(epochIndex);
+        final Result cached = results.get(key);
+        if (cached != null && cached.epoch == epoch) {
+            cached.lastUsed = clock.incrementAndGet();
+            metrics.queryCacheHit();
+            return (T) cached.value;
+        }
+        metrics.queryCacheMiss();
+
+        final T value = query.get();
+        final Result computed = new Result(value, epoch, 1L + size.applyAsInt(value), clock.incrementAndGet());
+        if (computed.weight <= capacity) {
+            results.compute(key, (k, current) -> {
+                // A slower query may finish after one that saw a later epoch.
+                if (current != null && current.epoch > epoch) {
+                    return current;
+                }
+                weight.addAndGet(computed.weight - (current == null ? 0 : current.weight));
+                return computed;
+            });
+            if (weight.get() > capacity) {
+                this.evict();
+            }
+        }
+        return value;
+    }
+
+    private synchronized void evict() {
+        if (weight.get() <= capacity) {
+            return;
+        }
+        final List<Map.Entry<Key, Result>> leastRecentlyUsed = new ArrayList<>(results.entrySet());
+        leastRecentlyUsed.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+        final long target = capacity / 4 * 3;
+        int evicted = 0;
+        for (Map.Entry<Key, Result> entry : leastRecentlyUsed) {
+            if (weight.get() <= target) {
+                break;
+            }
+            if (results.remove(entry.getKey(), entry.getValue())) {
+                weight.addAndGet(-entry.getValue().weight);
+                evicted++;
+            }
+        }
+        metrics.queryCacheEvictions(evicted);
+    }
+
+    private static final class Key {
+        private final Operation operation;
+        private final Object argument;
+
+        private Key(final Operation operation, final Object argument) {
+            this.operation = operation;
+            this.argument = argument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return operation == other.operation && Objects.equals(argument, other.argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * operation.hashCode() + Objects.hashCode(argument);
+        }
+    }
+
+    private static final class Result {
+        private final Object value;
+        private final long epoch;
+        private final long weight;
+        private volatile long lastUsed;
+
+        private Result(final Object value, final long epoch, final long weight, final long lastUsed) {
+            this.value = value;
+            this.epoch = epoch;
+            this.weight = weight;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
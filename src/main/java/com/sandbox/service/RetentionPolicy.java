@@ -0,0 +1,61 @@
+package com.sandbox.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * How long an {@link ItemActionService} keeps actions in memory before compacting them into
+ * {@link ActionSummary summaries}, and how often it checks.
+ *
+ * @see ItemActionService#startRetention(RetentionPolicy)
+ */
+public final class RetentionPolicy {
+    private final Duration horizon;
+    private final RollupGranularity summaryPeriod;
+    private final Path archiveFile;
+    private final Duration interval;
+
+    /**
+     * Keeps actions for {@code horizon}, summarizes older ones per day without archiving them, and checks every hour.
+     */
+    public RetentionPolicy(final Duration horizon) {
+        this(horizon, RollupGranularity.DAY, null, Duration.ofHours(1));
+    }
+
+    /**
+     * @param horizon       age, by performed date, at which actions are compacted
+     * @param summaryPeriod period of the summaries of compacted actions
+     * @param archiveFile   {@link com.sandbox.service.persistence.ActionArchive} file that compacted actions are
+     *                      appended to, or {@code null} to drop them
+     * @param interval      time between compactions
+     */
+    public RetentionPolicy(final Duration horizon, final RollupGranularity summaryPeriod, final Path archiveFile,
+                           final Duration interval) {
+        if (horizon.isNegative() || interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Horizon can't be negative and interval must be positive.");
+        }
+        this.horizon = horizon;
+        this.summaryPeriod = summaryPeriod;
+        this.archiveFile = archiveFile;
+        this.interval = interval;
+    }
+
+    public Duration getHorizon() {
+        return horizon;
+    }
+
+    public RollupGranularity getSummaryPeriod() {
+        return summaryPeriod;
+    }
+
+    /**
+     * @return file that compacted actions are archived to, or {@code null} if they are dropped
+     */
+    public Path getArchiveFile() {
+        return archiveFile;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+}
@@ -0,0 +1,51 @@
+package com.sandbox.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread running the compactions of a {@link RetentionPolicy}, at most one policy at a time.
+ */
+final class RetentionSchedule {
+    private ScheduledExecutorService retention;
+
+    /**
+     * Runs {@code compaction} right away and then at the policy's interval, replacing the policy started before, if
+     * any. The compaction must not throw, as that would cancel every later one.
+     *
+     * @return future of the scheduled compactions, cancelled to stop them
+     */
+    synchronized ScheduledFuture<?> start(final RetentionPolicy policy, final Runnable compaction) {
+        this.stop();
+        retention = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread compactor = new Thread(runnable, "action-retention");
+            compactor.setDaemon(true);
+            return compactor;
+        });
+        return retention.scheduleWithFixedDelay(compaction, 0, policy.getInterval().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the compactions, waiting for a running one.
+     */
+    synchronized void stop() {
+        if (retention == null) {
+            return;
+        }
+        retention.shutdown();
+        boolean interrupted = false;
+        while (!retention.isTerminated()) {
+            try {
+                retention.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        retention = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sandbox.service;
+
+import java.time.Instant;
+
+/**
+ * Width of the time buckets that action costs are rolled up into, aligned to the epoch in UTC.
+ */
+public enum RollupGranularity {
+    MINUTE(60),
+    HOUR(60 * 60),
+    DAY(24 * 60 * 60);
+
+    private final long seconds;
+
+    RollupGranularity(final long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * @return start of the bucket containing {@code instant}
+     */
+    public Instant truncate(final Instant instant) {
+        return Instant.ofEpochSecond(this.bucketOf(instant) * seconds);
+    }
+
+    long bucketOf(final Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), seconds);
+    }
+
+    /**
+     * @return first bucket starting at or after {@code instant}
+     */
+    long bucketAtOrAfter(final Instant instant) {
+        final long bucket = this.bucketOf(instant);
+        return instant.getNano() == 0 && Math.floorMod(instant.getEpochSecond(), seconds) == 0 ? bucket : bucket + 1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.metrics.ServiceMetrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional parts of an {@link ItemActionService}, which cost time on registrations or calls whether or not anything
+ * reads them. Options are immutable, and each {@code with} method returns a changed copy.
+ */
+public final class ServiceOptions {
+    private static final ServiceOptions DEFAULTS = new ServiceOptions(true, false, Collections.emptyMap(),
+            Collections.emptySet(), Collections.emptySet());
+
+    private final boolean metrics;
+    private final boolean descriptionIndex;
+    private final Map<ItemClass, Set<SolidAttribute>> solidIndexes;
+    private final Set<RollupGranularity> itemClassRollups;
+    private final Set<RollupGranularity> itemRollups;
+
+    private ServiceOptions(final boolean metrics, final boolean descriptionIndex,
+                           final Map<ItemClass, Set<SolidAttribute>> solidIndexes,
+                           final Set<RollupGranularity> itemClassRollups, final Set<RollupGranularity> itemRollups) {
+        this.metrics = metrics;
+        this.descriptionIndex = descriptionIndex;
+        this.solidIndexes = solidIndexes;
+        this.itemClassRollups = itemClassRollups;
+        this.itemRollups = itemRollups;
+    }
+
+    /**
+     * @return options recording {@link ServiceMetrics}, without description or solid indexes or cost rollups
+     */
+    public static ServiceOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param metrics whether the service records its {@link ServiceMetrics}, or leaves them empty
+     */
+    public ServiceOptions withMetrics(final boolean metrics) {
+        return new ServiceOptions(metrics, descriptionIndex, solidIndexes, itemClassRollups, itemRollups);
+    }
+
+    /**
+     * @param descriptionIndex whether the terms of action descriptions are indexed, for
+     *                         {@link ItemActionService#getActionsByDescription(ItemClass, DescriptionQuery)}
+     */
+    public ServiceOptions withDescriptionIndex(final boolean descriptionIndex) {
+        return new ServiceOptions(metrics, descriptionIndex, solidIndexes, itemClassRollups, itemRollups);
+    }
+
+    /**
+     * Rolls the cost of every registered action up into a bucket of each chosen granularity of its {@code ItemClass},
+     * for {@link ItemActionService#getActionCostOfItemTypeBetween(ItemClass, RollupGranularity, Instant, Instant)},
+     * and of its item, for {@link ItemActionService#getActionCostOfItemBetween(String, RollupGranularity, Instant,
+     * Instant)}. Rolling items up by minute takes a bucket for nearly every action of a busy item.
+     *
+     * @param itemClassGranularities granularities of the rollups per {@code ItemClass}
+     * @param itemGranularities      granularities of the rollups per item, none for no rollups per item
+     */
+    public ServiceOptions withRollups(final Set<RollupGranularity> itemClassGranularities,
+                                      final Set<RollupGranularity> itemGranularities) {
+        return new ServiceOptions(metrics, descriptionIndex, solidIndexes, immutableCopy(itemClassGranularities),
+                immutableCopy(itemGranularities));
+    }
+
+    /**
+     * Indexes the registered solids of {@code itemClass} by color and by {@code attributes}, for
+     * {@link ItemActionService#getSolidsOfColor(ItemClass, String)} and
+     * {@link ItemActionService#getSolidsBetween(ItemClass, String, SolidAttribute, double, double)}. Each attribute
+     * adds two skip list entries per solid.
+     *
+     * @param attributes attributes to index besides the color, replacing any indexed before for {@code itemClass}
+     * @throws IllegalArgumentException if the items of {@code itemClass} are not solids or don't have an attribute
+     */
+    public ServiceOptions withSolidIndex(final ItemClass itemClass, final SolidAttribute... attributes) {
+        if (!Solid.class.isAssignableFrom(itemClass.getItemClass())) {
+            throw new IllegalArgumentException(itemClass + " items are not solids.");
+        }
+        final Set<SolidAttribute> indexed = EnumSet.noneOf(SolidAttribute.class);
+        for (SolidAttribute attribute : attributes) {
+            if (!attribute.appliesTo(itemClass)) {
+                throw new IllegalArgumentException(itemClass + " has no " + attribute + ".");
+            }
+            indexed.add(attribute);
+        }
+        final Map<ItemClass, Set<SolidAttribute>> changed = new EnumMap<>(ItemClass.class);
+        changed.putAll(solidIndexes);
+        changed.put(itemClass, Collections.unmodifiableSet(indexed));
+        return new ServiceOptions(metrics, descriptionIndex, Collections.unmodifiableMap(changed), itemClassRollups,
+                itemRollups);
+    }
+
+    public boolean hasMetrics() {
+        return metrics;
+    }
+
+    public boolean hasDescriptionIndex() {
+        return descriptionIndex;
+    }
+
+    /**
+     * @return attributes the solids of {@code itemClass} are indexed by besides the color, or {@code null} if they are
+     * not indexed
+     */
+    public Set<SolidAttribute> getSolidIndex(final ItemClass itemClass) {
+        return solidIndexes.get(itemClass);
+    }
+
+    public Set<RollupGranularity> getItemClassRollups() {
+        return itemClassRollups;
+    }
+
+    public Set<RollupGranularity> getItemRollups() {
+        return itemRollups;
+    }
+
+    private static Set<RollupGranularity> immutableCopy(final Set<RollupGranularity> granularities) {
+        return granularities.isEmpty() ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(granularities));
+    }
+}
@@ -0,0 +1,706 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ActionNotFoundException;
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.feed.ChangeFeed;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.metrics.ServiceMetrics;
+import com.sandbox.service.store.ActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import com.sandbox.service.transfer.BulkReader;
+import com.sandbox.service.transfer.BulkWriter;
+import com.sandbox.service.transfer.TransferFormat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link ItemActionService} split into independent shards, each owning the items whose ID hashes to it together with
+ * their actions. Shards share no state, and registrations on a shard are serialized by its lock, so every shard has
+ * a single writer at a time and writers on different shards never meet.
+ * <p>
+ * Calls on one item or action go to the shard owning it: the shard of an action is encoded in the node number of its
+ * time-ordered ID. Queries over all items or an {@code ItemClass} are asked of every shard and their answers merged.
+ * Sets of items are read-only live views over the shards, and actions in performed date order are merged lazily.
+ * <p>
+ * Every shard publishes its registrations to the same {@link ChangeFeed}, and keeps its own {@link ServiceMetrics}.
+ * A {@link RetentionPolicy} compacts the shards one after the other on one thread, and imports register every record
+ * on the shard owning its item. Shards are not persisted, and there is no {@code writeSnapshot} or {@code open}: the
+ * node numbers of the action IDs start with a prefix drawn for each instance, so a restored service could not find
+ * the shard of an action by its ID. {@link #exportTo(Path, TransferFormat) Exports} move the items and actions to
+ * another service instead, with new action IDs.
+ */
+public class ShardedItemActionService implements AutoCloseable {
+    public static final int MAX_SHARDS = 1 << 10;
+
+    private static final Comparator<Action> PERFORMED_DATE_ORDER = Comparator.comparing(ActionCursor::of);
+    private static final Comparator<Map.Entry<Item, Long>> TOTAL_COST_ORDER =
+            Comparator.comparing((Map.Entry<Item, Long> entry) -> entry.getValue()).reversed()
+                    .thenComparing(entry -> entry.getKey().getId());
+
+    private final ItemActionService[] shards;
+    // Node numbers of the shards' ID generators share these upper bits, and end in the shard index.
+    private final long nodePrefix;
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final RetentionSchedule retention = new RetentionSchedule();
+
+    /**
+     * @param shardCount number of shards, typically the number of cores, up to {@link #MAX_SHARDS}
+     */
+    public ShardedItemActionService(final int shardCount) {
+        this(shardCount, ObjectActionStore::new);
+    }
+
+    /**
+     * @param shardCount   number of shards, typically the number of cores, up to {@link #MAX_SHARDS}
+     * @param actionStores supplier of an empty action store for each shard
+     */
+    public ShardedItemActionService(final int shardCount, final Supplier<? extends ActionStore> actionStores) {
+        this(shardCount, actionStores, ServiceOptions.defaults());
+    }
+
+    /**
+     * @param shardCount   number of shards, typically the number of cores, up to {@link #MAX_SHARDS}
+     * @param actionStores supplier of an empty action store for each shard
+     * @param options      optional parts of every shard
+     */
+    public ShardedItemActionService(final int shardCount, final Supplier<? extends ActionStore> actionStores,
+                                    final ServiceOptions options) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ".");
+        }
+        this.nodePrefix = ThreadLocalRandom.current().nextLong(1L << 12) << 10;
+        this.shards = new ItemActionService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ItemActionService(actionStores.get(),
+                    new TimeOrderedIdGenerator(Clock.systemUTC(), nodePrefix | i), options, changeFeed);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Item getItemById(final String itemId) {
+        return this.shardOf(itemId).getItemById(itemId);
+    }
+
+    public Action getActionById(final UUID actionId) {
+        return this.shardOf(actionId).getActionById(actionId);
+    }
+
+    public void registerItem(final Item item) {
+        final ItemActionService shard = this.shardOf(item.getId());
+        synchronized (shard) {
+            shard.registerItem(item);
+        }
+    }
+
+    public UUID registerActionOnItem(final String itemId, final String actionDescription, final Integer actionCost, final Instant actionDate) {
+        final ItemActionService shard = this.shardOf(itemId);
+        synchronized (shard) {
+            return shard.registerActionOnItem(itemId, actionDescription, actionCost, actionDate);
+        }
+    }
+
+    /**
+     * Registers a batch of actions like {@link ItemActionService#registerActions(Collection)}, as one batch per shard
+     * holding the actions on its items. All actions are validated before any shard registers its batch.
+     *
+     * @param requests actions to register
+     * @return IDs of the registered actions, in the order of {@code requests}
+     * @throws ItemNotFoundException if an item is not registered, in which case no action is registered
+     * @throws IllegalStateException if a generated action ID is already in use, in which case the other actions are
+     *                               registered
+     */
+    public List<UUID> registerActions(final Collection<ActionRequest> requests) {
+        final ActionRequest[] batch = requests.toArray(new ActionRequest[0]);
+        final int[] shardIndexes = new int[batch.length];
+        final int[] batchSizes = new int[shards.length];
+        for (int i = 0; i < batch.length; i++) {
+            final String itemId = batch[i].getItemId();
+            shardIndexes[i] = this.shardIndexOf(itemId);
+            if (shards[shardIndexes[i]].findRegisteredEntry(itemId) == null) {
+                throw new ItemNotFoundException();
+            }
+            Objects.requireNonNull(batch[i].getPerformedDateTime(), "Action date can't be null.");
+            batchSizes[shardIndexes[i]]++;
+        }
+
+        final UUID[] ids = new UUID[batch.length];
+        IllegalStateException failure = null;
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            if (batchSizes[shardIndex] == 0) {
+                continue;
+            }
+            final List<ActionRequest> shardBatch = new ArrayList<>(batchSizes[shardIndex]);
+            for (int i = 0; i < batch.length; i++) {
+                if (shardIndexes[i] == shardIndex) {
+                    shardBatch.add(batch[i]);
+                }
+            }
+            final ItemActionService shard = shards[shardIndex];
+            try {
+                final List<UUID> shardIds;
+                synchronized (shard) {
+                    shardIds = shard.registerActions(shardBatch);
+                }
+                for (int i = 0, j = 0; i < batch.length; i++) {
+                    if (shardIndexes[i] == shardIndex) {
+                        ids[i] = shardIds.get(j++);
+                    }
+                }
+            } catch (IllegalStateException e) {
+                // The other shards still register their batches, as the service would.
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return List.of(ids);
+    }
+
+    public List<Action> getActionsOnItem(final String itemId) {
+        return this.shardOf(itemId).getActionsOnItem(itemId);
+    }
+
+    public Stream<Action> streamActionsOnItem(final String itemId) {
+        return this.shardOf(itemId).streamActionsOnItem(itemId);
+    }
+
+    public long getTotalActionCostOfItem(final String itemId) {
+        return this.shardOf(itemId).getTotalActionCostOfItem(itemId);
+    }
+
+    public Set<Item> getAllItems() {
+        return this.streamAllItems().collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Stream<Item> streamAllItems() {
+        return Arrays.stream(shards).flatMap(ItemActionService::streamAllItems);
+    }
+
+    public Set<Action> getAllActions() {
+        return this.streamAllActions().collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Stream<Action> streamAllActions() {
+        return Arrays.stream(shards).flatMap(ItemActionService::streamAllActions);
+    }
+
+    public int getActionCount() {
+        return Arrays.stream(shards).mapToInt(ItemActionService::getActionCount).sum();
+    }
+
+    public Map<Action, Item> getActionOnItemByActionId(final UUID uuid) {
+        return this.shardOf(uuid).getActionOnItemByActionId(uuid);
+    }
+
+    /**
+     * @return read-only live view of the IDs of the registered items of type {@code itemClass}
+     */
+    public Set<String> getItemIdsOfType(ItemClass itemClass) {
+        return new UnionView<>(this.gather(shard -> shard.getItemIdsOfType(itemClass)));
+    }
+
+    /**
+     * @return read-only live view of the registered items extending {@code parentClass}
+     */
+    public Set<Item> getItemsOfParentClass(Class<? extends Item> parentClass) {
+        return new UnionView<>(this.gather(shard -> shard.getItemsOfParentClass(parentClass)));
+    }
+
+    public List<Action> getActionsOnItemTypeSortedByPerformedDate(ItemClass itemClass) {
+        return this.streamActionsOnItemTypeSortedByPerformedDate(itemClass).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @return lazy stream of the actions on items of type {@code itemClass}, oldest first, merged from the shards
+     */
+    public Stream<Action> streamActionsOnItemTypeSortedByPerformedDate(ItemClass itemClass) {
+        return merge(this.gather(shard -> shard.streamActionsOnItemTypeSortedByPerformedDate(itemClass)));
+    }
+
+    public Stream<Action> streamActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to) {
+        return merge(this.gather(shard -> shard.streamActionsOnItemTypeBetween(itemClass, from, to)));
+    }
+
+    public ActionPage getActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to, int limit) {
+        return this.getActionsOnItemTypeBetween(itemClass, from, to, null, limit);
+    }
+
+    /**
+     * Pages through the actions like {@link ItemActionService#getActionsOnItemTypeBetween(ItemClass, Instant, Instant,
+     * ActionCursor, int)}. Every shard is asked for a page after the cursor, and the page is the first {@code limit}
+     * actions of their merged pages.
+     */
+    public ActionPage getActionsOnItemTypeBetween(ItemClass itemClass, Instant from, Instant to, ActionCursor after, int limit) {
+        final List<ActionPage> pages = this.gather(shard -> shard.getActionsOnItemTypeBetween(itemClass, from, to, after, limit));
+        final List<Action> merged = merge(pages.stream().map(page -> page.getActions().stream()).collect(Collectors.toList()))
+                .limit(limit + 1L)
+                .collect(Collectors.toList());
+
+        final boolean hasNext = merged.size() > limit || pages.stream().anyMatch(ActionPage::hasNext);
+        final List<Action> page = merged.subList(0, Math.min(limit, merged.size()));
+        return new ActionPage(List.copyOf(page), hasNext ? ActionCursor.of(page.get(page.size() - 1)) : null);
+    }
+
+    public Map<String, Integer> getItemIdsWithTotalActionCost() {
+        final Map<String, Integer> itemActionCost = new HashMap<>();
+        for (ItemActionService shard : shards) {
+            itemActionCost.putAll(shard.getItemIdsWithTotalActionCost());
+        }
+        return Collections.unmodifiableMap(itemActionCost);
+    }
+
+    public Map<String, Integer> getItemIdsWithTotalActionCostByItemType(ItemClass itemClass) {
+        final Map<String, Integer> itemActionCost = new HashMap<>();
+        for (ItemActionService shard : shards) {
+            itemActionCost.putAll(shard.getItemIdsWithTotalActionCostByItemType(itemClass));
+        }
+        return Collections.unmodifiableMap(itemActionCost);
+    }
+
+    /**
+     * @return {@code Item}(s) of type {@code itemType} with the highest total cost together with the highest cost,
+     * or {@code null} if no such item has any actions
+     */
+    public Map<Item, Integer> getItemsWithHighestTotalActionCostByItemType(ItemClass itemClass) {
+        Map<Item, Integer> itemsWithHighestCost = null;
+        int highestCost = Integer.MIN_VALUE;
+        for (ItemActionService shard : shards) {
+            final Map<Item, Integer> shardHighest = shard.getItemsWithHighestTotalActionCostByItemType(itemClass);
+            if (shardHighest == null) {
+                continue;
+            }
+            final int shardCost = shardHighest.values().iterator().next();
+            if (itemsWithHighestCost == null || shardCost > highestCost) {
+                itemsWithHighestCost = new HashMap<>(shardHighest);
+                highestCost = shardCost;
+            } else if (shardCost == highestCost) {
+                itemsWithHighestCost.putAll(shardHighest);
+            }
+        }
+        return itemsWithHighestCost;
+    }
+
+    /**
+     * @return the {@code k} items of type {@code itemClass} with the highest total action cost, highest cost first
+     * and equal costs ordered by ID, picked from the top {@code k} of every shard
+     */
+    public List<Map.Entry<Item, Long>> getTopItemsByTotalActionCost(ItemClass itemClass, int k) {
+        return this.gather(shard -> shard.getTopItemsByTotalActionCost(itemClass, k)).stream()
+                .flatMap(List::stream)
+                .sorted(TOTAL_COST_ORDER)
+                .limit(k)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public SortedMap<Instant, Long> getActionCostOfItemBetween(final String itemId, final RollupGranularity granularity,
+                                                               final Instant from, final Instant to) {
+        return this.shardOf(itemId).getActionCostOfItemBetween(itemId, granularity, from, to);
+    }
+
+    /**
+     * @return total cost of each bucket overlapping {@code [from, to)}, summed over the rollups of every shard
+     */
+    public SortedMap<Instant, Long> getActionCostOfItemTypeBetween(final ItemClass itemClass,
+                                                                   final RollupGranularity granularity,
+                                                                   final Instant from, final Instant to) {
+        final SortedMap<Instant, Long> costs = new TreeMap<>();
+        for (ItemActionService shard : shards) {
+            shard.getActionCostOfItemTypeBetween(itemClass, granularity, from, to).forEach((bucket, cost) ->
+                    costs.merge(bucket, cost, Long::sum));
+        }
+        return costs;
+    }
+
+    /**
+     * @return registered items partitioned by class, as read-only live views over the shards
+     */
+    public Map<Class<? extends Item>, Set<Item>> getItemsPartitionedByClass(ItemClass... itemClasses) {
+        final List<Map<Class<? extends Item>, Set<Item>>> partitions =
+                this.gather(shard -> shard.getItemsPartitionedByClass(itemClasses));
+        final Map<Class<? extends Item>, Set<Item>> partitionedItems = new HashMap<>();
+        partitions.get(0).keySet().forEach(c -> partitionedItems.put(c,
+                new UnionView<>(partitions.stream().map(partition -> partition.get(c)).collect(Collectors.toList()))));
+        return partitionedItems;
+    }
+
+    public List<Action> getActionsByDescription(ItemClass itemClass, DescriptionQuery query) {
+        return this.getActionsByDescription(itemClass, query, Instant.MIN, Instant.MAX);
+    }
+
+    /**
+     * @return matching actions of every shard, oldest first
+     */
+    public List<Action> getActionsByDescription(ItemClass itemClass, DescriptionQuery query, Instant from, Instant to) {
+        return this.gather(shard -> shard.getActionsByDescription(itemClass, query, from, to)).stream()
+                .flatMap(List::stream)
+                .sorted(PERFORMED_DATE_ORDER)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<Solid> getSolidsBetween(ItemClass itemClass, SolidAttribute attribute, double from, double to) {
+        return this.getSolidsBetween(itemClass, null, attribute, from, to);
+    }
+
+    /**
+     * @return matching solids of every shard in ascending order of {@code attribute}
+     */
+    public List<Solid> getSolidsBetween(ItemClass itemClass, String color, SolidAttribute attribute, double from, double to) {
+        return this.gather(shard -> shard.getSolidsBetween(itemClass, color, attribute, from, to)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingDouble(attribute::valueOf))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<Solid> getSolidsOfColor(ItemClass itemClass, String color) {
+        return this.gather(shard -> shard.getSolidsOfColor(itemClass, color)).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Sums the costs of the registered actions per item, aggregating one shard after the other on the calling thread.
+     *
+     * @param filter actions to aggregate, or {@code null} for all of them
+     * @see ItemActionService#aggregateActionCosts(Predicate)
+     */
+    public CostReport aggregateActionCosts(final Predicate<? super Action> filter) {
+        return CostReport.merge(this.gather(shard -> shard.aggregateActionCosts(filter)));
+    }
+
+    /**
+     * Sums the costs of the registered actions per item, scanning one shard after the other in parallel on
+     * {@code pool}.
+     *
+     * @param filter actions to aggregate, or {@code null} for all of them; called concurrently
+     * @param pool   pool to scan on, its parallelism deciding the number of ranges of each shard
+     * @see ItemActionService#aggregateActionCosts(Predicate, ForkJoinPool)
+     */
+    public CostReport aggregateActionCosts(final Predicate<? super Action> filter, final ForkJoinPool pool) {
+        return CostReport.merge(this.gather(shard -> shard.aggregateActionCosts(filter, pool)));
+    }
+
+    public List<ActionSummary> getActionSummariesOfItem(final String itemId) {
+        return this.shardOf(itemId).getActionSummariesOfItem(itemId);
+    }
+
+    /**
+     * Compacts the actions performed before {@code horizon} on one shard after the other, archiving those of every
+     * shard to the same file.
+     *
+     * @return number of actions compacted on all shards
+     * @see ItemActionService#compactActionsBefore(Instant, RollupGranularity, Path)
+     */
+    public int compactActionsBefore(final Instant horizon, final RollupGranularity summaryPeriod,
+                                    final Path archiveFile) throws IOException {
+        int compacted = 0;
+        for (ItemActionService shard : shards) {
+            compacted += shard.compactActionsBefore(horizon, summaryPeriod, archiveFile);
+        }
+        return compacted;
+    }
+
+    /**
+     * Compacts the actions older than the policy's horizon on a background thread, right away and then at the
+     * policy's interval, replacing the policy started before, if any. Each run compacts one shard after the other,
+     * and a shard whose compaction fails counts it in its {@link ServiceMetrics#getFailedCompactions()}.
+     *
+     * @return future of the scheduled compactions, cancelled to stop them
+     * @see ItemActionService#startRetention(RetentionPolicy)
+     */
+    public ScheduledFuture<?> startRetention(final RetentionPolicy policy) {
+        return retention.start(policy, () -> {
+            for (ItemActionService shard : shards) {
+                shard.retain(policy);
+            }
+        });
+    }
+
+    /**
+     * Stops the compactions started by {@link #startRetention(RetentionPolicy)}, waiting for a running one.
+     */
+    public void stopRetention() {
+        retention.stop();
+    }
+
+    /**
+     * @return feed of the items and actions registered on any shard from now on
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * @return metrics of each shard, in shard order
+     */
+    public List<ServiceMetrics> getShardMetrics() {
+        return this.gather(ItemActionService::getMetrics);
+    }
+
+    /**
+     * Registers the items and actions in {@code file} like {@link ItemActionService#importFrom(Path, TransferFormat)},
+     * each on the shard owning its item. Actions are registered in batches per shard.
+     *
+     * @return number of items and actions registered
+     * @throws IOException                      if the file is not in {@code format} or a record is malformed
+     * @throws ItemIdAlreadyRegisteredException if an item is already registered
+     * @throws ItemNotFoundException            if the item of an action is neither registered nor earlier in the file
+     */
+    public long importFrom(final Path file, final TransferFormat format) throws IOException {
+        final ImportBatches batches = new ImportBatches();
+        try {
+            BulkReader.read(file, format, Runtime.getRuntime().availableProcessors(), batches::addItem,
+                    batches::addAction);
+            batches.flush();
+            return batches.imported;
+        } catch (IOException | RuntimeException e) {
+            // The actions read before the failure are registered before it is thrown.
+            try {
+                batches.flush();
+            } catch (RuntimeException flushFailure) {
+                e.addSuppressed(flushFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the items and actions of every shard to {@code file} in {@code format}, the actions one shard after the
+     * other. Registrations carry on while it is written, and compacted actions are left out.
+     *
+     * @return number of items and actions written
+     * @see ItemActionService#exportTo(Path, TransferFormat)
+     */
+    public long exportTo(final Path file, final TransferFormat format) throws IOException {
+        // Rows of shard i are numbered from firstRows[i] on, and rows registered after this are left out.
+        final int[] firstRows = new int[shards.length + 1];
+        for (int i = 0; i < shards.length; i++) {
+            firstRows[i + 1] = Math.addExact(firstRows[i], shards[i].getActionRowCount());
+        }
+        return BulkWriter.write(file, format, this.streamAllItems()::iterator, firstRows[shards.length], row -> {
+            final int found = Arrays.binarySearch(firstRows, row);
+            // Empty shards share their first row with the next shard, and the last of them owns it.
+            int shard = found >= 0 ? found : -found - 2;
+            while (firstRows[shard + 1] == row) {
+                shard++;
+            }
+            return shards[shard].getActionInRow(row - firstRows[shard]);
+        });
+    }
+
+    @Override
+    public void close() {
+        changeFeed.close();
+        this.stopRetention();
+        for (ItemActionService shard : shards) {
+            shard.close();
+        }
+    }
+
+    private ItemActionService shardOf(final String itemId) {
+        return shards[this.shardIndexOf(itemId)];
+    }
+
+    private int shardIndexOf(final String itemId) {
+        final int hash = itemId.hashCode();
+        return Math.floorMod(hash ^ hash >>> 16, shards.length);
+    }
+
+    private ItemActionService shardOf(final UUID actionId) {
+        final long node = actionId.version() == 7 ? TimeOrderedIdGenerator.nodeOf(actionId) : -1;
+        if ((node & ~(MAX_SHARDS - 1L)) != nodePrefix || (node & MAX_SHARDS - 1) >= shards.length) {
+            throw new ActionNotFoundException();
+        }
+        return shards[(int) (node & MAX_SHARDS - 1)];
+    }
+
+    private <R> List<R> gather(final Function<ItemActionService, R> query) {
+        final List<R> results = new ArrayList<>(shards.length);
+        for (ItemActionService shard : shards) {
+            results.add(query.apply(shard));
+        }
+        return results;
+    }
+
+    /**
+     * @return lazy stream of the actions of the sorted {@code streams}, in performed date order
+     */
+    private static Stream<Action> merge(final List<Stream<Action>> streams) {
+        final PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, streams.size()));
+        final Iterator<Action> merged = new Iterator<>() {
+            private boolean started;
+
+            @Override
+            public boolean hasNext() {
+                this.start();
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Action next() {
+                this.start();
+                final Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                final Action action = head.action;
+                if (head.rest.hasNext()) {
+                    heads.add(new Head(head.rest.next(), head.rest));
+                }
+                return action;
+            }
+
+            private void start() {
+                if (!started) {
+                    started = true;
+                    for (Stream<Action> stream : streams) {
+                        final Iterator<Action> iterator = stream.iterator();
+                        if (iterator.hasNext()) {
+                            heads.add(new Head(iterator.next(), iterator));
+                        }
+                    }
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static final class Head implements Comparable<Head> {
+        private final Action action;
+        private final Iterator<Action> rest;
+
+        private Head(final Action action, final Iterator<Action> rest) {
+            this.action = action;
+            this.rest = rest;
+        }
+
+        @Override
+        public int compareTo(Head o) {
+            return PERFORMED_DATE_ORDER.compare(action, o.action);
+        }
+    }
+
+    /**
+     * Actions of an import waiting to be registered, in one batch per shard.
+     */
+    private final class ImportBatches {
+        private final List<List<ActionRequest>> requests = new ArrayList<>(shards.length);
+        private long imported;
+
+        private ImportBatches() {
+            for (int i = 0; i < shards.length; i++) {
+                requests.add(new ArrayList<>());
+            }
+        }
+
+        private void addItem(final Item item) {
+            // Actions earlier in the file are registered first, so that they stay registered if the item is not.
+            this.flush();
+            registerItem(item);
+            imported++;
+        }
+
+        private void addAction(final Action action) {
+            final int shardIndex = shardIndexOf(action.getItemId());
+            if (shards[shardIndex].findRegisteredEntry(action.getItemId()) == null) {
+                this.flush();
+                throw new ItemNotFoundException();
+            }
+            final List<ActionRequest> batch = requests.get(shardIndex);
+            batch.add(new ActionRequest(action.getItemId(), action.getDescription(), action.getCost(),
+                    action.getPerformedDateTime()));
+            if (batch.size() == ItemActionService.IMPORT_BATCH_SIZE) {
+                this.flush(shardIndex);
+            }
+        }
+
+        private void flush() {
+            RuntimeException failure = null;
+            for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+                try {
+                    this.flush(shardIndex);
+                } catch (RuntimeException e) {
+                    // The other shards still register their batches.
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void flush(final int shardIndex) {
+            final List<ActionRequest> batch = requests.get(shardIndex);
+            if (batch.isEmpty()) {
+                return;
+            }
+            final List<ActionRequest> registered = List.copyOf(batch);
+            batch.clear();
+            final ItemActionService shard = shards[shardIndex];
+            synchronized (shard) {
+                imported += shard.registerActions(registered).size();
+            }
+        }
+    }
+
+    /**
+     * Read-only view of the union of disjoint sets.
+     */
+    private static final class UnionView<E> extends AbstractSet<E> {
+        private final List<Set<E>> sets;
+
+        private UnionView(final List<Set<E>> sets) {
+            this.sets = sets;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (Set<E> set : sets) {
+                if (set.contains(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return sets.stream().flatMap(Set::stream).iterator();
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Set<E> set : sets) {
+                size += set.size();
+            }
+            return size;
+        }
+    }
+}
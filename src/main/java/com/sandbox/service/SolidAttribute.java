@@ -0,0 +1,42 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.model.items.solids.Solid;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Numeric attribute of a {@link Solid} that registered solids are indexed by, for
+ * {@link ItemActionService#getSolidsBetween(ItemClass, String, SolidAttribute, double, double)}.
+ */
+public enum SolidAttribute {
+    VOLUME(Solid.class, Solid::getVolume),
+    RADIUS(Ball.class, solid -> ((Ball) solid).getRadius()),
+    HEIGHT(Box.class, solid -> ((Box) solid).getHeight()),
+    DEPTH(Box.class, solid -> ((Box) solid).getDepth()),
+    WIDTH(Box.class, solid -> ((Box) solid).getWidth());
+
+    private final Class<? extends Solid> solidClass;
+    private final ToDoubleFunction<Solid> value;
+
+    SolidAttribute(final Class<? extends Solid> solidClass, final ToDoubleFunction<Solid> value) {
+        this.solidClass = solidClass;
+        this.value = value;
+    }
+
+    /**
+     * @return whether the items of {@code itemClass} have the attribute
+     */
+    public boolean appliesTo(final ItemClass itemClass) {
+        return solidClass.isAssignableFrom(itemClass.getItemClass());
+    }
+
+    /**
+     * @param solid solid of an {@code ItemClass} the attribute {@link #appliesTo(ItemClass) applies to}
+     */
+    public double valueOf(final Solid solid) {
+        return value.applyAsDouble(solid);
+    }
+}
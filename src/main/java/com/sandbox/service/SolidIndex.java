@@ -0,0 +1,118 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.solids.Solid;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Ordinals of the registered solids of one {@code ItemClass}, indexed by color and by a chosen set of the
+ * {@link SolidAttribute}s the class has.
+ * <p>
+ * Every attribute has two sorted indexes: one by value, and one by color and then value, so that solids of one color
+ * in a range of values are a single range of the index as well. A range is found in logarithmic time and read in
+ * time proportional to its size. Colors are compared exactly, and solids without a color are only in the indexes by
+ * value.
+ */
+final class SolidIndex {
+    // Heap per skip list entry, and per ordinal in a list by color, measured as described in docs/PERFORMANCE.md.
+    private static final int BYTES_PER_VALUE_ENTRY = 72;
+    private static final int BYTES_PER_COLOR_ENTRY = 40;
+    private static final int BYTES_PER_COLORED_SOLID = 6;
+
+    private static final Comparator<Entry> VALUE_ORDER = Comparator.comparingDouble((Entry entry) -> entry.value)
+            .thenComparingInt(entry -> entry.ordinal);
+    private static final Comparator<Entry> COLOR_ORDER = Comparator.comparing((Entry entry) -> entry.color)
+            .thenComparing(VALUE_ORDER);
+
+    private final Map<SolidAttribute, NavigableSet<Entry>> byValue = new EnumMap<>(SolidAttribute.class);
+    private final Map<SolidAttribute, NavigableSet<Entry>> byColorAndValue = new EnumMap<>(SolidAttribute.class);
+    private final Map<String, AppendOnlyIntList> byColor = new ConcurrentHashMap<>();
+    private final LongAdder solids = new LongAdder();
+    private final LongAdder coloredSolids = new LongAdder();
+
+    /**
+     * @param attributes attributes of the class to index besides the color
+     */
+    SolidIndex(final Set<SolidAttribute> attributes) {
+        for (SolidAttribute attribute : attributes) {
+            byValue.put(attribute, new ConcurrentSkipListSet<>(VALUE_ORDER));
+            byColorAndValue.put(attribute, new ConcurrentSkipListSet<>(COLOR_ORDER));
+        }
+    }
+
+    boolean indexes(final SolidAttribute attribute) {
+        return byValue.containsKey(attribute);
+    }
+
+    /**
+     * Must be called once for each registered solid of the class.
+     */
+    void add(final int ordinal, final Solid solid) {
+        final String color = solid.getColor();
+        byValue.forEach((attribute, entries) -> {
+            // The order by value ignores the color, so both indexes share the entry.
+            final Entry entry = new Entry(color, attribute.valueOf(solid), ordinal);
+            entries.add(entry);
+            if (color != null) {
+                byColorAndValue.get(attribute).add(entry);
+            }
+        });
+        if (color != null) {
+            byColor.computeIfAbsent(color, c -> new AppendOnlyIntList()).append(ordinal);
+            coloredSolids.increment();
+        }
+        solids.increment();
+    }
+
+    /**
+     * @return estimated heap taken by the index, besides the solids
+     */
+    long estimatedMemoryBytes() {
+        final long colored = coloredSolids.sum();
+        return byValue.size() * (solids.sum() * BYTES_PER_VALUE_ENTRY + colored * BYTES_PER_COLOR_ENTRY)
+                + colored * BYTES_PER_COLORED_SOLID;
+    }
+
+    /**
+     * Passes the ordinals of the solids with {@code attribute}, which must be {@link #indexes(SolidAttribute) indexed},
+     * in {@code [from, to]} to {@code consumer} in order of the attribute.
+     *
+     * @param color color of the solids, or {@code null} for any color
+     */
+    void forEachBetween(final String color, final SolidAttribute attribute, final double from, final double to,
+                        final IntConsumer consumer) {
+        final NavigableSet<Entry> entries = (color == null ? byValue : byColorAndValue).get(attribute);
+        entries.subSet(new Entry(color, from, Integer.MIN_VALUE), true, new Entry(color, to, Integer.MAX_VALUE), true)
+                .forEach(entry -> consumer.accept(entry.ordinal));
+    }
+
+    /**
+     * Passes the ordinals of the solids of {@code color} to {@code consumer} in the order they were registered.
+     */
+    void forEachOfColor(final String color, final IntConsumer consumer) {
+        final AppendOnlyIntList ordinals = byColor.get(color);
+        if (ordinals != null) {
+            ordinals.forEach(consumer);
+        }
+    }
+
+    private static final class Entry {
+        private final String color;
+        private final double value;
+        private final int ordinal;
+
+        private Entry(final String color, final double value, final int ordinal) {
+            this.color = color;
+            this.value = value;
+            this.ordinal = ordinal;
+        }
+    }
+}
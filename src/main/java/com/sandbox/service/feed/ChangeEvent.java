@@ -0,0 +1,58 @@
+package com.sandbox.service.feed;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+/**
+ * Registration of an item or an action, as delivered to the subscribers of a {@link ChangeFeed}.
+ */
+public final class ChangeEvent {
+    public enum Type {
+        ITEM_REGISTERED,
+        ACTION_REGISTERED
+    }
+
+    private final long sequence;
+    private final Item item;
+    private final Action action;
+
+    ChangeEvent(final long sequence, final Item item, final Action action) {
+        this.sequence = sequence;
+        this.item = item;
+        this.action = action;
+    }
+
+    /**
+     * @return position of the event in its feed, increasing by one per event
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return action == null ? Type.ITEM_REGISTERED : Type.ACTION_REGISTERED;
+    }
+
+    /**
+     * @return registered item, or the item the action was registered on
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return registered action, or {@code null} for an item registration
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "sequence=" + sequence +
+                ", item=" + item.getId() +
+                (action == null ? "" : ", action=" + action.getId()) +
+                '}';
+    }
+}
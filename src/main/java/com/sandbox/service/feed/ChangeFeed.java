@@ -0,0 +1,227 @@
+package com.sandbox.service.feed;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feed of the item and action registrations on an {@code ItemActionService}, pushed to subscribers in batches.
+ * <p>
+ * Events go into a lock-free ring buffer. A registration claims a sequence number with one atomic increment, or one
+ * for a whole batch, and publishes its event into the slot of that sequence. Every {@link Subscription} reads the ring
+ * from its own cursor on its own thread, so subscribers never hold each other up, and registrations only wait for
+ * subscribers with the {@link SlowConsumerPolicy#BLOCK} policy. Without subscribers, publishing does nothing.
+ * <p>
+ * A subscriber receives the events published after it subscribed. Events are published once a registration is
+ * visible to queries and durable, and are numbered in the order their registrations claimed them.
+ */
+public final class ChangeFeed implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 13;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile Subscription[] subscriptions = NONE;
+    private volatile Subscription[] blocking = NONE;
+    private volatile boolean closed;
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of events kept for slow subscribers, a power of two
+     */
+    public ChangeFeed(final int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 2.");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Subscribes to the events published from now on, delivered in batches of up to {@link #DEFAULT_BATCH_SIZE}.
+     */
+    public Subscription subscribe(final ChangeListener listener, final SlowConsumerPolicy policy) {
+        return this.subscribe(listener, policy, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Subscribes to the events published from now on. A listener that throws is unsubscribed, and its exception is
+     * kept as the {@link Subscription#getFailure() failure} of the subscription.
+     * <p>
+     * A {@link SlowConsumerPolicy#BLOCK} listener must not register items or actions itself, as the registration could
+     * wait for the listener to make room.
+     *
+     * @param maxBatchSize largest number of events passed to the listener at once
+     * @return subscription delivering events until it is closed
+     */
+    public synchronized Subscription subscribe(final ChangeListener listener, final SlowConsumerPolicy policy,
+                                               final int maxBatchSize) {
+        if (closed) {
+            throw new IllegalStateException("Change feed is closed.");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        final Subscription subscription = new Subscription(this, listener, policy, maxBatchSize, claimed.get());
+        subscriptions = append(subscriptions, subscription);
+        if (policy == SlowConsumerPolicy.BLOCK) {
+            blocking = append(blocking, subscription);
+        }
+        // Read again once the subscription is visible, so that every registration claiming this sequence or a later
+        // one also waits for the subscription if it blocks.
+        subscription.start(claimed.get());
+        return subscription;
+    }
+
+    /**
+     * @return number of events kept for slow subscribers
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return number of events claimed since the feed was created, which is the sequence of the next event
+     */
+    public long getSequence() {
+        return claimed.get();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * @return whether publishing an event would deliver it to anybody
+     */
+    public boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    /**
+     * Publishes the registration of {@code item}.
+     */
+    public void publish(final Item item) {
+        this.publish(item, null);
+    }
+
+    /**
+     * Publishes the registration of {@code action} on {@code item}, or of {@code item} if {@code action} is
+     * {@code null}.
+     */
+    public void publish(final Item item, final Action action) {
+        if (subscriptions.length == 0) {
+            return;
+        }
+        final long sequence = claimed.getAndIncrement();
+        this.awaitCapacity(sequence);
+        this.put(new ChangeEvent(sequence, item, action));
+        this.wakeSubscribers();
+    }
+
+    /**
+     * Publishes the registrations of the first {@code count} actions on their items, claiming their sequences at once.
+     */
+    public void publishAll(final Item[] items, final Action[] actions, final int count) {
+        if (subscriptions.length == 0 || count == 0) {
+            return;
+        }
+        final long first = claimed.getAndAdd(count);
+        for (int i = 0; i < count; i++) {
+            this.awaitCapacity(first + i);
+            this.put(new ChangeEvent(first + i, items[i], actions[i]));
+        }
+        this.wakeSubscribers();
+    }
+
+    /**
+     * Closes every subscription and stops taking new ones.
+     */
+    @Override
+    public void close() {
+        final Subscription[] open;
+        synchronized (this) {
+            closed = true;
+            open = subscriptions;
+        }
+        for (Subscription subscription : open) {
+            subscription.close();
+        }
+    }
+
+    ChangeEvent get(final long sequence) {
+        return ring.get((int) sequence & mask);
+    }
+
+    synchronized void remove(final Subscription subscription) {
+        subscriptions = without(subscriptions, subscription);
+        blocking = without(blocking, subscription);
+    }
+
+    private void put(final ChangeEvent event) {
+        final int index = (int) event.getSequence() & mask;
+        ChangeEvent current;
+        do {
+            current = ring.get(index);
+            // A registration that was slow to publish must not overwrite the newer event of a non-blocking lap.
+            if (current != null && current.getSequence() > event.getSequence()) {
+                return;
+            }
+        } while (!ring.compareAndSet(index, current, event));
+    }
+
+    /**
+     * Waits until no blocking subscriber still has to read the event that {@code sequence} overwrites.
+     */
+    private void awaitCapacity(final long sequence) {
+        final long overwritten = sequence - ring.length();
+        if (overwritten < 0) {
+            return;
+        }
+        for (int attempt = 0; this.slowestBlocking() <= overwritten; attempt++) {
+            if (attempt == 0) {
+                // Subscribers are woken once per batch, which may not have happened yet.
+                this.wakeSubscribers();
+            } else if (attempt < 100) {
+                Thread.onSpinWait();
+            } else if (attempt < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    }
+
+    private long slowestBlocking() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : blocking) {
+            slowest = Math.min(slowest, subscription.getNextSequence());
+        }
+        return slowest;
+    }
+
+    private void wakeSubscribers() {
+        for (Subscription subscription : subscriptions) {
+            subscription.wake();
+        }
+    }
+
+    private static Subscription[] append(final Subscription[] subscriptions, final Subscription subscription) {
+        final Subscription[] appended = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        appended[subscriptions.length] = subscription;
+        return appended;
+    }
+
+    private static Subscription[] without(final Subscription[] subscriptions, final Subscription subscription) {
+        return Arrays.stream(subscriptions).filter(s -> s != subscription).toArray(Subscription[]::new);
+    }
+}
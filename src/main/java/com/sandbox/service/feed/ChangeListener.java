@@ -0,0 +1,23 @@
+package com.sandbox.service.feed;
+
+import java.util.List;
+
+/**
+ * Receives the events of a {@link ChangeFeed} subscription, in order and on the subscription's own thread.
+ */
+@FunctionalInterface
+public interface ChangeListener {
+    /**
+     * @param events next events in the feed, at least one and at most the subscription's batch size
+     */
+    void onEvents(List<ChangeEvent> events);
+
+    /**
+     * Called before the next batch when a {@link SlowConsumerPolicy#DROP} or {@link SlowConsumerPolicy#LAG} subscriber
+     * fell so far behind that events were overwritten before it read them.
+     *
+     * @param count number of events skipped
+     */
+    default void onMissed(long count) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.sandbox.service.feed;
+
+/**
+ * What a {@link ChangeFeed} does when a subscriber falls a whole ring buffer behind the registrations.
+ */
+public enum SlowConsumerPolicy {
+    /**
+     * Registrations wait until the subscriber has read the event they would overwrite. The subscriber never misses an
+     * event, at the cost of slowing down every writer to its pace.
+     */
+    BLOCK,
+    /**
+     * The subscriber skips everything it has not read and carries on with the newest events. Suits consumers that only
+     * care about the current state, such as live views.
+     */
+    DROP,
+    /**
+     * The subscriber skips only the events that were overwritten and carries on with the oldest event still in the
+     * ring buffer, so that it misses as little as possible.
+     */
+    LAG
+}
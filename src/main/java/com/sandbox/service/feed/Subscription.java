@@ -0,0 +1,197 @@
+package com.sandbox.service.feed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Subscription to a {@link ChangeFeed}, delivering its events to a {@link ChangeListener} on a dedicated thread.
+ * <p>
+ * The subscription reads the feed's ring buffer from its own cursor. Whatever has been published past the cursor is
+ * passed to the listener at once, up to the batch size, so that a listener that falls behind catches up in larger
+ * batches. The thread parks while there has been nothing to read for a while and is woken by the next registration.
+ */
+public final class Subscription implements AutoCloseable {
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+
+    private final ChangeFeed feed;
+    private final ChangeListener listener;
+    private final SlowConsumerPolicy policy;
+    private final int maxBatchSize;
+    private final Thread thread;
+    // Written only by the subscription's thread once started.
+    private volatile long next;
+    private volatile long delivered;
+    private volatile long missed;
+    private volatile boolean parked;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    Subscription(final ChangeFeed feed, final ChangeListener listener, final SlowConsumerPolicy policy,
+                 final int maxBatchSize, final long next) {
+        this.feed = feed;
+        this.listener = listener;
+        this.policy = policy;
+        this.maxBatchSize = maxBatchSize;
+        this.next = next;
+        this.thread = new Thread(this::deliver, "change-feed-subscriber");
+        this.thread.setDaemon(true);
+    }
+
+    void start(final long sequence) {
+        next = sequence;
+        thread.start();
+    }
+
+    public SlowConsumerPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return sequence of the next event to deliver
+     */
+    public long getNextSequence() {
+        return next;
+    }
+
+    /**
+     * @return number of events passed to the listener
+     */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * @return number of events skipped because they were overwritten before the subscriber read them
+     */
+    public long getMissedCount() {
+        return missed;
+    }
+
+    /**
+     * @return number of events published or being published that the subscriber has yet to read
+     */
+    public long getLag() {
+        return Math.max(0, feed.getSequence() - next);
+    }
+
+    /**
+     * @return exception thrown by the listener, which closed the subscription, or {@code null}
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops delivering events, waiting for a batch the listener is handling unless called by the listener itself.
+     * Registrations no longer wait for the subscriber.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        feed.remove(this);
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void wake() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void deliver() {
+        int idle = 0;
+        while (!closed) {
+            final ChangeEvent event = feed.get(next);
+            if (event == null || event.getSequence() < next) {
+                this.await(idle++);
+                continue;
+            }
+            idle = 0;
+            try {
+                if (event.getSequence() > next) {
+                    this.skip();
+                } else {
+                    this.deliverBatch();
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+                this.close();
+            }
+        }
+    }
+
+    private void deliverBatch() {
+        final List<ChangeEvent> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+        long sequence = next;
+        while (batch.size() < maxBatchSize) {
+            final ChangeEvent event = feed.get(sequence);
+            if (event == null || event.getSequence() != sequence) {
+                break;
+            }
+            batch.add(event);
+            sequence++;
+        }
+        // The events are read, so blocked registrations can go ahead while the listener handles them.
+        next = sequence;
+        listener.onEvents(Collections.unmodifiableList(batch));
+        delivered += batch.size();
+    }
+
+    /**
+     * Moves the cursor past events that were overwritten, to the newest event or the oldest one left.
+     */
+    private void skip() {
+        final long newest = feed.getSequence();
+        final long resume = policy == SlowConsumerPolicy.DROP ? newest : newest - feed.getCapacity();
+        final long skipped = resume - next;
+        next = resume;
+        missed += skipped;
+        listener.onMissed(skipped);
+    }
+
+    /**
+     * Waits for the next event, spinning and then yielding before parking, so that a steady stream of registrations
+     * seldom has to wake the subscriber.
+     */
+    private void await(final int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+            return;
+        }
+        if (idle < SPINS + YIELDS) {
+            Thread.yield();
+            return;
+        }
+        parked = true;
+        // Checked again after parked is set, as a registration publishing in between may not have seen it.
+        final ChangeEvent event = feed.get(next);
+        if (!closed && (event == null || event.getSequence() < next)) {
+            LockSupport.park(this);
+        }
+        parked = false;
+    }
+}
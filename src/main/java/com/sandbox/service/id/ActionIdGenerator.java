@@ -0,0 +1,22 @@
+package com.sandbox.service.id;
+
+import java.util.UUID;
+
+/**
+ * Strategy for the IDs of registered {@code Action}s. Implementations must be thread-safe.
+ * <p>
+ * A registration fails with an {@link IllegalStateException} if the generated ID is already in use, so
+ * implementations should never return the same ID twice.
+ */
+@FunctionalInterface
+public interface ActionIdGenerator {
+    UUID next();
+
+    /**
+     * @return generator of random version 4 UUIDs, which are unique with overwhelming probability but contend on a
+     * shared {@code SecureRandom}
+     */
+    static ActionIdGenerator random() {
+        return UUID::randomUUID;
+    }
+}
@@ -0,0 +1,107 @@
+package com.sandbox.service.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs: a millisecond timestamp followed by a sequence number, so that IDs sort by the time
+ * they were generated.
+ * <p>
+ * The sequence numbers are handed out to threads in blocks, and each thread keeps its own block and latest timestamp.
+ * IDs from one generator are therefore unique without any coordination between threads, and the IDs generated by a
+ * thread are strictly increasing, even if the clock goes back. IDs from different generators are told apart by a
+ * random node number per generator.
+ * <p>
+ * The 48-bit timestamp is followed by the version, the upper 12 bits of the sequence number, the variant, the 22-bit
+ * node number and the lower 40 bits of the sequence number.
+ */
+public final class TimeOrderedIdGenerator implements ActionIdGenerator {
+    private static final int BLOCK_SIZE = 1024;
+    private static final long SEQUENCE_LIMIT = 1L << 52;
+    private static final long LOWER_SEQUENCE_MASK = (1L << 40) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final int NODE_BITS = 22;
+
+    private final Clock clock;
+    private final long node;
+    private final AtomicLong nextBlock = new AtomicLong();
+    private final ThreadLocal<ThreadState> threadStates = ThreadLocal.withInitial(ThreadState::new);
+
+    public TimeOrderedIdGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param clock clock to take the timestamps from
+     */
+    public TimeOrderedIdGenerator(final Clock clock) {
+        this(clock, ThreadLocalRandom.current().nextLong(1L << NODE_BITS));
+    }
+
+    /**
+     * @param clock clock to take the timestamps from
+     * @param node  node number put in every ID, below 2^22, which must differ from that of other generators whose IDs
+     *              may meet
+     */
+    public TimeOrderedIdGenerator(final Clock clock, final long node) {
+        if (node < 0 || node >= 1L << NODE_BITS) {
+            throw new IllegalArgumentException("Node number must be below 2^" + NODE_BITS + ".");
+        }
+        this.clock = clock;
+        this.node = node;
+    }
+
+    /**
+     * @throws IllegalStateException if the generator has run out of sequence numbers
+     */
+    @Override
+    public UUID next() {
+        final ThreadState state = threadStates.get();
+        if (state.nextSequence == state.blockEnd) {
+            final long block = nextBlock.getAndIncrement() * BLOCK_SIZE;
+            if (block >= SEQUENCE_LIMIT) {
+                throw new IllegalStateException("Action ID sequence is exhausted.");
+            }
+            state.nextSequence = block;
+            state.blockEnd = block + BLOCK_SIZE;
+        }
+        final long sequence = state.nextSequence++;
+        state.lastMillis = Math.max(state.lastMillis, clock.millis());
+
+        return new UUID(
+                state.lastMillis << 16 | VERSION | sequence >>> 40,
+                VARIANT | node << 40 | sequence & LOWER_SEQUENCE_MASK);
+    }
+
+    /**
+     * @return millisecond at which a version 7 UUID was generated
+     * @throws IllegalArgumentException if {@code id} is not a version 7 UUID
+     */
+    public static Instant timestampOf(final UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id + ".");
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+    /**
+     * @return node number of the generator of a version 7 UUID
+     * @throws IllegalArgumentException if {@code id} is not a version 7 UUID
+     */
+    public static long nodeOf(final UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id + ".");
+        }
+        return id.getLeastSignificantBits() >>> 40 & (1L << NODE_BITS) - 1;
+    }
+
+    private static final class ThreadState {
+        private long nextSequence;
+        private long blockEnd;
+        private long lastMillis;
+    }
+}
@@ -0,0 +1,123 @@
+package com.sandbox.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a relative error of at most 1/64, in the manner of HdrHistogram.
+ * <p>
+ * Values below 128 have a bucket each. Above that, every power of two is split into 64 buckets, up to about 2^41 ns
+ * (36 minutes); larger values are counted in the last bucket. Recording is a single atomic increment, plus a
+ * compare-and-set when the value is a new maximum, and never allocates, so the histogram can stay on under load.
+ * The count and mean are computed from the buckets when read.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int MAX_SHIFT = 34;
+    private static final int BUCKETS = LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        long recorded = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            recorded += counts.get(bucket);
+        }
+        return recorded;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return mean of the recorded values, taking every value to be the middle of its bucket
+     */
+    public double getMean() {
+        long recorded = 0;
+        double total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            final long bucketCount = counts.get(bucket);
+            if (bucketCount > 0) {
+                recorded += bucketCount;
+                total += bucketCount * (lowestValue(bucket) + highestValue(bucket)) / 2.0;
+            }
+        }
+        return recorded == 0 ? 0 : total / recorded;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return highest value in the bucket holding the given percentile of the recorded values, or {@code 0} if none
+     * are recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+        final long recorded = getCount();
+        if (recorded == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears the recorded values. Values recorded concurrently may be partly cleared.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        max.set(0);
+    }
+
+    static int bucket(final long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // Shift bringing the value into [SUB_BUCKETS, 2 * SUB_BUCKETS).
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowestValue(final int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        final long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return subBucket << shift;
+    }
+
+    static long highestValue(final int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        return lowestValue(bucket) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sandbox.service.metrics;
+
+/**
+ * Number of calls of an {@link Operation}, and percentiles of the latencies recorded for it in nanoseconds.
+ */
+public final class LatencySummary {
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    LatencySummary(final long count, final LatencyHistogram histogram) {
+        this.count = count;
+        this.mean = histogram.getMean();
+        this.p50 = histogram.getValueAtPercentile(50);
+        this.p90 = histogram.getValueAtPercentile(90);
+        this.p99 = histogram.getValueAtPercentile(99);
+        this.p999 = histogram.getValueAtPercentile(99.9);
+        this.max = histogram.getMax();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                count, mean, p50, p90, p99, p999, max);
+    }
+}
@@ -0,0 +1,49 @@
+package com.sandbox.service.metrics;
+
+/**
+ * Public {@code ItemActionService} methods that have their latency recorded. Overloads share an operation.
+ */
+public enum Operation {
+    REGISTER_ITEM(false),
+    REGISTER_ACTION_ON_ITEM(false),
+    REGISTER_ACTIONS(false),
+    GET_ITEM_BY_ID(true),
+    GET_ACTION_BY_ID(true),
+    GET_ACTION_ON_ITEM_BY_ACTION_ID(true),
+    GET_ACTIONS_ON_ITEM(true),
+    GET_TOTAL_ACTION_COST_OF_ITEM(true),
+    GET_ALL_ITEMS(false),
+    GET_ALL_ACTIONS(false),
+    GET_ITEM_IDS_OF_TYPE(false),
+    GET_ITEMS_OF_PARENT_CLASS(false),
+    GET_ACTIONS_ON_ITEM_TYPE_SORTED_BY_PERFORMED_DATE(false),
+    GET_ACTIONS_ON_ITEM_TYPE_BETWEEN(false),
+    GET_ITEM_IDS_WITH_TOTAL_ACTION_COST(false),
+    GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE(false),
+    GET_ITEMS_WITH_HIGHEST_TOTAL_ACTION_COST_BY_ITEM_TYPE(false),
+    GET_TOP_ITEMS_BY_TOTAL_ACTION_COST(false),
+    GET_ACTION_COST_OF_ITEM_BETWEEN(true),
+    GET_ACTION_COST_OF_ITEM_TYPE_BETWEEN(false),
+    AGGREGATE_ACTION_COSTS(false),
+    GET_ITEMS_PARTITIONED_BY_CLASS(false),
+    GET_ACTION_SUMMARIES_OF_ITEM(true),
+    GET_ACTIONS_BY_DESCRIPTION(false),
+    GET_SOLIDS_BETWEEN(false),
+    GET_SOLIDS_OF_COLOR(false),
+    COMPACT_ACTIONS_BEFORE(false),
+    IMPORT_FROM(false),
+    EXPORT_TO(false);
+
+    private final boolean lookup;
+
+    Operation(final boolean lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * @return whether the operation looks up an item or action by ID
+     */
+    public boolean isLookup() {
+        return lookup;
+    }
+}
@@ -0,0 +1,307 @@
+package com.sandbox.service.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Latencies, counters and gauges of an {@code ItemActionService}.
+ * <p>
+ * Recording never allocates: latencies go to a preallocated {@link LatencyHistogram} per {@link Operation} and
+ * counters are {@code LongAdder}s. Every call of an operation is counted, but only one in
+ * {@link #LOOKUP_SAMPLE_PERIOD} lookups is timed, as reading the clock twice takes longer than most lookups. Gauges are
+ * read from the service, when asked for.
+ * <p>
+ * Disabled metrics record nothing, and their counters and latencies stay empty.
+ */
+public final class ServiceMetrics implements ServiceMetricsMXBean {
+    /**
+     * Lookups are timed once in this many calls.
+     */
+    public static final int LOOKUP_SAMPLE_PERIOD = 64;
+    // Start of a call whose latency is not recorded.
+    private static final long UNTIMED = Long.MIN_VALUE;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> calls = new EnumMap<>(Operation.class);
+    private final boolean enabled;
+    private final LongAdder itemRegistrations = new LongAdder();
+    private final LongAdder actionRegistrations = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder idCollisions = new LongAdder();
+    private final LongAdder compactedActions = new LongAdder();
+    private final LongAdder failedCompactions = new LongAdder();
+    private final LongAdder queryCacheHits = new LongAdder();
+    private final LongAdder queryCacheMisses = new LongAdder();
+    private final LongAdder queryCacheEvictions = new LongAdder();
+    private final IntSupplier itemCount;
+    private final IntSupplier actionCount;
+    private final LongSupplier estimatedMemoryBytes;
+    private ObjectName registeredName;
+
+    /**
+     * @param itemCount            number of registered items
+     * @param actionCount          number of registered actions
+     * @param estimatedMemoryBytes estimate of the heap used by the service
+     */
+    public ServiceMetrics(final IntSupplier itemCount, final IntSupplier actionCount,
+                          final LongSupplier estimatedMemoryBytes) {
+        this(itemCount, actionCount, estimatedMemoryBytes, true);
+    }
+
+    /**
+     * @param enabled whether anything is recorded; the gauges are read from the service either way
+     */
+    public ServiceMetrics(final IntSupplier itemCount, final IntSupplier actionCount,
+                          final LongSupplier estimatedMemoryBytes, final boolean enabled) {
+        this.itemCount = itemCount;
+        this.actionCount = actionCount;
+        this.estimatedMemoryBytes = estimatedMemoryBytes;
+        this.enabled = enabled;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            calls.put(operation, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts a call of {@code operation} that is starting.
+     *
+     * @return start of the call, to pass to {@link #stop(Operation, long)} when it returns
+     */
+    public long start(final Operation operation) {
+        if (!enabled) {
+            return UNTIMED;
+        }
+        calls.get(operation).increment();
+        if (operation.isLookup() && ThreadLocalRandom.current().nextInt(LOOKUP_SAMPLE_PERIOD) != 0) {
+            return UNTIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the latency of a call of {@code operation}, if it is timed.
+     *
+     * @param started value returned by {@link #start(Operation)} when the call started
+     */
+    public void stop(final Operation operation, final long started) {
+        if (started != UNTIMED) {
+            this.record(operation, started);
+        }
+    }
+
+    /**
+     * Records the latency of a call of {@code operation} that started at {@code startNanos}, as given by
+     * {@link System#nanoTime()}, without counting the call.
+     */
+    public void record(final Operation operation, final long startNanos) {
+        if (enabled) {
+            latencies.get(operation).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void itemRegistered() {
+        if (enabled) {
+            itemRegistrations.increment();
+        }
+    }
+
+    public void actionRegistered() {
+        if (enabled) {
+            actionRegistrations.increment();
+        }
+    }
+
+    public void actionsRegistered(final int count) {
+        if (enabled) {
+            actionRegistrations.add(count);
+        }
+    }
+
+    public void notFound() {
+        if (enabled) {
+            notFound.increment();
+        }
+    }
+
+    public void idCollision() {
+        if (enabled) {
+            idCollisions.increment();
+        }
+    }
+
+    public void actionsCompacted(final int count) {
+        if (enabled) {
+            compactedActions.add(count);
+        }
+    }
+
+    /**
+     * Counted even with metrics turned off, as nothing else reports a failed background compaction.
+     */
+    public void compactionFailed() {
+        failedCompactions.increment();
+    }
+
+    public void queryCacheHit() {
+        if (enabled) {
+            queryCacheHits.increment();
+        }
+    }
+
+    public void queryCacheMiss() {
+        if (enabled) {
+            queryCacheMisses.increment();
+        }
+    }
+
+    public void queryCacheEvictions(final int count) {
+        if (enabled) {
+            queryCacheEvictions.add(count);
+        }
+    }
+
+    /**
+     * @return latencies of the timed calls of {@code operation}, which are a sample of them for lookups
+     */
+    public LatencyHistogram getLatency(final Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * @return number of calls of {@code operation}
+     */
+    public long getCount(final Operation operation) {
+        return calls.get(operation).sum();
+    }
+
+    @Override
+    public long getItemRegistrations() {
+        return itemRegistrations.sum();
+    }
+
+    @Override
+    public long getActionRegistrations() {
+        return actionRegistrations.sum();
+    }
+
+    @Override
+    public long getLookups() {
+        long lookups = 0;
+        for (Map.Entry<Operation, LongAdder> operationCalls : calls.entrySet()) {
+            if (operationCalls.getKey().isLookup()) {
+                lookups += operationCalls.getValue().sum();
+            }
+        }
+        return lookups;
+    }
+
+    @Override
+    public long getNotFound() {
+        return notFound.sum();
+    }
+
+    @Override
+    public long getIdCollisions() {
+        return idCollisions.sum();
+    }
+
+    @Override
+    public long getCompactedActions() {
+        return compactedActions.sum();
+    }
+
+    @Override
+    public long getFailedCompactions() {
+        return failedCompactions.sum();
+    }
+
+    @Override
+    public long getQueryCacheHits() {
+        return queryCacheHits.sum();
+    }
+
+    @Override
+    public long getQueryCacheMisses() {
+        return queryCacheMisses.sum();
+    }
+
+    @Override
+    public long getQueryCacheEvictions() {
+        return queryCacheEvictions.sum();
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemCount.getAsInt();
+    }
+
+    @Override
+    public int getActionCount() {
+        return actionCount.getAsInt();
+    }
+
+    @Override
+    public long getEstimatedMemoryBytes() {
+        return estimatedMemoryBytes.getAsLong();
+    }
+
+    @Override
+    public Map<String, LatencySummary> getLatencies() {
+        final Map<String, LatencySummary> summaries = new TreeMap<>();
+        latencies.forEach((operation, histogram) -> {
+            final long count = calls.get(operation).sum();
+            if (count > 0) {
+                summaries.put(operation.name(), new LatencySummary(count, histogram));
+            }
+        });
+        return summaries;
+    }
+
+    @Override
+    public void resetLatencies() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        calls.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server as {@code com.sandbox:type=ItemActionService,name=<name>}.
+     *
+     * @return name the metrics are published under
+     */
+    public synchronized ObjectName registerMBean(final String name) throws JMException {
+        if (registeredName != null) {
+            throw new IllegalStateException("Metrics are already published as " + registeredName + ".");
+        }
+        final ObjectName objectName = new ObjectName("com.sandbox:type=ItemActionService,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were published.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (registeredName != null) {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredName)) {
+                server.unregisterMBean(registeredName);
+            }
+            registeredName = null;
+        }
+    }
+}
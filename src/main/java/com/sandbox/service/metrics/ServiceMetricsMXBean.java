@@ -0,0 +1,72 @@
+package com.sandbox.service.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ServiceMetrics}, published over JMX.
+ */
+public interface ServiceMetricsMXBean {
+    long getItemRegistrations();
+
+    long getActionRegistrations();
+
+    /**
+     * @return number of lookups of an item or action by ID
+     */
+    long getLookups();
+
+    /**
+     * @return number of calls that failed because the item or action was not found
+     */
+    long getNotFound();
+
+    /**
+     * @return number of registrations that failed because the item ID or generated action ID was already in use
+     */
+    long getIdCollisions();
+
+    /**
+     * @return number of actions compacted out of memory into summaries
+     */
+    long getCompactedActions();
+
+    /**
+     * @return number of compactions on a retention policy that failed, each retried at the next interval
+     */
+    long getFailedCompactions();
+
+    /**
+     * @return number of query results served from the query cache
+     */
+    long getQueryCacheHits();
+
+    /**
+     * @return number of query results computed because the query cache had none or only an outdated one
+     */
+    long getQueryCacheMisses();
+
+    /**
+     * @return number of query results evicted from the query cache to keep it within its capacity
+     */
+    long getQueryCacheEvictions();
+
+    int getItemCount();
+
+    int getActionCount();
+
+    /**
+     * @return estimate of the heap used by the items, actions and indexes, in bytes
+     */
+    long getEstimatedMemoryBytes();
+
+    /**
+     * @return number of calls and latency percentiles by {@link Operation} name, for the operations that have been
+     * called; the percentiles of lookups are those of a sample of the calls
+     */
+    Map<String, LatencySummary> getLatencies();
+
+    /**
+     * Clears the latencies and the numbers of calls, and with them the number of lookups.
+     */
+    void resetLatencies();
+}
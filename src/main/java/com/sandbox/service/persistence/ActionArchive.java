@@ -0,0 +1,135 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of actions evicted from memory.
+ * <p>
+ * The file is a header with the format version followed by records of an action's encoded length and its
+ * {@link BinaryCodec} encoding. Every append is forced to disk before it returns.
+ */
+public final class ActionArchive {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x49414152;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private ActionArchive() {
+    }
+
+    /**
+     * Appends {@code actions} to {@code file}, creating it if it does not exist.
+     */
+    public static void append(final Path file, final Iterable<Action> actions) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+            } else {
+                checkHeader(channel, file);
+            }
+
+            long position = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            for (Action action : actions) {
+                final int start = buffer.position();
+                try {
+                    writeRecord(buffer, action);
+                } catch (BufferOverflowException e) {
+                    position += writeFully(channel, buffer.position(start).flip(), position);
+                    buffer.clear();
+                    while (true) {
+                        try {
+                            writeRecord(buffer, action);
+                            break;
+                        } catch (BufferOverflowException tooLarge) {
+                            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                        }
+                    }
+                }
+            }
+            writeFully(channel, buffer.flip(), position);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the actions in {@code file} in the order they were archived, through a buffer of a fixed size so that
+     * archives of any size are read in bounded memory.
+     *
+     * @throws IOException if the file is not an archive or its last record is incomplete
+     */
+    public static void read(final Path file, final Consumer<? super Action> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            checkHeader(channel, file);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = HEADER_SIZE;
+            int read;
+            while ((read = channel.read(buffer, position)) >= 0) {
+                position += read;
+                buffer.flip();
+                while (buffer.remaining() >= Integer.BYTES) {
+                    final int length = buffer.getInt(buffer.position());
+                    if (length < 0) {
+                        throw new IOException("Corrupt record at offset " + (position - buffer.remaining()) + " of "
+                                + file + ".");
+                    } else if (length > buffer.remaining() - Integer.BYTES) {
+                        break;
+                    }
+                    final int start = buffer.position() + Integer.BYTES;
+                    consumer.accept(BinaryCodec.readAction(buffer.slice(start, length)));
+                    buffer.position(start + length);
+                }
+                if (buffer.remaining() >= Integer.BYTES
+                        && buffer.getInt(buffer.position()) > buffer.capacity() - Integer.BYTES) {
+                    // A record larger than the buffer gets a buffer of its own.
+                    buffer = ByteBuffer.allocate(buffer.getInt(buffer.position()) + Integer.BYTES).put(buffer);
+                } else {
+                    buffer.compact();
+                }
+            }
+            if (buffer.position() > 0) {
+                throw new IOException("Incomplete record at the end of " + file + ".");
+            }
+        }
+    }
+
+    private static void writeRecord(final ByteBuffer buffer, final Action action) {
+        final int start = buffer.position();
+        buffer.putInt(0);
+        BinaryCodec.writeAction(buffer, action);
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    private static void checkHeader(final FileChannel channel, final Path file) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException(file + " is not an action archive of version " + VERSION + ".");
+        }
+    }
+
+    private static int writeFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        final int length = buffer.remaining();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return length;
+    }
+}
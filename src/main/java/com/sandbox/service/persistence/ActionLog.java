@@ -0,0 +1,400 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of item and action registrations, written to memory-mapped segment files of a fixed size.
+ * <p>
+ * Each record is its payload length, a CRC32C of the payload and the payload itself. A zero length marks the end of
+ * the records in a segment. Appends only copy the record into the mapped segment; forcing it to disk is left to
+ * the OS or to a background flusher, depending on the {@link Durability}.
+ * <p>
+ * The log must be {@link #replay(Consumer, Consumer) replayed} once before anything is appended to it.
+ */
+public final class ActionLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final byte ITEM = 1;
+    private static final byte ACTION = 2;
+
+    private final Path directory;
+    private final Durability durability;
+    private final int segmentSize;
+    private final long flushIntervalMillis;
+    private final ThreadLocal<ByteBuffer> recordBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+    private final ThreadLocal<CRC32C> checksums = ThreadLocal.withInitial(CRC32C::new);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushNeeded = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+
+    // Guarded by this.
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private boolean closed;
+
+    private volatile long writtenPosition;
+    // Guarded by flushLock.
+    private long durablePosition;
+    private Thread flusher;
+
+    private ActionLog(final Path directory, final Durability durability, final int segmentSize, final Duration flushInterval) {
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+    }
+
+    public static ActionLog open(final Path directory, final Durability durability) throws IOException {
+        return open(directory, durability, DEFAULT_SEGMENT_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param directory     directory holding the segment files, created if missing
+     * @param durability    when appended records are forced to disk
+     * @param segmentSize   size of each segment file in bytes, which bounds the size of a record
+     * @param flushInterval interval between forces with {@link Durability#ASYNC}
+     */
+    public static ActionLog open(final Path directory, final Durability durability, final int segmentSize,
+                                 final Duration flushInterval) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1024 bytes.");
+        }
+        Files.createDirectories(directory);
+        return new ActionLog(directory, durability, segmentSize, flushInterval);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * @return log position after the last appended record
+     */
+    public long getWrittenPosition() {
+        return writtenPosition;
+    }
+
+    /**
+     * Reads every record in the log, in the order they were appended, and opens the log for appending after the last
+     * one. A torn record at the end of the last segment is discarded.
+     *
+     * @throws IOException if a record before the last segment is corrupt
+     */
+    public synchronized void replay(final Consumer<Item> items, final Consumer<Action> actions) throws IOException {
+        if (segment != null) {
+            throw new IllegalStateException("Action log has already been replayed.");
+        }
+
+        final List<Path> segments = segmentFiles();
+        for (int i = 0; i < segments.size(); i++) {
+            final boolean isLast = i == segments.size() - 1;
+            try (FileChannel segmentChannel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                final ByteBuffer records = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+                final int end = replaySegment(records, items, actions);
+                if (end < 0 && !isLast) {
+                    throw new IOException("Corrupt record in " + segments.get(i) + " at offset " + ~end + ".");
+                }
+                if (isLast) {
+                    segmentIndex = segmentIndex(segments.get(i));
+                    map(segmentIndex);
+                    if (end < 0) {
+                        // Clear the torn record so that it can't be mistaken for a record once overwritten.
+                        segment.position(~end);
+                        while (segment.hasRemaining()) {
+                            segment.put((byte) 0);
+                        }
+                    }
+                    segment.position(end < 0 ? ~end : end);
+                }
+            }
+        }
+        if (segment == null) {
+            map(segmentIndex);
+        }
+
+        writtenPosition = position();
+        durablePosition = writtenPosition;
+        if (durability != Durability.NONE) {
+            flusher = new Thread(this::flushLoop, "action-log-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * @return log position after the appended record, to pass on to {@link #awaitDurable(long)}
+     */
+    public long append(final Item item) {
+        return append(ITEM, buffer -> BinaryCodec.writeItem(buffer, item));
+    }
+
+    /**
+     * @return log position after the appended record, to pass on to {@link #awaitDurable(long)}
+     */
+    public long append(final Action action) {
+        return append(ACTION, buffer -> BinaryCodec.writeAction(buffer, action));
+    }
+
+    /**
+     * Waits until every record up to {@code position} has been forced to disk, if the durability requires it.
+     */
+    public void awaitDurable(final long position) {
+        if (durability != Durability.SYNC) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            if (durablePosition < position) {
+                flushNeeded.signal();
+            }
+            while (durablePosition < position) {
+                if (flusher == null) {
+                    throw new IllegalStateException("Action log is closed.");
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments holding only records before {@code position}, once they are covered by a {@link Snapshot}.
+     * The segment being appended to is never deleted.
+     */
+    public synchronized void deleteSegmentsBefore(final long position) throws IOException {
+        final long firstKept = Math.min(position / segmentSize, segmentIndex);
+        for (Path segmentFile : segmentFiles()) {
+            if (segmentIndex(segmentFile) < firstKept) {
+                Files.deleteIfExists(segmentFile);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (segment != null) {
+                segment.force();
+                channel.close();
+            }
+        }
+
+        final Thread stoppedFlusher;
+        flushLock.lock();
+        try {
+            durablePosition = writtenPosition;
+            stoppedFlusher = flusher;
+            flusher = null;
+            flushNeeded.signal();
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        if (stoppedFlusher != null) {
+            try {
+                stoppedFlusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long append(final byte type, final Consumer<ByteBuffer> writer) {
+        final ByteBuffer record = encode(type, writer);
+        if (record.remaining() + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Record of " + record.remaining() + " bytes does not fit in a segment.");
+        }
+
+        synchronized (this) {
+            if (segment == null || closed) {
+                throw new IllegalStateException(closed ? "Action log is closed." : "Action log has not been replayed.");
+            }
+            // Keep room for the zero length marking the end of the segment.
+            if (segment.remaining() < record.remaining() + Integer.BYTES) {
+                roll();
+            }
+            segment.put(record);
+            final long position = position();
+            writtenPosition = position;
+            return position;
+        }
+    }
+
+    private ByteBuffer encode(final byte type, final Consumer<ByteBuffer> writer) {
+        ByteBuffer buffer = recordBuffers.get();
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.position(HEADER_SIZE);
+                buffer.put(type);
+                writer.accept(buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                recordBuffers.set(buffer);
+            }
+        }
+
+        final int length = buffer.position() - HEADER_SIZE;
+        final CRC32C checksum = checksums.get();
+        checksum.reset();
+        checksum.update(buffer.array(), HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) checksum.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return offset after the last valid record, or its bitwise complement if a corrupt record follows it
+     */
+    private int replaySegment(final ByteBuffer records, final Consumer<Item> items, final Consumer<Action> actions) {
+        final CRC32C checksum = new CRC32C();
+        while (records.remaining() >= HEADER_SIZE) {
+            final int start = records.position();
+            final int length = records.getInt();
+            if (length == 0) {
+                return start;
+            }
+            final int expectedChecksum = records.getInt();
+            if (length < 0 || length > records.remaining()) {
+                return ~start;
+            }
+            final ByteBuffer payload = records.slice();
+            payload.limit(length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum) {
+                return ~start;
+            }
+
+            final byte type = payload.get();
+            if (type == ITEM) {
+                items.accept(BinaryCodec.readItem(payload));
+            } else if (type == ACTION) {
+                actions.accept(BinaryCodec.readAction(payload));
+            } else {
+                return ~start;
+            }
+            records.position(start + HEADER_SIZE + length);
+        }
+        return records.position();
+    }
+
+    private void roll() {
+        if (durability != Durability.NONE) {
+            segment.force();
+        }
+        try {
+            channel.close();
+            map(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(final long index) throws IOException {
+        channel = FileChannel.open(directory.resolve(String.format("segment-%010d.log", index)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentIndex = index;
+    }
+
+    private long position() {
+        return segmentIndex * segmentSize + segment.position();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            flushLock.lock();
+            try {
+                if (durability == Durability.SYNC) {
+                    while (flusher != null && durablePosition >= writtenPosition) {
+                        flushNeeded.await();
+                    }
+                } else {
+                    flushNeeded.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                if (flusher == null) {
+                    return;
+                } else if (durablePosition >= writtenPosition) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+            flush();
+        }
+    }
+
+    private void flush() {
+        final MappedByteBuffer current;
+        final long position;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            current = segment;
+            position = writtenPosition;
+        }
+        // Segments are forced when rolled, so forcing the current one makes everything up to position durable.
+        current.force();
+        flushLock.lock();
+        try {
+            if (position > durablePosition) {
+                durablePosition = position;
+            }
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().matches("segment-\\d{10}\\.log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long segmentIndex(final Path segmentFile) {
+        final String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@code Item}s and {@code Action}s shared by the persistence formats.
+ * Strings are written as their UTF-8 length followed by the bytes, with length {@code -1} for {@code null}.
+ */
+public final class BinaryCodec {
+    private static final byte BALL = 1;
+    private static final byte BOX = 2;
+    private static final byte DOG = 3;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the class of {@code item} has no encoding
+     * @throws java.nio.BufferOverflowException if {@code buffer} is too small
+     */
+    public static void writeItem(final ByteBuffer buffer, final Item item) {
+        if (item.getClass() == Ball.class) {
+            final Ball ball = (Ball) item;
+            buffer.put(BALL);
+            writeString(buffer, ball.getId());
+            writeString(buffer, ball.getColor());
+            buffer.putDouble(ball.getRadius());
+        } else if (item.getClass() == Box.class) {
+            final Box box = (Box) item;
+            buffer.put(BOX);
+            writeString(buffer, box.getId());
+            writeString(buffer, box.getColor());
+            buffer.putDouble(box.getHeight());
+            buffer.putDouble(box.getDepth());
+            buffer.putDouble(box.getWidth());
+        } else if (item.getClass() == Dog.class) {
+            buffer.put(DOG);
+            writeString(buffer, item.getId());
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + item.getClass().getName() + ".");
+        }
+    }
+
+    public static Item readItem(final ByteBuffer buffer) {
+        final byte type = buffer.get();
+        return switch (type) {
+            case BALL -> new Ball(readString(buffer), readString(buffer), buffer.getDouble());
+            case BOX -> new Box(readString(buffer), readString(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            case DOG -> new Dog(readString(buffer));
+            default -> throw new IllegalArgumentException("Unknown item type " + type + ".");
+        };
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException if {@code buffer} is too small
+     */
+    public static void writeAction(final ByteBuffer buffer, final Action action) {
+        buffer.putLong(action.getId().getMostSignificantBits());
+        buffer.putLong(action.getId().getLeastSignificantBits());
+        writeString(buffer, action.getItemId());
+        writeString(buffer, action.getDescription());
+        if (action.getCost() == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1);
+            buffer.putInt(action.getCost());
+        }
+        buffer.putLong(action.getPerformedDateTime().getEpochSecond());
+        buffer.putInt(action.getPerformedDateTime().getNano());
+    }
+
+    public static Action readAction(final ByteBuffer buffer) {
+        final UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        final String itemId = readString(buffer);
+        final String description = readString(buffer);
+        final Integer cost = buffer.get() == 0 ? null : buffer.getInt();
+        final Instant performedDateTime = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+
+        return new Action(id, itemId, description, cost, performedDateTime);
+    }
+
+    static void writeString(final ByteBuffer buffer, final String string) {
+        if (string == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+}
@@ -0,0 +1,22 @@
+package com.sandbox.service.persistence;
+
+/**
+ * How far a registration must have reached before {@code ItemActionService} returns.
+ */
+public enum Durability {
+    /**
+     * Records are written to the memory-mapped log and the OS decides when they reach the disk.
+     * Survives a crash of the process, but not of the machine.
+     */
+    NONE,
+    /**
+     * A background thread forces the log to disk at a fixed interval.
+     * A crash of the machine loses at most the records written during the last interval.
+     */
+    ASYNC,
+    /**
+     * Registrations return once their record has been forced to disk.
+     * Registrations waiting at the same time share a single force.
+     */
+    SYNC
+}
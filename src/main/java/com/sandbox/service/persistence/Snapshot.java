@@ -0,0 +1,391 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Copy of the items and actions of a service in a single file.
+ * <p>
+ * The file is a header with the format version, sections of encoded items or actions, and a table of the sections'
+ * offsets, lengths and checksums followed by its own offset. The sections are independent of each other, so they
+ * can be decoded in parallel. Item sections always precede action sections.
+ * <p>
+ * An action section starts with a table of the item IDs and descriptions used in it, and its actions refer to
+ * them by index, so that each distinct string is stored and decoded once per section.
+ */
+public final class Snapshot {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x49415353;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int SECTION_ENTRY_SIZE = 1 + Long.BYTES + Integer.BYTES * 3;
+    private static final int RECORDS_PER_SECTION = 1 << 16;
+    private static final byte ITEMS = 1;
+    private static final byte ACTIONS = 2;
+
+    private Snapshot() {
+    }
+
+    /**
+     * @return file of the snapshot taken at {@code logPosition} of the {@link ActionLog} in {@code directory}
+     */
+    public static Path file(final Path directory, final long logPosition) {
+        return directory.resolve(String.format("snapshot-%020d.snap", logPosition));
+    }
+
+    /**
+     * @return file of the snapshot in {@code directory} taken at the latest log position, or {@code null} if there
+     * is none
+     */
+    public static Path latest(final Path directory) throws IOException {
+        final List<Path> snapshots = snapshotFiles(directory);
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    /**
+     * Deletes the snapshots in {@code directory} taken before {@code snapshot}.
+     */
+    public static void deleteOlder(final Path directory, final Path snapshot) throws IOException {
+        for (Path file : snapshotFiles(directory)) {
+            if (file.getFileName().toString().compareTo(snapshot.getFileName().toString()) < 0) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it to disk and moves it to {@code file}.
+     * Reading the items and actions takes no locks, so they may change while the snapshot is written.
+     *
+     * @param logPosition position of the {@link ActionLog} the snapshot is taken at, or {@code -1} without a log
+     * @param items       items to write
+     * @param rows        number of action rows to write
+     * @param actions     action of each row, or {@code null} for an empty row
+     */
+    public static void write(final Path file, final long logPosition, final Iterable<Item> items, final int rows,
+                             final IntFunction<Action> actions) throws IOException {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(logPosition).flip();
+            writeFully(channel, header);
+
+            final SectionWriter sections = new SectionWriter(channel);
+            for (Item item : items) {
+                sections.add(ITEMS, buffer -> BinaryCodec.writeItem(buffer, item));
+            }
+            for (int row = 0; row < rows; row++) {
+                final Action action = actions.apply(row);
+                if (action != null) {
+                    sections.add(ACTIONS, buffer -> sections.writeAction(buffer, action));
+                }
+            }
+            sections.finish();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Decodes the sections of a snapshot on up to {@code parallelism} threads and passes the items, then the actions,
+     * to the consumers on the calling thread in the order they were written.
+     *
+     * @return log position the snapshot was taken at, or {@code -1} if it was taken without a log
+     * @throws IOException if the file is not a snapshot of this version or a section is corrupt
+     */
+    public static long read(final Path file, final int parallelism, final Consumer<Item> items,
+                            final Consumer<Action> actions) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated.");
+            }
+            final ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a snapshot.");
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file + ".");
+            }
+            final long logPosition = header.getLong();
+
+            final ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            final long tableOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || tableOffset < HEADER_SIZE || tableOffset > size - TRAILER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated.");
+            }
+            final ByteBuffer table = readFully(channel, tableOffset, (int) (size - TRAILER_SIZE - tableOffset));
+            final List<Section> sections = new ArrayList<>();
+            for (int i = table.getInt(); i > 0; i--) {
+                sections.add(new Section(table.get(), table.getLong(), table.getInt(), table.getInt(), table.getInt()));
+            }
+
+            decode(file, channel, sections, parallelism, items, actions);
+            return logPosition;
+        }
+    }
+
+    private static void decode(final Path file, final FileChannel channel, final List<Section> sections,
+                               final int parallelism, final Consumer<Item> items, final Consumer<Action> actions)
+            throws IOException {
+        final ExecutorService decoders = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            final Thread thread = new Thread(runnable, "snapshot-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Only decode a few sections ahead of the consumers to bound the memory held by decoded records.
+            final int window = Math.max(1, parallelism) * 2;
+            final Deque<Future<Object[]>> decoded = new ArrayDeque<>();
+            int next = 0;
+            for (Section section : sections) {
+                while (next < sections.size() && decoded.size() < window) {
+                    final Section ahead = sections.get(next++);
+                    decoded.add(decoders.submit(() -> ahead.decode(file, channel)));
+                }
+                for (Object record : await(decoded.poll())) {
+                    if (section.type == ITEMS) {
+                        items.accept((Item) record);
+                    } else {
+                        actions.accept((Action) record);
+                    }
+                }
+            }
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    private static Object[] await(final Future<Object[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading snapshot.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static List<Path> snapshotFiles(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().matches("snapshot-\\d{20}\\.snap"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static final class Section {
+        private final byte type;
+        private final long offset;
+        private final int length;
+        private final int count;
+        private final int checksum;
+
+        private Section(final byte type, final long offset, final int length, final int count, final int checksum) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.checksum = checksum;
+        }
+
+        private Object[] decode(final Path file, final FileChannel channel) throws IOException {
+            final ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            final CRC32C crc = new CRC32C();
+            crc.update(records.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Corrupt section at offset " + offset + " in " + file + ".");
+            }
+
+            final Object[] decoded = new Object[count];
+            if (type == ITEMS) {
+                for (int i = 0; i < count; i++) {
+                    decoded[i] = BinaryCodec.readItem(records);
+                }
+            } else {
+                final String[] strings = new String[records.getInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = BinaryCodec.readString(records);
+                }
+                for (int i = 0; i < count; i++) {
+                    decoded[i] = readAction(records, strings);
+                }
+            }
+            return decoded;
+        }
+
+        private static Action readAction(final ByteBuffer buffer, final String[] strings) {
+            final UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            final String itemId = strings[buffer.getInt()];
+            final int description = buffer.getInt();
+            final Integer cost = buffer.get() == 0 ? null : buffer.getInt();
+            final Instant performedDateTime = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+
+            return new Action(id, itemId, description < 0 ? null : strings[description], cost, performedDateTime);
+        }
+    }
+
+    /**
+     * Buffers records of one type into a section and writes it out once it is full or the type changes.
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final List<Section> sections = new ArrayList<>();
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private byte type;
+        private int count;
+        private long offset = HEADER_SIZE;
+
+        private SectionWriter(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void add(final byte recordType, final Consumer<ByteBuffer> writer) throws IOException {
+            if (count > 0 && (recordType != type || count == RECORDS_PER_SECTION)) {
+                flush();
+            }
+            type = recordType;
+
+            final int start = buffer.position();
+            while (true) {
+                try {
+                    writer.accept(buffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    final ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                    grown.put(buffer.flip().limit(start));
+                    buffer = grown;
+                }
+            }
+            count++;
+        }
+
+        void writeAction(final ByteBuffer target, final Action action) {
+            target.putLong(action.getId().getMostSignificantBits());
+            target.putLong(action.getId().getLeastSignificantBits());
+            target.putInt(stringIndex(action.getItemId()));
+            target.putInt(action.getDescription() == null ? -1 : stringIndex(action.getDescription()));
+            if (action.getCost() == null) {
+                target.put((byte) 0);
+            } else {
+                target.put((byte) 1);
+                target.putInt(action.getCost());
+            }
+            target.putLong(action.getPerformedDateTime().getEpochSecond());
+            target.putInt(action.getPerformedDateTime().getNano());
+        }
+
+        private int stringIndex(final String string) {
+            return stringIndexes.computeIfAbsent(string, s -> {
+                strings.add(s);
+                return strings.size() - 1;
+            });
+        }
+
+        void finish() throws IOException {
+            if (count > 0) {
+                flush();
+            }
+            final ByteBuffer table = ByteBuffer.allocate(Integer.BYTES + sections.size() * SECTION_ENTRY_SIZE + TRAILER_SIZE);
+            table.putInt(sections.size());
+            for (Section section : sections) {
+                table.put(section.type)
+                        .putLong(section.offset)
+                        .putInt(section.length)
+                        .putInt(section.count)
+                        .putInt(section.checksum);
+            }
+            table.putLong(offset).putInt(MAGIC).flip();
+            writeFully(channel, table);
+        }
+
+        private void flush() throws IOException {
+            final ByteBuffer stringTable = encodeStrings();
+            buffer.flip();
+            crc.reset();
+            crc.update(stringTable.duplicate());
+            crc.update(buffer.duplicate());
+            final int length = stringTable.remaining() + buffer.remaining();
+            sections.add(new Section(type, offset, length, count, (int) crc.getValue()));
+            offset += length;
+            writeFully(channel, stringTable);
+            writeFully(channel, buffer);
+            buffer.clear();
+            count = 0;
+        }
+
+        private ByteBuffer encodeStrings() {
+            if (type != ACTIONS) {
+                return ByteBuffer.allocate(0);
+            }
+            int size = Integer.BYTES;
+            for (String string : strings) {
+                size += Integer.BYTES + string.length() * 3;
+            }
+            final ByteBuffer stringTable = ByteBuffer.allocate(size);
+            stringTable.putInt(strings.size());
+            strings.forEach(string -> BinaryCodec.writeString(stringTable, string));
+            stringIndexes.clear();
+            strings.clear();
+            return stringTable.flip();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sandbox.service.store;
+
+import com.sandbox.model.Action;
+
+import java.util.UUID;
+
+/**
+ * Storage engine for {@code Action}s. Every stored action is assigned a row, which the service's indexes
+ * refer to instead of holding on to {@code Action} objects.
+ * <p>
+ * Implementations must be thread-safe, and reads must not block writers.
+ */
+public interface ActionStore {
+    /**
+     * @param action action to store
+     * @return row of the stored action, or {@code -1} if an action with the same ID is already stored
+     */
+    int add(Action action);
+
+    /**
+     * @param actionId ID of the action
+     * @return row of the action with ID {@code actionId}, or {@code -1} if no such action is stored
+     */
+    int find(UUID actionId);
+
+    /**
+     * @param row row of the action
+     * @return the action stored in {@code row}, or {@code null} if the row holds no action
+     */
+    Action get(int row);
+
+    /**
+     * Removes the action stored in {@code row}, after which the row holds no action and its ID can't be found.
+     * Rows are never reused.
+     *
+     * @param row row of the action
+     * @return whether the row held an action
+     */
+    boolean remove(int row);
+
+    /**
+     * @return exclusive upper bound of the rows handed out so far
+     */
+    int rowCount();
+
+    /**
+     * @return number of stored actions
+     */
+    int size();
+
+    /**
+     * @return estimate of the heap used by the stored actions and the ID index, in bytes
+     */
+    long estimatedMemoryBytes();
+}
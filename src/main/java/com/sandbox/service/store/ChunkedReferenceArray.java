@@ -0,0 +1,64 @@
+package com.sandbox.service.store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Unbounded array of references that grows in fixed-size chunks, so existing elements are never copied.
+ * Elements are written and read with volatile semantics.
+ */
+public final class ChunkedReferenceArray<E> {
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile AtomicReferenceArray<E>[] chunks = new AtomicReferenceArray[0];
+
+    public E get(final int index) {
+        final AtomicReferenceArray<E>[] current = chunks;
+        final int chunk = index >>> CHUNK_SHIFT;
+        if (chunk >= current.length || current[chunk] == null) {
+            return null;
+        }
+        return current[chunk].get(index & CHUNK_MASK);
+    }
+
+    public void set(final int index, final E element) {
+        chunk(index >>> CHUNK_SHIFT).set(index & CHUNK_MASK, element);
+    }
+
+    /**
+     * @return element at {@code index}, setting it to one created by {@code factory} if there is none. Concurrent
+     * callers may both create an element, but only one is set and returned to both.
+     */
+    public E computeIfAbsent(final int index, final IntFunction<? extends E> factory) {
+        final AtomicReferenceArray<E> chunk = chunk(index >>> CHUNK_SHIFT);
+        final E existing = chunk.get(index & CHUNK_MASK);
+        if (existing != null) {
+            return existing;
+        }
+        final E created = factory.apply(index);
+        return chunk.compareAndSet(index & CHUNK_MASK, null, created) ? created : chunk.get(index & CHUNK_MASK);
+    }
+
+    private AtomicReferenceArray<E> chunk(final int chunk) {
+        final AtomicReferenceArray<E>[] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        return allocate(chunk);
+    }
+
+    private synchronized AtomicReferenceArray<E> allocate(final int chunk) {
+        AtomicReferenceArray<E>[] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        current = Arrays.copyOf(current, Math.max(current.length, chunk + 1));
+        current[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        chunks = current;
+        return current[chunk];
+    }
+}
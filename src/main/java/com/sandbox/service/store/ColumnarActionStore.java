@@ -0,0 +1,305 @@
+package com.sandbox.service.store;
+
+import com.sandbox.model.Action;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stores {@code Action}s column by column in primitive arrays and only materializes {@code Action} objects on read.
+ * <p>
+ * IDs are kept as two {@code long} columns and performed dates as epoch seconds and nanos. Item IDs and
+ * descriptions are kept as ordinals into {@link StringDictionary}s. The ID index is an open addressing table of
+ * rows, split into segments that are locked separately on insert and removal. Reads take no locks.
+ * <p>
+ * Removed rows leave a tombstone in the ID index until the table is next rebuilt, and a chunk is freed once all of
+ * its rows are removed.
+ */
+public class ColumnarActionStore implements ActionStore {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+    // Three long, four int and one byte column.
+    private static final long CHUNK_BYTES = (long) CHUNK_SIZE * (Long.BYTES * 3 + Integer.BYTES * 4 + 1);
+
+    private static final byte NULL_COST = 1;
+    private static final int NO_DESCRIPTION = -1;
+    private static final int TOMBSTONE = -1;
+
+    private final StringDictionary itemIds = new StringDictionary();
+    private final StringDictionary descriptions = new StringDictionary();
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final AtomicInteger nextRow = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    public ColumnarActionStore() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public int add(final Action action) {
+        final long msb = action.getId().getMostSignificantBits();
+        final long lsb = action.getId().getLeastSignificantBits();
+        final int hash = hash(msb, lsb);
+        final Segment segment = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+
+        final int row;
+        synchronized (segment) {
+            if (segment.find(hash, msb, lsb) >= 0) {
+                return -1;
+            }
+            row = nextRow.getAndIncrement();
+            write(row, msb, lsb, action);
+            segment.insert(hash, row);
+        }
+        size.incrementAndGet();
+        return row;
+    }
+
+    @Override
+    public int find(final UUID actionId) {
+        final long msb = actionId.getMostSignificantBits();
+        final long lsb = actionId.getLeastSignificantBits();
+        final int hash = hash(msb, lsb);
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)].find(hash, msb, lsb);
+    }
+
+    @Override
+    public Action get(final int row) {
+        final Chunk chunk = existingChunk(row);
+        if (chunk == null) {
+            return null;
+        }
+        final int offset = row & CHUNK_MASK;
+        final int item = chunk.items.get(offset);
+        if (item == 0) {
+            return null;
+        }
+        final int description = chunk.descriptions[offset];
+
+        return new Action(
+                new UUID(chunk.idMostSignificantBits[offset], chunk.idLeastSignificantBits[offset]),
+                itemIds.get(item - 1),
+                description == NO_DESCRIPTION ? null : descriptions.get(description),
+                (chunk.flags[offset] & NULL_COST) != 0 ? null : chunk.costs[offset],
+                Instant.ofEpochSecond(chunk.epochSeconds[offset], chunk.nanos[offset]));
+    }
+
+    @Override
+    public boolean remove(final int row) {
+        final Chunk chunk = existingChunk(row);
+        final int offset = row & CHUNK_MASK;
+        if (chunk == null || chunk.items.get(offset) == 0) {
+            return false;
+        }
+        final long msb = chunk.idMostSignificantBits[offset];
+        final long lsb = chunk.idLeastSignificantBits[offset];
+        final int hash = hash(msb, lsb);
+        final Segment segment = segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+
+        synchronized (segment) {
+            if (chunk.items.get(offset) == 0) {
+                return false;
+            }
+            segment.remove(hash, row);
+            chunk.items.set(offset, 0);
+        }
+        size.decrementAndGet();
+        if (chunk.removed.incrementAndGet() == CHUNK_SIZE) {
+            free(row >>> CHUNK_SHIFT);
+        }
+        return true;
+    }
+
+    @Override
+    public int rowCount() {
+        return nextRow.get();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Counts the allocated chunks and ID index tables, leaving out the dictionaries of item IDs and descriptions.
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        long bytes = Arrays.stream(chunks).filter(Objects::nonNull).count() * CHUNK_BYTES;
+        for (Segment segment : segments) {
+            bytes += (long) segment.table.length() * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    private void write(final int row, final long msb, final long lsb, final Action action) {
+        final Chunk chunk = chunk(row >>> CHUNK_SHIFT);
+        final int offset = row & CHUNK_MASK;
+
+        chunk.idMostSignificantBits[offset] = msb;
+        chunk.idLeastSignificantBits[offset] = lsb;
+        chunk.epochSeconds[offset] = action.getPerformedDateTime().getEpochSecond();
+        chunk.nanos[offset] = action.getPerformedDateTime().getNano();
+        if (action.getCost() == null) {
+            chunk.flags[offset] = NULL_COST;
+        } else {
+            chunk.costs[offset] = action.getCost();
+        }
+        chunk.descriptions[offset] = action.getDescription() == null
+                ? NO_DESCRIPTION
+                : descriptions.intern(action.getDescription());
+        // Writing the item ordinal last commits the row: readers treat rows without one as empty.
+        chunk.items.set(offset, itemIds.intern(action.getItemId()) + 1);
+    }
+
+    private Chunk existingChunk(final int row) {
+        final Chunk[] current = chunks;
+        final int chunk = row >>> CHUNK_SHIFT;
+        return row < 0 || chunk >= current.length ? null : current[chunk];
+    }
+
+    private Chunk chunk(final int chunk) {
+        final Chunk[] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        return allocate(chunk);
+    }
+
+    private synchronized Chunk allocate(final int chunk) {
+        Chunk[] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        current = Arrays.copyOf(current, Math.max(current.length, chunk + 1));
+        current[chunk] = new Chunk();
+        chunks = current;
+        return current[chunk];
+    }
+
+    private synchronized void free(final int chunk) {
+        final Chunk[] current = Arrays.copyOf(chunks, chunks.length);
+        current[chunk] = null;
+        chunks = current;
+    }
+
+    /**
+     * @return whether {@code row} holds the action with the ID, which a concurrent removal may have just freed
+     */
+    private boolean holds(final int row, final long msb, final long lsb) {
+        final Chunk chunk = existingChunk(row);
+        return chunk != null
+                && chunk.idMostSignificantBits[row & CHUNK_MASK] == msb
+                && chunk.idLeastSignificantBits[row & CHUNK_MASK] == lsb;
+    }
+
+    private long idMostSignificantBits(final int row) {
+        return existingChunk(row).idMostSignificantBits[row & CHUNK_MASK];
+    }
+
+    private long idLeastSignificantBits(final int row) {
+        return existingChunk(row).idLeastSignificantBits[row & CHUNK_MASK];
+    }
+
+    private static int hash(final long msb, final long lsb) {
+        final long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Chunk {
+        private final long[] idMostSignificantBits = new long[CHUNK_SIZE];
+        private final long[] idLeastSignificantBits = new long[CHUNK_SIZE];
+        private final long[] epochSeconds = new long[CHUNK_SIZE];
+        private final int[] nanos = new int[CHUNK_SIZE];
+        private final int[] costs = new int[CHUNK_SIZE];
+        private final int[] descriptions = new int[CHUNK_SIZE];
+        private final byte[] flags = new byte[CHUNK_SIZE];
+        // Item ordinal + 1, or 0 while the row is not committed or once it is removed.
+        private final AtomicIntegerArray items = new AtomicIntegerArray(CHUNK_SIZE);
+        private final AtomicInteger removed = new AtomicInteger();
+    }
+
+    /**
+     * Open addressing table from action ID to row + 1, or {@link #TOMBSTONE} for a removed row, using linear probing.
+     * Inserts and removals are made while holding the segment's lock, lookups read the table without locking.
+     */
+    private final class Segment {
+        private volatile AtomicIntegerArray table = new AtomicIntegerArray(INITIAL_SEGMENT_CAPACITY);
+        // Slots holding a row or a tombstone.
+        private int used;
+        private int tombstones;
+
+        int find(final int hash, final long msb, final long lsb) {
+            final AtomicIntegerArray current = table;
+            final int mask = current.length() - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                final int entry = current.get(slot);
+                if (entry == 0) {
+                    return -1;
+                }
+                if (entry != TOMBSTONE && holds(entry - 1, msb, lsb)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        void remove(final int hash, final int row) {
+            final AtomicIntegerArray current = table;
+            final int mask = current.length() - 1;
+            for (int slot = hash & mask; current.get(slot) != 0; slot = (slot + 1) & mask) {
+                if (current.get(slot) == row + 1) {
+                    current.set(slot, TOMBSTONE);
+                    tombstones++;
+                    return;
+                }
+            }
+        }
+
+        void insert(final int hash, final int row) {
+            if ((used + 1) * 2 > table.length()) {
+                resize();
+            }
+            place(table, hash, row);
+            used++;
+        }
+
+        /**
+         * Rebuilds the table without tombstones, doubling it unless most of the used slots were tombstones.
+         */
+        private void resize() {
+            final AtomicIntegerArray current = table;
+            final int live = used - tombstones;
+            final AtomicIntegerArray resized = new AtomicIntegerArray(
+                    live * 4 > current.length() ? current.length() * 2 : current.length());
+            for (int slot = 0; slot < current.length(); slot++) {
+                final int entry = current.get(slot);
+                if (entry != 0 && entry != TOMBSTONE) {
+                    final int row = entry - 1;
+                    place(resized, hash(idMostSignificantBits(row), idLeastSignificantBits(row)), row);
+                }
+            }
+            table = resized;
+            used = live;
+            tombstones = 0;
+        }
+
+        private void place(final AtomicIntegerArray target, final int hash, final int row) {
+            final int mask = target.length() - 1;
+            int slot = hash & mask;
+            while (target.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            target.set(slot, row + 1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sandbox.service.store;
+
+import com.sandbox.model.Action;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores every {@code Action} as an object, indexed by ID in a {@code ConcurrentHashMap}.
+ * Adds never take a global lock.
+ */
+public class ObjectActionStore implements ActionStore {
+    // Measured by ActionStoreTest for actions with a handful of distinct descriptions.
+    private static final int BYTES_PER_ACTION = 164;
+
+    private final ConcurrentMap<UUID, Integer> rowsById = new ConcurrentHashMap<>();
+    private final ChunkedReferenceArray<Action> rows = new ChunkedReferenceArray<>();
+    private final AtomicInteger nextRow = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public int add(final Action action) {
+        final int row = nextRow.getAndIncrement();
+        // The action is stored before it can be found by ID, so a found row always holds its action.
+        rows.set(row, action);
+        if (rowsById.putIfAbsent(action.getId(), row) != null) {
+            rows.set(row, null);
+            return -1;
+        }
+        size.incrementAndGet();
+        return row;
+    }
+
+    @Override
+    public int find(final UUID actionId) {
+        final Integer row = rowsById.get(actionId);
+        return row == null ? -1 : row;
+    }
+
+    @Override
+    public Action get(final int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public boolean remove(final int row) {
+        final Action action = rows.get(row);
+        // Removing the ID first leaves concurrent removals of the row with a single winner.
+        if (action == null || !rowsById.remove(action.getId(), row)) {
+            return false;
+        }
+        rows.set(row, null);
+        size.decrementAndGet();
+        return true;
+    }
+
+    @Override
+    public int rowCount() {
+        return nextRow.get();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long estimatedMemoryBytes() {
+        return (long) size.get() * BYTES_PER_ACTION;
+    }
+}
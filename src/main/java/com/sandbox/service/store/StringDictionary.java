@@ -0,0 +1,48 @@
+package com.sandbox.service.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns every distinct string a dense {@code int} ordinal, starting from zero.
+ */
+public class StringDictionary {
+    private final ConcurrentMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final ChunkedReferenceArray<String> strings = new ChunkedReferenceArray<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+
+    /**
+     * @return ordinal of {@code string}, assigning the next free one if it has none yet
+     */
+    public int intern(final String string) {
+        final Integer ordinal = ordinals.get(string);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        return ordinals.computeIfAbsent(string, s -> {
+            final int next = nextOrdinal.getAndIncrement();
+            strings.set(next, s);
+            return next;
+        });
+    }
+
+    /**
+     * @return ordinal of {@code string}, or {@code -1} if it has none
+     */
+    public int find(final String string) {
+        final Integer ordinal = ordinals.get(string);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * @return string with ordinal {@code ordinal}, or {@code null} if the ordinal is not assigned
+     */
+    public String get(final int ordinal) {
+        return strings.get(ordinal);
+    }
+
+    public int size() {
+        return nextOrdinal.get();
+    }
+}
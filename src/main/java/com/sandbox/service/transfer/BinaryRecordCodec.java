@@ -0,0 +1,119 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.service.persistence.BinaryCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link TransferFormat#BINARY}. Each block starts with its length and checksum, so that a reader finds the blocks
+ * without decoding them and decodes them independently of each other. Within a block, an action is tagged with a
+ * zero byte and an item starts with the type byte of {@link BinaryCodec}.
+ */
+final class BinaryRecordCodec implements RecordCodec {
+    private static final int VERSION = 1;
+    private static final int MAGIC = 0x49415846;
+    private static final int BLOCK_PREFIX_SIZE = Integer.BYTES * 2;
+    private static final byte ACTION = 0;
+
+    @Override
+    public void writeHeader(final ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void writeItem(final ByteBuffer buffer, final Item item) {
+        BinaryCodec.writeItem(buffer, item);
+    }
+
+    @Override
+    public void writeAction(final ByteBuffer buffer, final Action action) {
+        buffer.put(ACTION);
+        BinaryCodec.writeAction(buffer, action);
+    }
+
+    @Override
+    public ByteBuffer blockPrefix(final ByteBuffer records) {
+        final CRC32C crc = new CRC32C();
+        crc.update(records.duplicate());
+        return ByteBuffer.allocate(BLOCK_PREFIX_SIZE).putInt(records.remaining()).putInt((int) crc.getValue()).flip();
+    }
+
+    @Override
+    public Decoder decoder(final ByteBuffer start, final Path file) throws IOException {
+        if (start.remaining() < Integer.BYTES * 2 || start.getInt() != MAGIC) {
+            throw new IOException(file + " is not a binary export.");
+        }
+        final int version = start.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary export version " + version + " in " + file + ".");
+        }
+        return new BinaryDecoder(file);
+    }
+
+    private static final class BinaryDecoder implements Decoder {
+        private final Path file;
+
+        private BinaryDecoder(final Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public int split(final ByteBuffer buffer) {
+            int split = buffer.position();
+            while (buffer.limit() - split >= BLOCK_PREFIX_SIZE) {
+                final int length = buffer.getInt(split);
+                if (length < 0) {
+                    // Corrupt, and left for decoding to report.
+                    return buffer.limit();
+                } else if (buffer.limit() - split - BLOCK_PREFIX_SIZE < length) {
+                    break;
+                }
+                split += BLOCK_PREFIX_SIZE + length;
+            }
+            return split;
+        }
+
+        @Override
+        public void decode(final ByteBuffer records, final long offset, final List<Object> decoded)
+                throws IOException {
+            final CRC32C crc = new CRC32C();
+            final int start = records.position();
+            while (records.hasRemaining()) {
+                final long blockOffset = offset + records.position() - start;
+                if (records.remaining() < BLOCK_PREFIX_SIZE) {
+                    throw new IOException("Truncated block at offset " + blockOffset + " of " + file + ".");
+                }
+                final int length = records.getInt();
+                final int checksum = records.getInt();
+                if (length < 0 || length > records.remaining()) {
+                    throw new IOException("Truncated block at offset " + blockOffset + " of " + file + ".");
+                }
+                final ByteBuffer block = records.slice().limit(length);
+                records.position(records.position() + length);
+                crc.reset();
+                crc.update(block.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Corrupt block at offset " + blockOffset + " of " + file + ".");
+                }
+                try {
+                    while (block.hasRemaining()) {
+                        if (block.get(block.position()) == ACTION) {
+                            block.get();
+                            decoded.add(BinaryCodec.readAction(block));
+                        } else {
+                            decoded.add(BinaryCodec.readItem(block));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed block at offset " + blockOffset + " of " + file + ".", e);
+                }
+            }
+        }
+    }
+}
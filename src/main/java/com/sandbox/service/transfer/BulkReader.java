@@ -0,0 +1,156 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Reads the items and actions of a file in a {@link TransferFormat}.
+ * <p>
+ * The file is read through a {@link FileChannel} in chunks that end after the last complete record in them, and the
+ * chunks are decoded on a pool of threads while the calling thread consumes the records of earlier chunks. Only a
+ * few chunks are read ahead of the consumers, so files of any size are read in bounded memory.
+ */
+public final class BulkReader {
+    // Larger than the blocks of the binary format, so that a chunk holds at least one of them.
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    private BulkReader() {
+    }
+
+    /**
+     * Decodes the records of {@code file} on up to {@code parallelism} threads and passes the items and actions to
+     * the consumers on the calling thread in the order they are in the file. Every record before a malformed record
+     * is passed to the consumers before the exception is thrown, and records passed before a consumer throws stay
+     * consumed.
+     *
+     * @return number of items and actions read
+     * @throws IOException if the file is not in {@code format} or a record is malformed
+     */
+    public static long read(final Path file, final TransferFormat format, final int parallelism,
+                            final Consumer<Item> items, final Consumer<Action> actions) throws IOException {
+        final RecordCodec codec = format.codec();
+        final ExecutorService decoders = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            final Thread thread = new Thread(runnable, "bulk-reader-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final int window = Math.max(1, parallelism) * 2;
+            final Deque<Future<Chunk>> decoded = new ArrayDeque<>();
+            RecordCodec.Decoder decoder = null;
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            // Offset in the file of the start of the chunk.
+            long offset = 0;
+            long read = 0;
+            boolean end = false;
+            while (!end) {
+                end = !fill(channel, chunk);
+                chunk.flip();
+                if (decoder == null) {
+                    decoder = codec.decoder(chunk, file);
+                }
+                final int split = end ? chunk.limit() : decoder.split(chunk);
+                if (split == chunk.position() && !end) {
+                    // No record ends in the chunk, so it is grown to hold the next one.
+                    offset += chunk.position();
+                    chunk = ByteBuffer.allocate(chunk.capacity() * 2).put(chunk);
+                    continue;
+                }
+
+                final ByteBuffer records = chunk.slice(chunk.position(), split - chunk.position());
+                final long recordsOffset = offset + chunk.position();
+                final RecordCodec.Decoder chunkDecoder = decoder;
+                decoded.add(decoders.submit(() -> Chunk.decode(chunkDecoder, records, recordsOffset)));
+                // The chunk now belongs to its decoder, and the start of the next record moves to a new one.
+                final int rest = chunk.limit() - split;
+                chunk = ByteBuffer.allocate(Math.max(CHUNK_SIZE, rest * 2)).put(chunk.position(split));
+                offset += split;
+                while (decoded.size() >= window || (end && !decoded.isEmpty())) {
+                    read += consume(await(decoded.poll()), items, actions);
+                }
+            }
+            return read;
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    /**
+     * @return whether the chunk was filled before the end of the file
+     */
+    private static boolean fill(final FileChannel channel, final ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes the records of the chunk to the consumers, then throws if a record of the chunk is malformed.
+     */
+    private static int consume(final Chunk chunk, final Consumer<Item> items, final Consumer<Action> actions)
+            throws IOException {
+        for (Object record : chunk.records) {
+            if (record instanceof Item) {
+                items.accept((Item) record);
+            } else {
+                actions.accept((Action) record);
+            }
+        }
+        if (chunk.malformed != null) {
+            throw chunk.malformed;
+        }
+        return chunk.records.size();
+    }
+
+    private static Chunk await(final Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Records decoded from a chunk, up to the first malformed one.
+     */
+    private static final class Chunk {
+        private final List<Object> records = new ArrayList<>();
+        private IOException malformed;
+
+        static Chunk decode(final RecordCodec.Decoder decoder, final ByteBuffer records, final long offset) {
+            final Chunk chunk = new Chunk();
+            try {
+                decoder.decode(records, offset, chunk.records);
+            } catch (IOException e) {
+                chunk.malformed = e;
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Writes items and actions to a file in a {@link TransferFormat}, encoding them straight into a buffer that is
+ * written to a {@link FileChannel} whenever it fills up, so that exports of any size take the memory of one buffer.
+ */
+public final class BulkWriter {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private BulkWriter() {
+    }
+
+    /**
+     * Writes the items, then the actions, to a temporary file and moves it to {@code file}.
+     * Reading the items and actions takes no locks, so they may change while the file is written.
+     *
+     * @param items   items to write
+     * @param rows    number of action rows to write
+     * @param actions action of each row, or {@code null} for an empty row
+     * @return number of items and actions written
+     * @throws IllegalArgumentException if the class of an item has no encoding
+     */
+    public static long write(final Path file, final TransferFormat format, final Iterable<Item> items, final int rows,
+                             final IntFunction<Action> actions) throws IOException {
+        final RecordCodec codec = format.codec();
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(1 << 10);
+            codec.writeHeader(header);
+            writeFully(channel, header.flip());
+
+            final Output output = new Output(channel, codec);
+            for (Item item : items) {
+                output.add(buffer -> codec.writeItem(buffer, item));
+                written++;
+            }
+            for (int row = 0; row < rows; row++) {
+                final Action action = actions.apply(row);
+                if (action != null) {
+                    output.add(buffer -> codec.writeAction(buffer, action));
+                    written++;
+                }
+            }
+            output.flush();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return written;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Buffers encoded records and writes them out in blocks.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final RecordCodec codec;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private Output(final FileChannel channel, final RecordCodec codec) {
+            this.channel = channel;
+            this.codec = codec;
+        }
+
+        void add(final Consumer<ByteBuffer> writer) throws IOException {
+            while (true) {
+                final int start = buffer.position();
+                try {
+                    writer.accept(buffer);
+                    return;
+                } catch (BufferOverflowException e) {
+                    buffer.position(start);
+                    if (start > 0) {
+                        this.flush();
+                    } else {
+                        // A record larger than the buffer gets a buffer of its own.
+                        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    }
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                final ByteBuffer prefix = codec.blockPrefix(buffer);
+                if (prefix != null) {
+                    writeFully(channel, prefix);
+                }
+                writeFully(channel, buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
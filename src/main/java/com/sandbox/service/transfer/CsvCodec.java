@@ -0,0 +1,283 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.transfer.TextFields.Field;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link TransferFormat#CSV}. Columns are matched to fields by the names in the header, in any order, and columns of
+ * other names are ignored. Rows end with a line feed, optionally preceded by a carriage return, outside of quotes.
+ */
+final class CsvCodec implements RecordCodec {
+    @Override
+    public void writeHeader(final ByteBuffer buffer) {
+        for (Field field : TextFields.FIELDS) {
+            if (field.ordinal() > 0) {
+                buffer.put((byte) ',');
+            }
+            buffer.put(field.bytes);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    @Override
+    public void writeItem(final ByteBuffer buffer, final Item item) {
+        if (item.getClass() == Ball.class) {
+            final Ball ball = (Ball) item;
+            buffer.put(TextFields.BALL);
+            putStrings(buffer, ball.getId(), ball.getColor());
+            buffer.put((byte) ',');
+            TextFields.putDouble(buffer, ball.getRadius());
+            putEmpty(buffer, Field.PERFORMED.ordinal() - Field.RADIUS.ordinal());
+        } else if (item.getClass() == Box.class) {
+            final Box box = (Box) item;
+            buffer.put(TextFields.BOX);
+            putStrings(buffer, box.getId(), box.getColor());
+            buffer.put((byte) ',').put((byte) ',');
+            TextFields.putDouble(buffer, box.getHeight());
+            buffer.put((byte) ',');
+            TextFields.putDouble(buffer, box.getDepth());
+            buffer.put((byte) ',');
+            TextFields.putDouble(buffer, box.getWidth());
+            putEmpty(buffer, Field.PERFORMED.ordinal() - Field.WIDTH.ordinal());
+        } else if (item.getClass() == Dog.class) {
+            buffer.put(TextFields.DOG).put((byte) ',');
+            putString(buffer, item.getId());
+            putEmpty(buffer, Field.PERFORMED.ordinal() - Field.ID.ordinal());
+        } else {
+            throw new IllegalArgumentException("No CSV encoding for " + item.getClass().getName() + ".");
+        }
+        buffer.put((byte) '\n');
+    }
+
+    @Override
+    public void writeAction(final ByteBuffer buffer, final Action action) {
+        buffer.put(TextFields.ACTION).put((byte) ',');
+        TextFields.putUuid(buffer, action.getId());
+        putEmpty(buffer, Field.ITEM_ID.ordinal() - Field.ID.ordinal());
+        putString(buffer, action.getItemId());
+        buffer.put((byte) ',');
+        putString(buffer, action.getDescription());
+        buffer.put((byte) ',');
+        if (action.getCost() != null) {
+            TextFields.putLong(buffer, action.getCost());
+        }
+        buffer.put((byte) ',');
+        TextFields.putInstant(buffer, action.getPerformedDateTime());
+        buffer.put((byte) '\n');
+    }
+
+    @Override
+    public ByteBuffer blockPrefix(final ByteBuffer records) {
+        return null;
+    }
+
+    @Override
+    public Decoder decoder(final ByteBuffer start, final Path file) throws IOException {
+        final byte[] source = start.array();
+        final int base = start.arrayOffset();
+        final List<Field> columns = new ArrayList<>();
+        final int end = forEachField(source, base + start.position(), base + start.limit(),
+                (fieldStart, fieldEnd, escaped) -> columns.add(fieldStart < 0 ? null
+                        : TextFields.field(source, fieldStart, fieldEnd)));
+        if (end < 0 || !columns.contains(Field.TYPE)) {
+            throw new IOException(file + " does not start with a CSV header naming a type column.");
+        }
+        start.position(end - base);
+        return new CsvDecoder(file, columns.toArray(new Field[0]));
+    }
+
+    private static void putStrings(final ByteBuffer buffer, final String id, final String color) {
+        buffer.put((byte) ',');
+        putString(buffer, id);
+        buffer.put((byte) ',');
+        putString(buffer, color);
+    }
+
+    private static void putEmpty(final ByteBuffer buffer, final int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) ',');
+        }
+    }
+
+    /**
+     * Writes {@code value}, quoted if it holds a delimiter, a quote or a line break, or is empty so that it is not
+     * read back as {@code null}.
+     */
+    private static void putString(final ByteBuffer buffer, final String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = value.isEmpty();
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            final char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            TextFields.putUtf8(buffer, value, 0, value.length());
+            return;
+        }
+        buffer.put((byte) '"');
+        int run = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+            TextFields.putUtf8(buffer, value, run, i + 1);
+            buffer.put((byte) '"');
+            run = i + 1;
+        }
+        TextFields.putUtf8(buffer, value, run, value.length());
+        buffer.put((byte) '"');
+    }
+
+    private static String unescape(final byte[] source, final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            bytes[n++] = source[i];
+            if (source[i] == '"') {
+                i++;
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Receives the fields of a row. A quoted field excludes its quotes and is escaped if it holds a doubled quote.
+     * An empty field that is not quoted is {@code null}, and has {@code start == -1}.
+     */
+    private interface FieldConsumer {
+        void accept(int start, int end, boolean escaped);
+    }
+
+    /**
+     * Passes the fields of the row starting at {@code start} to {@code consumer}.
+     *
+     * @return index after the line break ending the row, or {@code -1} if it does not end before {@code end}
+     */
+    private static int forEachField(final byte[] source, final int start, final int end, final FieldConsumer consumer) {
+        int i = start;
+        while (true) {
+            final int fieldStart;
+            final int fieldEnd;
+            final boolean quoted = i < end && source[i] == '"';
+            boolean escaped = false;
+            if (quoted) {
+                int j = i + 1;
+                while (true) {
+                    if (j >= end) {
+                        return -1;
+                    } else if (source[j] == '"') {
+                        if (j + 1 < end && source[j + 1] == '"') {
+                            escaped = true;
+                            j += 2;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        j++;
+                    }
+                }
+                fieldStart = i + 1;
+                fieldEnd = j;
+                i = j + 1;
+            } else {
+                fieldStart = i;
+                while (i < end && source[i] != ',' && source[i] != '\n') {
+                    i++;
+                }
+                fieldEnd = i > fieldStart && i < end && source[i] == '\n' && source[i - 1] == '\r' ? i - 1 : i;
+            }
+            if (i < end && source[i] == '\r' && i + 1 < end && source[i + 1] == '\n') {
+                i++;
+            }
+            if (i >= end) {
+                return -1;
+            }
+            consumer.accept(fieldStart == fieldEnd && !quoted ? -1 : fieldStart, fieldEnd, escaped);
+            if (source[i] == '\n') {
+                return i + 1;
+            } else if (source[i] != ',') {
+                throw new IllegalArgumentException("Unexpected character after a quoted field.");
+            }
+            i++;
+        }
+    }
+
+    private static final class CsvDecoder implements Decoder {
+        private final Path file;
+        private final Field[] columns;
+
+        private CsvDecoder(final Path file, final Field[] columns) {
+            this.file = file;
+            this.columns = columns;
+        }
+
+        @Override
+        public int split(final ByteBuffer buffer) {
+            final int base = buffer.arrayOffset();
+            final byte[] source = buffer.array();
+            int split = buffer.position();
+            boolean quoted = false;
+            // A doubled quote toggles twice, so only the quotes of quoted fields are counted.
+            for (int i = base + buffer.position(); i < base + buffer.limit(); i++) {
+                if (source[i] == '"') {
+                    quoted = !quoted;
+                } else if (source[i] == '\n' && !quoted) {
+                    split = i + 1 - base;
+                }
+            }
+            return split;
+        }
+
+        @Override
+        public void decode(final ByteBuffer records, final long offset, final List<Object> decoded)
+                throws IOException {
+            final byte[] source = records.array();
+            final int base = records.arrayOffset();
+            final int end = base + records.limit();
+            final TextFields fields = new TextFields(CsvCodec::unescape);
+            final int[] column = new int[1];
+            for (int start = base + records.position(); start < end; ) {
+                fields.clear(source);
+                column[0] = 0;
+                try {
+                    int next = forEachField(source, start, end, (fieldStart, fieldEnd, escaped) -> {
+                        final int i = column[0]++;
+                        if (fieldStart >= 0 && i < columns.length && columns[i] != null) {
+                            fields.set(columns[i], fieldStart, fieldEnd, escaped);
+                        }
+                    });
+                    if (next < 0 && source[end - 1] == '\n') {
+                        throw new IllegalArgumentException("Unterminated quoted field.");
+                    } else if (next < 0) {
+                        // The last row of the file need not end with a line break.
+                        final byte[] terminated = new byte[end - start + 1];
+                        System.arraycopy(source, start, terminated, 0, end - start);
+                        terminated[end - start] = '\n';
+                        this.decode(ByteBuffer.wrap(terminated), offset + start - base - records.position(), decoded);
+                        return;
+                    }
+                    if (column[0] > 1 || next - start > 1 + (source[next - 2] == '\r' ? 1 : 0)) {
+                        decoded.add(fields.toRecord());
+                    }
+                    start = next;
+                } catch (RuntimeException e) {
+                    throw this.malformed(offset + start - base - records.position(), e);
+                }
+            }
+        }
+
+        private IOException malformed(final long offset, final RuntimeException e) {
+            return new IOException("Malformed record at offset " + offset + " of " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
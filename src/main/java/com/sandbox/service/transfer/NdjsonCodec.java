@@ -0,0 +1,321 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.transfer.TextFields.Field;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * {@link TransferFormat#NDJSON}. Objects may only hold strings, numbers and {@code null}, and fields of other names
+ * are ignored. Strings are decoded straight from the bytes of the file unless they hold escapes.
+ */
+final class NdjsonCodec implements RecordCodec {
+    private static final byte[] NULL = TextFields.ascii("null");
+
+    @Override
+    public void writeHeader(final ByteBuffer buffer) {
+    }
+
+    @Override
+    public void writeItem(final ByteBuffer buffer, final Item item) {
+        if (item.getClass() == Ball.class) {
+            final Ball ball = (Ball) item;
+            putStart(buffer, TextFields.BALL, ball.getId());
+            putString(buffer, Field.COLOR, ball.getColor());
+            putNumber(buffer, Field.RADIUS, ball.getRadius());
+        } else if (item.getClass() == Box.class) {
+            final Box box = (Box) item;
+            putStart(buffer, TextFields.BOX, box.getId());
+            putString(buffer, Field.COLOR, box.getColor());
+            putNumber(buffer, Field.HEIGHT, box.getHeight());
+            putNumber(buffer, Field.DEPTH, box.getDepth());
+            putNumber(buffer, Field.WIDTH, box.getWidth());
+        } else if (item.getClass() == Dog.class) {
+            putStart(buffer, TextFields.DOG, item.getId());
+        } else {
+            throw new IllegalArgumentException("No NDJSON encoding for " + item.getClass().getName() + ".");
+        }
+        buffer.put((byte) '}').put((byte) '\n');
+    }
+
+    @Override
+    public void writeAction(final ByteBuffer buffer, final Action action) {
+        buffer.put((byte) '{');
+        putKey(buffer, Field.TYPE);
+        buffer.put((byte) '"').put(TextFields.ACTION).put((byte) '"');
+        buffer.put((byte) ',');
+        putKey(buffer, Field.ID);
+        buffer.put((byte) '"');
+        TextFields.putUuid(buffer, action.getId());
+        buffer.put((byte) '"');
+        putString(buffer, Field.ITEM_ID, action.getItemId());
+        putString(buffer, Field.DESCRIPTION, action.getDescription());
+        buffer.put((byte) ',');
+        putKey(buffer, Field.COST);
+        if (action.getCost() == null) {
+            buffer.put(NULL);
+        } else {
+            TextFields.putLong(buffer, action.getCost());
+        }
+        buffer.put((byte) ',');
+        putKey(buffer, Field.PERFORMED);
+        buffer.put((byte) '"');
+        TextFields.putInstant(buffer, action.getPerformedDateTime());
+        buffer.put((byte) '"').put((byte) '}').put((byte) '\n');
+    }
+
+    @Override
+    public ByteBuffer blockPrefix(final ByteBuffer records) {
+        return null;
+    }
+
+    @Override
+    public Decoder decoder(final ByteBuffer start, final Path file) {
+        return new NdjsonDecoder(file);
+    }
+
+    private static void putStart(final ByteBuffer buffer, final byte[] type, final String id) {
+        buffer.put((byte) '{');
+        putKey(buffer, Field.TYPE);
+        buffer.put((byte) '"').put(type).put((byte) '"');
+        putString(buffer, Field.ID, id);
+    }
+
+    private static void putKey(final ByteBuffer buffer, final Field field) {
+        buffer.put((byte) '"').put(field.bytes).put((byte) '"').put((byte) ':');
+    }
+
+    private static void putNumber(final ByteBuffer buffer, final Field field, final double value) {
+        buffer.put((byte) ',');
+        putKey(buffer, field);
+        TextFields.putDouble(buffer, value);
+    }
+
+    private static void putString(final ByteBuffer buffer, final Field field, final String value) {
+        buffer.put((byte) ',');
+        putKey(buffer, field);
+        if (value == null) {
+            buffer.put(NULL);
+            return;
+        }
+        buffer.put((byte) '"');
+        int run = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                TextFields.putUtf8(buffer, value, run, i);
+                run = i + 1;
+                buffer.put((byte) '\\');
+                switch (c) {
+                    case '"', '\\' -> buffer.put((byte) c);
+                    case '\n' -> buffer.put((byte) 'n');
+                    case '\r' -> buffer.put((byte) 'r');
+                    case '\t' -> buffer.put((byte) 't');
+                    default -> buffer.put((byte) 'u').put((byte) '0').put((byte) '0')
+                            .put((byte) ('0' + (c >> 4))).put((byte) Character.forDigit(c & 0xf, 16));
+                }
+            }
+        }
+        TextFields.putUtf8(buffer, value, run, value.length());
+        buffer.put((byte) '"');
+    }
+
+    /**
+     * Decodes the escapes of a JSON string, with surrogate pairs escaped separately joined into one code point.
+     */
+    private static String unescape(final byte[] source, final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (source[i] != '\\') {
+                bytes[n++] = source[i];
+                continue;
+            }
+            final byte escaped = source[++i];
+            switch (escaped) {
+                case 'b' -> bytes[n++] = '\b';
+                case 'f' -> bytes[n++] = '\f';
+                case 'n' -> bytes[n++] = '\n';
+                case 'r' -> bytes[n++] = '\r';
+                case 't' -> bytes[n++] = '\t';
+                case 'u' -> {
+                    int codePoint = hex(source, i + 1, end);
+                    i += 4;
+                    if (Character.isHighSurrogate((char) codePoint) && i + 6 < end && source[i + 1] == '\\'
+                            && source[i + 2] == 'u') {
+                        final int low = hex(source, i + 3, end);
+                        if (Character.isLowSurrogate((char) low)) {
+                            codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                            i += 6;
+                        }
+                    }
+                    final byte[] encoded = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+                    System.arraycopy(encoded, 0, bytes, n, encoded.length);
+                    n += encoded.length;
+                }
+                default -> bytes[n++] = escaped;
+            }
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int hex(final byte[] source, final int start, final int end) {
+        if (start + 4 > end) {
+            throw new IllegalArgumentException("Truncated unicode escape.");
+        }
+        int value = 0;
+        for (int i = start; i < start + 4; i++) {
+            final int digit = Character.digit(source[i], 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Malformed unicode escape.");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static final class NdjsonDecoder implements Decoder {
+        private final Path file;
+
+        private NdjsonDecoder(final Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public int split(final ByteBuffer buffer) {
+            for (int i = buffer.limit() - 1; i >= buffer.position(); i--) {
+                if (buffer.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return buffer.position();
+        }
+
+        @Override
+        public void decode(final ByteBuffer records, final long offset, final List<Object> decoded)
+                throws IOException {
+            final byte[] source = records.array();
+            final int base = records.arrayOffset();
+            final int end = base + records.limit();
+            final TextFields fields = new TextFields(NdjsonCodec::unescape);
+            for (int start = base + records.position(); start < end; ) {
+                int lineEnd = start;
+                while (lineEnd < end && source[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                try {
+                    if (parse(fields, source, start, lineEnd)) {
+                        decoded.add(fields.toRecord());
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Malformed record at offset " + (offset + start - base - records.position())
+                            + " of " + file + ": " + e.getMessage(), e);
+                }
+                start = lineEnd + 1;
+            }
+        }
+
+        /**
+         * @return whether the line holds an object, which is false for a blank line
+         */
+        private static boolean parse(final TextFields fields, final byte[] source, final int start, final int end) {
+            int i = skipWhitespace(source, start, end);
+            if (i == end) {
+                return false;
+            }
+            expect(source, i++, end, '{');
+            fields.clear(source);
+            i = skipWhitespace(source, i, end);
+            if (i < end && source[i] == '}') {
+                i++;
+            } else {
+                while (true) {
+                    expect(source, i, end, '"');
+                    final int keyEnd = stringEnd(source, i + 1, end);
+                    final Field field = TextFields.field(source, i + 1, keyEnd);
+                    i = skipWhitespace(source, keyEnd + 1, end);
+                    expect(source, i, end, ':');
+                    i = skipWhitespace(source, i + 1, end);
+                    if (i == end) {
+                        throw new IllegalArgumentException("Missing value.");
+                    } else if (source[i] == '"') {
+                        final int valueEnd = stringEnd(source, i + 1, end);
+                        if (field != null) {
+                            fields.set(field, i + 1, valueEnd, hasEscape(source, i + 1, valueEnd));
+                        }
+                        i = valueEnd + 1;
+                    } else if (source[i] == '{' || source[i] == '[') {
+                        throw new IllegalArgumentException("Nested values are not supported.");
+                    } else {
+                        final int valueStart = i;
+                        while (i < end && source[i] != ',' && source[i] != '}' && !isWhitespace(source[i])) {
+                            i++;
+                        }
+                        if (field != null && !TextFields.equal(source, valueStart, i, NULL)) {
+                            fields.set(field, valueStart, i, false);
+                        }
+                    }
+                    i = skipWhitespace(source, i, end);
+                    if (i < end && source[i] == ',') {
+                        i = skipWhitespace(source, i + 1, end);
+                    } else {
+                        expect(source, i++, end, '}');
+                        break;
+                    }
+                }
+            }
+            if (skipWhitespace(source, i, end) != end) {
+                throw new IllegalArgumentException("Unexpected content after the object.");
+            }
+            return true;
+        }
+
+        /**
+         * @return index of the quote closing the string starting at {@code start}
+         */
+        private static int stringEnd(final byte[] source, final int start, final int end) {
+            for (int i = start; i < end; i++) {
+                if (source[i] == '\\') {
+                    i++;
+                } else if (source[i] == '"') {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string.");
+        }
+
+        private static boolean hasEscape(final byte[] source, final int start, final int end) {
+            for (int i = start; i < end; i++) {
+                if (source[i] == '\\') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int skipWhitespace(final byte[] source, int i, final int end) {
+            while (i < end && isWhitespace(source[i])) {
+                i++;
+            }
+            return i;
+        }
+
+        private static boolean isWhitespace(final byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+
+        private static void expect(final byte[] source, final int i, final int end, final char expected) {
+            if (i >= end || source[i] != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "'.");
+            }
+        }
+    }
+}
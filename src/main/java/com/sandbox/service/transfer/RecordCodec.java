@@ -0,0 +1,58 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Encoding of the records of a {@link TransferFormat}.
+ * <p>
+ * The writing methods throw {@link java.nio.BufferOverflowException} if the buffer is too small, in which case the
+ * record is written again to an emptied buffer.
+ */
+interface RecordCodec {
+    void writeHeader(ByteBuffer buffer);
+
+    void writeItem(ByteBuffer buffer, Item item);
+
+    void writeAction(ByteBuffer buffer, Action action);
+
+    /**
+     * @param records buffered records, from its position to its limit
+     * @return bytes to write before {@code records}, or {@code null} if there are none
+     */
+    ByteBuffer blockPrefix(ByteBuffer records);
+
+    /**
+     * Reads the header at the start of a file, moving the position of {@code start} past it.
+     *
+     * @param start first bytes of the file, as many as fit in the buffer
+     * @return decoder of the records following the header
+     * @throws IOException if the file does not start with a valid header
+     */
+    Decoder decoder(ByteBuffer start, Path file) throws IOException;
+
+    /**
+     * Decodes the records of one file. Decoders are immutable and decode on several threads at once.
+     */
+    interface Decoder {
+        /**
+         * @return position in {@code buffer} after the last record that is complete, which may be its position if
+         * there is none
+         */
+        int split(ByteBuffer buffer);
+
+        /**
+         * @param records complete records, from its position to its limit
+         * @param offset  offset of the records in the file
+         * @param decoded receives the decoded {@code Item}s and {@code Action}s, in order, including those before a
+         *                malformed record
+         * @throws IOException if a record is malformed
+         */
+        void decode(ByteBuffer records, long offset, List<Object> decoded) throws IOException;
+    }
+}
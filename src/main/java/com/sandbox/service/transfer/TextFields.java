@@ -0,0 +1,403 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Fields of a record of a text format, found in place in the bytes of the file, and the encoding of their values.
+ * <p>
+ * Values are parsed straight from the bytes. Only the strings a record holds are created, and numbers and instants
+ * fall back to the parsers of the JDK only when they are not in the form the formats are written in.
+ */
+final class TextFields {
+    enum Field {
+        TYPE("type"),
+        ID("id"),
+        COLOR("color"),
+        RADIUS("radius"),
+        HEIGHT("height"),
+        DEPTH("depth"),
+        WIDTH("width"),
+        ITEM_ID("itemId"),
+        DESCRIPTION("description"),
+        COST("cost"),
+        PERFORMED("performed");
+
+        final String key;
+        final byte[] bytes;
+
+        Field(final String key) {
+            this.key = key;
+            this.bytes = ascii(key);
+        }
+    }
+
+    /**
+     * Decodes a string that was escaped in the format.
+     */
+    interface Unescaper {
+        String unescape(byte[] source, int start, int end);
+    }
+
+    static final Field[] FIELDS = Field.values();
+    static final byte[] BALL = ascii("ball");
+    static final byte[] BOX = ascii("box");
+    static final byte[] DOG = ascii("dog");
+    static final byte[] ACTION = ascii("action");
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Unescaper unescaper;
+    private final int[] starts = new int[FIELDS.length];
+    private final int[] ends = new int[FIELDS.length];
+    private final boolean[] escaped = new boolean[FIELDS.length];
+    private final boolean[] present = new boolean[FIELDS.length];
+    private byte[] source;
+
+    TextFields(final Unescaper unescaper) {
+        this.unescaper = unescaper;
+    }
+
+    /**
+     * Starts a record in {@code source}, with every field {@code null}.
+     */
+    void clear(final byte[] source) {
+        this.source = source;
+        Arrays.fill(present, false);
+    }
+
+    void set(final Field field, final int start, final int end, final boolean escaped) {
+        starts[field.ordinal()] = start;
+        ends[field.ordinal()] = end;
+        this.escaped[field.ordinal()] = escaped;
+        present[field.ordinal()] = true;
+    }
+
+    /**
+     * @return the {@code Item} or {@code Action} the fields describe
+     * @throws IllegalArgumentException if the type is unknown or a required field is missing
+     */
+    Object toRecord() {
+        final int type = Field.TYPE.ordinal();
+        if (!present[type]) {
+            throw new IllegalArgumentException("Record has no type.");
+        } else if (this.is(type, ACTION)) {
+            final Integer cost = present[Field.COST.ordinal()] ? Math.toIntExact(this.longValue(Field.COST)) : null;
+            final UUID id = present[Field.ID.ordinal()] ? this.uuid(Field.ID) : null;
+            return new Action(id, this.requiredString(Field.ITEM_ID), this.string(Field.DESCRIPTION), cost,
+                    this.instant(Field.PERFORMED));
+        } else if (this.is(type, BALL)) {
+            return new Ball(this.requiredString(Field.ID), this.string(Field.COLOR), this.doubleValue(Field.RADIUS));
+        } else if (this.is(type, BOX)) {
+            return new Box(this.requiredString(Field.ID), this.string(Field.COLOR), this.doubleValue(Field.HEIGHT),
+                    this.doubleValue(Field.DEPTH), this.doubleValue(Field.WIDTH));
+        } else if (this.is(type, DOG)) {
+            return new Dog(this.requiredString(Field.ID));
+        }
+        throw new IllegalArgumentException("Unknown record type " + this.string(Field.TYPE) + ".");
+    }
+
+    private boolean is(final int field, final byte[] value) {
+        return equal(source, starts[field], ends[field], value);
+    }
+
+    private String string(final Field field) {
+        final int i = field.ordinal();
+        if (!present[i]) {
+            return null;
+        }
+        return escaped[i] ? unescaper.unescape(source, starts[i], ends[i])
+                : new String(source, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+    }
+
+    private String requiredString(final Field field) {
+        this.require(field);
+        return this.string(field);
+    }
+
+    private long longValue(final Field field) {
+        this.require(field);
+        return parseLong(source, starts[field.ordinal()], ends[field.ordinal()]);
+    }
+
+    private double doubleValue(final Field field) {
+        this.require(field);
+        return parseDouble(source, starts[field.ordinal()], ends[field.ordinal()]);
+    }
+
+    private Instant instant(final Field field) {
+        this.require(field);
+        return parseInstant(source, starts[field.ordinal()], ends[field.ordinal()]);
+    }
+
+    private UUID uuid(final Field field) {
+        return parseUuid(source, starts[field.ordinal()], ends[field.ordinal()]);
+    }
+
+    private void require(final Field field) {
+        if (!present[field.ordinal()]) {
+            throw new IllegalArgumentException("Record has no " + field.key + ".");
+        }
+    }
+
+    static Field field(final byte[] source, final int start, final int end) {
+        for (Field field : FIELDS) {
+            if (equal(source, start, end, field.bytes)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    static boolean equal(final byte[] source, final int start, final int end, final byte[] value) {
+        return Arrays.equals(source, start, end, value, 0, value.length);
+    }
+
+    static byte[] ascii(final String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static long parseLong(final byte[] source, final int start, final int end) {
+        final boolean negative = start < end && source[start] == '-';
+        final int digits = end - start - (negative ? 1 : 0);
+        if (digits < 1 || digits > 18) {
+            return Long.parseLong(latin1(source, start, end));
+        }
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            final int digit = source[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(latin1(source, start, end));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    static double parseDouble(final byte[] source, final int start, final int end) {
+        final boolean negative = start < end && source[start] == '-';
+        long mantissa = 0;
+        int significant = 0;
+        int fraction = -1;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            final byte b = source[i];
+            if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > 0) {
+                    significant++;
+                }
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else {
+                return Double.parseDouble(latin1(source, start, end));
+            }
+        }
+        // Both the mantissa and the power of ten are exact doubles, so a single division is correctly rounded.
+        if (significant > 15 || fraction >= POWERS_OF_TEN.length || end - start == (negative ? 1 : 0) || fraction == 0) {
+            return Double.parseDouble(latin1(source, start, end));
+        }
+        final double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses an instant in the form {@code 2021-03-01T12:00:00.5Z}, or any form {@link Instant#parse} takes.
+     */
+    static Instant parseInstant(final byte[] source, final int start, final int end) {
+        final int length = end - start;
+        if (length >= 20 && length <= 30 && length != 21 && source[start + 4] == '-' && source[start + 7] == '-'
+                && source[start + 10] == 'T' && source[start + 13] == ':' && source[start + 16] == ':'
+                && source[end - 1] == 'Z' && (length == 20 || source[start + 19] == '.')) {
+            final int year = digits(source, start, 4);
+            final int month = digits(source, start + 5, 2);
+            final int day = digits(source, start + 8, 2);
+            final int hour = digits(source, start + 11, 2);
+            final int minute = digits(source, start + 14, 2);
+            final int second = digits(source, start + 17, 2);
+            final int fraction = length == 20 ? 0 : digits(source, start + 20, length - 21);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31 && hour >= 0 && hour < 24
+                    && minute >= 0 && minute < 60 && second >= 0 && second < 60 && fraction >= 0) {
+                final long epochDay = LocalDate.of(year, month, day).toEpochDay();
+                final int nanos = length == 20 ? 0 : fraction * (int) POWERS_OF_TEN[9 - (length - 21)];
+                return Instant.ofEpochSecond(epochDay * 86_400 + hour * 3_600 + minute * 60 + second, nanos);
+            }
+        }
+        return Instant.parse(latin1(source, start, end));
+    }
+
+    static UUID parseUuid(final byte[] source, final int start, final int end) {
+        if (end - start == 36 && source[start + 8] == '-' && source[start + 13] == '-' && source[start + 18] == '-'
+                && source[start + 23] == '-') {
+            long mostSignificant = 0;
+            long leastSignificant = 0;
+            boolean valid = true;
+            for (int i = 0; i < 36 && valid; i++) {
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    continue;
+                }
+                final int digit = Character.digit(source[start + i], 16);
+                valid = digit >= 0;
+                if (i < 18) {
+                    mostSignificant = mostSignificant << 4 | digit;
+                } else {
+                    leastSignificant = leastSignificant << 4 | digit;
+                }
+            }
+            if (valid) {
+                return new UUID(mostSignificant, leastSignificant);
+            }
+        }
+        return UUID.fromString(latin1(source, start, end));
+    }
+
+    static void putLong(final ByteBuffer buffer, final long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.put(ascii(Long.toString(value)));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        final long magnitude = Math.abs(value);
+        long divisor = 1;
+        while (magnitude / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + magnitude / divisor % 10));
+        }
+    }
+
+    static void putDouble(final ByteBuffer buffer, final double value) {
+        if (value == (long) value && Math.abs(value) < 1e15 && (value != 0 || 1 / value > 0)) {
+            putLong(buffer, (long) value);
+            buffer.put((byte) '.').put((byte) '0');
+        } else {
+            buffer.put(ascii(Double.toString(value)));
+        }
+    }
+
+    /**
+     * Writes {@code instant} in the form {@link #parseInstant} reads without falling back, which is the form of
+     * {@link Instant#toString()} for the years 0 to 9999 without trailing zeros in the fraction of the second.
+     */
+    static void putInstant(final ByteBuffer buffer, final Instant instant) {
+        final long epochSecond = instant.getEpochSecond();
+        final LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400));
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            buffer.put(ascii(instant.toString()));
+            return;
+        }
+        final int secondOfDay = Math.floorMod(epochSecond, 86_400);
+        putDigits(buffer, date.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(buffer, date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(buffer, date.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        putDigits(buffer, secondOfDay / 3_600, 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, secondOfDay / 60 % 60, 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, secondOfDay % 60, 2);
+        int nanos = instant.getNano();
+        if (nanos > 0) {
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            buffer.put((byte) '.');
+            putDigits(buffer, nanos, digits);
+        }
+        buffer.put((byte) 'Z');
+    }
+
+    static void putUuid(final ByteBuffer buffer, final UUID uuid) {
+        putHex(buffer, uuid.getMostSignificantBits() >>> 32, 8);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getMostSignificantBits() >>> 16, 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getMostSignificantBits(), 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getLeastSignificantBits() >>> 48, 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getLeastSignificantBits(), 12);
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the characters of {@code string} from {@code start} to {@code end}.
+     * Unpaired surrogates are written as {@code ?}, as {@link String#getBytes} does.
+     */
+    static void putUtf8(final ByteBuffer buffer, final String string, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                buffer.put((byte) (0xf0 | codePoint >> 18))
+                        .put((byte) (0x80 | codePoint >> 12 & 0x3f))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3f))
+                        .put((byte) (0x80 | codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+            }
+        }
+    }
+
+    private static void putDigits(final ByteBuffer buffer, final int value, final int digits) {
+        for (int divisor = (int) POWERS_OF_TEN[digits - 1]; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static void putHex(final ByteBuffer buffer, final long value, final int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.put(HEX[(int) (value >>> shift) & 0xf]);
+        }
+    }
+
+    /**
+     * @return value of the {@code count} decimal digits at {@code start}, or {@code -1} if they aren't all digits
+     */
+    private static int digits(final byte[] source, final int start, final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final int digit = source[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String latin1(final byte[] source, final int start, final int end) {
+        return new String(source, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sandbox.service.transfer;
+
+import java.util.function.Supplier;
+
+/**
+ * File format of a bulk export of items and actions, read by {@link BulkReader} and written by {@link BulkWriter}.
+ * <p>
+ * Every format holds one record per item or action, and an action's item must precede it. Records of actions carry
+ * the action's ID, which is optional when reading.
+ */
+public enum TransferFormat {
+    /**
+     * One JSON object per line, with a {@code type} of {@code ball}, {@code box}, {@code dog} or {@code action} and
+     * the fields {@code id}, {@code color}, {@code radius}, {@code height}, {@code depth}, {@code width},
+     * {@code itemId}, {@code description}, {@code cost} and {@code performed} that apply to it. Missing fields and
+     * fields set to {@code null} are {@code null}, and {@code performed} is an ISO-8601 instant.
+     */
+    NDJSON(NdjsonCodec::new),
+    /**
+     * A header naming the columns, followed by one row per record with the fields of {@link #NDJSON}, quoted as in
+     * RFC 4180. An empty field is {@code null}, and a quoted empty field an empty string.
+     */
+    CSV(CsvCodec::new),
+    /**
+     * A header with the format version, followed by checksummed blocks of records in the encoding of
+     * {@link com.sandbox.service.persistence.BinaryCodec}.
+     */
+    BINARY(BinaryRecordCodec::new);
+
+    private final Supplier<RecordCodec> codec;
+
+    TransferFormat(final Supplier<RecordCodec> codec) {
+        this.codec = codec;
+    }
+
+    RecordCodec codec() {
+        return codec.get();
+    }
+}
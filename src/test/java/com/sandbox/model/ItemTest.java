@@ -1,11 +1,14 @@
 package com.sandbox.model;
 
 import com.sandbox.exceptions.InvalidIdException;
+import com.sandbox.model.items.Item;
 import com.sandbox.model.items.animals.Dog;
 import com.sandbox.model.items.solids.Ball;
 import com.sandbox.model.items.solids.Box;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ItemTest {
@@ -33,4 +36,34 @@ class ItemTest {
         assertDoesNotThrow(() -> new Dog("ABC123"));
     }
 
+    @Test
+    void testCanonicalId() {
+        final String canonical = "ABC123";
+        assertSame(canonical, Item.canonicalId(canonical), "A canonical ID should not be copied.");
+        assertEquals(canonical, Item.canonicalId("aBc123"));
+        assertEquals(new Dog("abc123"), new Dog("ABC123"));
+        assertEquals(new Dog("abc123").hashCode(), new Dog("ABC123").hashCode());
+
+        assertThrows(InvalidIdException.class, () -> Item.canonicalId("ABC-123"));
+        assertThrows(InvalidIdException.class, () -> Item.canonicalId("ABC 123"));
+        assertThrows(InvalidIdException.class, () -> Item.canonicalId("ÅBC"));
+        assertThrows(InvalidIdException.class, () -> Item.canonicalId("１２３"), "Only ASCII digits are allowed.");
+    }
+
+    @Test
+    void testVolume() {
+        final Ball ball = new Ball("Ball1", "Red", 1.5);
+        assertEquals(2 * Math.PI * 1.5 * 1.5, ball.getVolume());
+        assertEquals(new BigDecimal("2").multiply(BigDecimal.valueOf(Math.PI)).multiply(new BigDecimal("2.25")),
+                ball.getExactVolume());
+
+        final Box box = new Box("Box1", "Brown", 0.1, 0.2, 0.3);
+        assertEquals(0.1 * 0.2 * 0.3, box.getVolume());
+        assertEquals(new BigDecimal("0.006"), box.getExactVolume());
+
+        assertEquals(new Box("Box1", "Brown", 0.1, 0.2, 0.3), box);
+        assertEquals(new Box("Box1", "Brown", 0.1, 0.2, 0.3).hashCode(), box.hashCode());
+        assertNotEquals(new Box("Box1", "Brown", 0.3, 0.2, 0.1), box, "Boxes with equal volumes but other dimensions differ.");
+    }
+
 }
\ No newline at end of file
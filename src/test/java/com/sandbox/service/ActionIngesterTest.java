@@ -0,0 +1,149 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.service.persistence.ActionLog;
+import com.sandbox.service.persistence.Durability;
+import com.sandbox.service.store.ColumnarActionStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionIngesterTest {
+    final Dog dogA = new Dog("Dog111");
+    final Dog dogB = new Dog("Dog222");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void registersSubmittedActions() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService(new ColumnarActionStore());
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        final Instant now = Instant.now();
+
+        final ExecutorService producers = Executors.newFixedThreadPool(2);
+        final List<CompletableFuture<UUID>> futures = new ArrayList<>();
+        try (ActionIngester ingester = new ActionIngester(itemActionService, 16, 64)) {
+            final List<Future<List<CompletableFuture<UUID>>>> produced = new ArrayList<>();
+            for (Dog dog : List.of(dogA, dogB)) {
+                produced.add(producers.submit(() -> {
+                    final List<CompletableFuture<UUID>> submitted = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        submitted.add(ingester.submit(dog.getId(), "Walk", 1, now.plusSeconds(i)));
+                    }
+                    return submitted;
+                }));
+            }
+            for (Future<List<CompletableFuture<UUID>>> submitted : produced) {
+                futures.addAll(submitted.get());
+            }
+            assertTrue(ingester.getQueuedCount() <= 16, "The queue should stay within its capacity.");
+        } finally {
+            producers.shutdownNow();
+        }
+
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone), "Closing should register the queued actions.");
+        for (CompletableFuture<UUID> future : futures.subList(0, 100)) {
+            assertNotNull(itemActionService.getActionById(future.get()));
+        }
+        assertEquals(20_000, itemActionService.getActionCount());
+        assertEquals(10_000, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+        assertEquals(10_000, itemActionService.getTotalActionCostOfItem(dogB.getId()));
+    }
+
+    @Test
+    void failsOnlyInvalidActions() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        final Instant now = Instant.now();
+
+        final CompletableFuture<UUID> valid;
+        final CompletableFuture<UUID> unknownItem;
+        final CompletableFuture<UUID> noDate;
+        final ActionIngester ingester = new ActionIngester(itemActionService, 100, 100);
+        try (ingester) {
+            valid = ingester.submit(dogA.getId(), "Walk", 1, now);
+            unknownItem = ingester.submit(dogB.getId(), "Walk", 1, now);
+            noDate = ingester.submit(dogA.getId(), "Walk", 1, null);
+        }
+
+        assertEquals(dogA.getId(), itemActionService.getActionById(valid.get()).getItemId());
+        assertTrue(assertThrows(ExecutionException.class, unknownItem::get).getCause() instanceof ItemNotFoundException);
+        assertTrue(assertThrows(ExecutionException.class, noDate::get).getCause() instanceof NullPointerException);
+        assertThrows(IllegalStateException.class, () -> ingester.submit(dogA.getId(), "Walk", 1, now));
+    }
+
+    @Test
+    void persistsBatches() throws Exception {
+        final List<CompletableFuture<UUID>> futures = new ArrayList<>();
+        try (ItemActionService itemActionService = ItemActionService.open(ActionLog.open(directory, Durability.SYNC),
+                new ColumnarActionStore())) {
+            itemActionService.registerItem(dogA);
+            try (ActionIngester ingester = new ActionIngester(itemActionService, 1000, 1000)) {
+                for (int i = 0; i < 1000; i++) {
+                    futures.add(ingester.submit(dogA.getId(), "Walk", 2, Instant.now()));
+                }
+            }
+        }
+
+        try (ItemActionService reopened = ItemActionService.open(directory, Durability.NONE)) {
+            assertEquals(2000, reopened.getTotalActionCostOfItem(dogA.getId()));
+            assertNotNull(reopened.getActionById(futures.get(999).get()));
+        }
+    }
+
+    @Test
+    void registersEveryActionThatIsLogged() throws Exception {
+        // Too large for a segment of the log, so that appending it fails in the middle of a batch.
+        final String unloggable = "Walk".repeat(1_000);
+        final Instant now = Instant.now();
+        final CompletableFuture<UUID> before;
+        final CompletableFuture<UUID> failed;
+        final CompletableFuture<UUID> after;
+        try (ItemActionService itemActionService = ItemActionService.open(ActionLog.open(directory, Durability.SYNC,
+                1024, Duration.ofMillis(10)), new ColumnarActionStore())) {
+            itemActionService.registerItem(dogA);
+            assertThrows(IllegalArgumentException.class, () -> itemActionService.registerActions(List.of(
+                    new ActionRequest(dogA.getId(), "Walk", 1, now),
+                    new ActionRequest(dogA.getId(), unloggable, 1, now),
+                    new ActionRequest(dogA.getId(), "Walk", 1, now))));
+            assertThrows(IllegalArgumentException.class, () -> itemActionService.registerActionOnItem(dogA.getId(),
+                    unloggable, 1, now));
+            try (ActionIngester ingester = new ActionIngester(itemActionService, 100, 100)) {
+                before = ingester.submit(dogA.getId(), "Walk", 1, now);
+                failed = ingester.submit(dogA.getId(), unloggable, 1, now);
+                after = ingester.submit(dogA.getId(), "Walk", 1, now);
+            }
+
+            assertNotNull(itemActionService.getActionById(before.get()));
+            assertTrue(assertThrows(ExecutionException.class, failed::get).getCause()
+                    instanceof IllegalArgumentException);
+            assertNotNull(itemActionService.getActionById(after.get()));
+            assertEquals(4, itemActionService.getActionCount());
+            assertEquals(4, itemActionService.getActionsOnItem(dogA.getId()).size());
+            assertEquals(4, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).size());
+            assertEquals(4, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+        }
+
+        try (ItemActionService reopened = ItemActionService.open(directory, Durability.NONE)) {
+            assertEquals(4, reopened.getActionCount(), "Only the logged actions should be restored.");
+            assertEquals(4, reopened.getTotalActionCostOfItem(dogA.getId()));
+        }
+    }
+}
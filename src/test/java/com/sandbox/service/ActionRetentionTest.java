@@ -0,0 +1,209 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ActionNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.persistence.ActionArchive;
+import com.sandbox.service.persistence.Durability;
+import com.sandbox.service.store.ActionStore;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionRetentionTest {
+    final Dog dogA = new Dog("Dog111");
+    final Dog dogB = new Dog("Dog222");
+    final Ball ballA = new Ball("Ball123", "Red", 1.0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compactsActionsBeforeHorizon() throws Exception {
+        final List<Supplier<ActionStore>> stores = List.of(ObjectActionStore::new, ColumnarActionStore::new);
+        for (Supplier<ActionStore> store : stores) {
+            this.verifyCompaction(new ItemActionService(store.get(), new TimeOrderedIdGenerator(),
+                    ServiceOptions.defaults().withRollups(EnumSet.of(RollupGranularity.DAY), Set.of())),
+                    directory.resolve(stores.indexOf(store) + ".archive"));
+        }
+    }
+
+    private void verifyCompaction(final ItemActionService itemActionService, final Path archive) throws Exception {
+        final Instant start = Instant.parse("2021-03-01T00:00:00Z");
+        final Instant horizon = start.plus(Duration.ofDays(5)).plusSeconds(3_600);
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(ballA);
+
+        final Random random = new Random(21);
+        final List<ActionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            final String itemId = i % 3 == 0 ? ballA.getId() : i % 3 == 1 ? dogA.getId() : dogB.getId();
+            requests.add(new ActionRequest(itemId, "Walk", i % 10 == 0 ? null : random.nextInt(100),
+                    start.plusSeconds(random.nextInt(10 * 24 * 60 * 60))));
+        }
+        itemActionService.registerActions(requests);
+        final Set<Action> old = itemActionService.getAllActions().stream()
+                .filter(action -> action.getPerformedDateTime().isBefore(horizon))
+                .collect(Collectors.toSet());
+        final Map<String, Integer> totals = itemActionService.getItemIdsWithTotalActionCost();
+        final Map<String, Long> aggregated = itemActionService.aggregateActionCosts(null).getTotalCostByItemId();
+        final SortedMap<Instant, Long> days = itemActionService.getActionCostOfItemTypeBetween(ItemClass.DOG,
+                RollupGranularity.DAY, start, start.plus(Duration.ofDays(10)));
+        final long memory = itemActionService.getMetrics().getEstimatedMemoryBytes();
+
+        assertEquals(old.size(), itemActionService.compactActionsBefore(horizon, RollupGranularity.DAY, archive));
+        assertEquals(3_000 - old.size(), itemActionService.getActionCount());
+        assertEquals(old.size(), itemActionService.getMetrics().getCompactedActions());
+        assertTrue(itemActionService.getMetrics().getEstimatedMemoryBytes() < memory);
+        assertTrue(itemActionService.getActionsOnItem(dogA.getId()).stream()
+                .allMatch(action -> !action.getPerformedDateTime().isBefore(horizon)));
+        assertEquals(horizon, itemActionService.streamActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG)
+                .map(Action::getPerformedDateTime)
+                .filter(horizon::isAfter)
+                .findAny()
+                .orElse(horizon), "Compacted actions should be gone from the performed date index.");
+        final Action compacted = old.iterator().next();
+        assertThrows(ActionNotFoundException.class, () -> itemActionService.getActionById(compacted.getId()));
+
+        // Totals, leaderboards, rollups and aggregations over all actions still include the compacted ones.
+        assertEquals(totals, itemActionService.getItemIdsWithTotalActionCost());
+        assertEquals(aggregated, itemActionService.aggregateActionCosts(null).getTotalCostByItemId());
+        assertEquals(days, itemActionService.getActionCostOfItemTypeBetween(ItemClass.DOG,
+                RollupGranularity.DAY, start, start.plus(Duration.ofDays(10))));
+        assertEquals(0, itemActionService.aggregateActionCosts(null).getOmittedCompactedActions());
+        // Filtered aggregations can only tell how many compacted actions they leave out.
+        final CostReport filtered = itemActionService.aggregateActionCosts(action -> true);
+        assertEquals(3_000 - old.size(), filtered.getActionCount());
+        assertEquals(old.size(), filtered.getOmittedCompactedActions());
+        assertEquals(old.size(), CostReport.merge(List.of(filtered, itemActionService.aggregateActionCosts(null)))
+                .getOmittedCompactedActions());
+
+        final List<ActionSummary> summaries = itemActionService.getActionSummariesOfItem(dogA.getId());
+        assertEquals(6, summaries.size(), "Summaries should cover the days up to the horizon.");
+        assertEquals(start.plus(Duration.ofDays(5)), summaries.get(5).getPeriodStart());
+        assertEquals(old.stream().filter(action -> action.getItemId().equals(dogA.getId())).count(),
+                summaries.stream().mapToLong(ActionSummary::getActionCount).sum());
+        assertEquals(old.stream().filter(action -> action.getItemId().equals(dogA.getId()))
+                        .mapToLong(action -> action.getCost() == null ? 0 : action.getCost()).sum(),
+                summaries.stream().mapToLong(ActionSummary::getTotalCost).sum());
+
+        final List<Action> archived = new ArrayList<>();
+        ActionArchive.read(archive, archived::add);
+        assertEquals(old, Set.copyOf(archived));
+        assertEquals(0, itemActionService.compactActionsBefore(horizon, RollupGranularity.DAY, archive));
+
+        // New actions keep adding to the item's totals rather than starting them over.
+        itemActionService.registerActionOnItem(dogA.getId(), "Feed", 5, start);
+        assertEquals(totals.get(dogA.getId()) + 5, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+    }
+
+    @Test
+    void listsAndStreamsOfActionsOnItemOutliveCompaction() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        final UUID old = itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1,
+                Instant.parse("2020-06-01T00:00:00Z"));
+        final UUID recent = itemActionService.registerActionOnItem(dogA.getId(), "Walk", 2,
+                Instant.parse("2024-06-01T00:00:00Z"));
+        final List<Action> actions = itemActionService.getActionsOnItem(dogA.getId());
+        final Iterator<Action> stream = itemActionService.streamActionsOnItem(dogA.getId()).iterator();
+
+        assertEquals(1, itemActionService.compactActionsBefore(Instant.parse("2022-01-01T00:00:00Z"),
+                RollupGranularity.DAY, null));
+        assertEquals(List.of(old, recent), actions.stream().map(Action::getId).collect(Collectors.toList()));
+        assertEquals(recent, stream.next().getId());
+        assertFalse(stream.hasNext());
+        assertEquals(List.of(recent), itemActionService.getActionsOnItem(dogA.getId()).stream()
+                .map(Action::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void retentionCompactsOnSchedule() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        final Instant now = Instant.now();
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 3, now.minus(Duration.ofDays(3)));
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 4, now);
+
+        final ScheduledFuture<?> retention = itemActionService.startRetention(new RetentionPolicy(Duration.ofDays(1),
+                RollupGranularity.HOUR, null, Duration.ofMillis(10)));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (itemActionService.getActionCount() > 1) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the compaction.");
+            Thread.sleep(1);
+        }
+        itemActionService.close();
+
+        assertTrue(retention.isDone());
+        assertEquals(1, itemActionService.getActionSummariesOfItem(dogA.getId()).size());
+        assertEquals(7, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+    }
+
+    @Test
+    void retentionRetriesAFailedCompaction() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        final Instant now = Instant.now();
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 3, now.minus(Duration.ofDays(3)));
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 4, now);
+        // A directory in place of the archive file fails every compaction until it is removed.
+        final Path archive = Files.createDirectory(directory.resolve("retried.archive"));
+
+        itemActionService.startRetention(new RetentionPolicy(Duration.ofDays(1), RollupGranularity.HOUR, archive,
+                Duration.ofMillis(10)));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (itemActionService.getMetrics().getFailedCompactions() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the failed compaction.");
+            Thread.sleep(1);
+        }
+        assertEquals(2, itemActionService.getActionCount(), "A failed compaction should leave the actions in memory.");
+        Files.delete(archive);
+        while (itemActionService.getActionCount() > 1) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the retried compaction.");
+            Thread.sleep(1);
+        }
+        itemActionService.close();
+
+        final List<Action> archived = new ArrayList<>();
+        ActionArchive.read(archive, archived::add);
+        assertEquals(1, archived.size());
+        assertEquals(1, itemActionService.getMetrics().getCompactedActions());
+    }
+
+    @Test
+    void persistedServiceCannotCompact() throws Exception {
+        try (ItemActionService itemActionService = ItemActionService.open(directory.resolve("log"), Durability.ASYNC)) {
+            assertThrows(IllegalStateException.class, () -> itemActionService.compactActionsBefore(Instant.now(),
+                    RollupGranularity.DAY, null));
+            assertThrows(IllegalStateException.class, () -> itemActionService.startRetention(
+                    new RetentionPolicy(Duration.ofDays(1))));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy(Duration.ofDays(-1)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.store.ColumnarActionStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostAggregationTest {
+    @Test
+    void parallelMatchesSequential() {
+        final ItemActionService itemActionService = new ItemActionService(new ColumnarActionStore());
+        final Random random = new Random(7);
+        final Instant now = Instant.now();
+        final String[] itemIds = new String[300];
+        for (int i = 0; i < itemIds.length; i++) {
+            final Item item = i % 3 == 0 ? new Ball("Ball" + i, "Red", 1.0)
+                    : i % 3 == 1 ? new Box("Box" + i, "Brown", 1.0, 2.0, 3.0)
+                    : new Dog("Dog" + i);
+            itemActionService.registerItem(item);
+            itemIds[i] = item.getId();
+        }
+        // Items without actions are left out of the report.
+        itemActionService.registerItem(new Dog("Dog999"));
+        for (int i = 0; i < 200_000; i++) {
+            itemActionService.registerActionOnItem(itemIds[random.nextInt(itemIds.length)], "Walk",
+                    i % 10 == 0 ? null : random.nextInt(1000), now.plusSeconds(i));
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final CostReport sequential = itemActionService.aggregateActionCosts(null);
+            final CostReport parallel = itemActionService.aggregateActionCosts(null, pool);
+
+            final Map<String, Long> expectedTotals = new HashMap<>();
+            itemActionService.getItemIdsWithTotalActionCost().forEach((id, total) -> expectedTotals.put(id, (long) total));
+            assertEquals(expectedTotals, sequential.getTotalCostByItemId());
+            assertEquals(expectedTotals, parallel.getTotalCostByItemId());
+            assertEquals(200_000, parallel.getActionCount());
+
+            final Map<ItemClass, Long> expectedByClass = new EnumMap<>(ItemClass.class);
+            for (ItemClass itemClass : ItemClass.values()) {
+                itemActionService.getItemIdsWithTotalActionCostByItemType(itemClass)
+                        .values().forEach(total -> expectedByClass.merge(itemClass, (long) total, Long::sum));
+            }
+            assertEquals(expectedByClass, sequential.getTotalCostByItemClass());
+            assertEquals(expectedByClass, parallel.getTotalCostByItemClass());
+
+            assertEquals(itemActionService.getTopItemsByTotalActionCost(ItemClass.BOX, 10), sequential.getTopItems(ItemClass.BOX, 10));
+            assertEquals(itemActionService.getTopItemsByTotalActionCost(ItemClass.BOX, 10), parallel.getTopItems(ItemClass.BOX, 10));
+
+            final Instant to = now.plusSeconds(50_000);
+            final CostReport filtered = itemActionService.aggregateActionCosts(
+                    action -> action.getPerformedDateTime().isBefore(to), pool);
+            assertEquals(50_000, filtered.getActionCount());
+            assertEquals(itemActionService.aggregateActionCosts(action -> action.getPerformedDateTime().isBefore(to))
+                    .getTotalCostByItemId(), filtered.getTotalCostByItemId());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void aggregatesEmptyService() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final CostReport report = itemActionService.aggregateActionCosts(null, ForkJoinPool.commonPool());
+
+        assertEquals(0, report.getActionCount());
+        assertTrue(report.getTotalCostByItemId().isEmpty());
+        assertTrue(report.getTopItems(ItemClass.DOG, 3).isEmpty());
+    }
+}
@@ -0,0 +1,180 @@
+package com.sandbox.service;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescriptionIndexTest {
+    private static final String[] WORDS = {"Walk", "Feed", "Upgrade", "upkeep", "Engine", "paint", "Repaint", "wash"};
+    private static final ServiceOptions INDEXED = ServiceOptions.defaults().withDescriptionIndex(true);
+
+    @Test
+    void findsTheSameActionsAsScanning() {
+        final ItemActionService itemActionService = new ItemActionService(new ColumnarActionStore(),
+                new TimeOrderedIdGenerator(), INDEXED);
+        final Random random = new Random(23);
+        final Instant start = Instant.parse("2021-03-01T00:00:00Z");
+        final String[] itemIds = new String[60];
+        for (int i = 0; i < itemIds.length; i++) {
+            final Item item = i % 2 == 0 ? new Ball("Ball" + i, "Red", 1.0) : new Dog("Dog" + i);
+            itemActionService.registerItem(item);
+            itemIds[i] = item.getId();
+        }
+        final List<ActionRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final String description = WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? ", "
+                    + WORDS[random.nextInt(WORDS.length)].toUpperCase(Locale.ROOT) : "");
+            final String itemId = itemIds[random.nextInt(itemIds.length)];
+            final Instant performed = start.plusSeconds(random.nextInt(1_000_000));
+            if (i % 2 == 0) {
+                itemActionService.registerActionOnItem(itemId, description, i, performed);
+            } else {
+                batch.add(new ActionRequest(itemId, description, i, performed));
+            }
+        }
+        itemActionService.registerActions(batch);
+        itemActionService.registerActionOnItem(itemIds[1], null, 1, start);
+
+        final Instant from = start.plusSeconds(200_000);
+        final Instant to = start.plusSeconds(700_000);
+        assertMatches(itemActionService, ItemClass.DOG, DescriptionQuery.allOf("upgrade"), hasTerm("upgrade"));
+        assertMatches(itemActionService, null, DescriptionQuery.allOf("Engine upgrade"),
+                hasTerm("engine").and(hasTerm("upgrade")));
+        assertMatches(itemActionService, ItemClass.BALL, DescriptionQuery.prefix("UP"),
+                hasTerm("upgrade").or(hasTerm("upkeep")));
+        assertMatches(itemActionService, null, DescriptionQuery.prefix("paint").and(DescriptionQuery.prefix("rep")),
+                hasTerm("paint").and(hasTerm("repaint")));
+        assertMatches(itemActionService, ItemClass.DOG, DescriptionQuery.allOf("wash").and(DescriptionQuery.prefix("e")),
+                hasTerm("wash").and(hasTerm("engine")));
+        assertEquals(scan(itemActionService, ItemClass.DOG, hasTerm("feed").and(action ->
+                        !action.getPerformedDateTime().isBefore(from) && action.getPerformedDateTime().isBefore(to))),
+                itemActionService.getActionsByDescription(ItemClass.DOG, DescriptionQuery.allOf("feed"), from, to));
+
+        assertTrue(itemActionService.getActionsByDescription(null, DescriptionQuery.allOf("walk sleep")).isEmpty());
+        assertTrue(itemActionService.getActionsByDescription(null, DescriptionQuery.prefix("x")).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> DescriptionQuery.allOf(" , "));
+        assertThrows(IllegalArgumentException.class, () -> DescriptionQuery.prefix("up keep"));
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getActionsByDescription(null,
+                DescriptionQuery.allOf("walk"), to, from));
+    }
+
+    @Test
+    void postingListsRowsAppendedOutOfOrder() {
+        final PostingList list = new PostingList();
+        final List<Integer> rows = IntStream.range(0, 1_000).map(row -> row * 3).boxed().collect(Collectors.toList());
+        // Shuffled six at a time, as concurrent registrations append them, some groups spanning two blocks.
+        final Random random = new Random(3);
+        for (int i = 0; i + 6 <= rows.size(); i += 6) {
+            Collections.shuffle(rows.subList(i, i + 6), random);
+        }
+        rows.forEach(list::append);
+
+        final int[] expected = IntStream.range(0, 1_000).map(row -> row * 3).toArray();
+        assertEquals(1_000, list.size());
+        assertArrayEquals(expected, list.toArray());
+        final int[] candidates = IntStream.range(0, 3_000).filter(row -> row % 2 == 0).toArray();
+        final int kept = list.retain(candidates, candidates.length);
+        assertArrayEquals(Arrays.stream(expected).filter(row -> row % 2 == 0).toArray(), Arrays.copyOf(candidates, kept));
+        assertEquals(List.of("engine", "upgrade", "2021"), DescriptionIndex.terms("Engine UPGRADE; engine-2021"));
+    }
+
+    @Test
+    void removesRowsOfCompactedActions() throws Exception {
+        final PostingList list = new PostingList();
+        IntStream.range(0, 1_000).forEach(list::append);
+        final int[] removed = IntStream.range(0, 1_000).filter(row -> row % 3 == 0 || row >= 900).toArray();
+        assertEquals(600, list.removeAll(removed, removed.length));
+        assertArrayEquals(IntStream.range(0, 900).filter(row -> row % 3 != 0).toArray(), list.toArray());
+        assertTrue(list.append(1_000));
+        final int[] rest = list.toArray();
+        assertEquals(0, list.removeAll(rest, rest.length));
+        assertFalse(list.append(1_001), "An emptied list should take no more rows.");
+
+        final DescriptionIndex index = new DescriptionIndex();
+        index.add("Walk, then feed", 1);
+        index.add("Walk", 2);
+        final long memoryBefore = index.estimatedMemoryBytes();
+        final DescriptionIndex.Removal removal = new DescriptionIndex.Removal();
+        removal.add("Walk, then feed", 1);
+        index.remove(removal);
+        assertTrue(index.estimatedMemoryBytes() < memoryBefore);
+        assertArrayEquals(new int[]{2}, index.find(DescriptionQuery.allOf("walk")));
+        assertArrayEquals(new int[0], index.find(DescriptionQuery.prefix("fe")));
+        index.add("Feed", 3);
+        assertArrayEquals(new int[]{3}, index.find(DescriptionQuery.allOf("feed")));
+
+        // Compaction leaves the index matching the actions still in memory.
+        final ItemActionService itemActionService = new ItemActionService(new ObjectActionStore(),
+                new TimeOrderedIdGenerator(), INDEXED);
+        itemActionService.registerItem(new Dog("Dog1"));
+        final Instant start = Instant.parse("2021-03-01T00:00:00Z");
+        for (int i = 0; i < 1_000; i++) {
+            itemActionService.registerActionOnItem("DOG1", WORDS[i % WORDS.length], i, start.plusSeconds(i));
+        }
+        itemActionService.compactActionsBefore(start.plusSeconds(600), RollupGranularity.DAY, null);
+        assertMatches(itemActionService, ItemClass.DOG, DescriptionQuery.prefix("up"),
+                hasTerm("upgrade").or(hasTerm("upkeep")));
+    }
+
+    @Test
+    void isOnlyKeptWhenChosen() throws Exception {
+        final ItemActionService indexed = new ItemActionService(new ObjectActionStore(), new TimeOrderedIdGenerator(),
+                INDEXED);
+        final ItemActionService unindexed = new ItemActionService();
+        final Instant start = Instant.parse("2021-03-01T00:00:00Z");
+        for (ItemActionService itemActionService : List.of(indexed, unindexed)) {
+            itemActionService.registerItem(new Dog("Dog1"));
+            for (int i = 0; i < 1_000; i++) {
+                itemActionService.registerActionOnItem("DOG1", WORDS[i % WORDS.length] + " " + i, i,
+                        start.plusSeconds(i));
+            }
+        }
+
+        assertEquals(125, indexed.getActionsByDescription(ItemClass.DOG, DescriptionQuery.allOf("walk")).size());
+        assertThrows(IllegalStateException.class, () -> unindexed.getActionsByDescription(ItemClass.DOG,
+                DescriptionQuery.allOf("walk")));
+        assertTrue(indexed.getMetrics().getEstimatedMemoryBytes() > unindexed.getMetrics().getEstimatedMemoryBytes());
+        assertEquals(500, unindexed.compactActionsBefore(start.plusSeconds(500), RollupGranularity.DAY, null));
+    }
+
+    private static void assertMatches(final ItemActionService itemActionService, final ItemClass itemClass,
+                                      final DescriptionQuery query, final Predicate<Action> matching) {
+        final List<Action> expected = scan(itemActionService, itemClass, matching);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, itemActionService.getActionsByDescription(itemClass, query), query.toString());
+    }
+
+    private static List<Action> scan(final ItemActionService itemActionService, final ItemClass itemClass,
+                                     final Predicate<Action> matching) {
+        return itemActionService.streamAllActions()
+                .filter(action -> itemClass == null || itemActionService.getItemById(action.getItemId()).getClass()
+                        == itemClass.getItemClass())
+                .filter(matching)
+                .sorted(Comparator.comparing(ActionCursor::of))
+                .collect(Collectors.toList());
+    }
+
+    private static Predicate<Action> hasTerm(final String term) {
+        return action -> DescriptionIndex.terms(action.getDescription()).contains(term);
+    }
+}
@@ -0,0 +1,187 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemActionServiceConcurrencyTest {
+    private static final int ITEMS = 64;
+    private static final int ACTIONS_PER_RUN = 200_000;
+
+    @Test
+    void registerItemHasSingleWinner() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger registered = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        itemActionService.registerItem(new Dog("Dog1"));
+                        registered.incrementAndGet();
+                    } catch (ItemIdAlreadyRegisteredException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, registered.get(), "Exactly one thread should register the item.");
+        assertEquals(threads - 1, rejected.get(), "All other threads should be rejected.");
+    }
+
+    @Test
+    void registerActionOnItemUnderContention() throws Exception {
+        // More threads than cores, so that registrations are interleaved even on a single core.
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final ItemActionService itemActionService = new ItemActionService();
+        for (int i = 0; i < ITEMS; i++) {
+            itemActionService.registerItem(new Dog("Dog" + i));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<UUID> lastActionId = new AtomicReference<>();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final Set<UUID> actionIds = ConcurrentHashMap.newKeySet();
+        final int actionsPerThread = ACTIONS_PER_RUN / threads;
+        final long[] expectedCosts = new long[ITEMS];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < actionsPerThread; i++) {
+                expectedCosts[(t + i) % ITEMS] += cost(t, i);
+            }
+        }
+        final Instant now = Instant.now();
+
+        try {
+            // A reader runs alongside the writers and must always find the actions it has been told about.
+            final Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    final UUID actionId = lastActionId.get();
+                    if (actionId != null) {
+                        assertEquals(actionId, itemActionService.getActionById(actionId).getId());
+                    }
+                    assertTrue(itemActionService.getActionsOnItem("DOG0").stream()
+                            .allMatch(action -> action.getItemId().equals("DOG0")));
+                }
+                return null;
+            });
+
+            final List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < actionsPerThread; i++) {
+                        final UUID actionId = itemActionService.registerActionOnItem(
+                                "DOG" + ((thread + i) % ITEMS), "Walk", cost(thread, i), now);
+                        actionIds.add(actionId);
+                        if (i % 1000 == 0) {
+                            lastActionId.set(actionId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            reader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final int expected = actionsPerThread * threads;
+        assertEquals(expected, actionIds.size(), "Every registration should get a distinct ID.");
+        assertEquals(expected, itemActionService.getActionCount(), "No registration should be lost.");
+        assertEquals(actionIds, itemActionService.getAllActions().stream().map(Action::getId).collect(Collectors.toSet()));
+        final Map<String, Integer> totals = itemActionService.getItemIdsWithTotalActionCost();
+        long actionsOnItems = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            final String itemId = "DOG" + i;
+            final List<Action> itemActions = itemActionService.getActionsOnItem(itemId);
+            actionsOnItems += itemActions.size();
+            assertTrue(itemActions.stream().allMatch(action -> action.getItemId().equals(itemId)));
+            assertEquals(expectedCosts[i], itemActions.stream().mapToLong(Action::getCost).sum());
+            assertEquals(expectedCosts[i], itemActionService.getTotalActionCostOfItem(itemId));
+            assertEquals(expectedCosts[i], (long) totals.get(itemId));
+        }
+        assertEquals(expected, actionsOnItems, "Every action should be indexed on its item.");
+        assertEquals(expected, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).size(),
+                "Every action should be indexed by performed date.");
+    }
+
+    @Test
+    void leaderboardReadsNeverMissAMovedItem() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        final Instant now = Instant.now();
+        for (int i = 0; i < 4; i++) {
+            itemActionService.registerItem(new Dog("Dog" + i));
+            itemActionService.registerActionOnItem("DOG" + i, "Walk", 1, now);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            // Readers run alongside a writer moving the items past each other, and must always see all of them.
+            final List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (writing.get()) {
+                        final List<Map.Entry<Item, Long>> top = itemActionService.getTopItemsByTotalActionCost(ItemClass.DOG, 4);
+                        assertEquals(4, top.stream().map(Map.Entry::getKey).distinct().count(), top.toString());
+                        assertNotNull(itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.DOG));
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < 200_000; i++) {
+                itemActionService.registerActionOnItem("DOG" + i % 4, "Walk", 1, now);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int cost(final int thread, final int i) {
+        return (thread * 31 + i) % 10;
+    }
+}
@@ -1,221 +1,568 @@
-package com.sandbox.service;
-
-import com.sandbox.exceptions.ActionNotFoundException;
-import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
-import com.sandbox.exceptions.ItemNotFoundException;
-import com.sandbox.model.Action;
-import com.sandbox.model.items.Item;
-import com.sandbox.model.items.ItemClass;
-import com.sandbox.model.items.animals.Dog;
-import com.sandbox.model.items.solids.Ball;
-import com.sandbox.model.items.solids.Box;
-import org.junit.jupiter.api.Test;
-
-import java.time.Duration;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.*;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-class ItemActionServiceTest {
-    final Ball ballA = new Ball("Ball123", "Red", 1.0);
-    final Ball ballB = new Ball("Ball111", "Blue", 2.0);
-
-    final Box boxA = new Box("Box123", "Brown", 1.0, 2.0, 3.0);
-    final Box boxB = new Box("Box456", "Mauve", 1.0, 2.0, 3.0);
-
-    final Dog dogA = new Dog("Dog111");
-    final Dog dogB = new Dog("Dog222");
-    final Dog dogC = new Dog("Dog333");
-
-    @Test
-    void registerItem() {
-        final ItemActionService itemActionService = new ItemActionService();
-        Exception exception;
-
-        final Set<Item> items = new HashSet<>() {{
-            add(ballA);
-            add(ballB);
-        }};
-
-        assertDoesNotThrow(() -> itemActionService.registerItem(ballA),
-                "We should be able to register an item with an Item object.");
-        itemActionService.registerItem(ballB);
-
-        assertEquals(items, itemActionService.getAllItems());
-
-        exception = assertThrows(ItemIdAlreadyRegisteredException.class,
-                () -> itemActionService.registerItem(ballA),
-                "We should not be able to register an item with the same Id");
-        assertTrue(exception.getMessage().contains("Item ID already registered."));
-    }
-
-    @Test
-    void getItemById() {
-        final ItemActionService itemActionService = new ItemActionService();
-        final String id = ballA.getId();
-        assertThrows(ItemNotFoundException.class, () -> itemActionService.getItemById(id));
-
-        itemActionService.registerItem(ballA);
-        assertEquals(ballA, itemActionService.getItemById(ballA.getId()));
-    }
-
-    @Test
-    void getActionById() {
-        final ItemActionService itemActionService = new ItemActionService();
-        UUID uuidNull = new UUID(0, 0);
-        assertThrows(ActionNotFoundException.class, () -> itemActionService.getActionById(uuidNull));
-
-        final String actionDescription = "Upgrade";
-        final int actionCost = 9001;
-        final Instant actionPerformed = Instant.now();
-
-        itemActionService.registerItem(dogA);
-        final UUID actionId = itemActionService.registerActionOnItem(dogA.getId(), actionDescription, actionCost, actionPerformed);
-        final Action action = itemActionService.getActionById(actionId);
-
-        assertEquals(actionId, action.getId());
-        assertEquals(actionDescription, action.getDescription());
-        assertEquals(actionCost, action.getCost());
-        assertEquals(actionPerformed, action.getPerformedDateTime());
-    }
-
-    @Test
-    void registerActionOnItem() {
-        final ItemActionService itemActionService = new ItemActionService();
-        final String ballAId = ballA.getId();
-        final Instant now = Instant.now();
-
-        assertThrows(ItemNotFoundException.class, () -> itemActionService.registerActionOnItem(ballAId, "Throw", 5000, now));
-
-        itemActionService.registerItem(ballA);
-        final UUID actionId = itemActionService.registerActionOnItem(ballAId, "Throw", 5000, Instant.now());
-        final Action action = itemActionService.getActionById(actionId);
-
-        final Set<Action> actions = new HashSet<>() {{
-            add(action);
-        }};
-        assertEquals(actions, itemActionService.getAllActions());
-    }
-
-    @Test
-    void getActionOnItemByActionId() {
-        final ItemActionService itemActionService = new ItemActionService();
-
-        itemActionService.registerItem(dogA);
-        final UUID actionId = itemActionService.registerActionOnItem(dogA.getId(), "Change", 9001, Instant.now());
-        final Action action = itemActionService.getActionById(actionId);
-
-        assertEquals(Collections.singletonMap(action, dogA), itemActionService.getActionOnItemByActionId(action.getId()));
-    }
-
-    @Test
-    void getActionsOfItemTypeSortedByPerformedDate() {
-        final ItemActionService itemActionService = new ItemActionService();
-
-        itemActionService.registerItem(dogA);
-        itemActionService.registerItem(dogB);
-
-        itemActionService.registerActionOnItem(dogA.getId(), "Jump", 3, Instant.now()); // Newest
-        itemActionService.registerActionOnItem(dogB.getId(), "Lift", 1, Instant.now().minus(Duration.of(20, ChronoUnit.MINUTES))); // Oldest
-        itemActionService.registerActionOnItem(dogB.getId(), "Calm", 2, Instant.now().minus(Duration.of(10, ChronoUnit.MINUTES)));
-
-        itemActionService.registerItem(ballA);
-        itemActionService.registerActionOnItem(ballA.getId(), "Tires", 42, Instant.now());
-
-        List<Action> repairList = itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG);
-
-        assertEquals(3, repairList.size(), "We should get 3 actions of ItemType C");
-        assertEquals(1, repairList.get(0).getCost(), "Oldest action has cost 1");
-        assertEquals(2, repairList.get(1).getCost());
-        assertEquals(3, repairList.get(2).getCost(), "Newest action has cost 3");
-
-        assertEquals(1, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.BALL).size());
-        assertEquals(0, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.BOX).size());
-    }
-
-    @Test
-    void getItemIdsWithTotalActionCost() {
-        final ItemActionService itemActionService = new ItemActionService();
-        itemActionService.registerItem(dogA);
-        itemActionService.registerItem(dogB);
-
-        itemActionService.registerActionOnItem(dogA.getId(), "Pet", 100, Instant.now());
-        itemActionService.registerActionOnItem(dogB.getId(), "Play", 100, Instant.now());
-        itemActionService.registerActionOnItem(dogB.getId(), "Feed", 100, Instant.now());
-
-        HashMap<String, Integer> vehicleRepairCost = new HashMap<>() {{
-            put(dogA.getId(), 100);
-            put(dogB.getId(), 200);
-        }};
-
-        assertEquals(vehicleRepairCost.get(dogA.getId()), itemActionService.getItemIdsWithTotalActionCost().get(dogA.getId()));
-        assertEquals(vehicleRepairCost.get(dogB.getId()), itemActionService.getItemIdsWithTotalActionCost().get(dogB.getId()));
-    }
-
-
-    @Test
-    void getItemsWithHighestTotalActionCostByItemType() {
-        final ItemActionService itemActionService = new ItemActionService();
-
-        itemActionService.registerItem(boxA);
-        itemActionService.registerItem(boxB);
-
-        itemActionService.registerActionOnItem(boxA.getId(), "Lift", 1000, Instant.now());
-        itemActionService.registerActionOnItem(boxA.getId(), "Crush", 1000, Instant.now());
-        itemActionService.registerActionOnItem(boxB.getId(), "Throw", 1000, Instant.now());
-
-        assertEquals(Collections.singletonMap(boxA, 2000), itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.BOX),
-                "Item B1 should the highest action cost.");
-
-        itemActionService.registerItem(dogA);
-        itemActionService.registerItem(dogB);
-        itemActionService.registerItem(dogC);
-
-        itemActionService.registerActionOnItem(dogA.getId(), "Jump", 100, Instant.now());
-        itemActionService.registerActionOnItem(dogB.getId(), "Grow", 100, Instant.now());
-        itemActionService.registerActionOnItem(dogC.getId(), "Find", 0, Instant.now());
-
-        HashMap<Item, Integer> pickupARepair = new HashMap<>() {{
-            put(dogA, 100);
-            put(dogB, 100);
-        }};
-        assertEquals(pickupARepair, itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.DOG),
-                "Both itemC1 and itemC2 have equal and the highest total action cost.");
-
-        assertNull(itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.BALL),
-                "No actions for ItemType A should be registered.");
-    }
-
-    @Test
-    void getItemsPartitionedByClass() {
-        final ItemActionService itemActionService = new ItemActionService();
-
-        itemActionService.registerItem(ballA);
-
-        itemActionService.registerItem(boxA);
-        itemActionService.registerItem(boxB);
-        var partitionedItems = itemActionService.getItemsPartitionedByClass();
-
-        assertEquals(ItemClass.getAllClasses().size(), partitionedItems.size(),
-                String.format("We should have %d different Item class objects.", ItemClass.getAllClasses().size()));
-
-        assertEquals(1, partitionedItems.get(Ball.class).size(), "We should have one Ball object.");
-        assertEquals(2, partitionedItems.get(Box.class).size(), "We should have to Ball objects.");
-        assertEquals(0, partitionedItems.get(Dog.class).size(), "We should have zero Dog objects.");
-
-        itemActionService.registerItem(dogA);
-        itemActionService.registerItem(dogB);
-        itemActionService.registerItem(dogC);
-
-        partitionedItems = itemActionService.getItemsPartitionedByClass(ItemClass.DOG, ItemClass.BOX);
-
-        assertEquals(2, partitionedItems.size(), "We should have two different Item class objects (Dog and Box).");
-        assertTrue(partitionedItems.containsKey(Dog.class));
-        assertTrue(partitionedItems.containsKey(Box.class));
-        assertFalse(partitionedItems.containsKey(Ball.class));
-
-        assertEquals(3, partitionedItems.get(Dog.class).size(), "We should have three Dog objects.");
-    }
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ActionNotFoundException;
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Animal;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemActionServiceTest {
+    final Ball ballA = new Ball("Ball123", "Red", 1.0);
+    final Ball ballB = new Ball("Ball111", "Blue", 2.0);
+
+    final Box boxA = new Box("Box123", "Brown", 1.0, 2.0, 3.0);
+    final Box boxB = new Box("Box456", "Mauve", 1.0, 2.0, 3.0);
+
+    final Dog dogA = new Dog("Dog111");
+    final Dog dogB = new Dog("Dog222");
+    final Dog dogC = new Dog("Dog333");
+
+    @Test
+    void registerItem() {
+        final ItemActionService itemActionService = new ItemActionService();
+        Exception exception;
+
+        final Set<Item> items = new HashSet<>() {{
+            add(ballA);
+            add(ballB);
+        }};
+
+        assertDoesNotThrow(() -> itemActionService.registerItem(ballA),
+                "We should be able to register an item with an Item object.");
+        itemActionService.registerItem(ballB);
+
+        assertEquals(items, itemActionService.getAllItems());
+
+        exception = assertThrows(ItemIdAlreadyRegisteredException.class,
+                () -> itemActionService.registerItem(ballA),
+                "We should not be able to register an item with the same Id");
+        assertTrue(exception.getMessage().contains("Item ID already registered."));
+    }
+
+    @Test
+    void getItemById() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final String id = ballA.getId();
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getItemById(id));
+
+        itemActionService.registerItem(ballA);
+        assertEquals(ballA, itemActionService.getItemById(ballA.getId()));
+    }
+
+    @Test
+    void getActionById() {
+        final ItemActionService itemActionService = new ItemActionService();
+        UUID uuidNull = new UUID(0, 0);
+        assertThrows(ActionNotFoundException.class, () -> itemActionService.getActionById(uuidNull));
+
+        final String actionDescription = "Upgrade";
+        final int actionCost = 9001;
+        final Instant actionPerformed = Instant.now();
+
+        itemActionService.registerItem(dogA);
+        final UUID actionId = itemActionService.registerActionOnItem(dogA.getId(), actionDescription, actionCost, actionPerformed);
+        final Action action = itemActionService.getActionById(actionId);
+
+        assertEquals(actionId, action.getId());
+        assertEquals(actionDescription, action.getDescription());
+        assertEquals(actionCost, action.getCost());
+        assertEquals(actionPerformed, action.getPerformedDateTime());
+    }
+
+    @Test
+    void registerActionOnItem() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final String ballAId = ballA.getId();
+        final Instant now = Instant.now();
+
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.registerActionOnItem(ballAId, "Throw", 5000, now));
+
+        itemActionService.registerItem(ballA);
+        final UUID actionId = itemActionService.registerActionOnItem(ballAId, "Throw", 5000, Instant.now());
+        final Action action = itemActionService.getActionById(actionId);
+
+        final Set<Action> actions = new HashSet<>() {{
+            add(action);
+        }};
+        assertEquals(actions, itemActionService.getAllActions());
+    }
+
+    @Test
+    void getActionsOnItem() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final String dogAId = dogA.getId();
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getActionsOnItem(dogAId));
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        assertTrue(itemActionService.getActionsOnItem(dogAId).isEmpty(), "No actions registered on dogA yet.");
+
+        final UUID walkId = itemActionService.registerActionOnItem(dogAId, "Walk", 10, Instant.now());
+        final UUID feedId = itemActionService.registerActionOnItem(dogAId, "Feed", 20, Instant.now());
+        itemActionService.registerActionOnItem(dogB.getId(), "Wash", 30, Instant.now());
+
+        final List<Action> dogAActions = itemActionService.getActionsOnItem(dogAId);
+        assertEquals(2, dogAActions.size(), "dogA should have two actions.");
+        assertEquals(walkId, dogAActions.get(0).getId());
+        assertEquals(feedId, dogAActions.get(1).getId());
+        assertThrows(UnsupportedOperationException.class, () -> dogAActions.add(dogAActions.get(0)));
+    }
+
+    @Test
+    void getActionOnItemByActionId() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(dogA);
+        final UUID actionId = itemActionService.registerActionOnItem(dogA.getId(), "Change", 9001, Instant.now());
+        final Action action = itemActionService.getActionById(actionId);
+
+        assertEquals(Collections.singletonMap(action, dogA), itemActionService.getActionOnItemByActionId(action.getId()));
+    }
+
+    @Test
+    void getActionsOfItemTypeSortedByPerformedDate() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+
+        itemActionService.registerActionOnItem(dogA.getId(), "Jump", 3, Instant.now()); // Newest
+        itemActionService.registerActionOnItem(dogB.getId(), "Lift", 1, Instant.now().minus(Duration.of(20, ChronoUnit.MINUTES))); // Oldest
+        itemActionService.registerActionOnItem(dogB.getId(), "Calm", 2, Instant.now().minus(Duration.of(10, ChronoUnit.MINUTES)));
+
+        itemActionService.registerItem(ballA);
+        itemActionService.registerActionOnItem(ballA.getId(), "Tires", 42, Instant.now());
+
+        List<Action> repairList = itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG);
+
+        assertEquals(3, repairList.size(), "We should get 3 actions of ItemType C");
+        assertEquals(1, repairList.get(0).getCost(), "Oldest action has cost 1");
+        assertEquals(2, repairList.get(1).getCost());
+        assertEquals(3, repairList.get(2).getCost(), "Newest action has cost 3");
+
+        assertEquals(1, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.BALL).size());
+        assertEquals(0, itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.BOX).size());
+    }
+
+    @Test
+    void getActionsOnItemTypeBetween() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final Instant start = Instant.parse("2021-02-01T12:00:00Z");
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(ballA);
+        for (int minute = 9; minute >= 0; minute--) {
+            final Dog dog = minute % 2 == 0 ? dogA : dogB;
+            itemActionService.registerActionOnItem(dog.getId(), "Walk", minute, start.plus(minute, ChronoUnit.MINUTES));
+            itemActionService.registerActionOnItem(ballA.getId(), "Roll", minute, start.plus(minute, ChronoUnit.MINUTES));
+        }
+
+        final Instant from = start.plus(2, ChronoUnit.MINUTES);
+        final Instant to = start.plus(8, ChronoUnit.MINUTES);
+
+        final ActionPage firstPage = itemActionService.getActionsOnItemTypeBetween(ItemClass.DOG, from, to, 4);
+        assertEquals(4, firstPage.getActions().size());
+        assertTrue(firstPage.hasNext(), "There should be more actions in the range.");
+        assertEquals(from, firstPage.getActions().get(0).getPerformedDateTime(), "The range start is inclusive.");
+
+        final ActionPage secondPage = itemActionService.getActionsOnItemTypeBetween(ItemClass.DOG, from, to, firstPage.getNextCursor(), 4);
+        assertEquals(2, secondPage.getActions().size());
+        assertFalse(secondPage.hasNext(), "The second page should be the last one.");
+        assertEquals(start.plus(7, ChronoUnit.MINUTES), secondPage.getActions().get(1).getPerformedDateTime(),
+                "The range end is exclusive.");
+
+        final List<Action> pagedActions = new ArrayList<>(firstPage.getActions());
+        pagedActions.addAll(secondPage.getActions());
+        for (int i = 0; i < pagedActions.size(); i++) {
+            assertEquals(2 + i, pagedActions.get(i).getCost(), "Actions should be paged oldest first.");
+            assertNotEquals(ballA.getId(), pagedActions.get(i).getItemId(), "Only actions on dogs should be paged.");
+        }
+
+        assertTrue(itemActionService.getActionsOnItemTypeBetween(ItemClass.BOX, from, to, 4).getActions().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getActionsOnItemTypeBetween(ItemClass.DOG, to, from, 4));
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getActionsOnItemTypeBetween(ItemClass.DOG, from, to, 0));
+    }
+
+    @Test
+    void getItemIdsWithTotalActionCost() {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+
+        itemActionService.registerActionOnItem(dogA.getId(), "Pet", 100, Instant.now());
+        itemActionService.registerActionOnItem(dogB.getId(), "Play", 100, Instant.now());
+        itemActionService.registerActionOnItem(dogB.getId(), "Feed", 100, Instant.now());
+
+        HashMap<String, Integer> vehicleRepairCost = new HashMap<>() {{
+            put(dogA.getId(), 100);
+            put(dogB.getId(), 200);
+        }};
+
+        assertEquals(vehicleRepairCost.get(dogA.getId()), itemActionService.getItemIdsWithTotalActionCost().get(dogA.getId()));
+        assertEquals(vehicleRepairCost.get(dogB.getId()), itemActionService.getItemIdsWithTotalActionCost().get(dogB.getId()));
+    }
+
+    @Test
+    void getTotalActionCostOfItem() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final String dogAId = dogA.getId();
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getTotalActionCostOfItem(dogAId));
+
+        itemActionService.registerItem(dogA);
+        assertEquals(0, itemActionService.getTotalActionCostOfItem(dogAId), "No actions means no cost.");
+
+        itemActionService.registerActionOnItem(dogAId, "Vet", Integer.MAX_VALUE, Instant.now());
+        itemActionService.registerActionOnItem(dogAId, "Vet", Integer.MAX_VALUE, Instant.now());
+
+        assertEquals(2L * Integer.MAX_VALUE, itemActionService.getTotalActionCostOfItem(dogAId),
+                "Totals are kept as long and should not overflow.");
+        assertThrows(ArithmeticException.class, itemActionService::getItemIdsWithTotalActionCost,
+                "Totals that don't fit in an Integer should not silently wrap.");
+    }
+
+    @Test
+    void getItemsWithHighestTotalActionCostByItemType() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(boxA);
+        itemActionService.registerItem(boxB);
+
+        itemActionService.registerActionOnItem(boxA.getId(), "Lift", 1000, Instant.now());
+        itemActionService.registerActionOnItem(boxA.getId(), "Crush", 1000, Instant.now());
+        itemActionService.registerActionOnItem(boxB.getId(), "Throw", 1000, Instant.now());
+
+        assertEquals(Collections.singletonMap(boxA, 2000), itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.BOX),
+                "Item B1 should the highest action cost.");
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(dogC);
+
+        itemActionService.registerActionOnItem(dogA.getId(), "Jump", 100, Instant.now());
+        itemActionService.registerActionOnItem(dogB.getId(), "Grow", 100, Instant.now());
+        itemActionService.registerActionOnItem(dogC.getId(), "Find", 0, Instant.now());
+
+        HashMap<Item, Integer> pickupARepair = new HashMap<>() {{
+            put(dogA, 100);
+            put(dogB, 100);
+        }};
+        assertEquals(pickupARepair, itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.DOG),
+                "Both itemC1 and itemC2 have equal and the highest total action cost.");
+
+        assertNull(itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.BALL),
+                "No actions for ItemType A should be registered.");
+    }
+
+    @Test
+    void getTopItemsByTotalActionCost() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(dogC);
+        itemActionService.registerItem(ballA);
+        assertTrue(itemActionService.getTopItemsByTotalActionCost(ItemClass.DOG, 3).isEmpty());
+
+        itemActionService.registerActionOnItem(dogA.getId(), "Feed", 10, Instant.now());
+        itemActionService.registerActionOnItem(dogB.getId(), "Feed", 30, Instant.now());
+        itemActionService.registerActionOnItem(dogC.getId(), "Feed", 20, Instant.now());
+        itemActionService.registerActionOnItem(ballA.getId(), "Kick", 1000, Instant.now());
+
+        assertEquals(List.of(Map.entry(dogB, 30L), Map.entry(dogC, 20L)),
+                itemActionService.getTopItemsByTotalActionCost(ItemClass.DOG, 2));
+
+        itemActionService.registerActionOnItem(dogA.getId(), "Vet", 25, Instant.now());
+        assertEquals(List.of(Map.entry(dogA, 35L), Map.entry(dogB, 30L), Map.entry(dogC, 20L)),
+                itemActionService.getTopItemsByTotalActionCost(ItemClass.DOG, 5),
+                "dogA should move to the top after its second action.");
+
+        itemActionService.registerActionOnItem(dogB.getId(), "Vet", 5, Instant.now());
+        assertEquals(List.of(Map.entry(dogA, 35L), Map.entry(dogB, 35L)),
+                itemActionService.getTopItemsByTotalActionCost(ItemClass.DOG, 2),
+                "Items with equal cost are ordered by ID.");
+        assertEquals(Map.of(dogA, 35, dogB, 35), itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.DOG));
+    }
+
+    @Test
+    void getItemsPartitionedByClass() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(ballA);
+
+        itemActionService.registerItem(boxA);
+        itemActionService.registerItem(boxB);
+        var partitionedItems = itemActionService.getItemsPartitionedByClass();
+
+        assertEquals(ItemClass.getAllClasses().size(), partitionedItems.size(),
+                String.format("We should have %d different Item class objects.", ItemClass.getAllClasses().size()));
+
+        assertEquals(1, partitionedItems.get(Ball.class).size(), "We should have one Ball object.");
+        assertEquals(2, partitionedItems.get(Box.class).size(), "We should have to Ball objects.");
+        assertEquals(0, partitionedItems.get(Dog.class).size(), "We should have zero Dog objects.");
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(dogC);
+
+        partitionedItems = itemActionService.getItemsPartitionedByClass(ItemClass.DOG, ItemClass.BOX);
+
+        assertEquals(2, partitionedItems.size(), "We should have two different Item class objects (Dog and Box).");
+        assertTrue(partitionedItems.containsKey(Dog.class));
+        assertTrue(partitionedItems.containsKey(Box.class));
+        assertFalse(partitionedItems.containsKey(Ball.class));
+
+        assertEquals(3, partitionedItems.get(Dog.class).size(), "We should have three Dog objects.");
+    }
+
+    @Test
+    void getItemIdsOfType() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(ballA);
+        itemActionService.registerItem(boxA);
+        final Set<String> ballIds = itemActionService.getItemIdsOfType(ItemClass.BALL);
+
+        assertEquals(Set.of(ballA.getId()), ballIds);
+        assertThrows(UnsupportedOperationException.class, () -> ballIds.add(ballB.getId()));
+
+        itemActionService.registerItem(ballB);
+        assertEquals(Set.of(ballA.getId(), ballB.getId()), ballIds, "The returned IDs are a live view.");
+        assertTrue(itemActionService.getItemIdsOfType(ItemClass.DOG).isEmpty());
+    }
+
+    @Test
+    void getItemsOfParentClass() {
+        final ItemActionService itemActionService = new ItemActionService();
+
+        itemActionService.registerItem(ballA);
+        itemActionService.registerItem(boxA);
+        itemActionService.registerItem(boxB);
+        itemActionService.registerItem(dogA);
+
+        assertEquals(Set.of(ballA, boxA, boxB), itemActionService.getItemsOfParentClass(Solid.class));
+        assertEquals(Set.of(dogA), itemActionService.getItemsOfParentClass(Animal.class));
+        assertTrue(itemActionService.getItemsOfParentClass(Ball.class).isEmpty(), "Ball is not a parent class.");
+        assertThrows(UnsupportedOperationException.class, () -> itemActionService.getItemsOfParentClass(Animal.class).add(dogB));
+    }
+
+    @Test
+    void columnarActionStore() {
+        final ItemActionService itemActionService = new ItemActionService(new ColumnarActionStore());
+        final Instant now = Instant.now();
+
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(boxA);
+        final UUID walkId = itemActionService.registerActionOnItem(dogA.getId(), "Walk", 10, now);
+        itemActionService.registerActionOnItem(dogA.getId(), "Feed", 20, now.minusSeconds(60));
+        itemActionService.registerActionOnItem(boxA.getId(), "Lift", 5, now);
+
+        final Action walk = itemActionService.getActionById(walkId);
+        assertEquals(walkId, walk.getId());
+        assertEquals(dogA.getId(), walk.getItemId());
+        assertEquals("Walk", walk.getDescription());
+        assertEquals(10, walk.getCost());
+        assertEquals(now, walk.getPerformedDateTime());
+
+        assertEquals(3, itemActionService.getAllActions().size());
+        assertEquals(List.of("Feed", "Walk"), itemActionService.getActionsOnItem(dogA.getId()).stream()
+                .map(Action::getDescription).sorted().collect(Collectors.toList()));
+        assertEquals(List.of(20, 10), itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).stream()
+                .map(Action::getCost).collect(Collectors.toList()));
+        assertEquals(30, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+        assertThrows(IllegalArgumentException.class, () -> {
+            final ColumnarActionStore usedStore = new ColumnarActionStore();
+            usedStore.add(walk);
+            new ItemActionService(usedStore);
+        }, "The service should only accept an empty store.");
+    }
+
+    @Test
+    void actionIdGenerator() {
+        final UUID fixedId = UUID.randomUUID();
+        final ItemActionService itemActionService = new ItemActionService(new ObjectActionStore(), () -> fixedId);
+        itemActionService.registerItem(dogA);
+
+        assertEquals(fixedId, itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now()));
+        assertThrows(IllegalStateException.class,
+                () -> itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now()),
+                "A duplicate generated ID should fail the registration.");
+        assertEquals(1, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+
+        final ItemActionService timeOrdered = new ItemActionService();
+        timeOrdered.registerItem(dogA);
+        final List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(timeOrdered.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now()));
+        }
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids,
+                "Default IDs should sort in registration order.");
+    }
+
+    @Test
+    void streamQueries() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final Instant now = Instant.now();
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(ballA);
+        for (int i = 0; i < 10; i++) {
+            itemActionService.registerActionOnItem(i % 2 == 0 ? dogA.getId() : dogB.getId(), "Walk", i, now.plusSeconds(i));
+        }
+        itemActionService.registerActionOnItem(ballA.getId(), "Throw", 1, now);
+
+        assertEquals(itemActionService.getAllItems(), itemActionService.streamAllItems().collect(Collectors.toSet()));
+        assertEquals(itemActionService.getAllActions(), itemActionService.streamAllActions().collect(Collectors.toSet()));
+        assertEquals(itemActionService.getActionsOnItem(dogA.getId()),
+                itemActionService.streamActionsOnItem(dogA.getId()).collect(Collectors.toList()));
+        assertEquals(itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG),
+                itemActionService.streamActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).collect(Collectors.toList()));
+        assertEquals(List.of(2, 3, 4), itemActionService.streamActionsOnItemTypeBetween(ItemClass.DOG, now.plusSeconds(2), now.plusSeconds(5))
+                .map(Action::getCost).collect(Collectors.toList()));
+        assertEquals(List.of(0, 1), itemActionService.streamActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG)
+                .limit(2).map(Action::getCost).collect(Collectors.toList()), "Streams should short-circuit.");
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.streamActionsOnItem(dogC.getId()));
+        assertThrows(IllegalArgumentException.class,
+                () -> itemActionService.streamActionsOnItemTypeBetween(ItemClass.DOG, now, now.minusSeconds(1)));
+
+        // Registering while a stream is consumed neither fails it nor changes what the snapshot streams cover.
+        final Iterator<Action> actions = itemActionService.streamAllActions().iterator();
+        final Iterator<Item> items = itemActionService.streamAllItems().iterator();
+        int actionCount = 0;
+        while (actions.hasNext()) {
+            actions.next();
+            itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, now.minusSeconds(++actionCount));
+        }
+        itemActionService.registerItem(dogC);
+        int itemCount = 0;
+        while (items.hasNext()) {
+            items.next();
+            itemCount++;
+        }
+        assertEquals(11, actionCount);
+        assertEquals(3, itemCount);
+        assertEquals(21, itemActionService.streamActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).count());
+    }
+
+    @Test
+    void registerActions() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final Instant now = Instant.now();
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(ballA);
+
+        final List<UUID> ids = itemActionService.registerActions(List.of(
+                new ActionRequest(dogA.getId(), "Walk", 5, now),
+                new ActionRequest(ballA.getId(), "Throw", null, now.plusSeconds(1)),
+                new ActionRequest(dogA.getId(), "Feed", 7, now.minusSeconds(1)),
+                new ActionRequest(dogB.getId(), "Walk", 20, now)));
+
+        assertEquals(4, ids.size());
+        assertEquals("Throw", itemActionService.getActionById(ids.get(1)).getDescription());
+        assertEquals(List.of(ids.get(0), ids.get(2)), itemActionService.getActionsOnItem(dogA.getId()).stream()
+                .map(Action::getId).collect(Collectors.toList()));
+        assertEquals(12, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+        assertEquals(0, itemActionService.getTotalActionCostOfItem(ballA.getId()));
+        assertEquals(List.of(7, 5, 20), itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG).stream()
+                .map(Action::getCost).collect(Collectors.toList()));
+        assertEquals(Map.of(dogB, 20), itemActionService.getItemsWithHighestTotalActionCostByItemType(ItemClass.DOG));
+
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.registerActions(List.of(
+                new ActionRequest(dogA.getId(), "Walk", 1, now),
+                new ActionRequest(dogC.getId(), "Walk", 1, now))));
+        assertThrows(NullPointerException.class, () -> itemActionService.registerActions(List.of(
+                new ActionRequest(dogA.getId(), "Walk", 1, null))));
+        assertEquals(4, itemActionService.getActionCount(), "A batch failing validation should register nothing.");
+        assertTrue(itemActionService.registerActions(List.of()).isEmpty());
+    }
+
+    @Test
+    void costRollups() {
+        final ItemActionService itemActionService = new ItemActionService(new ObjectActionStore(),
+                new TimeOrderedIdGenerator(), ServiceOptions.defaults()
+                .withRollups(EnumSet.allOf(RollupGranularity.class),
+                        EnumSet.of(RollupGranularity.HOUR, RollupGranularity.DAY)));
+        final Instant start = Instant.parse("2021-03-01T00:00:00Z");
+        itemActionService.registerItem(dogA);
+        itemActionService.registerItem(dogB);
+        itemActionService.registerItem(ballA);
+
+        final Random random = new Random(5);
+        final List<Action> dogActions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            final String itemId = i % 3 == 0 ? ballA.getId() : i % 3 == 1 ? dogA.getId() : dogB.getId();
+            final Instant performed = start.plusSeconds(random.nextInt(3 * 24 * 60 * 60)).plusMillis(random.nextInt(1000));
+            final Integer cost = i % 10 == 0 ? null : random.nextInt(100);
+            itemActionService.registerActionOnItem(itemId, "Walk", cost, performed);
+        }
+        itemActionService.registerActions(List.of(new ActionRequest(dogA.getId(), "Feed", 7, start.plus(Duration.ofHours(6)))));
+        dogActions.addAll(itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG));
+
+        final Instant from = start.plus(Duration.ofMinutes(90));
+        final Instant to = start.plus(Duration.ofHours(40)).plusSeconds(1);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            final SortedMap<Instant, Long> expected = new TreeMap<>();
+            for (Action action : dogActions) {
+                final Instant bucket = granularity.truncate(action.getPerformedDateTime());
+                if (bucket.isBefore(to) && bucket.plusSeconds(granularity.getSeconds()).isAfter(from)) {
+                    expected.merge(bucket, action.getCost() == null ? 0L : action.getCost(), Long::sum);
+                }
+            }
+            assertEquals(expected, itemActionService.getActionCostOfItemTypeBetween(ItemClass.DOG, granularity, from, to),
+                    "Rolled up costs should match grouping the actions by " + granularity + ".");
+        }
+
+        final SortedMap<Instant, Long> dogADays = itemActionService.getActionCostOfItemBetween(dogA.getId(),
+                RollupGranularity.DAY, start, start.plus(Duration.ofDays(3)));
+        assertEquals(List.of(start, start.plus(Duration.ofDays(1)), start.plus(Duration.ofDays(2))),
+                new ArrayList<>(dogADays.keySet()));
+        assertEquals(itemActionService.getTotalActionCostOfItem(dogA.getId()),
+                dogADays.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(Set.of(start.plus(Duration.ofHours(5))), itemActionService.getActionCostOfItemBetween(dogA.getId(),
+                        RollupGranularity.HOUR, start.plus(Duration.ofHours(5)), start.plus(Duration.ofHours(6))).keySet(),
+                "A range ending on a bucket boundary should not include the next bucket.");
+
+        itemActionService.registerItem(dogC);
+        assertTrue(itemActionService.getActionCostOfItemBetween(dogC.getId(), RollupGranularity.DAY, start, to).isEmpty());
+        assertTrue(itemActionService.getActionCostOfItemTypeBetween(ItemClass.DOG, RollupGranularity.HOUR, from, from).isEmpty());
+        assertThrows(IllegalStateException.class, () -> itemActionService.getActionCostOfItemBetween(dogA.getId(),
+                RollupGranularity.MINUTE, start, to));
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getActionCostOfItemTypeBetween(ItemClass.DOG,
+                RollupGranularity.HOUR, to, from));
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getActionCostOfItemBetween("Dog999",
+                RollupGranularity.DAY, start, to));
+
+        final ItemActionService itemClassesOnly = new ItemActionService(new ObjectActionStore(),
+                new TimeOrderedIdGenerator(), ServiceOptions.defaults().withRollups(EnumSet.of(RollupGranularity.DAY),
+                EnumSet.noneOf(RollupGranularity.class)));
+        itemClassesOnly.registerItem(dogA);
+        itemClassesOnly.registerActionOnItem(dogA.getId(), "Walk", 5, start);
+        assertEquals(Map.of(start, 5L), itemClassesOnly.getActionCostOfItemTypeBetween(ItemClass.DOG,
+                RollupGranularity.DAY, start, to));
+        assertThrows(IllegalStateException.class, () -> itemClassesOnly.getActionCostOfItemTypeBetween(ItemClass.DOG,
+                RollupGranularity.HOUR, start, to));
+        assertThrows(IllegalStateException.class, () -> itemClassesOnly.getActionCostOfItemBetween(dogA.getId(),
+                RollupGranularity.DAY, start, to));
+        assertThrows(IllegalStateException.class, () -> new ItemActionService().getActionCostOfItemTypeBetween(
+                ItemClass.DOG, RollupGranularity.DAY, start, to));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.service.metrics.Operation;
+import com.sandbox.service.metrics.ServiceMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    final Ball ballA = new Ball("Ball123", "Red", 1.0);
+    final Dog dogA = new Dog("Dog111");
+    final Dog dogB = new Dog("Dog222");
+
+    @Test
+    void invalidatesOnRegistrationsOnTheQueriedItems() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final ServiceMetrics metrics = itemActionService.getMetrics();
+        final Instant now = Instant.now();
+        itemActionService.registerItem(ballA);
+        itemActionService.registerItem(dogA);
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 5, now);
+
+        final Map<String, Integer> dogs = itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG);
+        assertSame(dogs, itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG));
+        assertEquals(1, metrics.getQueryCacheMisses());
+        assertEquals(1, metrics.getQueryCacheHits());
+        assertThrows(UnsupportedOperationException.class, () -> dogs.put(dogB.getId(), 1));
+
+        final Map<String, Integer> all = itemActionService.getItemIdsWithTotalActionCost();
+        itemActionService.registerItem(dogB);
+        assertSame(dogs, itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG),
+                "An item without actions should not change the totals.");
+        itemActionService.registerActionOnItem(ballA.getId(), "Kick", 3, now);
+        assertSame(dogs, itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG),
+                "An action on a ball should not change the totals of dogs.");
+        assertEquals(Map.of(ballA.getId(), 3, dogA.getId(), 5), itemActionService.getItemIdsWithTotalActionCost());
+        assertNotSame(all, itemActionService.getItemIdsWithTotalActionCost());
+
+        itemActionService.registerActions(List.of(new ActionRequest(dogB.getId(), "Walk", 2, now)));
+        assertEquals(Map.of(dogA.getId(), 5, dogB.getId(), 2),
+                itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG));
+        assertEquals(Map.of(ballA.getId(), 3), itemActionService.getItemIdsWithTotalActionCostByItemType(ItemClass.BALL));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResults() {
+        final ServiceMetrics metrics = new ServiceMetrics(() -> 0, () -> 0, () -> 0);
+        final QueryCache cache = new QueryCache(12, metrics);
+        final ItemClass[] itemClasses = ItemClass.values();
+        for (ItemClass itemClass : itemClasses) {
+            cache.get(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, itemClass, () -> List.of(1, 2, 3, 4),
+                    List::size);
+        }
+        // Every result weighs 5, so the third one overflows the capacity and the two before it are evicted.
+        assertEquals(5, cache.getWeight());
+        assertTrue(metrics.getQueryCacheEvictions() > 0);
+        final ItemClass recent = itemClasses[itemClasses.length - 1];
+        cache.get(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, recent, QueryCacheTest::uncached,
+                List::size);
+        cache.get(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, itemClasses[0], () -> List.of(),
+                List::size);
+        assertEquals(itemClasses.length + 1, metrics.getQueryCacheMisses(), "The oldest result should be evicted.");
+
+        cache.modified(recent);
+        cache.get(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST_BY_ITEM_TYPE, recent, () -> List.of(), List::size);
+        assertEquals(itemClasses.length + 2, metrics.getQueryCacheMisses());
+        cache.getForAll(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST, () -> List.of(1), List::size);
+        cache.getForAll(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST, QueryCacheTest::uncached, List::size);
+        cache.modified(null);
+        cache.getForAll(Operation.GET_ITEM_IDS_WITH_TOTAL_ACTION_COST, () -> List.of(1), List::size);
+        assertEquals(itemClasses.length + 4, metrics.getQueryCacheMisses());
+    }
+
+    private static List<Integer> uncached() {
+        throw new AssertionError("Result should be cached.");
+    }
+}
@@ -0,0 +1,263 @@
+package com.sandbox.service;
+
+import com.sandbox.exceptions.ActionNotFoundException;
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Animal;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.feed.ChangeEvent;
+import com.sandbox.service.feed.SlowConsumerPolicy;
+import com.sandbox.service.feed.Subscription;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.metrics.ServiceMetrics;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import com.sandbox.service.transfer.TransferFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedItemActionServiceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void answersLikeSingleService() {
+        final ServiceOptions options = ServiceOptions.defaults()
+                .withRollups(EnumSet.of(RollupGranularity.MINUTE), EnumSet.of(RollupGranularity.HOUR))
+                .withSolidIndex(ItemClass.BALL, SolidAttribute.VOLUME)
+                .withSolidIndex(ItemClass.BOX, SolidAttribute.VOLUME);
+        final ItemActionService single = new ItemActionService(new ObjectActionStore(), new TimeOrderedIdGenerator(),
+                options);
+        final ShardedItemActionService sharded = new ShardedItemActionService(4, ColumnarActionStore::new, options);
+        final Random random = new Random(11);
+        final Instant now = Instant.now();
+
+        final List<String> itemIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            final Item item = i % 3 == 0 ? new Ball("Ball" + i, "Red", 1.0)
+                    : i % 3 == 1 ? new Box("Box" + i, "Brown", 1.0, 2.0, 3.0)
+                    : new Dog("Dog" + i);
+            single.registerItem(item);
+            sharded.registerItem(item);
+            itemIds.add(item.getId());
+        }
+        final List<UUID> actionIds = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final String itemId = itemIds.get(random.nextInt(itemIds.size()));
+            // Whole seconds, so that many actions share a performed date and are ordered by ID.
+            final Instant performed = now.plusSeconds(random.nextInt(500));
+            final int cost = random.nextInt(50);
+            single.registerActionOnItem(itemId, "Walk", cost, performed);
+            actionIds.add(sharded.registerActionOnItem(itemId, "Walk", cost, performed));
+        }
+        final List<ActionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(new ActionRequest(itemIds.get(random.nextInt(itemIds.size())), "Feed",
+                    i % 10 == 0 ? null : random.nextInt(50), now.plusSeconds(random.nextInt(500))));
+        }
+        single.registerActions(requests);
+        final List<UUID> batchIds = sharded.registerActions(requests);
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(requests.get(i).getItemId(), sharded.getActionById(batchIds.get(i)).getItemId());
+        }
+
+        assertEquals(single.getAllItems(), sharded.getAllItems());
+        assertEquals(2_500, sharded.getActionCount());
+        assertEquals(2_500, sharded.getAllActions().size());
+        for (UUID actionId : actionIds.subList(0, 100)) {
+            final Action action = sharded.getActionById(actionId);
+            assertEquals(actionId, action.getId());
+            assertEquals(sharded.getItemById(action.getItemId()),
+                    sharded.getActionOnItemByActionId(actionId).get(action));
+        }
+        for (String itemId : itemIds) {
+            assertEquals(single.getTotalActionCostOfItem(itemId), sharded.getTotalActionCostOfItem(itemId));
+            assertEquals(single.getActionsOnItem(itemId).size(), sharded.getActionsOnItem(itemId).size());
+            assertEquals(single.getActionCostOfItemBetween(itemId, RollupGranularity.HOUR, now, now.plusSeconds(500)),
+                    sharded.getActionCostOfItemBetween(itemId, RollupGranularity.HOUR, now, now.plusSeconds(500)));
+        }
+
+        assertEquals(single.getItemIdsWithTotalActionCost(), sharded.getItemIdsWithTotalActionCost());
+        assertThrows(UnsupportedOperationException.class, () -> sharded.getItemIdsWithTotalActionCost().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> sharded.getItemIdsWithTotalActionCostByItemType(ItemClass.DOG).clear());
+        final CostReport report = single.aggregateActionCosts(action -> action.getCost() != null);
+        final CostReport shardedReport = sharded.aggregateActionCosts(action -> action.getCost() != null);
+        final CostReport parallelReport = sharded.aggregateActionCosts(null, ForkJoinPool.commonPool());
+        assertEquals(report.getActionCount(), shardedReport.getActionCount());
+        assertEquals(report.getTotalCostByItemId(), shardedReport.getTotalCostByItemId());
+        assertEquals(report.getTotalCostByItemClass(), shardedReport.getTotalCostByItemClass());
+        assertEquals(2_500, parallelReport.getActionCount());
+        assertEquals(single.aggregateActionCosts(null).getTotalCostByItemId(), parallelReport.getTotalCostByItemId());
+        for (ItemClass itemClass : ItemClass.values()) {
+            assertEquals(single.getItemIdsOfType(itemClass), sharded.getItemIdsOfType(itemClass));
+            assertEquals(single.getItemIdsWithTotalActionCostByItemType(itemClass),
+                    sharded.getItemIdsWithTotalActionCostByItemType(itemClass));
+            assertEquals(single.getItemsWithHighestTotalActionCostByItemType(itemClass),
+                    sharded.getItemsWithHighestTotalActionCostByItemType(itemClass));
+            assertEquals(single.getTopItemsByTotalActionCost(itemClass, 5),
+                    sharded.getTopItemsByTotalActionCost(itemClass, 5));
+            assertEquals(report.getTopItems(itemClass, 5), shardedReport.getTopItems(itemClass, 5));
+            assertEquals(single.getActionCostOfItemTypeBetween(itemClass, RollupGranularity.MINUTE, now, now.plusSeconds(500)),
+                    sharded.getActionCostOfItemTypeBetween(itemClass, RollupGranularity.MINUTE, now, now.plusSeconds(500)));
+
+            final List<Action> sorted = sharded.getActionsOnItemTypeSortedByPerformedDate(itemClass);
+            assertEquals(single.getActionsOnItemTypeSortedByPerformedDate(itemClass).size(), sorted.size());
+            for (int i = 1; i < sorted.size(); i++) {
+                assertTrue(ActionCursor.of(sorted.get(i - 1)).compareTo(ActionCursor.of(sorted.get(i))) < 0,
+                        "Merged actions should be in performed date order.");
+            }
+
+            // Paging through the shards gives the same actions as the merged index.
+            final List<Action> paged = new ArrayList<>();
+            ActionCursor cursor = null;
+            do {
+                final ActionPage page = sharded.getActionsOnItemTypeBetween(itemClass, now.plusSeconds(100), now.plusSeconds(400), cursor, 7);
+                paged.addAll(page.getActions());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(sharded.streamActionsOnItemTypeBetween(itemClass, now.plusSeconds(100), now.plusSeconds(400))
+                    .collect(Collectors.toList()), paged);
+        }
+        assertEquals(single.getItemsOfParentClass(Solid.class), sharded.getItemsOfParentClass(Solid.class));
+        assertEquals(Set.copyOf(single.getSolidsBetween(null, SolidAttribute.VOLUME, 0, 10)),
+                Set.copyOf(sharded.getSolidsBetween(null, SolidAttribute.VOLUME, 0, 10)));
+        assertEquals(Set.copyOf(single.getSolidsOfColor(null, "Red")), Set.copyOf(sharded.getSolidsOfColor(null, "Red")));
+        assertEquals(single.getItemsPartitionedByClass(), sharded.getItemsPartitionedByClass());
+    }
+
+    @Test
+    void routesByItemAndActionId() {
+        final ShardedItemActionService sharded = new ShardedItemActionService(3);
+        final Dog dogA = new Dog("Dog111");
+        sharded.registerItem(dogA);
+        final UUID actionId = sharded.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now());
+
+        assertEquals(3, sharded.getShardCount());
+        assertThrows(ItemIdAlreadyRegisteredException.class, () -> sharded.registerItem(dogA));
+        assertThrows(ItemNotFoundException.class, () -> sharded.getItemById("Dog222"));
+        assertThrows(ItemNotFoundException.class, () -> sharded.registerActions(List.of(
+                new ActionRequest(dogA.getId(), "Walk", 1, Instant.now()),
+                new ActionRequest("DOG222", "Walk", 1, Instant.now()))));
+        assertEquals(1, sharded.getActionCount(), "No action of a batch with an unknown item should be registered.");
+        assertThrows(ActionNotFoundException.class, () -> sharded.getActionById(UUID.randomUUID()));
+        assertThrows(ActionNotFoundException.class, () -> new ShardedItemActionService(3).getActionById(actionId),
+                "IDs from another sharded service should not be routed.");
+        assertThrows(IllegalArgumentException.class, () -> new ShardedItemActionService(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedItemActionService(ShardedItemActionService.MAX_SHARDS + 1));
+    }
+
+    @Test
+    void itemViewsAreLive() {
+        final ShardedItemActionService sharded = new ShardedItemActionService(4);
+        final Set<Item> animals = sharded.getItemsOfParentClass(Animal.class);
+        assertTrue(animals.isEmpty());
+
+        for (int i = 0; i < 20; i++) {
+            sharded.registerItem(new Dog("Dog" + i));
+        }
+        assertEquals(20, animals.size());
+        assertTrue(animals.contains(new Dog("Dog7")));
+        assertThrows(UnsupportedOperationException.class, () -> animals.add(new Dog("Dog99")));
+    }
+
+    @Test
+    void publishesEveryShardToOneFeed() throws Exception {
+        final ShardedItemActionService sharded = new ShardedItemActionService(4);
+        final List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final Subscription subscription = sharded.getChangeFeed().subscribe(events::addAll, SlowConsumerPolicy.BLOCK);
+        final List<ActionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final Dog dog = new Dog("Dog" + i);
+            sharded.registerItem(dog);
+            requests.add(new ActionRequest(dog.getId(), "Walk", i, Instant.now()));
+        }
+        sharded.registerActions(requests);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (subscription.getDeliveredCount() < 40) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the subscriber.");
+            Thread.sleep(1);
+        }
+
+        assertEquals(sharded.getAllItems(), events.stream().map(ChangeEvent::getItem).collect(Collectors.toSet()));
+        assertEquals(20, events.stream().filter(event -> event.getAction() != null).count());
+        assertEquals(4, sharded.getShardMetrics().size());
+        assertEquals(20, sharded.getShardMetrics().stream().mapToLong(ServiceMetrics::getItemCount).sum());
+        sharded.close();
+        assertEquals(0, sharded.getChangeFeed().getSubscriberCount(), "Closing should stop the subscriptions.");
+    }
+
+    @Test
+    void retentionCompactsEveryShard() throws Exception {
+        final ShardedItemActionService sharded = new ShardedItemActionService(4);
+        final Instant now = Instant.now();
+        for (int i = 0; i < 20; i++) {
+            final Dog dog = new Dog("Dog" + i);
+            sharded.registerItem(dog);
+            sharded.registerActionOnItem(dog.getId(), "Walk", 1, now.minus(Duration.ofDays(3)));
+            sharded.registerActionOnItem(dog.getId(), "Walk", 2, now);
+        }
+
+        sharded.startRetention(new RetentionPolicy(Duration.ofDays(1), RollupGranularity.DAY,
+                directory.resolve("sharded.archive"), Duration.ofMillis(10)));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (sharded.getActionCount() > 20) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the compaction.");
+            Thread.sleep(1);
+        }
+        sharded.stopRetention();
+        for (Item dog : sharded.getAllItems()) {
+            assertEquals(3, sharded.getTotalActionCostOfItem(dog.getId()));
+            assertEquals(1, sharded.getActionSummariesOfItem(dog.getId()).size());
+        }
+        assertEquals(20, sharded.getShardMetrics().stream().mapToLong(ServiceMetrics::getCompactedActions).sum());
+        sharded.close();
+    }
+
+    @Test
+    void importsOnTheShardsOfTheItems() throws Exception {
+        final ShardedItemActionService sharded = new ShardedItemActionService(4);
+        final Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            sharded.registerItem(i % 2 == 0 ? new Dog("Dog" + i) : new Ball("Ball" + i, "Red", 1.0));
+        }
+        final List<String> itemIds = sharded.streamAllItems().map(Item::getId).collect(Collectors.toList());
+        for (int i = 0; i < 10_000; i++) {
+            sharded.registerActionOnItem(itemIds.get(random.nextInt(itemIds.size())), "Walk", random.nextInt(50),
+                    Instant.now().plusSeconds(random.nextInt(500)));
+        }
+        final Path file = directory.resolve("sharded.bin");
+        assertEquals(10_050, sharded.exportTo(file, TransferFormat.BINARY));
+
+        final ShardedItemActionService imported = new ShardedItemActionService(3);
+        assertEquals(10_050, imported.importFrom(file, TransferFormat.BINARY));
+        assertEquals(sharded.getAllItems(), imported.getAllItems());
+        assertEquals(sharded.getItemIdsWithTotalActionCost(), imported.getItemIdsWithTotalActionCost());
+        for (String itemId : itemIds) {
+            assertEquals(sharded.getActionsOnItem(itemId).size(), imported.getActionsOnItem(itemId).size());
+        }
+        assertThrows(ItemIdAlreadyRegisteredException.class, () -> imported.importFrom(file, TransferFormat.BINARY));
+    }
+}
@@ -0,0 +1,114 @@
+package com.sandbox.service;
+
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.model.items.solids.Solid;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolidIndexTest {
+    private static final String[] COLORS = {"Red", "Blue", "Mauve", "red"};
+
+    @Test
+    void findsTheSameSolidsAsScanning() {
+        final ItemActionService itemActionService = new ItemActionService(new ObjectActionStore(),
+                new TimeOrderedIdGenerator(), ServiceOptions.defaults()
+                .withSolidIndex(ItemClass.BALL, SolidAttribute.VOLUME, SolidAttribute.RADIUS)
+                .withSolidIndex(ItemClass.BOX, SolidAttribute.VOLUME, SolidAttribute.HEIGHT, SolidAttribute.DEPTH,
+                        SolidAttribute.WIDTH));
+        final Random random = new Random(24);
+        for (int i = 0; i < 3_000; i++) {
+            final String color = i % 50 == 0 ? null : COLORS[random.nextInt(COLORS.length)];
+            final Item item = i % 3 == 0 ? new Ball("Ball" + i, color, random.nextInt(100) / 10.0)
+                    : i % 3 == 1 ? new Box("Box" + i, color, random.nextInt(10), random.nextInt(10), random.nextInt(10))
+                    : new Dog("Dog" + i);
+            itemActionService.registerItem(item);
+        }
+
+        assertMatches(itemActionService, ItemClass.BALL, "Red", SolidAttribute.VOLUME, 10, 100);
+        assertMatches(itemActionService, ItemClass.BALL, null, SolidAttribute.RADIUS, 2.5, 2.5);
+        assertMatches(itemActionService, ItemClass.BOX, "Mauve", SolidAttribute.HEIGHT, 3, 6);
+        assertMatches(itemActionService, ItemClass.BOX, null, SolidAttribute.WIDTH, 0, 1);
+        assertMatches(itemActionService, ItemClass.BOX, "Blue", SolidAttribute.DEPTH, 9, 9);
+        assertMatches(itemActionService, null, "red", SolidAttribute.VOLUME, 50, 300);
+        assertMatches(itemActionService, null, null, SolidAttribute.RADIUS, 0, 1);
+        assertTrue(itemActionService.getSolidsBetween(ItemClass.BALL, "Green", SolidAttribute.VOLUME, 0, 1_000).isEmpty());
+
+        for (ItemClass itemClass : new ItemClass[]{ItemClass.BALL, ItemClass.BOX, null}) {
+            assertEquals(ids(scan(itemActionService, itemClass, solid -> "Blue".equals(solid.getColor()))),
+                    ids(itemActionService.getSolidsOfColor(itemClass, "Blue")));
+        }
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getSolidsBetween(ItemClass.BOX,
+                SolidAttribute.RADIUS, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getSolidsBetween(ItemClass.BALL,
+                SolidAttribute.RADIUS, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> itemActionService.getSolidsOfColor(ItemClass.DOG, "Red"));
+    }
+
+    @Test
+    void indexesOnlyTheChosenClassesAndAttributes() {
+        final ServiceOptions options = ServiceOptions.defaults().withSolidIndex(ItemClass.BALL, SolidAttribute.RADIUS);
+        final ItemActionService indexed = new ItemActionService(new ObjectActionStore(), new TimeOrderedIdGenerator(),
+                options);
+        final ItemActionService unindexed = new ItemActionService();
+        for (int i = 0; i < 1_000; i++) {
+            final Item item = i % 2 == 0 ? new Ball("Ball" + i, "Red", i % 10) : new Box("Box" + i, "Red", 1, 2, 3);
+            indexed.registerItem(item);
+            unindexed.registerItem(item);
+        }
+
+        assertEquals(100, indexed.getSolidsBetween(ItemClass.BALL, "Red", SolidAttribute.RADIUS, 4, 5).size());
+        assertEquals(500, indexed.getSolidsOfColor(ItemClass.BALL, "Red").size());
+        assertThrows(IllegalStateException.class, () -> indexed.getSolidsBetween(ItemClass.BALL, SolidAttribute.VOLUME,
+                0, 1));
+        assertThrows(IllegalStateException.class, () -> indexed.getSolidsOfColor(ItemClass.BOX, "Red"));
+        assertThrows(IllegalStateException.class, () -> indexed.getSolidsOfColor(null, "Red"));
+        assertThrows(IllegalStateException.class, () -> unindexed.getSolidsBetween(null, SolidAttribute.RADIUS, 0, 1));
+        assertTrue(indexed.getMetrics().getEstimatedMemoryBytes() > unindexed.getMetrics().getEstimatedMemoryBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> options.withSolidIndex(ItemClass.DOG));
+        assertThrows(IllegalArgumentException.class, () -> options.withSolidIndex(ItemClass.BOX,
+                SolidAttribute.RADIUS));
+    }
+
+    private static void assertMatches(final ItemActionService itemActionService, final ItemClass itemClass,
+                                      final String color, final SolidAttribute attribute, final double from,
+                                      final double to) {
+        final List<Solid> expected = scan(itemActionService, itemClass, solid ->
+                (itemClass != null || attribute.appliesTo(ItemClass.fromClass(solid.getClass())))
+                        && (color == null || color.equals(solid.getColor()))
+                        && attribute.valueOf(solid) >= from && attribute.valueOf(solid) <= to);
+        final List<Solid> found = itemActionService.getSolidsBetween(itemClass, color, attribute, from, to);
+        assertFalse(expected.isEmpty());
+        assertEquals(ids(expected), ids(found));
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(attribute.valueOf(found.get(i - 1)) <= attribute.valueOf(found.get(i)),
+                    "Solids should be in order of " + attribute + ".");
+        }
+    }
+
+    private static List<Solid> scan(final ItemActionService itemActionService, final ItemClass itemClass,
+                                    final Predicate<Solid> matching) {
+        return itemActionService.streamAllItems()
+                .filter(item -> item instanceof Solid)
+                .filter(item -> itemClass == null || item.getClass() == itemClass.getItemClass())
+                .map(item -> (Solid) item)
+                .filter(matching)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(final List<Solid> solids) {
+        return solids.stream().map(Item::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,177 @@
+package com.sandbox.service.feed;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.service.ActionRequest;
+import com.sandbox.service.ItemActionService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+    final Dog dogA = new Dog("Dog111");
+    final Dog dogB = new Dog("Dog222");
+
+    @Test
+    void publishesRegistrations() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        final List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final Instant now = Instant.now();
+        itemActionService.registerItem(dogA);
+        assertEquals(0, itemActionService.getChangeFeed().getSequence(), "Nothing should be published without subscribers.");
+
+        final Subscription subscription = itemActionService.getChangeFeed().subscribe(events::addAll, SlowConsumerPolicy.BLOCK);
+        itemActionService.registerItem(dogB);
+        final UUID walk = itemActionService.registerActionOnItem(dogA.getId(), "Walk", 5, now);
+        final List<UUID> batch = itemActionService.registerActions(List.of(
+                new ActionRequest(dogB.getId(), "Feed", 1, now),
+                new ActionRequest(dogA.getId(), "Feed", 2, now)));
+        awaitTrue(() -> subscription.getDeliveredCount() == 4);
+        subscription.close();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L), events.stream().map(ChangeEvent::getSequence).collect(Collectors.toList()));
+        assertEquals(ChangeEvent.Type.ITEM_REGISTERED, events.get(0).getType());
+        assertEquals(dogB, events.get(0).getItem());
+        assertNull(events.get(0).getAction());
+        assertEquals(ChangeEvent.Type.ACTION_REGISTERED, events.get(1).getType());
+        assertEquals(dogA, events.get(1).getItem());
+        assertEquals(walk, events.get(1).getAction().getId());
+        assertEquals(batch, events.subList(2, 4).stream().map(event -> event.getAction().getId()).collect(Collectors.toList()));
+        assertEquals(0, itemActionService.getChangeFeed().getSubscriberCount());
+
+        itemActionService.registerItem(new Dog("Dog333"));
+        assertEquals(4, events.size(), "A closed subscription should not receive events.");
+    }
+
+    @Test
+    void blockingSubscriberMissesNothing() throws Exception {
+        final ChangeFeed feed = new ChangeFeed(8);
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final Subscription subscription = feed.subscribe(events -> {
+            events.forEach(event -> sequences.add(event.getSequence()));
+            Thread.yield();
+        }, SlowConsumerPolicy.BLOCK, 3);
+
+        final ExecutorService publishers = Executors.newFixedThreadPool(2);
+        try {
+            final List<Future<?>> published = new ArrayList<>();
+            for (int p = 0; p < 2; p++) {
+                published.add(publishers.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        feed.publish(dogA);
+                    }
+                }));
+            }
+            for (Future<?> future : published) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            feed.publishAll(new Dog[]{dogA, dogB}, new Action[2], 2);
+        } finally {
+            publishers.shutdownNow();
+        }
+        awaitTrue(() -> subscription.getDeliveredCount() == 4_002);
+        feed.close();
+
+        assertEquals(0, subscription.getMissedCount());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, sequences.get(i));
+        }
+        assertTrue(subscription.isClosed());
+        assertThrows(IllegalStateException.class, () -> feed.subscribe(events -> {
+        }, SlowConsumerPolicy.BLOCK));
+    }
+
+    @Test
+    void slowSubscribersSkipOverwrittenEvents() throws Exception {
+        final ChangeFeed feed = new ChangeFeed(8);
+        final Recorder drop = new Recorder();
+        final Recorder lag = new Recorder();
+        final Subscription dropping = feed.subscribe(drop, SlowConsumerPolicy.DROP);
+        final Subscription lagging = feed.subscribe(lag, SlowConsumerPolicy.LAG);
+
+        // Both listeners hold on to the first event while the ring buffer goes round more than once.
+        feed.publish(dogA);
+        assertTrue(drop.entered.await(10, TimeUnit.SECONDS));
+        assertTrue(lag.entered.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < 100; i++) {
+            feed.publish(dogA);
+        }
+        drop.release.countDown();
+        lag.release.countDown();
+        awaitTrue(() -> dropping.getDeliveredCount() + dropping.getMissedCount() == 100
+                && lagging.getDeliveredCount() + lagging.getMissedCount() == 100);
+
+        assertEquals(List.of(0L), drop.sequences, "Dropping should skip to the newest event.");
+        assertEquals(99, drop.missed);
+        assertEquals(List.of(0L, 92L, 93L, 94L, 95L, 96L, 97L, 98L, 99L), lag.sequences,
+                "Lagging should carry on with the oldest event left.");
+        assertEquals(91, lag.missed);
+
+        feed.publish(dogB);
+        awaitTrue(() -> dropping.getDeliveredCount() == 2);
+        assertEquals(100L, drop.sequences.get(1));
+        feed.close();
+    }
+
+    @Test
+    void failingListenerIsUnsubscribed() throws Exception {
+        final ChangeFeed feed = new ChangeFeed(2);
+        final IllegalStateException failure = new IllegalStateException("Listener failed.");
+        final Subscription subscription = feed.subscribe(events -> {
+            throw failure;
+        }, SlowConsumerPolicy.BLOCK);
+
+        feed.publish(dogA);
+        awaitTrue(subscription::isClosed);
+        assertSame(failure, subscription.getFailure());
+        for (int i = 0; i < 10; i++) {
+            feed.publish(dogA);
+        }
+        assertFalse(feed.hasSubscribers());
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(12));
+    }
+
+    private static void awaitTrue(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the subscriber.");
+            Thread.sleep(1);
+        }
+    }
+
+    private static final class Recorder implements ChangeListener {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        private volatile long missed;
+
+        @Override
+        public void onEvents(final List<ChangeEvent> events) {
+            events.forEach(event -> sequences.add(event.getSequence()));
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onMissed(final long count) {
+            missed += count;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.sandbox.service.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+    @Test
+    void generatesVersion7Ids() {
+        final Instant now = Instant.parse("2021-02-01T12:00:00.123Z");
+        final UUID id = new TimeOrderedIdGenerator(Clock.fixed(now, ZoneOffset.UTC)).next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(now, TimeOrderedIdGenerator.timestampOf(id));
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIdGenerator.timestampOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void idsIncreaseWithinThread() {
+        final MutableClock clock = new MutableClock(Instant.parse("2021-02-01T12:00:00Z"));
+        final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock);
+        final List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 == 0) {
+                clock.instant = clock.instant.plusMillis(1);
+            } else if (i % 777 == 0) {
+                // The clock going back must not break the order.
+                clock.instant = clock.instant.minusSeconds(1);
+            }
+            ids.add(generator.next());
+        }
+
+        final List<UUID> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(ids, sorted, "IDs should sort in the order they were generated.");
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        final int threads = 8;
+        final int idsPerThread = 50_000;
+        final Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(generator.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final java.time.ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.sandbox.service.metrics;
+
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.ServiceOptions;
+import com.sandbox.service.id.TimeOrderedIdGenerator;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceMetricsTest {
+    final Dog dogA = new Dog("Dog111");
+
+    @Test
+    void histogramPercentilesAreWithinRelativeError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1_000_000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000.5, histogram.getMean(), 500_000.5 / 128);
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            final double expected = percentile * 10_000;
+            final long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * (1 + 1.0 / 64),
+                    percentile + "th percentile was " + actual + ".");
+        }
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void histogramBucketsCoverEveryValue() {
+        long previous = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.bucket(Long.MAX_VALUE); bucket++) {
+            final long highest = LatencyHistogram.highestValue(bucket);
+            assertEquals(bucket, LatencyHistogram.bucket(previous + 1));
+            assertEquals(bucket, LatencyHistogram.bucket(highest));
+            previous = highest;
+        }
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final ServiceMetrics metrics = new ServiceMetrics(() -> 0, () -> 0, () -> 0);
+        for (int i = 0; i < 100_000; i++) {
+            metrics.stop(Operation.GET_ITEM_BY_ID, metrics.start(Operation.GET_ITEM_BY_ID));
+            metrics.stop(Operation.REGISTER_ITEM, metrics.start(Operation.REGISTER_ITEM));
+            metrics.actionRegistered();
+        }
+
+        final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 100_000; i++) {
+            metrics.stop(Operation.GET_ITEM_BY_ID, metrics.start(Operation.GET_ITEM_BY_ID));
+            metrics.stop(Operation.REGISTER_ITEM, metrics.start(Operation.REGISTER_ITEM));
+            metrics.actionRegistered();
+        }
+        final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertTrue(allocated < 1024, "Recording allocated " + allocated + " bytes.");
+    }
+
+    @Test
+    void countsServiceCalls() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final ServiceMetrics metrics = itemActionService.getMetrics();
+        itemActionService.registerItem(dogA);
+        assertThrows(ItemIdAlreadyRegisteredException.class, () -> itemActionService.registerItem(dogA));
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 2, Instant.now());
+        itemActionService.getItemById(dogA.getId());
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getItemById("Dog000"));
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getActionsOnItem("Dog000"));
+        itemActionService.aggregateActionCosts(null);
+        itemActionService.aggregateActionCosts(null, ForkJoinPool.commonPool());
+
+        assertEquals(1, metrics.getItemRegistrations());
+        assertEquals(1, metrics.getActionRegistrations());
+        assertEquals(1, metrics.getIdCollisions());
+        assertEquals(3, metrics.getLookups());
+        assertEquals(2, metrics.getNotFound());
+        assertEquals(1, metrics.getItemCount());
+        assertEquals(1, metrics.getActionCount());
+        assertTrue(metrics.getEstimatedMemoryBytes() > 0);
+        assertEquals(2, metrics.getLatency(Operation.REGISTER_ITEM).getCount());
+        assertEquals(2, metrics.getCount(Operation.GET_ITEM_BY_ID));
+        assertEquals(2, metrics.getLatency(Operation.AGGREGATE_ACTION_COSTS).getCount());
+        assertFalse(metrics.getLatencies().containsKey(Operation.GET_ALL_ACTIONS.name()));
+    }
+
+    @Test
+    void timesASampleOfLookups() {
+        final ItemActionService itemActionService = new ItemActionService();
+        final ServiceMetrics metrics = itemActionService.getMetrics();
+        itemActionService.registerItem(dogA);
+        for (int i = 0; i < 100_000; i++) {
+            itemActionService.getItemById(dogA.getId());
+        }
+
+        assertEquals(100_000, metrics.getCount(Operation.GET_ITEM_BY_ID));
+        assertEquals(100_000, metrics.getLatencies().get(Operation.GET_ITEM_BY_ID.name()).getCount());
+        final long timed = metrics.getLatency(Operation.GET_ITEM_BY_ID).getCount();
+        assertTrue(timed > 0 && timed < 100_000 / (ServiceMetrics.LOOKUP_SAMPLE_PERIOD / 2),
+                timed + " lookups were timed.");
+    }
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        final ItemActionService itemActionService = new ItemActionService(new ObjectActionStore(),
+                new TimeOrderedIdGenerator(), ServiceOptions.defaults().withMetrics(false));
+        final ServiceMetrics metrics = itemActionService.getMetrics();
+        itemActionService.registerItem(dogA);
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 2, Instant.now());
+        itemActionService.getItemById(dogA.getId());
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.getItemById("Dog000"));
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.getItemRegistrations());
+        assertEquals(0, metrics.getActionRegistrations());
+        assertEquals(0, metrics.getLookups());
+        assertEquals(0, metrics.getNotFound());
+        assertEquals(0, metrics.getLatency(Operation.REGISTER_ITEM).getCount());
+        assertTrue(metrics.getLatencies().isEmpty());
+        assertEquals(1, metrics.getItemCount(), "Gauges are read from the service either way.");
+        assertEquals(1, metrics.getActionCount());
+    }
+
+    @Test
+    void publishesOverJmx() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name;
+        try (ItemActionService itemActionService = new ItemActionService()) {
+            name = itemActionService.getMetrics().registerMBean("metrics-test");
+            itemActionService.registerItem(dogA);
+
+            assertEquals(1, server.getAttribute(name, "ItemCount"));
+            assertEquals(1L, server.getAttribute(name, "ItemRegistrations"));
+            final TabularData latencies = (TabularData) server.getAttribute(name, "Latencies");
+            final CompositeData registerItem = (CompositeData) latencies.get(new Object[]{Operation.REGISTER_ITEM.name()})
+                    .get("value");
+            assertEquals(1L, registerItem.get("count"));
+
+            server.invoke(name, "resetLatencies", null, null);
+            assertTrue(((TabularData) server.getAttribute(name, "Latencies")).isEmpty());
+        }
+        assertFalse(server.isRegistered(name), "Closing the service should unregister its metrics.");
+    }
+}
@@ -0,0 +1,53 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsArchivesLargerThanItsBuffer() throws Exception {
+        final Instant now = Instant.now();
+        final List<Action> actions = new ArrayList<>();
+        // Enough actions to fill the read buffer several times, with records straddling its end.
+        for (int i = 0; i < 100_000; i++) {
+            actions.add(new Action("DOG111", i % 3 == 0 ? null : "Walk " + i, i % 7 == 0 ? null : i, now.plusNanos(i)));
+        }
+        final Path archive = directory.resolve("actions.archive");
+        ActionArchive.append(archive, actions.subList(0, 50_000));
+        // A record larger than the read buffer.
+        final Action large = new Action("DOG111", "Walk".repeat(1 << 19), 1, now);
+        ActionArchive.append(archive, List.of(large));
+        ActionArchive.append(archive, actions.subList(50_000, actions.size()));
+        actions.add(50_000, large);
+
+        final List<Action> archived = new ArrayList<>();
+        ActionArchive.read(archive, archived::add);
+        assertEquals(actions, archived);
+        assertEquals(large.getDescription(), archived.get(50_000).getDescription());
+        assertEquals(actions.get(100_000).getCost(), archived.get(100_000).getCost());
+
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertThrows(IOException.class, () -> ActionArchive.read(archive, action -> {
+        }));
+        final Path other = Files.writeString(directory.resolve("other"), "Not an archive");
+        assertThrows(IOException.class, () -> ActionArchive.read(other, action -> {
+        }));
+    }
+}
@@ -0,0 +1,183 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.ItemClass;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionLogTest {
+    final Ball ballA = new Ball("Ball123", "Red", 1.0);
+    final Box boxA = new Box("Box123", "Brown", 1.0, 2.0, 3.0);
+    final Dog dogA = new Dog("Dog111");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresRegistrations() throws Exception {
+        final Instant now = Instant.now();
+        final UUID throwId;
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            itemActionService.registerItem(ballA);
+            itemActionService.registerItem(boxA);
+            itemActionService.registerItem(dogA);
+            throwId = itemActionService.registerActionOnItem(ballA.getId(), "Throw", 5, now);
+            itemActionService.registerActionOnItem(dogA.getId(), "Walk", null, now.minusSeconds(60));
+            itemActionService.registerActionOnItem(dogA.getId(), null, 7, now);
+        }
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            assertEquals(Set.of(ballA, boxA, dogA), itemActionService.getAllItems());
+            assertEquals(ballA, itemActionService.getItemById(ballA.getId()));
+            assertEquals(boxA, itemActionService.getItemById(boxA.getId()));
+            assertEquals(3, itemActionService.getAllActions().size());
+
+            final Action throwAction = itemActionService.getActionById(throwId);
+            assertEquals(ballA.getId(), throwAction.getItemId());
+            assertEquals("Throw", throwAction.getDescription());
+            assertEquals(5, throwAction.getCost());
+            assertEquals(now, throwAction.getPerformedDateTime());
+
+            final List<Action> dogActions = itemActionService.getActionsOnItemTypeSortedByPerformedDate(ItemClass.DOG);
+            assertEquals("Walk", dogActions.get(0).getDescription());
+            assertNull(dogActions.get(0).getCost());
+            assertNull(dogActions.get(1).getDescription());
+            assertEquals(7, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+
+            itemActionService.registerActionOnItem(boxA.getId(), "Lift", 3, now);
+        }
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.NONE)) {
+            assertEquals(4, itemActionService.getAllActions().size(), "Registrations after a restore should be logged too.");
+        }
+    }
+
+    @Test
+    void rollsSegments() throws Exception {
+        final Instant now = Instant.now();
+
+        final ActionLog log = ActionLog.open(directory, Durability.ASYNC, 4096, Duration.ofMillis(1));
+        try (ItemActionService itemActionService = ItemActionService.open(log, new ObjectActionStore())) {
+            itemActionService.registerItem(dogA);
+            for (int i = 0; i < 1000; i++) {
+                itemActionService.registerActionOnItem(dogA.getId(), "Walk", i, now.plusSeconds(i));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1, "The log should have rolled over to new segments.");
+        }
+
+        final ActionLog reopened = ActionLog.open(directory, Durability.ASYNC, 4096, Duration.ofMillis(1));
+        try (ItemActionService itemActionService = ItemActionService.open(reopened, new ColumnarActionStore())) {
+            final List<Action> actions = itemActionService.getActionsOnItem(dogA.getId());
+            assertEquals(1000, actions.size());
+            for (int i = 0; i < actions.size(); i++) {
+                assertEquals(i, actions.get(i).getCost(), "Actions should be replayed in log order.");
+            }
+        }
+    }
+
+    @Test
+    void discardsTornRecord() throws Exception {
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            itemActionService.registerItem(dogA);
+            itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now());
+        }
+
+        // Simulate a crash halfway through writing a record after the last one.
+        final Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer records = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int end = 0;
+            for (int length = records.getInt(end); length != 0; length = records.getInt(end)) {
+                end += 2 * Integer.BYTES + length;
+            }
+            records.putInt(end, 40);
+            records.putInt(end + Integer.BYTES, 12345);
+            records.put(end + 2 * Integer.BYTES, (byte) 2);
+        }
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            assertEquals(1, itemActionService.getAllActions().size(), "The torn record should be discarded.");
+            itemActionService.registerActionOnItem(dogA.getId(), "Feed", 2, Instant.now());
+        }
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            assertEquals(3, itemActionService.getTotalActionCostOfItem(dogA.getId()),
+                    "Records appended after a torn record should be replayed.");
+        }
+    }
+
+    @Test
+    void syncRegistrationsFromManyThreads() throws Exception {
+        final int threads = 8;
+        final int actionsPerThread = 200;
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.SYNC)) {
+            itemActionService.registerItem(dogA);
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < actionsPerThread; i++) {
+                            itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now());
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.NONE)) {
+            assertEquals(threads * actionsPerThread, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+        }
+    }
+
+    @Test
+    void rejectsAppendsBeforeReplay() throws IOException {
+        final ActionLog log = ActionLog.open(directory, Durability.NONE);
+
+        assertThrows(IllegalStateException.class, () -> log.append(dogA));
+        log.close();
+    }
+
+    @Test
+    void rejectsUnknownItemClass() throws IOException {
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.NONE)) {
+            assertThrows(IllegalArgumentException.class, () -> itemActionService.registerItem(new Dog("Dog222") {
+            }));
+            assertTrue(itemActionService.getAllItems().isEmpty(), "An item that can't be logged should not be registered.");
+        }
+    }
+}
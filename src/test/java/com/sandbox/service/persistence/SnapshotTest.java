@@ -0,0 +1,172 @@
+package com.sandbox.service.persistence;
+
+import com.sandbox.model.Action;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.store.ColumnarActionStore;
+import com.sandbox.service.store.ObjectActionStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+    final Ball ballA = new Ball("Ball123", "Red", 1.0);
+    final Box boxA = new Box("Box123", "Brown", 1.0, 2.0, 3.0);
+    final Dog dogA = new Dog("Dog111");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresSnapshot() throws Exception {
+        final Instant now = Instant.now();
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(ballA);
+        itemActionService.registerItem(boxA);
+        itemActionService.registerItem(dogA);
+        // Enough actions to span several sections.
+        for (int i = 0; i < 150_000; i++) {
+            itemActionService.registerActionOnItem(i % 2 == 0 ? ballA.getId() : dogA.getId(), "Throw", i % 10, now.plusNanos(i));
+        }
+        itemActionService.registerActionOnItem(boxA.getId(), null, null, now);
+
+        final Path file = directory.resolve("service.snap");
+        itemActionService.writeSnapshot(file);
+        final ItemActionService restored = ItemActionService.fromSnapshot(file, new ColumnarActionStore());
+
+        assertEquals(Set.of(ballA, boxA, dogA), restored.getAllItems());
+        final Box box = (Box) restored.getItemById(boxA.getId());
+        assertEquals("Brown", box.getColor());
+        assertEquals(boxA.getWidth(), box.getWidth());
+        assertEquals(itemActionService.getAllActions(), restored.getAllActions());
+        assertEquals(itemActionService.getActionsOnItem(dogA.getId()), restored.getActionsOnItem(dogA.getId()),
+                "Actions should be restored in registration order.");
+        assertEquals(itemActionService.getItemIdsWithTotalActionCost(), restored.getItemIdsWithTotalActionCost());
+
+        final Action boxAction = restored.getActionsOnItem(boxA.getId()).get(0);
+        assertNull(boxAction.getDescription());
+        assertNull(boxAction.getCost());
+    }
+
+    @Test
+    void snapshotReplacesLogSegments() throws Exception {
+        final Instant now = Instant.now();
+
+        final ActionLog log = ActionLog.open(directory, Durability.ASYNC, 4096, Duration.ofMillis(1));
+        try (ItemActionService itemActionService = ItemActionService.open(log, new ObjectActionStore())) {
+            itemActionService.registerItem(dogA);
+            for (int i = 0; i < 1000; i++) {
+                itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, now.plusSeconds(i));
+            }
+            final Path snapshot = itemActionService.snapshot().join();
+            assertEquals(Snapshot.file(directory, log.getWrittenPosition()), snapshot);
+            itemActionService.registerItem(ballA);
+            itemActionService.registerActionOnItem(ballA.getId(), "Throw", 2, now);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() <= 3, "Only the snapshot and the segments appended to since should be left.");
+        }
+
+        final ActionLog reopened = ActionLog.open(directory, Durability.ASYNC, 4096, Duration.ofMillis(1));
+        try (ItemActionService itemActionService = ItemActionService.open(reopened, new ColumnarActionStore())) {
+            assertEquals(1000, itemActionService.getTotalActionCostOfItem(dogA.getId()));
+            assertEquals(2, itemActionService.getTotalActionCostOfItem(ballA.getId()));
+            assertEquals(1001, itemActionService.getActionCount());
+        }
+    }
+
+    @Test
+    void snapshotDoesNotStopWriters() throws Exception {
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final int registered;
+
+        final ActionLog log = ActionLog.open(directory, Durability.NONE, 64 * 1024, Duration.ofMillis(1));
+        try (ItemActionService itemActionService = ItemActionService.open(log, new ObjectActionStore())) {
+            itemActionService.registerItem(dogA);
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                final Future<Integer> writer = executor.submit(() -> {
+                    int count = 0;
+                    while (writing.get() || count < 10_000) {
+                        if (count % 100 == 0) {
+                            itemActionService.registerItem(new Dog("Dog" + count));
+                        }
+                        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now());
+                        count++;
+                    }
+                    return count;
+                });
+                while (itemActionService.getActionCount() < 5_000) {
+                    Thread.yield();
+                }
+                itemActionService.snapshot().join();
+                itemActionService.snapshot().join();
+                writing.set(false);
+                registered = writer.get();
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(registered, itemActionService.getActionCount());
+        }
+
+        try (ItemActionService itemActionService = ItemActionService.open(directory, Durability.NONE)) {
+            assertEquals(registered, itemActionService.getActionCount(), "No registration should be lost.");
+            assertEquals((registered + 99) / 100 + 1, itemActionService.getAllItems().size());
+        }
+    }
+
+    @Test
+    void rejectsCorruptSection() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        itemActionService.registerItem(dogA);
+        itemActionService.registerActionOnItem(dogA.getId(), "Walk", 1, Instant.now());
+        final Path file = directory.resolve("service.snap");
+        itemActionService.writeSnapshot(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 20);
+        }
+
+        assertThrows(IOException.class, () -> ItemActionService.fromSnapshot(file, new ObjectActionStore()));
+    }
+
+    @Test
+    void onlyPersistedServiceSnapshotsToDirectory() {
+        assertThrows(IllegalStateException.class, () -> new ItemActionService().snapshot());
+    }
+
+    @Test
+    void listsSnapshotsByLogPosition() throws IOException {
+        assertNull(Snapshot.latest(directory));
+        Files.createFile(Snapshot.file(directory, 9));
+        Files.createFile(Snapshot.file(directory, 10));
+        Files.createFile(directory.resolve("segment-0000000000.log"));
+
+        assertEquals(Snapshot.file(directory, 10), Snapshot.latest(directory));
+        Snapshot.deleteOlder(directory, Snapshot.file(directory, 10));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("segment-0000000000.log"), Snapshot.file(directory, 10)),
+                    files.sorted().collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sandbox.service.store;
+
+import com.sandbox.model.Action;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionStoreTest {
+    @Test
+    void objectActionStore() throws Exception {
+        verifyStore(ObjectActionStore::new);
+    }
+
+    @Test
+    void columnarActionStore() throws Exception {
+        verifyStore(ColumnarActionStore::new);
+    }
+
+    private void verifyStore(final Supplier<ActionStore> storeSupplier) throws Exception {
+        final ActionStore store = storeSupplier.get();
+        final Action walk = new Action("DOG1", "Walk", 10, Instant.parse("2021-02-01T12:00:00.123456789Z"));
+        final Action empty = new Action("DOG2", null, null, Instant.EPOCH);
+
+        assertEquals(-1, store.find(walk.getId()));
+        assertNull(store.get(0), "Nothing is stored in row 0 yet.");
+
+        final int walkRow = store.add(walk);
+        final int emptyRow = store.add(empty);
+        assertEquals(-1, store.add(new Action(walk.getId(), "DOG3", "Copy", 1, Instant.now())),
+                "An action with an already stored ID should be rejected.");
+
+        assertEquals(walkRow, store.find(walk.getId()));
+        assertEquals(emptyRow, store.find(empty.getId()));
+        assertEquals(2, store.size());
+        assertTrue(store.rowCount() >= 2);
+        assertActionEquals(walk, store.get(walkRow));
+        assertActionEquals(empty, store.get(emptyRow));
+
+        // Concurrent adds must all be found, even while the ID index grows.
+        final ActionStore concurrentStore = storeSupplier.get();
+        final int threads = 4;
+        final int actionsPerThread = 20_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<List<Action>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    final List<Action> added = new ArrayList<>();
+                    for (int i = 0; i < actionsPerThread; i++) {
+                        final Action action = new Action("BOX" + (i % 100), "Lift", i, Instant.ofEpochSecond(i));
+                        assertTrue(concurrentStore.add(action) >= 0);
+                        added.add(action);
+                    }
+                    return added;
+                }));
+            }
+            for (Future<List<Action>> future : futures) {
+                for (Action action : future.get()) {
+                    assertActionEquals(action, concurrentStore.get(concurrentStore.find(action.getId())));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * actionsPerThread, concurrentStore.size());
+
+        // Removed actions are gone, and the others are still found once the ID index has been rebuilt around them.
+        final ActionStore removalStore = storeSupplier.get();
+        final List<Action> added = new ArrayList<>();
+        final List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            final Action action = new Action("BALL" + (i % 10), "Kick", i, Instant.ofEpochSecond(i));
+            added.add(action);
+            rows.add(removalStore.add(action));
+            if (i == 19_999) {
+                final long memoryBefore = removalStore.estimatedMemoryBytes();
+                for (int removed = 0; removed < 15_000; removed++) {
+                    assertTrue(removalStore.remove(rows.get(removed)));
+                }
+                assertFalse(removalStore.remove(rows.get(0)), "A row can only be removed once.");
+                assertTrue(removalStore.estimatedMemoryBytes() < memoryBefore);
+            }
+        }
+        assertEquals(25_000, removalStore.size());
+        for (int i = 0; i < added.size(); i++) {
+            if (i < 15_000) {
+                assertNull(removalStore.get(rows.get(i)));
+                assertEquals(-1, removalStore.find(added.get(i).getId()));
+            } else {
+                assertActionEquals(added.get(i), removalStore.get(removalStore.find(added.get(i).getId())));
+            }
+        }
+    }
+
+    private static void assertActionEquals(final Action expected, final Action actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getItemId(), actual.getItemId());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getCost(), actual.getCost());
+        assertEquals(expected.getPerformedDateTime(), actual.getPerformedDateTime());
+    }
+}
@@ -0,0 +1,153 @@
+package com.sandbox.service.transfer;
+
+import com.sandbox.exceptions.ItemIdAlreadyRegisteredException;
+import com.sandbox.exceptions.ItemNotFoundException;
+import com.sandbox.model.Action;
+import com.sandbox.model.items.Item;
+import com.sandbox.model.items.animals.Dog;
+import com.sandbox.model.items.solids.Ball;
+import com.sandbox.model.items.solids.Box;
+import com.sandbox.service.ItemActionService;
+import com.sandbox.service.metrics.Operation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkTransferTest {
+    private static final String[] DESCRIPTIONS = {"Throw", "Paint, then \"dry\"", "Line\nbreak", "", "Tab\tand \\",
+            "Cr\u00e8me br\u00fbl\u00e9e \ud83c\udf89", "\u0001"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryFormat() throws Exception {
+        final ItemActionService itemActionService = new ItemActionService();
+        final Random random = new Random(25);
+        final Item[] items = {new Ball("Ball1", "Red", 1.5), new Ball("Ball2", null, 0.1 + 0.2),
+                new Box("Box1", "", 1.0, 2.25, 1e-7), new Box("Box2", "Bl\u00e5", 12_345_678.875, 3, 1e20),
+                new Dog("Dog1"), new Dog("Dog2")};
+        for (Item item : items) {
+            itemActionService.registerItem(item);
+        }
+        final Instant start = Instant.parse("1969-12-31T23:59:59.999Z");
+        // Enough actions to span several chunks of the reader.
+        for (int i = 0; i < 80_000; i++) {
+            itemActionService.registerActionOnItem(items[random.nextInt(items.length)].getId(),
+                    i % 50 == 0 ? null : DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    i % 7 == 0 ? null : random.nextInt() / (1 + random.nextInt(1_000)),
+                    start.plusSeconds(random.nextInt(2_000_000_000)).plusNanos(random.nextInt(1_000) * 1_000L));
+        }
+        itemActionService.registerActionOnItem(items[4].getId(), "Far", 1, Instant.parse("+12345-01-01T00:00:00Z"));
+
+        for (TransferFormat format : TransferFormat.values()) {
+            final Path file = directory.resolve("export." + format.name().toLowerCase());
+            assertEquals(items.length + 80_001, itemActionService.exportTo(file, format));
+
+            final ItemActionService imported = new ItemActionService();
+            assertEquals(items.length + 80_001, imported.importFrom(file, format), format.name());
+            assertEquals(Set.of(items), imported.getAllItems(), format.name());
+            assertEquals(describe(itemActionService), describe(imported), format.name());
+            assertEquals(1, imported.getMetrics().getLatency(Operation.IMPORT_FROM).getCount());
+        }
+        assertEquals(TransferFormat.values().length,
+                itemActionService.getMetrics().getLatency(Operation.EXPORT_TO).getCount());
+    }
+
+    @Test
+    void readsHandWrittenFiles() throws Exception {
+        final Path ndjson = write("items.ndjson", "{\"id\": \"Ball1\", \"radius\": 2.5e0, \"type\": \"ball\", \"shape\": 3}\n"
+                + "\n"
+                + "{\"type\":\"dog\",\"id\":\"Dog\\u0032\"}\r\n"
+                + "{\"type\":\"action\",\"itemId\":\"BALL1\",\"description\":\"Say \\\"hi\\\"\\n\\u00e9\\ud83d\\ude00\",\"cost\":-3,"
+                + "\"performed\":\"2021-03-01T12:00:00+01:00\"}\n"
+                + "{\"type\":\"action\",\"itemId\":\"BALL1\",\"cost\":null,\"performed\":\"2021-03-01T12:00:00.5Z\"}");
+        final ItemActionService itemActionService = new ItemActionService();
+        assertEquals(4, itemActionService.importFrom(ndjson, TransferFormat.NDJSON));
+        assertEquals(new Ball("Ball1", null, 2.5), itemActionService.getItemById("BALL1"));
+        assertEquals(new Dog("Dog2"), itemActionService.getItemById("DOG2"));
+        final List<Action> actions = itemActionService.getActionsOnItem("BALL1");
+        assertEquals("Say \"hi\"\n\u00e9\ud83d\ude00", actions.get(0).getDescription());
+        assertEquals(-3, actions.get(0).getCost());
+        assertEquals(Instant.parse("2021-03-01T11:00:00Z"), actions.get(0).getPerformedDateTime());
+        assertNull(actions.get(1).getDescription());
+        assertNull(actions.get(1).getCost());
+        assertEquals(Instant.parse("2021-03-01T12:00:00.500Z"), actions.get(1).getPerformedDateTime());
+
+        final Path csv = write("items.csv", "id,note,type,height,depth,width,color\r\n"
+                + "Box1,\"a, \"\"b\"\"\nc\",box,1,2,3,\"\"\r\n"
+                + "\r\n"
+                + "Box2,,box,4,5,6,");
+        assertEquals(2, itemActionService.importFrom(csv, TransferFormat.CSV));
+        assertEquals(new Box("Box1", "", 1, 2, 3), itemActionService.getItemById("BOX1"));
+        assertEquals(new Box("Box2", null, 4, 5, 6), itemActionService.getItemById("BOX2"));
+    }
+
+    @Test
+    void stopsAtTheFirstRecordThatCantBeRegistered() throws Exception {
+        final Path unknownItem = write("unknown.csv", "type,id,itemId,performed\n"
+                + "dog,Dog1,,\n"
+                + "action,,DOG1,2021-03-01T00:00:00Z\n"
+                + "action,,DOG2,2021-03-01T00:00:00Z\n"
+                + "dog,Dog2,,\n");
+        final ItemActionService itemActionService = new ItemActionService();
+        assertThrows(ItemNotFoundException.class, () -> itemActionService.importFrom(unknownItem, TransferFormat.CSV));
+        assertEquals(Set.of(new Dog("Dog1")), itemActionService.getAllItems());
+        assertEquals(1, itemActionService.getActionCount());
+
+        final Path duplicateItem = write("duplicate.csv", "type,id,itemId,performed\n"
+                + "dog,Dog1,,\n"
+                + "action,,DOG1,2021-03-01T00:00:00Z\n"
+                + "action,,DOG1,2021-03-02T00:00:00Z\n"
+                + "dog,Dog1,,\n");
+        final ItemActionService duplicates = new ItemActionService();
+        assertThrows(ItemIdAlreadyRegisteredException.class,
+                () -> duplicates.importFrom(duplicateItem, TransferFormat.CSV));
+        assertEquals(2, duplicates.getActionCount());
+
+        // A malformed record after several chunks of actions.
+        final StringBuilder actions = new StringBuilder("type,id,itemId,performed\ndog,Dog1,,\n");
+        for (int i = 0; i < 150_000; i++) {
+            actions.append("action,,DOG1,2021-03-01T00:00:00Z\n");
+        }
+        final Path malformedAfterChunks = write("chunks.csv", actions.append("action,,DOG1,yesterday\n").toString());
+        final ItemActionService chunks = new ItemActionService();
+        assertThrows(IOException.class, () -> chunks.importFrom(malformedAfterChunks, TransferFormat.CSV));
+        assertEquals(150_000, chunks.getActionCount());
+
+        final Path malformed = write("malformed.ndjson", "{\"type\":\"dog\",\"id\":\"Dog3\"}\n{\"type\":\"cat\"}\n");
+        final IOException e = assertThrows(IOException.class,
+                () -> itemActionService.importFrom(malformed, TransferFormat.NDJSON));
+        assertTrue(e.getMessage().contains("offset 27"), e.getMessage());
+        assertThrows(IOException.class, () -> itemActionService.importFrom(malformed, TransferFormat.BINARY));
+
+        final Path binary = directory.resolve("export.bin");
+        itemActionService.exportTo(binary, TransferFormat.BINARY);
+        final byte[] bytes = Files.readAllBytes(binary);
+        bytes[bytes.length - 3] ^= 1;
+        Files.write(binary, bytes);
+        assertThrows(IOException.class, () -> new ItemActionService().importFrom(binary, TransferFormat.BINARY));
+    }
+
+    private Path write(final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> describe(final ItemActionService itemActionService) {
+        return itemActionService.streamAllActions()
+                .map(action -> action.getItemId() + "|" + action.getDescription() + "|" + action.getCost() + "|"
+                        + action.getPerformedDateTime())
+                .collect(Collectors.toList());
+    }
+}